@@ -20,6 +20,7 @@ import io.netty.util.IllegalReferenceCountException;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.internal.EmptyArrays;
 import io.netty.util.internal.RecyclableArrayList;
+import io.netty.util.internal.UnstableApi;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -1815,6 +1816,64 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
     }
 
+    /**
+     * Passes the memory address and the length of each component which holds bytes from {@code index} to
+     * {@code index + length} to the given {@link ComponentMemoryProcessor}, in order. Unlike
+     * {@link #nioBuffers(int, int)} this neither creates a {@link ByteBuffer} per component nor an array, so it can be
+     * used to fill a native {@code iovec} array on every write attempt, starting at the component which holds the
+     * current reader index.
+     *
+     * @return the number of bytes which were accepted by the processor, or {@code -1} if one of the components has no
+     *         memory address, in which case the processor was not called at all
+     */
+    @UnstableApi
+    public int forEachComponentMemory(int index, int length, ComponentMemoryProcessor processor) {
+        checkIndex(index, length);
+        checkNotNull(processor, "processor");
+        if (length == 0) {
+            return 0;
+        }
+        final int start = toComponentIndex0(index);
+        final int end = index + length;
+        for (int i = start; i < componentCount && components[i].offset < end; i++) {
+            Component c = components[i];
+            if (c.endOffset != c.offset && !c.buf.hasMemoryAddress()) {
+                return -1;
+            }
+        }
+
+        int processed = 0;
+        for (int i = start; index < end; i++) {
+            Component c = components[i];
+            int localLength = Math.min(end, c.endOffset) - index;
+            if (localLength == 0) {
+                continue;
+            }
+            if (!processor.processComponentMemory(c.buf.memoryAddress() + c.idx(index), localLength)) {
+                break;
+            }
+            index += localLength;
+            processed += localLength;
+        }
+        return processed;
+    }
+
+    /**
+     * Processes the memory of the components of a {@link CompositeByteBuf}.
+     *
+     * @see CompositeByteBuf#forEachComponentMemory(int, int, ComponentMemoryProcessor)
+     */
+    @UnstableApi
+    public interface ComponentMemoryProcessor {
+        /**
+         * Called with the memory of a component which holds {@code length} bytes starting at {@code memoryAddress}.
+         *
+         * @return {@code true} if the memory was accepted and the next component should be processed, {@code false}
+         *         if it was not accepted and the processing should stop
+         */
+        boolean processComponentMemory(long memoryAddress, int length);
+    }
+
     /**
      * Consolidate the composed {@link ByteBuf}s
      */
@@ -879,6 +879,11 @@ class WrappedCompositeByteBuf extends CompositeByteBuf {
         return wrapped.nioBuffers(index, length);
     }
 
+    @Override
+    public int forEachComponentMemory(int index, int length, ComponentMemoryProcessor processor) {
+        return wrapped.forEachComponentMemory(index, length, processor);
+    }
+
     @Override
     public CompositeByteBuf consolidate() {
         wrapped.consolidate();
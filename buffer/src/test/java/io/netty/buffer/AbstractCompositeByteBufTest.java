@@ -740,6 +740,61 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         buf.release();
     }
 
+    @Test
+    public void testForEachComponentMemory() {
+        Assume.assumeTrue(PlatformDependent.hasUnsafe());
+        CompositeByteBuf buf = compositeBuffer();
+        buf.addComponents(true,
+                directBuffer(4).writeBytes(new byte[] { 1, 2, 3, 4 }),
+                EMPTY_BUFFER,
+                directBuffer(4).writeBytes(new byte[] { 5, 6, 7, 8 }),
+                directBuffer(4).writeBytes(new byte[] { 9, 10, 11, 12 }));
+
+        final List<byte[]> chunks = new ArrayList<byte[]>();
+        CompositeByteBuf.ComponentMemoryProcessor collector = new CompositeByteBuf.ComponentMemoryProcessor() {
+            @Override
+            public boolean processComponentMemory(long memoryAddress, int length) {
+                byte[] chunk = new byte[length];
+                PlatformDependent.copyMemory(memoryAddress, chunk, 0, length);
+                chunks.add(chunk);
+                return chunks.size() < 2;
+            }
+        };
+
+        // Starts in the middle of the first component and stops when the processor does not accept the memory.
+        assertEquals(3, buf.forEachComponentMemory(1, 10, collector));
+        assertEquals(2, chunks.size());
+        assertArrayEquals(new byte[] { 2, 3, 4 }, chunks.get(0));
+        assertArrayEquals(new byte[] { 5, 6, 7, 8 }, chunks.get(1));
+
+        // Resumes at the exact component after a partial write.
+        chunks.clear();
+        buf.readerIndex(5);
+        assertEquals(3, buf.forEachComponentMemory(buf.readerIndex(), 3, collector));
+        assertEquals(1, chunks.size());
+        assertArrayEquals(new byte[] { 6, 7, 8 }, chunks.get(0));
+
+        assertEquals(0, buf.forEachComponentMemory(0, 0, collector));
+        buf.release();
+    }
+
+    @Test
+    public void testForEachComponentMemoryWithoutMemoryAddress() {
+        CompositeByteBuf buf = compositeBuffer();
+        buf.addComponents(true, directBuffer(4).writeZero(4), wrappedBuffer(new byte[4]));
+
+        final List<Integer> lengths = new ArrayList<Integer>();
+        assertEquals(-1, buf.forEachComponentMemory(0, 8, new CompositeByteBuf.ComponentMemoryProcessor() {
+            @Override
+            public boolean processComponentMemory(long memoryAddress, int length) {
+                lengths.add(length);
+                return true;
+            }
+        }));
+        assertTrue(lengths.isEmpty());
+        buf.release();
+    }
+
     @Test
     public void testRemoveLastComponent() {
         CompositeByteBuf buf = compositeBuffer();
@@ -23,9 +23,13 @@ import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundBatchHandler;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelReadBatch;
 import io.netty.channel.socket.ChannelInputShutdownEvent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
 
 import java.util.List;
 
@@ -216,6 +220,7 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
     ByteBuf cumulation;
     private Cumulator cumulator = MERGE_CUMULATOR;
     private boolean singleDecode;
+    private boolean batchDelivery;
     private boolean first;
 
     /**
@@ -260,6 +265,32 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         return singleDecode;
     }
 
+    /**
+     * If set then all messages decoded from one {@link #channelRead(ChannelHandlerContext, Object)} call are passed
+     * through the {@link ChannelPipeline} as a single batch via {@link ChannelReadBatch}, which saves traversing the
+     * {@link ChannelPipeline} once per message if the next handlers are {@link ChannelInboundBatchHandler}s.
+     * <p>
+     * As messages are only forwarded once all of the received bytes were decoded, this must not be used if a handler
+     * behind this decoder may remove or replace it in response to a message.
+     *
+     * Default is {@code false}.
+     */
+    @UnstableApi
+    public void setBatchDelivery(boolean batchDelivery) {
+        this.batchDelivery = batchDelivery;
+    }
+
+    /**
+     * If {@code true} then all messages decoded from one {@link #channelRead(ChannelHandlerContext, Object)} call
+     * are passed through the {@link ChannelPipeline} as a single batch.
+     *
+     * Default is {@code false}.
+     */
+    @UnstableApi
+    public boolean isBatchDelivery() {
+        return batchDelivery;
+    }
+
     /**
      * Set the {@link Cumulator} to use for cumulate the received {@link ByteBuf}s.
      */
@@ -386,7 +417,7 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
                 // firedChannelRead 属性在channelReadComplete()方法中被调用
                 firedChannelRead |= out.insertSinceRecycled();
                 // 遍历解码消息集合，转发消息到下一个Handler 处理器中
-                fireChannelRead(ctx, out, size);
+                fireDecoded(ctx, out, size);
                 // 回收解码消息集合，以便下次循环利用
                 out.recycle();
             }
@@ -395,6 +426,18 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
         }
     }
 
+    /**
+     * Get {@code numElements} out of the {@link List} and forward these through the pipeline, as a single batch if
+     * {@link #isBatchDelivery()} is set.
+     */
+    final void fireDecoded(ChannelHandlerContext ctx, List<Object> msgs, int numElements) {
+        if (batchDelivery && numElements > 1) {
+            ChannelReadBatch.fire(ctx, numElements == msgs.size() ? msgs : msgs.subList(0, numElements));
+        } else {
+            fireChannelRead(ctx, msgs, numElements);
+        }
+    }
+
     /**
      * Get {@code numElements} out of the {@link List} and forward these through the pipeline.
      */
@@ -472,7 +515,7 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
                     cumulation = null;
                 }
                 int size = out.size();
-                fireChannelRead(ctx, out, size);
+                fireDecoded(ctx, out, size);
                 if (size > 0) {
                     // Something was read, call fireChannelReadComplete()
                     ctx.fireChannelReadComplete();
@@ -514,7 +557,7 @@ public abstract class ByteToMessageDecoder extends ChannelInboundHandlerAdapter
             while (in.isReadable()) {
                 int outSize = out.size();
                 // 判断是否已经有可用的消息
-                if (outSize > 0) {
+                if (outSize > 0 && !batchDelivery) {
                     // 触发下一个Handler 去处理这些解码出来的消息
                     fireChannelRead(ctx, out, outSize);
                     out.clear();
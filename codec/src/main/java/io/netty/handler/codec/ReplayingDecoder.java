@@ -382,7 +382,7 @@ public abstract class ReplayingDecoder<S> extends ByteToMessageDecoder {
                 int oldReaderIndex = checkpoint = in.readerIndex();
                 int outSize = out.size();
 
-                if (outSize > 0) {
+                if (outSize > 0 && !isBatchDelivery()) {
                     fireChannelRead(ctx, out, outSize);
                     out.clear();
 
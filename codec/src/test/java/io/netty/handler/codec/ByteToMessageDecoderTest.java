@@ -21,12 +21,16 @@ import io.netty.buffer.Unpooled;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.buffer.UnpooledHeapByteBuf;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundBatchHandler;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
+import io.netty.channel.ChannelReadBatch;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.util.internal.PlatformDependent;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingDeque;
@@ -399,4 +403,49 @@ public class ByteToMessageDecoderTest {
         }
         assertFalse(channel.finish());
     }
+
+    @Test
+    public void testBatchDelivery() {
+        final List<Integer> batchSizes = new ArrayList<Integer>();
+        FixedLengthFrameDecoder decoder = new FixedLengthFrameDecoder(1);
+        decoder.setBatchDelivery(true);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder, new BatchHandler() {
+            @Override
+            public void channelReadBatch(ChannelHandlerContext ctx, List<Object> msgs) {
+                batchSizes.add(msgs.size());
+                ChannelReadBatch.fire(ctx, msgs);
+            }
+        });
+
+        assertTrue(channel.writeInbound(wrappedBuffer(new byte[] { 0, 1, 2, 3 })));
+        assertTrue(channel.writeInbound(wrappedBuffer(new byte[] { 4 })));
+        // A single message is passed on via channelRead.
+        assertEquals(Collections.singletonList(4), batchSizes);
+
+        for (int i = 0; i < 5; i++) {
+            ByteBuf read = channel.readInbound();
+            assertEquals(i, read.getByte(0));
+            read.release();
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testBatchDeliveryToNonBatchHandler() {
+        FixedLengthFrameDecoder decoder = new FixedLengthFrameDecoder(1);
+        decoder.setBatchDelivery(true);
+        EmbeddedChannel channel = new EmbeddedChannel(decoder);
+
+        assertTrue(channel.writeInbound(wrappedBuffer(new byte[] { 0, 1, 2 })));
+        for (int i = 0; i < 3; i++) {
+            ByteBuf read = channel.readInbound();
+            assertEquals(i, read.getByte(0));
+            read.release();
+        }
+        assertFalse(channel.finish());
+    }
+
+    private abstract static class BatchHandler extends ChannelInboundHandlerAdapter
+            implements ChannelInboundBatchHandler {
+    }
 }
@@ -17,6 +17,8 @@
 package io.netty.util;
 
 import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -24,8 +26,10 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.netty.util.internal.MathUtil.safeFindNextPositivePowerOfTwo;
 import static java.lang.Math.max;
@@ -49,6 +53,7 @@ public abstract class Recycler<T> {
     };
     private static final AtomicInteger ID_GENERATOR = new AtomicInteger(Integer.MIN_VALUE);
     private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
+    private static final int MPSC_QUEUE_ID = ID_GENERATOR.getAndIncrement();
     private static final int DEFAULT_INITIAL_MAX_CAPACITY_PER_THREAD = 4 * 1024; // Use 4k instances as default.
     private static final int DEFAULT_MAX_CAPACITY_PER_THREAD;
     private static final int INITIAL_CAPACITY;
@@ -56,6 +61,9 @@ public abstract class Recycler<T> {
     private static final int MAX_DELAYED_QUEUES_PER_THREAD;
     private static final int LINK_CAPACITY;
     private static final int RATIO;
+    private static final boolean MPSC_QUEUE;
+    // Hits are reported to the Recycler in batches to keep the fast path free of shared writes.
+    private static final int HIT_REPORT_INTERVAL = 64;
 
     static {
         // In the future, we might have different maxCapacity for different object types.
@@ -86,17 +94,23 @@ public abstract class Recycler<T> {
         // bursts.
         RATIO = safeFindNextPositivePowerOfTwo(SystemPropertyUtil.getInt("io.netty.recycler.ratio", 8));
 
+        // Use a bounded lock-free MPSC queue per Stack instead of the WeakOrderQueues for objects that are recycled
+        // by other threads.
+        MPSC_QUEUE = SystemPropertyUtil.getBoolean("io.netty.recycler.mpscQueue", false);
+
         if (logger.isDebugEnabled()) {
             if (DEFAULT_MAX_CAPACITY_PER_THREAD == 0) {
                 logger.debug("-Dio.netty.recycler.maxCapacityPerThread: disabled");
                 logger.debug("-Dio.netty.recycler.maxSharedCapacityFactor: disabled");
                 logger.debug("-Dio.netty.recycler.linkCapacity: disabled");
                 logger.debug("-Dio.netty.recycler.ratio: disabled");
+                logger.debug("-Dio.netty.recycler.mpscQueue: disabled");
             } else {
                 logger.debug("-Dio.netty.recycler.maxCapacityPerThread: {}", DEFAULT_MAX_CAPACITY_PER_THREAD);
                 logger.debug("-Dio.netty.recycler.maxSharedCapacityFactor: {}", MAX_SHARED_CAPACITY_FACTOR);
                 logger.debug("-Dio.netty.recycler.linkCapacity: {}", LINK_CAPACITY);
                 logger.debug("-Dio.netty.recycler.ratio: {}", RATIO);
+                logger.debug("-Dio.netty.recycler.mpscQueue: {}", MPSC_QUEUE);
             }
         }
 
@@ -107,12 +121,16 @@ public abstract class Recycler<T> {
     private final int maxSharedCapacityFactor;
     private final int ratioMask;
     private final int maxDelayedQueuesPerThread;
+    private final boolean mpscQueue;
+    private final LongCounter hits = PlatformDependent.newLongCounter();
+    private final LongCounter misses = PlatformDependent.newLongCounter();
+    private final LongCounter drops = PlatformDependent.newLongCounter();
 
     private final FastThreadLocal<Stack<T>> threadLocal = new FastThreadLocal<Stack<T>>() {
         @Override
         protected Stack<T> initialValue() {
             return new Stack<T>(Recycler.this, Thread.currentThread(), maxCapacityPerThread, maxSharedCapacityFactor,
-                    ratioMask, maxDelayedQueuesPerThread);
+                    ratioMask, maxDelayedQueuesPerThread, mpscQueue);
         }
 
         @Override
@@ -140,6 +158,18 @@ public abstract class Recycler<T> {
 
     protected Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor,
                        int ratio, int maxDelayedQueuesPerThread) {
+        this(maxCapacityPerThread, maxSharedCapacityFactor, ratio, maxDelayedQueuesPerThread, MPSC_QUEUE);
+    }
+
+    /**
+     * @param mpscQueue {@code true} if objects that are recycled by another thread than the one that obtained them
+     *                  should be handed back through a lock-free MPSC queue. Each queue holds at most
+     *                  {@code maxCapacityPerThread / maxSharedCapacityFactor} objects and is only allocated once
+     *                  the first object is recycled by another thread; {@code maxDelayedQueuesPerThread} is not used.
+     */
+    protected Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor,
+                       int ratio, int maxDelayedQueuesPerThread, boolean mpscQueue) {
+        this.mpscQueue = mpscQueue;
         ratioMask = safeFindNextPositivePowerOfTwo(ratio) - 1;
         if (maxCapacityPerThread <= 0) {
             this.maxCapacityPerThread = 0;
@@ -162,8 +192,11 @@ public abstract class Recycler<T> {
         DefaultHandle<T> handle = stack.pop();
         if (handle == null) {
             // 如果没有闲置对象，调用newObject新建一个新对象
+            misses.increment();
             handle = stack.newHandle();
             handle.value = newObject(handle);
+        } else {
+            stack.recordHit();
         }
         return (T) handle.value;
     }
@@ -186,6 +219,29 @@ public abstract class Recycler<T> {
         return true;
     }
 
+    /**
+     * Returns the number of {@link #get()} calls that were served by a pooled object. Hits are reported in batches
+     * per thread, so the returned value may lag behind.
+     */
+    public final long numHits() {
+        return hits.value();
+    }
+
+    /**
+     * Returns the number of {@link #get()} calls that had to create a new object.
+     */
+    public final long numMisses() {
+        return misses.value();
+    }
+
+    /**
+     * Returns the number of recycled objects that were not pooled, because the pool or the queue for objects
+     * recycled by other threads was full or the object was dropped to limit the pool growth.
+     */
+    public final long numDrops() {
+        return drops.value();
+    }
+
     final int threadLocalCapacity() {
         return threadLocal.get().elements.length;
     }
@@ -350,7 +406,7 @@ public abstract class Recycler<T> {
                     ? newQueue(stack, thread) : null;
         }
 
-        void add(DefaultHandle<?> handle) {
+        boolean add(DefaultHandle<?> handle) {
             handle.lastRecycledId = id;
 
             Link tail = this.tail;
@@ -358,7 +414,7 @@ public abstract class Recycler<T> {
             if ((writeIndex = tail.get()) == LINK_CAPACITY) {
                 if (!head.reserveSpace(LINK_CAPACITY)) {
                     // Drop it.
-                    return;
+                    return false;
                 }
                 // We allocate a Link so reserve the space
                 this.tail = tail = tail.next = new Link();
@@ -370,6 +426,7 @@ public abstract class Recycler<T> {
             // we lazy set to ensure that setting stack to null appears before we unnull it in the owning thread;
             // this also means we guarantee visibility of an element in the queue if we see the index updated
             tail.lazySet(writeIndex + 1);
+            return true;
         }
 
         boolean hasFinalData() {
@@ -465,6 +522,15 @@ public abstract class Recycler<T> {
         final AtomicInteger availableSharedCapacity;
         final int maxDelayedQueues;
 
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Stack, Queue> MPSC_QUEUE_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Stack.class, Queue.class, "mpscQueue");
+
+        private final boolean useMpscQueue;
+        // Lazy allocated once the first object is recycled by another thread.
+        private volatile Queue<DefaultHandle<?>> mpscQueue;
+        private int unreportedHits;
+
         private final int maxCapacity;
         private final int ratioMask;
         private DefaultHandle<?>[] elements;
@@ -474,7 +540,7 @@ public abstract class Recycler<T> {
         private volatile WeakOrderQueue head;
 
         Stack(Recycler<T> parent, Thread thread, int maxCapacity, int maxSharedCapacityFactor,
-              int ratioMask, int maxDelayedQueues) {
+              int ratioMask, int maxDelayedQueues, boolean useMpscQueue) {
             this.parent = parent;
             threadRef = new WeakReference<Thread>(thread);
             this.maxCapacity = maxCapacity;
@@ -482,6 +548,14 @@ public abstract class Recycler<T> {
             elements = new DefaultHandle[min(INITIAL_CAPACITY, maxCapacity)];
             this.ratioMask = ratioMask;
             this.maxDelayedQueues = maxDelayedQueues;
+            this.useMpscQueue = useMpscQueue;
+        }
+
+        void recordHit() {
+            if (++unreportedHits == HIT_REPORT_INTERVAL) {
+                unreportedHits = 0;
+                parent.hits.add(HIT_REPORT_INTERVAL);
+            }
         }
 
         // Marked as synchronized to ensure this is serialized.
@@ -527,6 +601,9 @@ public abstract class Recycler<T> {
         }
 
         boolean scavenge() {
+            if (useMpscQueue) {
+                return drainMpscQueue();
+            }
             // continue an existing scavenge, if any
             if (scavengeSome()) {
                 return true;
@@ -588,11 +665,42 @@ public abstract class Recycler<T> {
             return success;
         }
 
+        @SuppressWarnings("rawtypes")
+        private boolean drainMpscQueue() {
+            Queue<DefaultHandle<?>> queue = mpscQueue;
+            if (queue == null) {
+                return false;
+            }
+            int size = this.size;
+            DefaultHandle[] elements = this.elements;
+            while (size < maxCapacity) {
+                DefaultHandle<?> handle = queue.poll();
+                if (handle == null) {
+                    break;
+                }
+                handle.recycleId = handle.lastRecycledId;
+                if (dropHandle(handle)) {
+                    continue;
+                }
+                if (size == elements.length) {
+                    this.elements = elements = Arrays.copyOf(elements, min(size << 1, maxCapacity));
+                }
+                elements[size ++] = handle;
+            }
+            if (this.size == size) {
+                return false;
+            }
+            this.size = size;
+            return true;
+        }
+
         void push(DefaultHandle<?> item) {
             Thread currentThread = Thread.currentThread();
             if (threadRef.get() == currentThread) {
                 // The current Thread is the thread that belongs to the Stack, we can try to push the object now.
                 pushNow(item);
+            } else if (useMpscQueue) {
+                pushToMpscQueue(item);
             } else {
                 // The current Thread is not the one that belongs to the Stack
                 // (or the Thread that belonged to the Stack was collected already), we need to signal that the push
@@ -608,8 +716,12 @@ public abstract class Recycler<T> {
             item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
 
             int size = this.size;
-            if (size >= maxCapacity || dropHandle(item)) {
-                // Hit the maximum capacity or should drop - drop the possibly youngest object.
+            if (size >= maxCapacity) {
+                // Hit the maximum capacity - drop the possibly youngest object.
+                parent.drops.increment();
+                return;
+            }
+            if (dropHandle(item)) {
                 return;
             }
             if (size == elements.length) {
@@ -620,6 +732,31 @@ public abstract class Recycler<T> {
             this.size = size + 1;
         }
 
+        @SuppressWarnings("unchecked")
+        private void pushToMpscQueue(DefaultHandle<?> item) {
+            if ((item.recycleId | item.lastRecycledId) != 0) {
+                throw new IllegalStateException("recycled already");
+            }
+            if (threadRef.get() == null) {
+                // The owning Thread is gone, nobody will ever poll the queue again.
+                parent.drops.increment();
+                return;
+            }
+            Queue<DefaultHandle<?>> queue = mpscQueue;
+            if (queue == null) {
+                queue = PlatformDependent.newFixedMpscQueue(max(maxCapacity / parent.maxSharedCapacityFactor, 16));
+                if (!MPSC_QUEUE_UPDATER.compareAndSet(this, null, queue)) {
+                    queue = mpscQueue;
+                }
+            }
+            // Only mark the handle, the owning Thread sets recycleId once it polled the handle.
+            item.lastRecycledId = MPSC_QUEUE_ID;
+            if (!queue.offer(item)) {
+                item.lastRecycledId = 0;
+                parent.drops.increment();
+            }
+        }
+
         private void pushLater(DefaultHandle<?> item, Thread thread) {
             // we don't want to have a ref to the queue as the value in our weak map
             // so we null it out; to ensure there are no races with restoring it later
@@ -630,26 +767,32 @@ public abstract class Recycler<T> {
                 if (delayedRecycled.size() >= maxDelayedQueues) {
                     // Add a dummy queue so we know we should drop the object
                     delayedRecycled.put(this, WeakOrderQueue.DUMMY);
+                    parent.drops.increment();
                     return;
                 }
                 // Check if we already reached the maximum number of delayed queues and if we can allocate at all.
                 if ((queue = WeakOrderQueue.allocate(this, thread)) == null) {
                     // drop object
+                    parent.drops.increment();
                     return;
                 }
                 delayedRecycled.put(this, queue);
             } else if (queue == WeakOrderQueue.DUMMY) {
                 // drop object
+                parent.drops.increment();
                 return;
             }
 
-            queue.add(item);
+            if (!queue.add(item)) {
+                parent.drops.increment();
+            }
         }
 
         boolean dropHandle(DefaultHandle<?> handle) {
             if (!handle.hasBeenRecycled) {
                 if ((++handleRecycleCount & ratioMask) != 0) {
                     // Drop the object.
+                    parent.drops.increment();
                     return true;
                 }
                 handle.hasBeenRecycled = true;
@@ -25,6 +25,7 @@ import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
@@ -39,28 +40,36 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     @SuppressWarnings("rawtypes")
     private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> RESULT_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "result");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> LISTENERS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "listeners");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DefaultPromise> NOTIFYING_LISTENERS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultPromise.class, "notifyingListeners");
     private static final Object SUCCESS = new Object();
     private static final Object UNCANCELLABLE = new Object();
 
     private volatile Object result;
     private final EventExecutor executor;
     /**
-     * One or more listeners. Can be a {@link GenericFutureListener} or a {@link DefaultFutureListeners}.
-     * If {@code null}, it means either 1) no listeners were added yet or 2) all listeners were notified.
+     * One or more listeners. Can be a {@link GenericFutureListener} or a {@link ListenerNode} which is the head of a
+     * stack of listeners, the most recently added first. If {@code null}, it means either 1) no listeners were added
+     * yet or 2) all listeners were notified.
      *
-     * Threading - synchronized(this). We must support adding listeners when there is no EventExecutor.
+     * Threading - updated via CAS only. We must support adding listeners when there is no EventExecutor.
      */
-    private Object listeners;
+    private volatile Object listeners;
     /**
-     * Threading - synchronized(this). We are required to hold the monitor to use Java's underlying wait()/notifyAll().
+     * Threading - only modified while holding the monitor, which we are required to hold to use Java's underlying
+     * wait()/notifyAll(). It is volatile so completing the promise only needs to take the monitor if someone waits.
      */
-    private short waiters;
+    private volatile short waiters;
 
     /**
-     * Threading - synchronized(this). We must prevent concurrent notification and FIFO listener notification if the
-     * executor changes.
+     * Threading - updated via CAS only. We must prevent concurrent notification and FIFO listener notification if the
+     * executor changes. {@code 1} if listeners are currently notified, {@code 0} otherwise.
      */
-    private boolean notifyingListeners;
+    private volatile int notifyingListeners;
 
     /**
      * Creates a new instance.
@@ -142,9 +151,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> addListener(GenericFutureListener<? extends Future<? super V>> listener) {
         checkNotNull(listener, "listener");
 
-        synchronized (this) {
-            addListener0(listener);
-        }
+        addListener0(listener);
 
         if (isDone()) {
             notifyListeners();
@@ -157,13 +164,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> addListeners(GenericFutureListener<? extends Future<? super V>>... listeners) {
         checkNotNull(listeners, "listeners");
 
-        synchronized (this) {
-            for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
-                if (listener == null) {
-                    break;
-                }
-                addListener0(listener);
+        for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
+            if (listener == null) {
+                break;
             }
+            addListener0(listener);
         }
 
         if (isDone()) {
@@ -177,9 +182,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> removeListener(final GenericFutureListener<? extends Future<? super V>> listener) {
         checkNotNull(listener, "listener");
 
-        synchronized (this) {
-            removeListener0(listener);
-        }
+        removeListener0(listener);
 
         return this;
     }
@@ -188,13 +191,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> removeListeners(final GenericFutureListener<? extends Future<? super V>>... listeners) {
         checkNotNull(listeners, "listeners");
 
-        synchronized (this) {
-            for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
-                if (listener == null) {
-                    break;
-                }
-                removeListener0(listener);
+        for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
+            if (listener == null) {
+                break;
             }
+            removeListener0(listener);
         }
 
         return this;
@@ -217,6 +218,10 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
                 incWaiters();
                 LogUtils.info("waiters = " + waiters );
                 try {
+                    if (isDone()) {
+                        // Completed after we checked but before the waiter was visible to checkNotifyWaiters().
+                        break;
+                    }
                     wait();
                     LogUtils.info("等待结束===");
                 } finally {
@@ -240,6 +245,10 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
             while (!isDone()) {
                 incWaiters();
                 try {
+                    if (isDone()) {
+                        // Completed after we checked but before the waiter was visible to checkNotifyWaiters().
+                        break;
+                    }
                     wait();
                 } catch (InterruptedException e) {
                     // Interrupted while waiting.
@@ -432,7 +441,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     /**
      * The logic in this method should be identical to {@link #notifyListeners()} but
      * cannot share code because the listener(s) cannot be cached for an instance of {@link DefaultPromise} since the
-     * listener(s) may be changed and is protected by a synchronized operation.
+     * listener(s) may be changed concurrently.
      */
     private static void notifyListenerWithStackOverFlowProtection(final EventExecutor executor,
                                                                   final Future<?> future,
@@ -460,40 +469,31 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     }
 
     private void notifyListenersNow() {
-        Object listeners;
-        synchronized (this) {
+        for (;;) {
             // Only proceed if there are listeners to notify and we are not already notifying listeners.
-            if (notifyingListeners || this.listeners == null) {
+            if (listeners == null || !NOTIFYING_LISTENERS_UPDATER.compareAndSet(this, 0, 1)) {
                 return;
             }
-            notifyingListeners = true;
-            listeners = this.listeners;
-            this.listeners = null;
-        }
-        for (;;) {
-            if (listeners instanceof DefaultFutureListeners) {
-                notifyListeners0((DefaultFutureListeners) listeners);
-            } else {
-                notifyListener0(this, (GenericFutureListener<?>) listeners);
-            }
-            synchronized (this) {
-                if (this.listeners == null) {
-                    // Nothing can throw from within this method, so setting notifyingListeners back to false does not
-                    // need to be in a finally block.
-                    notifyingListeners = false;
-                    return;
+            Object listeners;
+            while ((listeners = LISTENERS_UPDATER.getAndSet(this, null)) != null) {
+                if (listeners instanceof ListenerNode) {
+                    notifyListeners0((ListenerNode) listeners);
+                } else {
+                    notifyListener0(this, (GenericFutureListener<?>) listeners);
                 }
-                listeners = this.listeners;
-                this.listeners = null;
             }
+            // Nothing can throw from within this loop, so setting notifyingListeners back to 0 does not need to be in
+            // a finally block. A listener may have been added after the last getAndSet(...) by a thread that saw
+            // notifyingListeners == 1 and so did not notify it, which is why we need to check again.
+            notifyingListeners = 0;
         }
     }
 
-    private void notifyListeners0(DefaultFutureListeners listeners) {
-        GenericFutureListener<?>[] a = listeners.listeners();
-        int size = listeners.size();
-        for (int i = 0; i < size; i ++) {
-            notifyListener0(this, a[i]);
+    private void notifyListeners0(ListenerNode head) {
+        // The stack holds the most recently added listener first, notify in FIFO order.
+        ListenerNode[] nodes = head.toArray();
+        for (ListenerNode node: nodes) {
+            notifyListener0(this, node.listener);
         }
     }
 
@@ -509,21 +509,54 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     }
 
     private void addListener0(GenericFutureListener<? extends Future<? super V>> listener) {
-        if (listeners == null) {
-            listeners = listener;
-        } else if (listeners instanceof DefaultFutureListeners) {
-            ((DefaultFutureListeners) listeners).add(listener);
-        } else {
-            listeners = new DefaultFutureListeners((GenericFutureListener<?>) listeners, listener);
+        for (;;) {
+            Object listeners = this.listeners;
+            Object newListeners;
+            if (listeners == null) {
+                // The common case of a single listener does not need any allocation.
+                newListeners = listener;
+            } else if (listeners instanceof ListenerNode) {
+                newListeners = new ListenerNode(listener, (ListenerNode) listeners);
+            } else {
+                newListeners = new ListenerNode(listener,
+                        new ListenerNode((GenericFutureListener<?>) listeners, null));
+            }
+            if (LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
+                return;
+            }
         }
     }
 
     private void removeListener0(GenericFutureListener<? extends Future<? super V>> listener) {
-        if (listeners instanceof DefaultFutureListeners) {
-            ((DefaultFutureListeners) listeners).remove(listener);
-        } else if (listeners == listener) {
-            listeners = null;
+        for (;;) {
+            Object listeners = this.listeners;
+            Object newListeners;
+            if (listeners == listener) {
+                newListeners = null;
+            } else if (listeners instanceof ListenerNode) {
+                newListeners = ((ListenerNode) listeners).remove(listener);
+                if (newListeners == listeners) {
+                    // Not found.
+                    return;
+                }
+            } else {
+                return;
+            }
+            if (LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of listeners which were added and are not notified or removed yet.
+     */
+    int listenerCount() {
+        Object listeners = this.listeners;
+        if (listeners == null) {
+            return 0;
         }
+        return listeners instanceof ListenerNode ? ((ListenerNode) listeners).size : 1;
     }
 
     private boolean setSuccess0(V result) {
@@ -549,9 +582,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
      * Check if there are any waiters and if so notify these.
      * @return {@code true} if there are any listeners attached to the promise, {@code false} otherwise.
      */
-    private synchronized boolean checkNotifyWaiters() {
+    private boolean checkNotifyWaiters() {
         if (waiters > 0) {
-            notifyAll();
+            synchronized (this) {
+                notifyAll();
+            }
         }
         return listeners != null;
     }
@@ -602,6 +637,10 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
                     }
                     incWaiters();
                     try {
+                        if (isDone()) {
+                            // Completed after we checked but before the waiter was visible to checkNotifyWaiters().
+                            return true;
+                        }
                         wait(waitTime / 1000000, (int) (waitTime % 1000000));
                     } catch (InterruptedException e) {
                         if (interruptable) {
@@ -684,33 +723,35 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
      * Returns a {@link GenericProgressiveFutureListener}, an array of {@link GenericProgressiveFutureListener}, or
      * {@code null}.
      */
-    private synchronized Object progressiveListeners() {
+    private Object progressiveListeners() {
         Object listeners = this.listeners;
         if (listeners == null) {
             // No listeners added
             return null;
         }
 
-        if (listeners instanceof DefaultFutureListeners) {
-            // Copy DefaultFutureListeners into an array of listeners.
-            DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
-            int progressiveSize = dfl.progressiveSize();
+        if (listeners instanceof ListenerNode) {
+            ListenerNode[] nodes = ((ListenerNode) listeners).toArray();
+            int progressiveSize = 0;
+            GenericProgressiveFutureListener<?> first = null;
+            for (ListenerNode node: nodes) {
+                GenericFutureListener<?> l = node.listener;
+                if (l instanceof GenericProgressiveFutureListener) {
+                    if (progressiveSize ++ == 0) {
+                        first = (GenericProgressiveFutureListener<?>) l;
+                    }
+                }
+            }
             switch (progressiveSize) {
                 case 0:
                     return null;
                 case 1:
-                    for (GenericFutureListener<?> l: dfl.listeners()) {
-                        if (l instanceof GenericProgressiveFutureListener) {
-                            return l;
-                        }
-                    }
-                    return null;
+                    return first;
             }
 
-            GenericFutureListener<?>[] array = dfl.listeners();
             GenericProgressiveFutureListener<?>[] copy = new GenericProgressiveFutureListener[progressiveSize];
-            for (int i = 0, j = 0; j < progressiveSize; i ++) {
-                GenericFutureListener<?> l = array[i];
+            for (int i = 0, j = 0; j < progressiveSize && i < nodes.length; i ++) {
+                GenericFutureListener<?> l = nodes[i].listener;
                 if (l instanceof GenericProgressiveFutureListener) {
                     copy[j ++] = (GenericProgressiveFutureListener<?>) l;
                 }
@@ -755,6 +796,58 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         return result != null && result != UNCANCELLABLE;
     }
 
+    /**
+     * An immutable entry of the lock-free stack of listeners. Removing a listener replaces the entries which were added
+     * after it, so the stack never holds more entries than there are listeners.
+     */
+    private static final class ListenerNode {
+        final GenericFutureListener<?> listener;
+        final ListenerNode next;
+        final int size;
+
+        ListenerNode(GenericFutureListener<?> listener, ListenerNode next) {
+            this.listener = listener;
+            this.next = next;
+            size = next == null ? 1 : next.size + 1;
+        }
+
+        /**
+         * Returns the listeners of the stack starting at this node without the first added occurrence of the given
+         * listener, which is either {@code null}, a single {@link GenericFutureListener} or a {@link ListenerNode}.
+         * Returns this node if the listener is not part of the stack.
+         */
+        Object remove(GenericFutureListener<?> listener) {
+            ListenerNode[] nodes = toArray();
+            int i = 0;
+            while (nodes[i].listener != listener) {
+                if (++ i == nodes.length) {
+                    return this;
+                }
+            }
+            // The entries added before the removed one are shared, only the ones added after it are copied.
+            ListenerNode head = nodes[i].next;
+            for (int j = i + 1; j < nodes.length; j ++) {
+                head = new ListenerNode(nodes[j].listener, head);
+            }
+            if (head == null) {
+                return null;
+            }
+            return head.next == null ? head.listener : head;
+        }
+
+        /**
+         * Returns all nodes of the stack starting at this node in the order they were added.
+         */
+        ListenerNode[] toArray() {
+            ListenerNode[] nodes = new ListenerNode[size];
+            int i = size;
+            for (ListenerNode node = this; node != null; node = node.next) {
+                nodes[-- i] = node;
+            }
+            return nodes;
+        }
+    }
+
     private static final class CauseHolder {
         final Throwable cause;
         CauseHolder(Throwable cause) {
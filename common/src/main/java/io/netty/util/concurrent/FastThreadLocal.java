@@ -20,6 +20,7 @@ import io.netty.util.internal.PlatformDependent;
 
 import java.util.Collections;
 import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
@@ -122,10 +123,31 @@ public class FastThreadLocal<V> {
         variablesToRemove.remove(variable);
     }
 
+    private static void removeReleasedFromVariablesToRemove(InternalThreadLocalMap threadLocalMap, int index) {
+        Object v = threadLocalMap.indexedVariable(variablesToRemoveIndex);
+
+        if (v == InternalThreadLocalMap.UNSET || v == null) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Set<FastThreadLocal<?>> variablesToRemove = (Set<FastThreadLocal<?>>) v;
+        for (Iterator<FastThreadLocal<?>> i = variablesToRemove.iterator(); i.hasNext();) {
+            FastThreadLocal<?> variable = i.next();
+            if (variable.index == index && variable.released) {
+                i.remove();
+            }
+        }
+    }
+
     private final int index;
+    // Non-zero if the index was used by other variables before, in which case stale values must be expunged.
+    private final int generation;
+    private volatile boolean released;
 
     public FastThreadLocal() {
         index = InternalThreadLocalMap.nextVariableIndex();
+        generation = InternalThreadLocalMap.variableIndexGeneration(index);
     }
 
     /**
@@ -134,6 +156,9 @@ public class FastThreadLocal<V> {
     @SuppressWarnings("unchecked")
     public final V get() {
         InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.get();
+        if (generation != 0) {
+            expungeStaleValue(threadLocalMap);
+        }
         Object v = threadLocalMap.indexedVariable(index);
         if (v != InternalThreadLocalMap.UNSET) {
             return (V) v;
@@ -149,6 +174,9 @@ public class FastThreadLocal<V> {
     public final V getIfExists() {
         InternalThreadLocalMap threadLocalMap = InternalThreadLocalMap.getIfSet();
         if (threadLocalMap != null) {
+            if (generation != 0) {
+                expungeStaleValue(threadLocalMap);
+            }
             Object v = threadLocalMap.indexedVariable(index);
             if (v != InternalThreadLocalMap.UNSET) {
                 return (V) v;
@@ -163,6 +191,9 @@ public class FastThreadLocal<V> {
      */
     @SuppressWarnings("unchecked")
     public final V get(InternalThreadLocalMap threadLocalMap) {
+        if (generation != 0) {
+            expungeStaleValue(threadLocalMap);
+        }
         Object v = threadLocalMap.indexedVariable(index);
         if (v != InternalThreadLocalMap.UNSET) {
             return (V) v;
@@ -211,6 +242,9 @@ public class FastThreadLocal<V> {
      * @return see {@link InternalThreadLocalMap#setIndexedVariable(int, Object)}.
      */
     private void setKnownNotUnset(InternalThreadLocalMap threadLocalMap, V value) {
+        if (generation != 0) {
+            expungeStaleValue(threadLocalMap);
+        }
         if (threadLocalMap.setIndexedVariable(index, value)) {
             addToVariablesToRemove(threadLocalMap, this);
         }
@@ -228,8 +262,15 @@ public class FastThreadLocal<V> {
      * The specified thread local map must be for the current thread.
      */
     public final boolean isSet(InternalThreadLocalMap threadLocalMap) {
-        return threadLocalMap != null && threadLocalMap.isIndexedVariableSet(index);
+        if (threadLocalMap == null) {
+            return false;
+        }
+        if (generation != 0) {
+            expungeStaleValue(threadLocalMap);
+        }
+        return threadLocalMap.isIndexedVariableSet(index);
     }
+
     /**
      * Sets the value to uninitialized; a proceeding call to get() will trigger a call to initialValue().
      */
@@ -247,9 +288,18 @@ public class FastThreadLocal<V> {
         if (threadLocalMap == null) {
             return;
         }
+        if (released) {
+            // The index may belong to another variable by now.
+            removeFromVariablesToRemove(threadLocalMap, this);
+            return;
+        }
+        if (generation != 0) {
+            expungeStaleValue(threadLocalMap);
+        }
 
         Object v = threadLocalMap.removeIndexedVariable(index);
         removeFromVariablesToRemove(threadLocalMap, this);
+        threadLocalMap.compactIndexedVariables();
 
         if (v != InternalThreadLocalMap.UNSET) {
             try {
@@ -260,6 +310,32 @@ public class FastThreadLocal<V> {
         }
     }
 
+    /**
+     * Removes the value of this thread-local variable for the current thread and releases its index, so it can be
+     * reused by {@link FastThreadLocal}s that are created later. Use this for variables that are created and discarded
+     * dynamically, as every index occupies a slot in the table of every thread that accesses thread-local variables.
+     * <p>
+     * Values that other threads still hold for this variable are removed lazily, without calling
+     * {@link #onRemoval(Object)}. This variable must not be used anymore once it was released.
+     */
+    public final void release() {
+        synchronized (this) {
+            if (released) {
+                return;
+            }
+            remove();
+            released = true;
+        }
+        InternalThreadLocalMap.releaseVariableIndex(index);
+    }
+
+    private void expungeStaleValue(InternalThreadLocalMap threadLocalMap) {
+        if (threadLocalMap.updateIndexedVariableGeneration(index, generation)) {
+            threadLocalMap.removeIndexedVariable(index);
+            removeReleasedFromVariablesToRemove(threadLocalMap, index);
+        }
+    }
+
     /**
      * Returns the initial value for this thread-local variable.
      */
@@ -27,6 +27,8 @@ public class FastThreadLocalThread extends Thread {
 
     private InternalThreadLocalMap threadLocalMap;
 
+    private volatile int pinnedCpu = -1;
+
     public FastThreadLocalThread() {
         cleanupFastThreadLocals = false;
     }
@@ -82,6 +84,23 @@ public class FastThreadLocalThread extends Thread {
         this.threadLocalMap = threadLocalMap;
     }
 
+    /**
+     * Returns the CPU this thread is pinned to, or {@code -1} if it may be scheduled on any CPU.
+     */
+    @UnstableApi
+    public final int pinnedCpu() {
+        return pinnedCpu;
+    }
+
+    /**
+     * Records the CPU this thread was pinned to. Must be called by sub-classes once the thread itself restricted its
+     * CPU affinity.
+     */
+    @UnstableApi
+    protected final void setPinnedCpu(int pinnedCpu) {
+        this.pinnedCpu = pinnedCpu;
+    }
+
     /**
      * Returns {@code true} if {@link FastThreadLocal#removeAll()} will be called once {@link #run()} completes.
      */
@@ -55,6 +55,9 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private static final InternalLogger logger =
             InternalLoggerFactory.getInstance(SingleThreadEventExecutor.class);
 
+    private static final long DEFAULT_DEADLINE_CHECK_INTERVAL = 64;
+    private static final long MAX_DEADLINE_CHECK_INTERVAL = 1024;
+
     private static final int ST_NOT_STARTED = 1;
     private static final int ST_STARTED = 2;
     private static final int ST_SHUTTING_DOWN = 3;
@@ -79,8 +82,18 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutor, ThreadProperties> PROPERTIES_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(
                     SingleThreadEventExecutor.class, ThreadProperties.class, "threadProperties");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutor, Queue> HIGH_TASKS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SingleThreadEventExecutor.class, Queue.class, "highTasks");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<SingleThreadEventExecutor, Queue> BACKGROUND_TASKS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(SingleThreadEventExecutor.class, Queue.class, "backgroundTasks");
 
     private final Queue<Runnable> taskQueue;
+    // The queues of the other lanes are only created once a task is submitted to them.
+    private volatile Queue<Runnable> highTasks;
+    private volatile Queue<Runnable> backgroundTasks;
+    private volatile int backgroundTaskRatio = 10;
 
     private volatile Thread thread;
     @SuppressWarnings("unused")
@@ -243,6 +256,19 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
         for (;;) {
+            if (highTasks != null || backgroundTasks != null) {
+                // Tasks of the other lanes do not unblock the taskQueue, so check them before blocking.
+                Runnable task = pollLaneTask(highTasks);
+                if (task == null) {
+                    task = pollTaskFrom(taskQueue);
+                    if (task == null) {
+                        task = pollLaneTask(backgroundTasks);
+                    }
+                }
+                if (task != null) {
+                    return task;
+                }
+            }
             ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
             if (scheduledTask == null) {
                 Runnable task = null;
@@ -309,7 +335,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      */
     protected boolean hasTasks() {
         assert inEventLoop();
-        return !taskQueue.isEmpty();
+        return !taskQueue.isEmpty() || hasLaneTasks();
+    }
+
+    private boolean hasLaneTasks() {
+        Queue<Runnable> highTasks = this.highTasks;
+        Queue<Runnable> backgroundTasks = this.backgroundTasks;
+        return highTasks != null && !highTasks.isEmpty() || backgroundTasks != null && !backgroundTasks.isEmpty();
     }
 
     /**
@@ -319,7 +351,48 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * SingleThreadEventExecutor. So use it with care!</strong>
      */
     public int pendingTasks() {
-        return taskQueue.size();
+        return taskQueue.size() + pendingTasks(TaskLane.HIGH) + pendingTasks(TaskLane.BACKGROUND);
+    }
+
+    /**
+     * Return the number of tasks that are pending for processing in the given {@link TaskLane}.
+     *
+     * <strong>Be aware that this operation may be expensive as it depends on the internal implementation of the
+     * SingleThreadEventExecutor. So use it with care!</strong>
+     */
+    @UnstableApi
+    public int pendingTasks(TaskLane lane) {
+        switch (ObjectUtil.checkNotNull(lane, "lane")) {
+            case NORMAL:
+                return taskQueue.size();
+            case HIGH:
+                Queue<Runnable> highTasks = this.highTasks;
+                return highTasks == null ? 0 : highTasks.size();
+            default:
+                Queue<Runnable> backgroundTasks = this.backgroundTasks;
+                return backgroundTasks == null ? 0 : backgroundTasks.size();
+        }
+    }
+
+    /**
+     * Returns the percentage of the time spent for tasks that is reserved for {@link TaskLane#BACKGROUND} tasks.
+     */
+    @UnstableApi
+    public int getBackgroundTaskRatio() {
+        return backgroundTaskRatio;
+    }
+
+    /**
+     * Sets the percentage of the time spent for tasks that is reserved for {@link TaskLane#BACKGROUND} tasks, if
+     * there are any. The default value is {@code 10}. {@link TaskLane#NORMAL} tasks may use the remaining time,
+     * {@link TaskLane#HIGH} tasks are always executed.
+     */
+    @UnstableApi
+    public void setBackgroundTaskRatio(int backgroundTaskRatio) {
+        if (backgroundTaskRatio <= 0 || backgroundTaskRatio > 100) {
+            throw new IllegalArgumentException("backgroundTaskRatio: " + backgroundTaskRatio + " (expected: 0-100)");
+        }
+        this.backgroundTaskRatio = backgroundTaskRatio;
     }
 
     /**
@@ -349,7 +422,12 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (task == null) {
             throw new NullPointerException("task");
         }
-        return taskQueue.remove(task);
+        if (taskQueue.remove(task)) {
+            return true;
+        }
+        Queue<Runnable> highTasks = this.highTasks;
+        Queue<Runnable> backgroundTasks = this.backgroundTasks;
+        return highTasks != null && highTasks.remove(task) || backgroundTasks != null && backgroundTasks.remove(task);
     }
 
     /**
@@ -364,7 +442,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         do {
             fetchedAll = fetchFromScheduledTaskQueue();
-            if (runAllTasksFrom(taskQueue)) {
+            if (highTasks != null || backgroundTasks != null) {
+                if (runLaneTasks(0, false)) {
+                    ranAtLeastOne = true;
+                }
+            } else if (runAllTasksFrom(taskQueue)) {
                 ranAtLeastOne = true;
             }
         } while (!fetchedAll); // keep on processing until we fetched all scheduled tasks.
@@ -384,6 +466,9 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * @return {@code true} if at least one task was executed.
      */
     protected final boolean runAllTasksFrom(Queue<Runnable> taskQueue) {
+        if (taskQueue == null) {
+            return false;
+        }
         Runnable task = pollTaskFrom(taskQueue);
         if (task == null) {
             return false;
@@ -408,6 +493,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     protected boolean runAllTasks(long timeoutNanos) {
         // 从定时任务队列中将达到执行时间的task丢到taskQueue队列中
         fetchFromScheduledTaskQueue();
+        if (highTasks != null || backgroundTasks != null) {
+            boolean ran = runLaneTasks(timeoutNanos, true);
+            afterRunningAllTasks();
+            return ran;
+        }
         // 从taskQueue队列获取task
         Runnable task = pollTask();
         // 若task为空
@@ -417,9 +507,13 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             return false;
         }
         // 获取执行截止时间
-        final long deadline = ScheduledFutureTask.nanoTime() + timeoutNanos;
+        final long start = ScheduledFutureTask.nanoTime();
+        final long deadline = start + timeoutNanos;
         // 执行任务个数
         long runTasks = 0;
+        // Check the deadline after 64 tasks and from then on after as many tasks as fit into half of the remaining
+        // time, based on the cost of the tasks run so far, because nanoTime() is relatively expensive.
+        long nextDeadlineCheck = DEFAULT_DEADLINE_CHECK_INTERVAL;
         // 运行task的最后时间
         long lastExecutionTime;
         for (;;) {
@@ -427,15 +521,15 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
             safeExecute(task);
 
             runTasks ++;
-            // Check timeout every 64 tasks because nanoTime() is relatively expensive.
-            // XXX: Hard-coded value - will make it configurable if it is really a problem.
-            // 运行64个任务就进行一次是否达到截止时间检查
-            // 0x3F 代表63 ，转化为二进制为 0011 1111
-            if ((runTasks & 0x3F) == 0) {
+            if (runTasks == nextDeadlineCheck) {
+                // The high lane may have been used for the first time while running the tasks.
+                runAllTasksFrom(highTasks);
                 lastExecutionTime = ScheduledFutureTask.nanoTime();
                 if (lastExecutionTime >= deadline) {
                     break;
                 }
+                nextDeadlineCheck = runTasks + deadlineCheckInterval(
+                        deadline - lastExecutionTime, (lastExecutionTime - start) / runTasks);
             }
             // 再从taskQueue队列中获取task
             task = pollTask();
@@ -451,6 +545,90 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return true;
     }
 
+    private static long deadlineCheckInterval(long remainingNanos, long taskNanos) {
+        if (taskNanos <= 0) {
+            return DEFAULT_DEADLINE_CHECK_INTERVAL;
+        }
+        return Math.max(1, Math.min(MAX_DEADLINE_CHECK_INTERVAL, remainingNanos / taskNanos >>> 1));
+    }
+
+    /**
+     * Returns after how many tasks in total the deadline needs to be checked next, or {@code -1} if it has passed.
+     */
+    private static long checkDeadline(long runTasks, long start, long deadline) {
+        final long now = ScheduledFutureTask.nanoTime();
+        if (now >= deadline) {
+            return -1;
+        }
+        return runTasks + deadlineCheckInterval(deadline - now, (now - start) / runTasks);
+    }
+
+    /**
+     * Runs the tasks of all {@link TaskLane}s. {@link TaskLane#HIGH} tasks run first and again whenever the deadline
+     * is checked, which happens as in {@link #runAllTasks(long)}, or every 64 tasks if not {@code timed}. If
+     * {@code timed}, {@link TaskLane#NORMAL} tasks may use the part of {@code timeoutNanos} that is not reserved for
+     * {@link TaskLane#BACKGROUND} tasks by the {@linkplain #setBackgroundTaskRatio(int) background task ratio}, while
+     * {@link TaskLane#BACKGROUND} tasks may use whatever is left.
+     */
+    private boolean runLaneTasks(long timeoutNanos, boolean timed) {
+        final long start = ScheduledFutureTask.nanoTime();
+        final long deadline = start + timeoutNanos;
+        Queue<Runnable> backgroundTasks = this.backgroundTasks;
+        final long normalDeadline = backgroundTasks == null || backgroundTasks.isEmpty() ? deadline :
+                start + timeoutNanos / 100 * (100 - backgroundTaskRatio);
+
+        boolean ran = runAllTasksFrom(highTasks);
+        long runTasks = 0;
+        long nextDeadlineCheck = DEFAULT_DEADLINE_CHECK_INTERVAL;
+        for (;;) {
+            Runnable task = pollTask();
+            if (task == null) {
+                break;
+            }
+            safeExecute(task);
+            ran = true;
+            if (++runTasks == nextDeadlineCheck) {
+                runAllTasksFrom(highTasks);
+                if (!timed) {
+                    nextDeadlineCheck += DEFAULT_DEADLINE_CHECK_INTERVAL;
+                } else if ((nextDeadlineCheck = checkDeadline(runTasks, start, normalDeadline)) < 0) {
+                    break;
+                }
+            }
+        }
+
+        backgroundTasks = this.backgroundTasks;
+        if (backgroundTasks != null) {
+            final long backgroundStart = timed ? ScheduledFutureTask.nanoTime() : 0;
+            runTasks = 0;
+            nextDeadlineCheck = DEFAULT_DEADLINE_CHECK_INTERVAL;
+            for (;;) {
+                Runnable task = pollTaskFrom(backgroundTasks);
+                if (task == null) {
+                    break;
+                }
+                safeExecute(task);
+                ran = true;
+                if (++runTasks == nextDeadlineCheck) {
+                    runAllTasksFrom(highTasks);
+                    if (!timed) {
+                        nextDeadlineCheck += DEFAULT_DEADLINE_CHECK_INTERVAL;
+                    } else if ((nextDeadlineCheck = checkDeadline(runTasks, backgroundStart, deadline)) < 0) {
+                        break;
+                    }
+                }
+            }
+        }
+        if (ran) {
+            lastExecutionTime = ScheduledFutureTask.nanoTime();
+        }
+        return ran;
+    }
+
+    private static Runnable pollLaneTask(Queue<Runnable> lane) {
+        return lane == null ? null : pollTaskFrom(lane);
+    }
+
     /**
      * Invoked before returning from {@link #runAllTasks()} and {@link #runAllTasks(long)}.
      */
@@ -801,6 +979,62 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         }
     }
 
+    /**
+     * Executes the given task in the given {@link TaskLane}. Tasks submitted via {@link #execute(Runnable)} use
+     * {@link TaskLane#NORMAL}.
+     */
+    @UnstableApi
+    public void execute(Runnable task, TaskLane lane) {
+        ObjectUtil.checkNotNull(task, "task");
+        if (ObjectUtil.checkNotNull(lane, "lane") == TaskLane.NORMAL) {
+            execute(task);
+            return;
+        }
+
+        boolean inEventLoop = inEventLoop();
+        Queue<Runnable> queue = laneQueue(lane);
+        if (isShutdown()) {
+            reject();
+        }
+        if (!queue.offer(task)) {
+            reject(task);
+        }
+        if (!inEventLoop) {
+            startThread();
+            if (isShutdown()) {
+                boolean reject = false;
+                try {
+                    reject = queue.remove(task);
+                } catch (UnsupportedOperationException e) {
+                    // See execute(Runnable).
+                }
+                if (reject) {
+                    reject();
+                }
+            }
+        }
+
+        // Adding to a lane does not wake up a thread that is blocked on the taskQueue, so wake it up explicitly if
+        // addTaskWakesUp is set. Otherwise wake it up as execute(Runnable) does if wakesUpForTask(...) asks for it.
+        if (addTaskWakesUp || wakesUpForTask(task)) {
+            wakeup(inEventLoop);
+        }
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Queue<Runnable> laneQueue(TaskLane lane) {
+        AtomicReferenceFieldUpdater<SingleThreadEventExecutor, Queue> updater =
+                lane == TaskLane.HIGH ? HIGH_TASKS_UPDATER : BACKGROUND_TASKS_UPDATER;
+        Queue<Runnable> queue = updater.get(this);
+        if (queue == null) {
+            queue = newTaskQueue(maxPendingTasks);
+            if (!updater.compareAndSet(this, null, queue)) {
+                queue = updater.get(this);
+            }
+        }
+        return queue;
+    }
+
     @Override
     public <T> T invokeAny(Collection<? extends Callable<T>> tasks) throws InterruptedException, ExecutionException {
         throwIfInEventLoop("invokeAny");
@@ -859,6 +1093,18 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return threadProperties;
     }
 
+    /**
+     * Returns the CPU the {@link Thread} that powers the {@link SingleThreadEventExecutor} is pinned to, or {@code -1}
+     * if it may be scheduled on any CPU or the {@link SingleThreadEventExecutor} is not started yet.
+     *
+     * @see FastThreadLocalThread#pinnedCpu()
+     */
+    @UnstableApi
+    public final int pinnedCpu() {
+        Thread thread = this.thread;
+        return thread instanceof FastThreadLocalThread ? ((FastThreadLocalThread) thread).pinnedCpu() : -1;
+    }
+
     @SuppressWarnings("unused")
     protected boolean wakesUpForTask(Runnable task) {
         return true;
@@ -0,0 +1,41 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * The lane of the task queue of a {@link SingleThreadEventExecutor} a task is submitted to via
+ * {@link SingleThreadEventExecutor#execute(Runnable, TaskLane)}. Tasks of the same lane are executed in the order
+ * they were submitted, but there is no ordering between tasks of different lanes.
+ */
+@UnstableApi
+public enum TaskLane {
+    /**
+     * Latency critical tasks which are executed before any other task and are also checked for while a long backlog
+     * of {@link #NORMAL} tasks is processed.
+     */
+    HIGH,
+    /**
+     * The lane used by {@link SingleThreadEventExecutor#execute(Runnable)}.
+     */
+    NORMAL,
+    /**
+     * Tasks which may be delayed in favour of the other lanes, like statistics or cache maintenance. They are
+     * guaranteed a share of the time the {@link SingleThreadEventExecutor} spends on tasks so they are not starved.
+     */
+    BACKGROUND
+}
@@ -46,7 +46,16 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
 
     public static final Object UNSET = new Object();
 
+    private static final int INDEXED_VARIABLE_TABLE_INITIAL_SIZE = 32;
+
+    // Guards releasedIndices, indexGenerations and updates of nextIndex.
+    private static final Object indexLock = new Object();
+    private static final BitSet releasedIndices = new BitSet();
+    private static int[] indexGenerations = EmptyArrays.EMPTY_INTS;
+
     private BitSet cleanerFlags;
+    // The generation of the variable stored at each index, only maintained for indices that were released before.
+    private int[] indexedVariableGenerations;
 
     static {
         STRING_BUILDER_INITIAL_SIZE =
@@ -105,19 +114,81 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
         slowThreadLocalMap.remove();
     }
 
+    /**
+     * Returns a free index for a new thread-local variable. Indices that were released by
+     * {@link #releaseVariableIndex(int)} are reused before the index space is extended, lowest first, to keep the
+     * {@link #indexedVariable(int) indexed variables} of every thread as small as possible.
+     */
     public static int nextVariableIndex() {
-        int index = nextIndex.getAndIncrement();
-        if (index < 0) {
-            nextIndex.decrementAndGet();
-            throw new IllegalStateException("too many thread-local indexed variables");
+        synchronized (indexLock) {
+            int index = releasedIndices.nextSetBit(0);
+            if (index >= 0) {
+                releasedIndices.clear(index);
+                return index;
+            }
+            index = nextIndex.get();
+            if (index == Integer.MAX_VALUE) {
+                throw new IllegalStateException("too many thread-local indexed variables");
+            }
+            nextIndex.set(index + 1);
+            return index;
+        }
+    }
+
+    /**
+     * Returns an index that was obtained by {@link #nextVariableIndex()} and is no longer used, so it can be handed
+     * out again. Values stored at the index by other threads are not removed eagerly; they are detected through
+     * {@link #variableIndexGeneration(int)} and expunged by {@link #expungeStaleIndexedVariable(int, int)}.
+     */
+    public static void releaseVariableIndex(int index) {
+        synchronized (indexLock) {
+            int next = nextIndex.get();
+            if (index < 0 || index >= next || releasedIndices.get(index)) {
+                throw new IllegalArgumentException("index: " + index + " (not in use)");
+            }
+            if (index >= indexGenerations.length) {
+                indexGenerations = Arrays.copyOf(indexGenerations, Math.max(index + 1, indexGenerations.length << 1));
+            }
+            indexGenerations[index]++;
+
+            if (index == next - 1) {
+                // Shrink the index space so that tables can be compacted.
+                int last = index - 1;
+                while (last >= 0 && releasedIndices.get(last)) {
+                    releasedIndices.clear(last--);
+                }
+                nextIndex.set(last + 1);
+            } else {
+                releasedIndices.set(index);
+            }
+        }
+    }
+
+    /**
+     * Returns how often the given index was released, which allows to distinguish the variables that were assigned
+     * to the same index over time. An index that was never released has generation {@code 0}.
+     */
+    public static int variableIndexGeneration(int index) {
+        synchronized (indexLock) {
+            return index < indexGenerations.length ? indexGenerations[index] : 0;
         }
-        return index;
     }
 
     public static int lastVariableIndex() {
         return nextIndex.get() - 1;
     }
 
+    /**
+     * Returns the number of indices that are currently used by thread-local variables. Compared to
+     * {@link #lastVariableIndex()} {@code + 1}, which is the size of the index space, this shows how many indices
+     * are waiting to be reused.
+     */
+    public static int liveVariableIndexCount() {
+        synchronized (indexLock) {
+            return nextIndex.get() - releasedIndices.cardinality();
+        }
+    }
+
     // Cache line padding (must be public)
     // With CompressedOops enabled, an instance of this class should occupy at least 128 bytes.
     public long rp1, rp2, rp3, rp4, rp5, rp6, rp7, rp8, rp9;
@@ -127,7 +198,7 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
     }
 
     private static Object[] newIndexedVariableTable() {
-        Object[] array = new Object[32];
+        Object[] array = new Object[INDEXED_VARIABLE_TABLE_INITIAL_SIZE];
         Arrays.fill(array, UNSET);
         return array;
     }
@@ -332,6 +403,45 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
         }
     }
 
+    /**
+     * Records that the value stored at {@code index} belongs to the variable of the given
+     * {@linkplain #variableIndexGeneration(int) generation}. Returns {@code true} if a different generation was
+     * recorded before, which means a value stored at {@code index} (if any) belongs to a variable whose index was
+     * released in the meantime and must be removed.
+     */
+    public boolean updateIndexedVariableGeneration(int index, int generation) {
+        int[] generations = indexedVariableGenerations;
+        if (generations == null || index >= generations.length) {
+            int newLength = Math.max(index + 1, indexedVariables.length);
+            generations = generations == null ? new int[newLength] : Arrays.copyOf(generations, newLength);
+            indexedVariableGenerations = generations;
+        } else if (generations[index] == generation) {
+            return false;
+        }
+        generations[index] = generation;
+        if (cleanerFlags != null) {
+            cleanerFlags.clear(index);
+        }
+        return true;
+    }
+
+    /**
+     * Shrinks the table that stores the indexed variables if most of it is beyond {@link #lastVariableIndex()}, which
+     * happens once the indices at the end of the index space were released.
+     */
+    public void compactIndexedVariables() {
+        Object[] lookup = indexedVariables;
+        int used = nextIndex.get();
+        if (lookup.length <= INDEXED_VARIABLE_TABLE_INITIAL_SIZE || used > lookup.length >>> 2) {
+            return;
+        }
+        int newCapacity = Math.max(INDEXED_VARIABLE_TABLE_INITIAL_SIZE, MathUtil.findNextPositivePowerOfTwo(used));
+        indexedVariables = Arrays.copyOf(lookup, newCapacity);
+        if (indexedVariableGenerations != null && indexedVariableGenerations.length > newCapacity) {
+            indexedVariableGenerations = Arrays.copyOf(indexedVariableGenerations, newCapacity);
+        }
+    }
+
     public boolean isIndexedVariableSet(int index) {
         Object[] lookup = indexedVariables;
         return index < lookup.length && lookup[index] != UNSET;
@@ -569,6 +569,22 @@ public final class PlatformDependent {
         PlatformDependent0.putLong(address, value);
     }
 
+    /**
+     * Reads the {@code long} at the given address with volatile semantics, for memory which is shared with another
+     * thread or process.
+     */
+    public static long getLongVolatile(long address) {
+        return PlatformDependent0.getLongVolatile(address);
+    }
+
+    /**
+     * Writes the {@code long} at the given address so that it is not reordered with the preceding writes, the
+     * counterpart of {@link #getLongVolatile(long)}.
+     */
+    public static void putLongOrdered(long address, long value) {
+        PlatformDependent0.putLongOrdered(address, value);
+    }
+
     public static void putByte(byte[] data, int index, byte value) {
         PlatformDependent0.putByte(data, index, value);
     }
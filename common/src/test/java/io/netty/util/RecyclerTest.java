@@ -36,6 +36,38 @@ public class RecyclerTest {
         };
     }
 
+    private static Recycler<HandledObject> newMpscRecycler(int max, int maxSharedCapacityFactor, int ratio) {
+        return new Recycler<HandledObject>(max, maxSharedCapacityFactor, ratio, 0, true) {
+            @Override
+            protected HandledObject newObject(
+                    Recycler.Handle<HandledObject> handle) {
+                return new HandledObject(handle);
+            }
+        };
+    }
+
+    private static void recycleAtDifferentThread(final HandledObject... objects) throws InterruptedException {
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Thread thread = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    for (HandledObject object: objects) {
+                        object.recycle();
+                    }
+                } catch (Throwable t) {
+                    error.set(t);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        if (error.get() instanceof RuntimeException) {
+            throw (RuntimeException) error.get();
+        }
+        assertNull(error.get());
+    }
+
     @Test(timeout = 5000L)
     public void testThreadCanBeCollectedEvenIfHandledObjectIsReferenced() throws Exception {
         final Recycler<HandledObject> recycler = newRecycler(1024);
@@ -277,6 +309,79 @@ public class RecyclerTest {
                 " internally", array.length - maxCapacity / 2 <= instancesCount.get());
     }
 
+    @Test
+    public void testRecycleAtDifferentThreadWithMpscQueue() throws Exception {
+        Recycler<HandledObject> recycler = newMpscRecycler(256, 2, 1);
+        HandledObject o = recycler.get();
+        HandledObject o2 = recycler.get();
+        recycleAtDifferentThread(o, o2);
+
+        // Objects are handed out in LIFO order.
+        assertSame(o2, recycler.get());
+        assertSame(o, recycler.get());
+        assertNotSame(o, recycler.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycleAtDifferentThreadWithMpscQueue() throws Exception {
+        Recycler<HandledObject> recycler = newMpscRecycler(256, 2, 1);
+        HandledObject object = recycler.get();
+        recycleAtDifferentThread(object);
+        recycleAtDifferentThread(object);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testRecycleAtOwnThreadAfterDifferentThreadWithMpscQueue() throws Exception {
+        Recycler<HandledObject> recycler = newMpscRecycler(256, 2, 1);
+        HandledObject object = recycler.get();
+        recycleAtDifferentThread(object);
+        object.recycle();
+    }
+
+    @Test
+    public void testMpscQueueIsBounded() throws Exception {
+        final int maxCapacity = 64;
+        Recycler<HandledObject> recycler = newMpscRecycler(maxCapacity, 4, 1);
+        HandledObject[] array = new HandledObject[maxCapacity];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = recycler.get();
+        }
+        recycleAtDifferentThread(array);
+
+        // The queue holds maxCapacity / maxSharedCapacityFactor objects, everything else is dropped.
+        assertEquals(maxCapacity - maxCapacity / 4, recycler.numDrops());
+        for (int i = maxCapacity / 4 - 1; i >= 0; i--) {
+            assertSame(array[i], recycler.get());
+        }
+        assertEquals(0, recycler.threadLocalSize());
+    }
+
+    @Test
+    public void testMetrics() throws Exception {
+        Recycler<HandledObject> recycler = newRecycler(1024);
+        assertEquals(0, recycler.numHits());
+        assertEquals(0, recycler.numMisses());
+        assertEquals(0, recycler.numDrops());
+
+        // Every 8th never recycled object is pooled by default.
+        HandledObject[] array = new HandledObject[8];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = recycler.get();
+        }
+        for (HandledObject object: array) {
+            object.recycle();
+        }
+        assertEquals(array.length, recycler.numMisses());
+        assertEquals(array.length - 1, recycler.numDrops());
+
+        // Hits are reported in batches.
+        for (int i = 0; i < 64; i++) {
+            recycler.get().recycle();
+        }
+        assertEquals(64, recycler.numHits());
+        assertEquals(array.length, recycler.numMisses());
+    }
+
     static final class HandledObject {
         Recycler.Handle<HandledObject> handle;
 
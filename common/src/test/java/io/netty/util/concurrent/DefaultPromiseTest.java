@@ -307,6 +307,116 @@ public class DefaultPromiseTest {
         assertEquals("success", promise.getNow());
     }
 
+    @Test
+    public void testRemoveListenerRemovesFirstAddedOccurrence() {
+        final StringBuilder notified = new StringBuilder();
+        final Promise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        GenericFutureListener<Future<Void>> a = new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                notified.append('a');
+            }
+        };
+        GenericFutureListener<Future<Void>> b = new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                notified.append('b');
+            }
+        };
+        promise.addListener(a).addListener(b).addListener(a).addListener(b);
+        promise.removeListener(a);
+        promise.setSuccess(null);
+        assertEquals("bab", notified.toString());
+    }
+
+    @Test
+    public void testRemovedListenersDoNotAccumulate() {
+        final StringBuilder notified = new StringBuilder();
+        final DefaultPromise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        GenericFutureListener<Future<Void>> a = new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                notified.append('a');
+            }
+        };
+        GenericFutureListener<Future<Void>> b = new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                notified.append('b');
+            }
+        };
+        GenericFutureListener<Future<Void>> remover = new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                notified.append('r');
+            }
+        };
+        promise.addListener(a).addListener(b);
+        for (int i = 0; i < 10000; i ++) {
+            promise.addListener(remover);
+            assertEquals(3, promise.listenerCount());
+            promise.removeListener(remover);
+            assertEquals(2, promise.listenerCount());
+        }
+        // Remove a listener which was added before others.
+        promise.addListener(remover).addListener(a);
+        promise.removeListener(a);
+        assertEquals(3, promise.listenerCount());
+        promise.removeListener(b);
+        promise.removeListener(remover);
+        assertEquals(1, promise.listenerCount());
+        promise.removeListener(a);
+        assertEquals(0, promise.listenerCount());
+
+        promise.addListener(b).addListener(a);
+        promise.setSuccess(null);
+        assertEquals("ba", notified.toString());
+        assertEquals(0, promise.listenerCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testConcurrentAddListenersAreNotifiedOnce() throws Exception {
+        final int threads = 4;
+        final int listenersPerThread = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < 20; round ++) {
+                final Promise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+                final AtomicInteger notified = new AtomicInteger();
+                final CountDownLatch start = new CountDownLatch(1);
+                final CountDownLatch done = new CountDownLatch(threads);
+                for (int i = 0; i < threads; i ++) {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            try {
+                                start.await();
+                                for (int j = 0; j < listenersPerThread; j ++) {
+                                    promise.addListener(new FutureListener<Void>() {
+                                        @Override
+                                        public void operationComplete(Future<Void> future) {
+                                            notified.incrementAndGet();
+                                        }
+                                    });
+                                }
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            } finally {
+                                done.countDown();
+                            }
+                        }
+                    });
+                }
+                start.countDown();
+                promise.setSuccess(null);
+                done.await();
+                assertEquals(threads * listenersPerThread, notified.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private static void testStackOverFlowChainedFuturesA(int promiseChainLength, final EventExecutor executor,
                                                          boolean runTestInExecutorThread)
             throws InterruptedException {
@@ -16,11 +16,13 @@
 
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.InternalThreadLocalMap;
 import io.netty.util.internal.ObjectCleaner;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
 
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -75,6 +77,88 @@ public class FastThreadLocalTest {
         assertThat(FastThreadLocal.size(), is(0));
     }
 
+    @Test
+    public void testReleaseReusesIndex() {
+        FastThreadLocal<String> var = new FastThreadLocal<String>();
+        var.set("value");
+        int live = InternalThreadLocalMap.liveVariableIndexCount();
+        int total = InternalThreadLocalMap.lastVariableIndex() + 1;
+
+        var.release();
+        assertThat(InternalThreadLocalMap.liveVariableIndexCount(), is(live - 1));
+        assertThat(FastThreadLocal.size(), is(0));
+
+        FastThreadLocal<String> reused = new FastThreadLocal<String>();
+        assertThat(InternalThreadLocalMap.liveVariableIndexCount(), is(live));
+        assertThat(InternalThreadLocalMap.lastVariableIndex() + 1, is(total));
+        assertThat(reused.isSet(), is(false));
+        assertThat(reused.get(), is(nullValue()));
+        reused.release();
+        // Releasing twice must not release an index that may be used by another variable already.
+        reused.release();
+    }
+
+    @Test(timeout = 10000)
+    @SuppressWarnings("unchecked")
+    public void testReleaseExpungesValueOfOtherThread() throws Exception {
+        final FastThreadLocal<String> var = new FastThreadLocal<String>();
+        final FastThreadLocal<String>[] reused = new FastThreadLocal[1];
+        final AtomicReference<Object> result = new AtomicReference<Object>();
+        final CountDownLatch valueSet = new CountDownLatch(1);
+        final CountDownLatch released = new CountDownLatch(1);
+        Thread thread = new FastThreadLocalThread(new Runnable() {
+            @Override
+            public void run() {
+                var.set("stale");
+                valueSet.countDown();
+                try {
+                    released.await();
+                    result.set(reused[0].isSet() ? reused[0].get() : "unset");
+                    reused[0].set("fresh");
+                    // Only the reused variable must be bound to the thread now.
+                    if (FastThreadLocal.size() != 1) {
+                        result.set("size: " + FastThreadLocal.size());
+                    }
+                } catch (Throwable t) {
+                    result.set(t);
+                }
+            }
+        });
+        thread.start();
+        valueSet.await();
+        var.release();
+        reused[0] = new FastThreadLocal<String>();
+        released.countDown();
+        thread.join();
+        assertEquals("unset", result.get());
+        reused[0].release();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testReleaseShrinksIndexSpace() {
+        int total = InternalThreadLocalMap.lastVariableIndex() + 1;
+        FastThreadLocal<?>[] vars = new FastThreadLocal[256];
+        for (int i = 0; i < vars.length; i++) {
+            vars[i] = new FastThreadLocal<Object>();
+        }
+        FastThreadLocal<String> last = (FastThreadLocal<String>) vars[vars.length - 1];
+        last.set("value");
+        assertThat(InternalThreadLocalMap.lastVariableIndex() + 1, is(total + vars.length));
+
+        // Release in an order that leaves holes first, the index space shrinks once the last index was released.
+        for (int i = 0; i < vars.length; i++) {
+            vars[i].release();
+        }
+        assertThat(InternalThreadLocalMap.lastVariableIndex() + 1, is(total));
+
+        FastThreadLocal<String> var = new FastThreadLocal<String>();
+        assertThat(var.get(), is(nullValue()));
+        var.set("value");
+        assertThat(var.get(), is("value"));
+        var.release();
+    }
+
     @Test(timeout = 10000)
     public void testRemoveAllFromFTLThread() throws Throwable {
         final AtomicReference<Throwable> throwable = new AtomicReference<Throwable>();
@@ -18,9 +18,12 @@ package io.netty.util.concurrent;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -97,9 +100,197 @@ public class SingleThreadEventExecutorTest {
         Assert.assertEquals(thread.isAlive(), threadProperties.isAlive());
         Assert.assertEquals(thread.isDaemon(), threadProperties.isDaemon());
         Assert.assertTrue(threadProperties.stackTrace().length > 0);
+        Assert.assertEquals(-1, executor.pinnedCpu());
         executor.shutdownGracefully();
     }
 
+    @Test(timeout = 5000)
+    public void testTaskLanesWithTakeTask() throws Exception {
+        DefaultEventExecutor executor = new DefaultEventExecutor();
+        try {
+            List<String> executed = testTaskLanes(executor, 10);
+            // Every call of takeTask() prefers the high lane over the normal lane over the background lane.
+            Assert.assertEquals("high", executed.get(0));
+            Assert.assertEquals("background", executed.get(executed.size() - 1));
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testTaskLanesWithRunAllTasks() throws Exception {
+        SingleThreadEventExecutor executor = new SingleThreadEventExecutor(null,
+                Executors.defaultThreadFactory(), false) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    if (!runAllTasks(TimeUnit.SECONDS.toNanos(1))) {
+                        Thread.yield();
+                    }
+                }
+            }
+        };
+        try {
+            List<String> executed = testTaskLanes(executor, 200);
+            // The high lane is checked every 64 tasks while the normal lane is drained.
+            Assert.assertTrue(executed.indexOf("high") <= 64);
+            Assert.assertEquals("background", executed.get(executed.size() - 1));
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static List<String> testTaskLanes(SingleThreadEventExecutor executor, int normalTasks)
+            throws InterruptedException {
+        final List<String> executed = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(normalTasks + 2);
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                blocked.countDown();
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        blocked.await();
+
+        executor.execute(new RecordingTask(executed, "background", done), TaskLane.BACKGROUND);
+        for (int i = 0; i < normalTasks; i++) {
+            executor.execute(new RecordingTask(executed, "normal", done), TaskLane.NORMAL);
+        }
+        executor.execute(new RecordingTask(executed, "high", done), TaskLane.HIGH);
+        Assert.assertEquals(1, executor.pendingTasks(TaskLane.HIGH));
+        Assert.assertEquals(1, executor.pendingTasks(TaskLane.BACKGROUND));
+        // The normal lane may also contain tasks that only wake up the executor.
+        Assert.assertTrue(executor.pendingTasks(TaskLane.NORMAL) >= normalTasks);
+
+        unblock.countDown();
+        done.await();
+        Assert.assertEquals(normalTasks + 2, executed.size());
+        return executed;
+    }
+
+    private static final class RecordingTask implements Runnable {
+        private final List<String> executed;
+        private final String name;
+        private final CountDownLatch done;
+
+        RecordingTask(List<String> executed, String name, CountDownLatch done) {
+            this.executed = executed;
+            this.name = name;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            executed.add(name);
+            done.countDown();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testDeadlineCheckIntervalAdaptsToTaskCost() throws Exception {
+        testDeadlineCheckIntervalAdaptsToTaskCost(false);
+    }
+
+    @Test(timeout = 10000)
+    public void testDeadlineCheckIntervalAdaptsToTaskCostWithTaskLanes() throws Exception {
+        testDeadlineCheckIntervalAdaptsToTaskCost(true);
+    }
+
+    private static void testDeadlineCheckIntervalAdaptsToTaskCost(boolean taskLanes) throws Exception {
+        final long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(20);
+        // Cheap tasks are checked after 64 tasks and then less often, up to every 1024 tasks.
+        List<Long> checks = deadlineChecks(timeoutNanos, 0, 4096, taskLanes);
+        Assert.assertEquals(64, (long) checks.get(0));
+        long maxInterval = 0;
+        for (int i = 1; i < checks.size(); i++) {
+            maxInterval = Math.max(maxInterval, checks.get(i) - checks.get(i - 1));
+        }
+        Assert.assertTrue(checks.toString(), maxInterval > 256 && maxInterval <= 1024);
+
+        // Tasks of 100us are checked before they could use more than half of the remaining time.
+        checks = deadlineChecks(timeoutNanos, TimeUnit.MICROSECONDS.toNanos(100), 256, taskLanes);
+        Assert.assertEquals(64, (long) checks.get(0));
+        for (int i = 1; i < checks.size(); i++) {
+            long interval = checks.get(i) - checks.get(i - 1);
+            Assert.assertTrue(checks.toString(), interval <= timeoutNanos / TimeUnit.MICROSECONDS.toNanos(100) / 2);
+        }
+    }
+
+    /**
+     * Returns after how many tasks the deadline was checked, observed by a {@link TaskLane#HIGH} task which runs
+     * whenever the deadline is checked.
+     */
+    private static List<Long> deadlineChecks(final long timeoutNanos, final long taskNanos, final int tasks,
+                                             final boolean taskLanes) throws InterruptedException {
+        final SingleThreadEventExecutor executor = new SingleThreadEventExecutor(null,
+                Executors.defaultThreadFactory(), false) {
+            @Override
+            protected void run() {
+                do {
+                    // Run the first task outside of the measured runAllTasks(long) call.
+                    Runnable task = takeTask();
+                    if (task != null) {
+                        task.run();
+                    }
+                    runAllTasks(timeoutNanos);
+                } while (!confirmShutdown());
+            }
+        };
+        final List<Long> checks = new ArrayList<Long>();
+        final CountDownLatch done = new CountDownLatch(tasks);
+        executor.execute(new Runnable() {
+            private long ran;
+            private boolean checkPending;
+
+            @Override
+            public void run() {
+                if (taskLanes) {
+                    // Makes runAllTasks(long) run the task lanes.
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            // NOOP
+                        }
+                    }, TaskLane.HIGH);
+                }
+                final Runnable check = new Runnable() {
+                    @Override
+                    public void run() {
+                        checkPending = false;
+                        checks.add(ran);
+                    }
+                };
+                for (int i = 0; i < tasks; i++) {
+                    executor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!checkPending) {
+                                checkPending = true;
+                                executor.execute(check, TaskLane.HIGH);
+                            }
+                            long start = System.nanoTime();
+                            while (System.nanoTime() - start < taskNanos) {
+                                // Busy spin.
+                            }
+                            ran ++;
+                            done.countDown();
+                        }
+                    });
+                }
+            }
+        });
+        done.await();
+        executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        return checks;
+    }
+
     @Test(expected = RejectedExecutionException.class, timeout = 3000)
     public void testInvokeAnyInEventLoop() {
         testInvokeInEventLoop(true, false);
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.admission;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopLagMonitor;
+import io.netty.channel.ServerChannel;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stops admitting new connections while the server is overloaded. This handler must be added to the pipeline of the
+ * {@link ServerChannel}, usually via {@link io.netty.bootstrap.ServerBootstrap#handler(io.netty.channel.ChannelHandler)}:
+ * <pre>
+ * {@link EventLoopLagMonitor} lagMonitor = new {@link EventLoopLagMonitor}(workerGroup, 10, TimeUnit.MILLISECONDS)
+ *         .start();
+ * ServerBootstrap b = ...;
+ * b.handler(new {@link AdmissionControlHandler}(Policy.PAUSE_ACCEPT, lagMonitor, 100, TimeUnit.MILLISECONDS,
+ *         0, 10000));
+ * </pre>
+ * The server is considered to be overloaded if any of the following is true:
+ * <ul>
+ *     <li>the {@link EventLoopLagMonitor} reports a lag of more than {@code maxLag},</li>
+ *     <li>the direct memory which is tracked by Netty exceeds {@code maxDirectMemory} bytes,</li>
+ *     <li>the number of accepted {@link Channel}s that are still open reached {@code maxChannels}.</li>
+ * </ul>
+ * The state is checked every {@value #CHECK_INTERVAL_MILLIS} milliseconds and the limit of {@link Channel}s also
+ * whenever a {@link Channel} is accepted.
+ */
+@UnstableApi
+public class AdmissionControlHandler extends ChannelInboundHandlerAdapter {
+
+    /**
+     * What to do while the server is overloaded.
+     */
+    public enum Policy {
+        /**
+         * Stop accepting connections by disabling auto-read of the {@link ServerChannel}, so new connections wait in
+         * the backlog of the operating system.
+         */
+        PAUSE_ACCEPT,
+        /**
+         * Keep accepting connections but close them right away.
+         */
+        REJECT
+    }
+
+    /**
+     * The interval in which the overload state is checked.
+     */
+    public static final long CHECK_INTERVAL_MILLIS = 100;
+
+    private final Policy policy;
+    private final EventLoopLagMonitor lagMonitor;
+    private final long maxLagNanos;
+    private final long maxDirectMemory;
+    private final int maxChannels;
+    private final AtomicInteger channels = new AtomicInteger();
+    private final ChannelFutureListener channelClosedListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            channels.decrementAndGet();
+        }
+    };
+
+    private ChannelHandlerContext ctx;
+    private ScheduledFuture<?> checkFuture;
+    private boolean overloaded;
+    private boolean paused;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param policy            what to do while the server is overloaded
+     * @param lagMonitor        the {@link EventLoopLagMonitor} of the {@link io.netty.channel.EventLoopGroup} which
+     *                          serves the accepted {@link Channel}s, or {@code null} to ignore the lag. It must be
+     *                          started by the caller.
+     * @param maxLag            the lag up to which the server is not overloaded
+     * @param unit              the {@link TimeUnit} of {@code maxLag}
+     * @param maxDirectMemory   the number of bytes of direct memory up to which the server is not overloaded, or
+     *                          {@code 0} to ignore the direct memory
+     * @param maxChannels       the number of open {@link Channel}s from which on the server is overloaded, or
+     *                          {@code 0} to not limit the number of {@link Channel}s
+     */
+    public AdmissionControlHandler(Policy policy, EventLoopLagMonitor lagMonitor, long maxLag, TimeUnit unit,
+                                   long maxDirectMemory, int maxChannels) {
+        this.policy = ObjectUtil.checkNotNull(policy, "policy");
+        this.lagMonitor = lagMonitor;
+        maxLagNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(ObjectUtil.checkPositiveOrZero(maxLag, "maxLag"));
+        this.maxDirectMemory = ObjectUtil.checkPositiveOrZero(maxDirectMemory, "maxDirectMemory");
+        this.maxChannels = ObjectUtil.checkPositiveOrZero(maxChannels, "maxChannels");
+    }
+
+    /**
+     * Returns the number of accepted {@link Channel}s that are still open.
+     */
+    public int channels() {
+        return channels.get();
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) throws Exception {
+        if (ctx.channel().isActive()) {
+            initialize(ctx);
+        }
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        if (paused) {
+            paused = false;
+            ctx.channel().config().setAutoRead(true);
+        }
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) throws Exception {
+        initialize(ctx);
+        ctx.fireChannelActive();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+        destroy();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        Channel child = (Channel) msg;
+        if (policy == Policy.REJECT && (overloaded || maxChannels > 0 && channels.get() >= maxChannels)) {
+            channelRejected(ctx, child);
+            return;
+        }
+
+        int channels = this.channels.incrementAndGet();
+        child.closeFuture().addListener(channelClosedListener);
+        if (policy == Policy.PAUSE_ACCEPT && maxChannels > 0 && channels >= maxChannels) {
+            pause(ctx);
+        }
+        ctx.fireChannelRead(child);
+    }
+
+    /**
+     * Is called for each {@link Channel} which is accepted while the server is overloaded and the {@link Policy} is
+     * {@link Policy#REJECT}. The {@link Channel} is not registered yet. The default implementation closes it.
+     */
+    protected void channelRejected(ChannelHandlerContext ctx, Channel child) {
+        child.unsafe().closeForcibly();
+    }
+
+    /**
+     * Returns {@code true} if the server is overloaded.
+     */
+    protected boolean isOverloaded() {
+        if (lagMonitor != null && lagMonitor.lagNanos() > maxLagNanos) {
+            return true;
+        }
+        if (maxDirectMemory > 0 && PlatformDependent.usedDirectMemory() > maxDirectMemory) {
+            return true;
+        }
+        return maxChannels > 0 && channels.get() >= maxChannels;
+    }
+
+    private void initialize(ChannelHandlerContext ctx) {
+        if (this.ctx != null) {
+            return;
+        }
+        this.ctx = ctx;
+        checkFuture = ctx.executor().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                check();
+            }
+        }, CHECK_INTERVAL_MILLIS, CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private void destroy() {
+        if (checkFuture != null) {
+            checkFuture.cancel(false);
+            checkFuture = null;
+        }
+    }
+
+    private void check() {
+        boolean overloaded = isOverloaded();
+        this.overloaded = overloaded;
+        if (policy == Policy.PAUSE_ACCEPT) {
+            if (overloaded) {
+                pause(ctx);
+            } else if (paused) {
+                paused = false;
+                ctx.channel().config().setAutoRead(true);
+            }
+        }
+    }
+
+    private void pause(ChannelHandlerContext ctx) {
+        paused = true;
+        ChannelConfig config = ctx.channel().config();
+        // Check the Channel and not only the flag, as auto-read may have been enabled again in the meantime, for
+        // example by the ServerBootstrap one second after accepting failed with too many open files.
+        if (config.isAutoRead()) {
+            config.setAutoRead(false);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.handler.admission;
+
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.admission.AdmissionControlHandler.Policy;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class AdmissionControlHandlerTest {
+
+    @Test
+    public void testRejectAboveMaxChannels() {
+        AdmissionControlHandler handler = new AdmissionControlHandler(
+                Policy.REJECT, null, 0, TimeUnit.MILLISECONDS, 0, 1);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        EmbeddedChannel child1 = new EmbeddedChannel();
+        EmbeddedChannel child2 = new EmbeddedChannel();
+        EmbeddedChannel child3 = new EmbeddedChannel();
+
+        assertTrue(server.writeInbound(child1));
+        assertSame(child1, server.readInbound());
+        assertEquals(1, handler.channels());
+
+        assertFalse(server.writeInbound(child2));
+        assertFalse(child2.isOpen());
+        assertEquals(1, handler.channels());
+
+        child1.close();
+        assertEquals(0, handler.channels());
+        assertTrue(server.writeInbound(child3));
+        assertSame(child3, server.readInbound());
+
+        child3.close();
+        assertFalse(server.finish());
+    }
+
+    @Test
+    public void testPauseAcceptAboveMaxChannels() throws Exception {
+        AdmissionControlHandler handler = new AdmissionControlHandler(
+                Policy.PAUSE_ACCEPT, null, 0, TimeUnit.MILLISECONDS, 0, 1);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        EmbeddedChannel child = new EmbeddedChannel();
+
+        assertTrue(server.writeInbound(child));
+        assertSame(child, server.readInbound());
+        assertFalse(server.config().isAutoRead());
+
+        // Still overloaded after the next check.
+        Thread.sleep(AdmissionControlHandler.CHECK_INTERVAL_MILLIS * 2);
+        server.runPendingTasks();
+        assertFalse(server.config().isAutoRead());
+
+        child.close();
+        Thread.sleep(AdmissionControlHandler.CHECK_INTERVAL_MILLIS * 2);
+        server.runPendingTasks();
+        assertTrue(server.config().isAutoRead());
+
+        assertNull(server.readInbound());
+        assertFalse(server.finish());
+    }
+
+    @Test
+    public void testPauseAcceptAfterAutoReadWasEnabledAgain() throws Exception {
+        AdmissionControlHandler handler = new AdmissionControlHandler(
+                Policy.PAUSE_ACCEPT, null, 0, TimeUnit.MILLISECONDS, 0, 1);
+        EmbeddedChannel server = new EmbeddedChannel(handler);
+        EmbeddedChannel child = new EmbeddedChannel();
+
+        assertTrue(server.writeInbound(child));
+        assertSame(child, server.readInbound());
+        assertFalse(server.config().isAutoRead());
+
+        // The ServerBootstrap enables auto-read again after an accept failure, while still overloaded.
+        server.config().setAutoRead(true);
+        Thread.sleep(AdmissionControlHandler.CHECK_INTERVAL_MILLIS * 2);
+        server.runPendingTasks();
+        assertFalse(server.config().isAutoRead());
+
+        child.close();
+        Thread.sleep(AdmissionControlHandler.CHECK_INTERVAL_MILLIS * 2);
+        server.runPendingTasks();
+        assertTrue(server.config().isAutoRead());
+
+        assertNull(server.readInbound());
+        assertFalse(server.finish());
+    }
+}
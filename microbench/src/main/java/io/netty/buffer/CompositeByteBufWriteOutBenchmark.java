@@ -23,9 +23,11 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.internal.PlatformDependent;
 
 import static io.netty.buffer.Unpooled.wrappedBuffer;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -66,15 +68,35 @@ public class CompositeByteBufWriteOutBenchmark extends AbstractMicrobenchmark {
 
     private ByteBuf[] sourceBufs;
 
+    // Used by the gather benchmarks, which fill an array laid out like the iovec array of a gathering write.
+    private CompositeByteBuf directComposite;
+    private long[] iov;
+    private int iovCount;
+    private final CompositeByteBuf.ComponentMemoryProcessor iovFiller =
+            new CompositeByteBuf.ComponentMemoryProcessor() {
+        @Override
+        public boolean processComponentMemory(long memoryAddress, int length) {
+            iov[iovCount++] = memoryAddress;
+            iov[iovCount++] = length;
+            return true;
+        }
+    };
+
     @Setup
     public void setup() {
         targetBuffer = PooledByteBufAllocator.DEFAULT.directBuffer(size + 2048);
         sourceBufs = bufferType.sourceBuffers(size);
+        directComposite = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        for (ByteBuf buf: sourceBufs) {
+            directComposite.addComponent(true, Unpooled.directBuffer(buf.readableBytes()).writeBytes(buf.duplicate()));
+        }
+        iov = new long[directComposite.numComponents() * 2];
     }
 
     @TearDown
     public void teardown() {
         targetBuffer.release();
+        directComposite.release();
     }
 
     @Benchmark
@@ -89,6 +111,27 @@ public class CompositeByteBufWriteOutBenchmark extends AbstractMicrobenchmark {
         return targetBuffer.clear().writeBytes(cbb).readableBytes();
     }
 
+    @Benchmark
+    public int gatherNioBuffers() {
+        // Like the remaining bytes after a partial write.
+        int index = directComposite.writerIndex() >>> 1;
+        ByteBuffer[] buffers = directComposite.nioBuffers(index, directComposite.writerIndex() - index);
+        int count = 0;
+        for (ByteBuffer buffer: buffers) {
+            iov[count++] = PlatformDependent.directBufferAddress(buffer) + buffer.position();
+            iov[count++] = buffer.remaining();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int gatherComponentMemory() {
+        int index = directComposite.writerIndex() >>> 1;
+        iovCount = 0;
+        directComposite.forEachComponentMemory(index, directComposite.writerIndex() - index, iovFiller);
+        return iovCount;
+    }
+
     private static ByteBuf[] makeSmallChunks(int length) {
 
         List<ByteBuf> buffers = new ArrayList<ByteBuf>(((length + 1) / 48) * 9);
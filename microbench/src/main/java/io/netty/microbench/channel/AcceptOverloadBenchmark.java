@@ -0,0 +1,194 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EventLoopLagMonitor;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.admission.AdmissionControlHandler;
+import io.netty.handler.admission.AdmissionControlHandler.Policy;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks the goodput of a server which is offered twice the number of connections it can serve within a deadline,
+ * without admission control and with the {@link Policy}s of {@link AdmissionControlHandler}. The goodput is the number
+ * of requests which were answered within the deadline.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class AcceptOverloadBenchmark extends AbstractMicrobenchmark {
+
+    private static final long DEADLINE_MILLIS = 50;
+
+    @Param({ "NONE", "PAUSE_ACCEPT", "REJECT" })
+    public String policy;
+
+    /**
+     * The number of connections the server can serve within the deadline.
+     */
+    @Param({ "32" })
+    public int capacity;
+
+    /**
+     * The cost of a single request, see {@link Blackhole#consumeCPU(long)}.
+     */
+    @Param({ "100000" })
+    public int tokens;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private EventLoopGroup clientGroup;
+    private EventLoopLagMonitor lagMonitor;
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+    private volatile long startNanos;
+    private volatile CountDownLatch done;
+    private final AtomicInteger answered = new AtomicInteger();
+
+    /**
+     * The requests which were answered within and after the deadline.
+     */
+    @AuxCounters
+    @State(Scope.Thread)
+    public static class Goodput {
+        public long goodput;
+        public long late;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        bossGroup = new NioEventLoopGroup(1);
+        workerGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(2);
+        ServerBootstrap sb = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childHandler(new RequestHandler(tokens));
+        if (!"NONE".equals(policy)) {
+            lagMonitor = new EventLoopLagMonitor(workerGroup, 5, TimeUnit.MILLISECONDS).start();
+            sb.handler(new AdmissionControlHandler(Policy.valueOf(policy), lagMonitor,
+                    DEADLINE_MILLIS / 2, TimeUnit.MILLISECONDS, 0, capacity));
+        }
+        serverChannel = sb.bind(InetAddress.getLoopbackAddress(), 0).sync().channel();
+        bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ResponseHandler());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serverChannel.close().sync();
+        if (lagMonitor != null) {
+            lagMonitor.stop();
+        }
+        bossGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        workerGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public void offerTwiceTheCapacity(Goodput goodput) throws Exception {
+        int connections = capacity * 2;
+        CountDownLatch done = new CountDownLatch(connections);
+        this.done = done;
+        answered.set(0);
+        startNanos = System.nanoTime();
+        Channel[] channels = new Channel[connections];
+        for (int i = 0; i < connections; i++) {
+            ChannelFuture future = bootstrap.connect(serverChannel.localAddress());
+            channels[i] = future.channel();
+            future.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (future.isSuccess()) {
+                        future.channel().writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+                    }
+                }
+            });
+        }
+        done.await(DEADLINE_MILLIS * 4, TimeUnit.MILLISECONDS);
+        for (Channel channel: channels) {
+            channel.close().syncUninterruptibly();
+        }
+        int answered = this.answered.get();
+        goodput.goodput += answered;
+        goodput.late += connections - answered;
+    }
+
+    @Sharable
+    private static final class RequestHandler extends ChannelInboundHandlerAdapter {
+        private final long tokens;
+
+        RequestHandler(long tokens) {
+            this.tokens = tokens;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            Blackhole.consumeCPU(tokens);
+            ctx.writeAndFlush(msg).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    @Sharable
+    private final class ResponseHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ((ByteBuf) msg).release();
+            if (System.nanoTime() - startNanos <= TimeUnit.MILLISECONDS.toNanos(DEADLINE_MILLIS)) {
+                answered.incrementAndGet();
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            done.countDown();
+        }
+    }
+}
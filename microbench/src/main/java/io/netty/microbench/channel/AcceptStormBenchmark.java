@@ -0,0 +1,128 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.PipelineTemplate;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks accepting connections whose pipeline is set up by a {@link ChannelInitializer} or by a
+ * {@link PipelineTemplate}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class AcceptStormBenchmark extends AbstractMicrobenchmark {
+
+    private static final ChannelHandler SHARED_HANDLER = new SharedHandler();
+
+    private static final PipelineTemplate.HandlerFactory HANDLER_FACTORY = new PipelineTemplate.HandlerFactory() {
+        @Override
+        public ChannelHandler newHandler(Channel channel) {
+            return new ChannelInboundHandlerAdapter();
+        }
+    };
+
+    @Param({ "false", "true" })
+    public boolean template;
+
+    /**
+     * The number of handlers of each child pipeline, every other one is shared.
+     */
+    @Param({ "8" })
+    public int handlers;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(1);
+        ServerBootstrap sb = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class);
+        if (template) {
+            PipelineTemplate.Builder builder = PipelineTemplate.builder();
+            for (int i = 0; i < handlers; i++) {
+                if (i % 2 == 0) {
+                    builder.addLast("handler" + i, SHARED_HANDLER);
+                } else {
+                    builder.addLast("handler" + i, HANDLER_FACTORY);
+                }
+            }
+            sb.childTemplate(builder.build());
+        } else {
+            sb.childHandler(new ChannelInitializer<Channel>() {
+                @Override
+                protected void initChannel(Channel ch) {
+                    ChannelPipeline pipeline = ch.pipeline();
+                    for (int i = 0; i < handlers; i++) {
+                        if (i % 2 == 0) {
+                            pipeline.addLast("handler" + i, SHARED_HANDLER);
+                        } else {
+                            pipeline.addLast("handler" + i, HANDLER_FACTORY.newHandler(ch));
+                        }
+                    }
+                }
+            });
+        }
+        serverChannel = sb.bind(LocalAddress.ANY).sync().channel();
+        bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object connectAndClose() throws Exception {
+        Channel channel = bootstrap.connect(serverChannel.localAddress()).sync().channel();
+        return channel.close().sync();
+    }
+
+    @Sharable
+    private static final class SharedHandler extends ChannelInboundHandlerAdapter {
+    }
+}
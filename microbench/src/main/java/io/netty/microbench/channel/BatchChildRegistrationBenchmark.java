@@ -0,0 +1,132 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the rate and the latency of accepting bursts of connections over loopback, with the accepted
+ * {@link Channel}s registered one by one and in batches per child event loop.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchChildRegistrationBenchmark extends AbstractMicrobenchmark {
+
+    /**
+     * The number of connections opened at once.
+     */
+    @Param({ "16", "64" })
+    public int connections;
+
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup childGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Bootstrap bootstrap;
+    private volatile CountDownLatch activeChildren;
+
+    @Setup
+    public void setup() throws Exception {
+        bossGroup = new NioEventLoopGroup(1);
+        childGroup = new NioEventLoopGroup(4);
+        clientGroup = new NioEventLoopGroup(2);
+        serverChannel = new ServerBootstrap()
+                .group(bossGroup, childGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childHandler(new ActiveChildHandler())
+                .bind(InetAddress.getLoopbackAddress(), 0).sync().channel();
+        bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        serverChannel.close().sync();
+        bossGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        childGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.bootstrap.batchChildRegistration=false")
+    public Object acceptBurst() throws Exception {
+        return connectAndClose();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.bootstrap.batchChildRegistration=true")
+    public Object acceptBurstBatched() throws Exception {
+        return connectAndClose();
+    }
+
+    private Object connectAndClose() throws Exception {
+        CountDownLatch activeChildren = new CountDownLatch(connections);
+        this.activeChildren = activeChildren;
+        ChannelFuture[] futures = new ChannelFuture[connections];
+        for (int i = 0; i < futures.length; i++) {
+            futures[i] = bootstrap.connect(serverChannel.localAddress());
+        }
+        activeChildren.await();
+        ChannelFuture closeFuture = null;
+        for (ChannelFuture future: futures) {
+            closeFuture = future.sync().channel().close();
+        }
+        return closeFuture.sync();
+    }
+
+    @Sharable
+    private final class ActiveChildHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            activeChildren.countDown();
+            ctx.fireChannelActive();
+        }
+    }
+}
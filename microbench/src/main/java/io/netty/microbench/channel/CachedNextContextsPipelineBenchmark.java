@@ -0,0 +1,26 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import org.openjdk.jmh.annotations.Fork;
+
+/**
+ * Runs the {@link DefaultChannelPipelineBenchmark} with the next context of each event type cached per context, to
+ * compare it with walking the contexts that skip the event.
+ */
+@Fork(value = 2, jvmArgsAppend = "-Dio.netty.pipeline.cacheNextContexts=true")
+public class CachedNextContextsPipelineBenchmark extends DefaultChannelPipelineBenchmark {
+}
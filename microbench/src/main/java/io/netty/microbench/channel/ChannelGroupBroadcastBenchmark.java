@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelMatchers;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks the fan-out of a message to all members of a {@link DefaultChannelGroup} by the caller's thread, with a
+ * write per {@link Channel} and with {@link DefaultChannelGroup#broadcast(Object, io.netty.channel.group.ChannelMatcher,
+ * boolean)}, each with and without an aggregate future. Every invocation waits until all subscribers received the
+ * message.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ChannelGroupBroadcastBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1000", "10000" })
+    public int subscribers;
+
+    @Param({ "4" })
+    public int eventLoops;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private final List<Channel> clients = new ArrayList<Channel>();
+    private DefaultChannelGroup channelGroup;
+    private ByteBuf message;
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile Promise<Void> allReceived;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(eventLoops);
+        channelGroup = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        LocalAddress address = new LocalAddress(ChannelGroupBroadcastBenchmark.class.getSimpleName());
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        channelGroup.add(ch);
+                    }
+                })
+                .bind(address).sync().channel();
+
+        final ChannelInboundHandlerAdapter subscriber = new ChannelInboundHandlerAdapter() {
+            @Override
+            public boolean isSharable() {
+                return true;
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ((ByteBuf) msg).release();
+                if (received.incrementAndGet() == subscribers) {
+                    allReceived.trySuccess(null);
+                }
+            }
+        };
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(subscriber);
+        for (int i = 0; i < subscribers; i++) {
+            clients.add(bootstrap.connect(address).sync().channel());
+        }
+        while (channelGroup.size() < subscribers) {
+            Thread.sleep(10);
+        }
+        message = Unpooled.directBuffer(64).writeZero(64);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        message.release();
+        channelGroup.close().sync();
+        for (Channel ch: clients) {
+            ch.close().sync();
+        }
+        clients.clear();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    private Promise<Void> expectAll() {
+        Promise<Void> allReceived = GlobalEventExecutor.INSTANCE.newPromise();
+        received.set(0);
+        this.allReceived = allReceived;
+        return allReceived;
+    }
+
+    @Benchmark
+    public Object writeAndFlushVoidPromise() throws Exception {
+        Promise<Void> allReceived = expectAll();
+        channelGroup.writeAndFlush(message.retain(), ChannelMatchers.all(), true);
+        return allReceived.sync();
+    }
+
+    @Benchmark
+    public Object writeAndFlushGroupFuture() throws Exception {
+        Promise<Void> allReceived = expectAll();
+        channelGroup.writeAndFlush(message.retain(), ChannelMatchers.all(), false).sync();
+        return allReceived.sync();
+    }
+
+    @Benchmark
+    public Object broadcastVoidPromise() throws Exception {
+        Promise<Void> allReceived = expectAll();
+        channelGroup.broadcast(message.retain(), ChannelMatchers.all(), true);
+        return allReceived.sync();
+    }
+
+    @Benchmark
+    public Object broadcastAggregateFuture() throws Exception {
+        Promise<Void> allReceived = expectAll();
+        channelGroup.broadcast(message.retain(), ChannelMatchers.all(), false).sync();
+        return allReceived.sync();
+    }
+}
@@ -16,9 +16,12 @@
 package io.netty.microbench.channel;
 
 import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandler.Sharable;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundBatchHandler;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelReadBatch;
 import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.microbench.util.AbstractMicrobenchmark;
 import org.openjdk.jmh.annotations.Benchmark;
@@ -32,6 +35,9 @@ import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Warmup;
 import org.openjdk.jmh.infra.Blackhole;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Warmup(iterations = 5)
 @Measurement(iterations = 5)
 @State(Scope.Benchmark)
@@ -56,10 +62,22 @@ public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
         }
     };
 
-    @Param({ "4" })
+    private static final ChannelHandler FORWARDING_HANDLER = new ForwardingHandler();
+
+    private static final ChannelHandler READ_CONSUMING_HANDLER = new ReadConsumingHandler();
+
+    @Param({ "5", "15", "30" })
     public int extraHandlers;
 
+    /**
+     * The number of messages passed through the pipeline by the {@code channelRead} benchmarks.
+     */
+    @Param({ "16" })
+    public int messages;
+
     private ChannelPipeline pipeline;
+    private ChannelPipeline readPipeline;
+    private List<Object> msgs;
 
     @Setup(Level.Iteration)
     public void setup() {
@@ -68,11 +86,22 @@ public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
             pipeline.addLast(NOOP_HANDLER);
         }
         pipeline.addLast(CONSUMING_HANDLER);
+
+        readPipeline = new EmbeddedChannel().pipeline();
+        for (int i = 0; i < extraHandlers; i++) {
+            readPipeline.addLast(FORWARDING_HANDLER);
+        }
+        readPipeline.addLast(READ_CONSUMING_HANDLER);
+        msgs = new ArrayList<Object>(messages);
+        for (int i = 0; i < messages; i++) {
+            msgs.add(i);
+        }
     }
 
     @TearDown
     public void tearDown() {
         pipeline.channel().close();
+        readPipeline.channel().close();
     }
 
     @Benchmark
@@ -81,4 +110,44 @@ public class DefaultChannelPipelineBenchmark extends AbstractMicrobenchmark {
             hole.consume(pipeline.fireChannelReadComplete());
         }
     }
+
+    @Benchmark
+    public void propagateChannelRead() {
+        for (int i = 0; i < msgs.size(); i++) {
+            readPipeline.fireChannelRead(msgs.get(i));
+        }
+    }
+
+    @Benchmark
+    public void propagateChannelReadBatch() {
+        ChannelReadBatch.fire(readPipeline, msgs);
+    }
+
+    @Sharable
+    private static final class ForwardingHandler extends ChannelInboundHandlerAdapter
+            implements ChannelInboundBatchHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void channelReadBatch(ChannelHandlerContext ctx, List<Object> msgs) {
+            ChannelReadBatch.fire(ctx, msgs);
+        }
+    }
+
+    @Sharable
+    private static final class ReadConsumingHandler extends ChannelInboundHandlerAdapter
+            implements ChannelInboundBatchHandler {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // NOOP
+        }
+
+        @Override
+        public void channelReadBatch(ChannelHandlerContext ctx, List<Object> msgs) {
+            // NOOP
+        }
+    }
 }
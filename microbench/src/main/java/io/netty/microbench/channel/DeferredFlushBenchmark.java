@@ -0,0 +1,184 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks a publisher which sends every message to many subscriber connections of the same event loop, with
+ * {@code flush()} per write and with the flushes deferred to the end of the event loop iteration.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DeferredFlushBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "nio", "epoll" })
+    public String transport;
+
+    /**
+     * The maximum flush delay in microseconds, {@code 0} to flush immediately.
+     */
+    @Param({ "0", "1000" })
+    public int maxFlushDelayMicros;
+
+    @Param({ "100", "1000" })
+    public int subscribers;
+
+    /**
+     * The number of messages published per invocation, each one written to all subscribers.
+     */
+    @Param({ "4" })
+    public int messages;
+
+    private MultithreadEventLoopGroup serverGroup;
+    private MultithreadEventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private final List<Channel> clients = new ArrayList<Channel>();
+    private final List<Channel> subscriberChannels = new ArrayList<Channel>();
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile Promise<Void> allReceived;
+    private volatile int expected;
+    private EventLoop publisherLoop;
+    private Runnable publishTask;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<? extends ServerChannel> serverChannelClass;
+        Class<? extends Channel> channelClass;
+        if ("epoll".equals(transport)) {
+            serverGroup = new EpollEventLoopGroup(1);
+            clientGroup = new EpollEventLoopGroup(1);
+            serverChannelClass = EpollServerSocketChannel.class;
+            channelClass = EpollSocketChannel.class;
+        } else {
+            serverGroup = new NioEventLoopGroup(1);
+            clientGroup = new NioEventLoopGroup(1);
+            serverChannelClass = NioServerSocketChannel.class;
+            channelClass = NioSocketChannel.class;
+        }
+        serverGroup.setMaxFlushDelay(maxFlushDelayMicros, TimeUnit.MICROSECONDS);
+        publisherLoop = serverGroup.next();
+
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(serverChannelClass)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        subscriberChannels.add(ch);
+                    }
+                })
+                .bind(0).sync().channel();
+
+        final ChannelInboundHandlerAdapter subscriber = new ChannelInboundHandlerAdapter() {
+            @Override
+            public boolean isSharable() {
+                return true;
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                int bytes = ((ByteBuf) msg).readableBytes();
+                ((ByteBuf) msg).release();
+                if (received.addAndGet(bytes) >= expected) {
+                    allReceived.trySuccess(null);
+                }
+            }
+        };
+        Bootstrap bootstrap = new Bootstrap()
+                .group(clientGroup)
+                .channel(channelClass)
+                .handler(subscriber);
+        for (int i = 0; i < subscribers; i++) {
+            clients.add(bootstrap.connect(serverChannel.localAddress()).sync().channel());
+        }
+        while (publisherLoop.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return subscriberChannels.size();
+            }
+        }).sync().getNow() < subscribers) {
+            Thread.sleep(10);
+        }
+
+        final ByteBuf message = Unpooled.unreleasableBuffer(Unpooled.directBuffer(8).writeLong(0));
+        publishTask = new Runnable() {
+            @Override
+            public void run() {
+                // Each message is published by its own flush, like a message handed over by a task or timer.
+                for (int i = 0; i < messages; i++) {
+                    for (Channel ch: subscriberChannels) {
+                        ch.writeAndFlush(message.duplicate(), ch.voidPromise());
+                    }
+                }
+            }
+        };
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (Channel ch: clients) {
+            ch.close().sync();
+        }
+        clients.clear();
+        serverChannel.close().sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object publish() throws Exception {
+        Promise<Void> allReceived = clientGroup.next().newPromise();
+        received.set(0);
+        expected = messages * subscribers * 8;
+        this.allReceived = allReceived;
+        publisherLoop.execute(publishTask);
+        return allReceived.sync();
+    }
+}
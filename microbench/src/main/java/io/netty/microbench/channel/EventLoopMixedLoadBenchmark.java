@@ -0,0 +1,151 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the round trip time of a message through a single event loop that also runs compute heavy tasks, with a
+ * fixed and with an adaptive ioRatio.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class EventLoopMixedLoadBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "nio", "epoll" })
+    public String transport;
+
+    @Param({ "false", "true" })
+    public boolean adaptiveIoRatio;
+
+    /**
+     * The number of compute tasks submitted per round trip.
+     */
+    @Param({ "16", "256" })
+    public int tasks;
+
+    /**
+     * The cost of a single compute task, see {@link Blackhole#consumeCPU(long)}.
+     */
+    @Param({ "1000" })
+    public int tokens;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private volatile Promise<Void> response;
+    private Runnable computeTask;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<? extends ServerChannel> serverChannelClass;
+        Class<? extends Channel> channelClass;
+        if ("epoll".equals(transport)) {
+            EpollEventLoopGroup epollGroup = new EpollEventLoopGroup(1);
+            epollGroup.setAdaptiveIoRatio(adaptiveIoRatio);
+            group = epollGroup;
+            serverChannelClass = EpollServerSocketChannel.class;
+            channelClass = EpollSocketChannel.class;
+        } else {
+            NioEventLoopGroup nioGroup = new NioEventLoopGroup(1);
+            nioGroup.setAdaptiveIoRatio(adaptiveIoRatio);
+            group = nioGroup;
+            serverChannelClass = NioServerSocketChannel.class;
+            channelClass = NioSocketChannel.class;
+        }
+        final long tokens = this.tokens;
+        computeTask = new Runnable() {
+            @Override
+            public void run() {
+                Blackhole.consumeCPU(tokens);
+            }
+        };
+
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(serverChannelClass)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                ctx.writeAndFlush(msg, ctx.voidPromise());
+                            }
+                        });
+                    }
+                })
+                .bind(0).sync().channel();
+        channel = new Bootstrap()
+                .group(group)
+                .channel(channelClass)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ((ByteBuf) msg).release();
+                        response.trySuccess(null);
+                    }
+                })
+                .connect(serverChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object roundTripWithComputeTasks() throws Exception {
+        for (int i = 0; i < tasks; i++) {
+            group.execute(computeTask);
+        }
+        Promise<Void> response = channel.eventLoop().newPromise();
+        this.response = response;
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }), channel.voidPromise());
+        return response.sync();
+    }
+}
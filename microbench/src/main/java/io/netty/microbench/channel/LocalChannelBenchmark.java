@@ -0,0 +1,158 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of a message between two {@link LocalChannel}s and the throughput of a stream of
+ * flushed messages, with both {@link Channel}s on the same or on different EventLoops.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class LocalChannelBenchmark extends AbstractMicrobenchmark {
+    private static final int MESSAGES = 1000;
+    private static final Object MESSAGE = new Object();
+
+    @Param({ "true", "false" })
+    public boolean sameEventLoop;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private EchoClientHandler client;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        EventLoop serverLoop = group.next();
+        EventLoop clientLoop = sameEventLoop ? serverLoop : group.next();
+        LocalAddress address = new LocalAddress(LocalChannelBenchmark.class.getSimpleName());
+        serverChannel = new ServerBootstrap()
+                .group(serverLoop, serverLoop)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                                ctx.writeAndFlush(msg, ctx.voidPromise());
+                            }
+                        });
+                    }
+                })
+                .bind(address).sync().channel();
+
+        client = new EchoClientHandler();
+        channel = new Bootstrap()
+                .group(clientLoop)
+                .channel(LocalChannel.class)
+                .handler(client)
+                .connect(address).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public Object pingPong() throws Exception {
+        return channel.writeAndFlush(MESSAGE).sync();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public Object stream() throws Exception {
+        return channel.eventLoop().submit(new Callable<ChannelPromise>() {
+            @Override
+            public ChannelPromise call() {
+                ChannelPromise promise = channel.newPromise();
+                client.expect(MESSAGES, promise);
+                for (int i = 0; i < MESSAGES; i++) {
+                    channel.writeAndFlush(MESSAGE, channel.voidPromise());
+                }
+                return promise;
+            }
+        }).sync().getNow().sync();
+    }
+
+    /**
+     * Completes the promise of a write once its echo, or the echo of the expected number of messages, came back.
+     */
+    private static final class EchoClientHandler extends ChannelDuplexHandler {
+        private ChannelPromise promise;
+        private int pending;
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+
+        void expect(int messages, ChannelPromise promise) {
+            pending = messages;
+            this.promise = promise;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            if (--pending == 0) {
+                ChannelPromise promise = this.promise;
+                this.promise = null;
+                promise.trySuccess();
+            }
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            if (this.promise == null) {
+                expect(1, promise);
+                promise = ctx.voidPromise();
+            }
+            ctx.write(msg, promise);
+        }
+    }
+}
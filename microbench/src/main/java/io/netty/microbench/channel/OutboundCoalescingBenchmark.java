@@ -0,0 +1,137 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks flushing a mix of mostly small and some large messages, with and without coalescing the small messages
+ * in the {@link io.netty.channel.ChannelOutboundBuffer}.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class OutboundCoalescingBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "nio", "epoll" })
+    public String transport;
+
+    /**
+     * The number of messages which are written per flush.
+     */
+    @Param({ "16", "256" })
+    public int messages;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+    private ByteBuf[] mix;
+
+    @Setup
+    public void setup() throws Exception {
+        Class<? extends ServerChannel> serverChannelClass;
+        Class<? extends Channel> channelClass;
+        if ("epoll".equals(transport)) {
+            group = new EpollEventLoopGroup(1);
+            serverChannelClass = EpollServerSocketChannel.class;
+            channelClass = EpollSocketChannel.class;
+        } else {
+            group = new NioEventLoopGroup(1);
+            serverChannelClass = NioServerSocketChannel.class;
+            channelClass = NioSocketChannel.class;
+        }
+
+        // 70% protocol frames of 20 bytes, 20% small payloads of 200 bytes and 10% large payloads of 4096 bytes.
+        Random random = new Random(42);
+        mix = new ByteBuf[messages];
+        for (int i = 0; i < mix.length; i++) {
+            int p = random.nextInt(10);
+            int size = p < 7 ? 20 : p < 9 ? 200 : 4096;
+            mix[i] = Unpooled.unreleasableBuffer(Unpooled.directBuffer(size).writeZero(size)).asReadOnly();
+        }
+
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(serverChannelClass)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ReferenceCountUtil.release(msg);
+                    }
+                })
+                .bind(0).sync().channel();
+        channel = new Bootstrap()
+                .group(group)
+                .channel(channelClass)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(serverChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.transport.outboundBufferCoalesceThreshold=0")
+    public ChannelFuture writeSeparately() {
+        return writeMix();
+    }
+
+    @Benchmark
+    @Fork(value = DEFAULT_FORKS, jvmArgsAppend = "-Dio.netty.transport.outboundBufferCoalesceThreshold=256")
+    public ChannelFuture writeCoalesced() {
+        return writeMix();
+    }
+
+    private ChannelFuture writeMix() {
+        for (int i = 0; i < mix.length - 1; i++) {
+            channel.write(mix[i].duplicate(), channel.voidPromise());
+        }
+        return channel.writeAndFlush(mix[mix.length - 1].duplicate()).syncUninterruptibly();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.ChannelConfig;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.EwmaRecvByteBufAllocator;
+import io.netty.channel.MaxMessagesRecvByteBufAllocator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+
+/**
+ * Benchmarks the read loop of a {@link RecvByteBufAllocator.Handle} against a simulated socket, for a flow of small
+ * messages, a flow of large messages and a flow which mixes both. Besides the time, the number of reads and the
+ * number of allocated bytes per received byte are reported, which show how well the buffers fit the traffic.
+ */
+@Threads(1)
+@State(Scope.Thread)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class RecvByteBufAllocatorMixedTrafficBenchmark extends AbstractMicrobenchmark {
+
+    private static final int SMALL = 100;
+    private static final int LARGE = 256 * 1024;
+    private static final int CYCLES = 1024;
+
+    @Param({ "adaptive", "ewma" })
+    public String allocator;
+
+    @Param({ "small", "large", "mixed" })
+    public String traffic;
+
+    private final ByteBufAllocator alloc = PooledByteBufAllocator.DEFAULT;
+    private ChannelConfig config;
+    private RecvByteBufAllocator.Handle handle;
+    private int[] sizes;
+    private int next;
+    private int pending;
+
+    /**
+     * The reads and allocated bytes of the last invocation, per kilobyte received.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Reads {
+        public double readsPerKilobyte;
+        public double allocatedPerReceived;
+    }
+
+    @Setup
+    public void setup() {
+        MaxMessagesRecvByteBufAllocator recvAllocator = "ewma".equals(allocator) ?
+                new EwmaRecvByteBufAllocator() : new AdaptiveRecvByteBufAllocator();
+        // The value a Channel configures.
+        recvAllocator.maxMessagesPerRead(16);
+        config = new DefaultChannelConfig(new EmbeddedChannel());
+        handle = recvAllocator.newHandle();
+
+        Random random = new Random(42);
+        sizes = new int[CYCLES];
+        for (int i = 0; i < sizes.length; i++) {
+            if ("small".equals(traffic)) {
+                sizes[i] = SMALL;
+            } else if ("large".equals(traffic)) {
+                sizes[i] = LARGE;
+            } else {
+                // Mostly small messages with an occasional large one, like requests with an upload in between.
+                sizes[i] = random.nextInt(8) == 0 ? LARGE : SMALL;
+            }
+        }
+    }
+
+    @Benchmark
+    public void readLoop(Reads reads) {
+        long received = 0;
+        long allocated = 0;
+        long readCount = 0;
+        for (int i = 0; i < CYCLES; i++) {
+            // New data arrives and the socket becomes readable.
+            pending += sizes[next];
+            next = (next + 1) % sizes.length;
+
+            RecvByteBufAllocator.Handle handle = this.handle;
+            handle.reset(config);
+            do {
+                ByteBuf buf = handle.allocate(alloc);
+                int writable = buf.writableBytes();
+                int bytes = Math.min(writable, pending);
+                handle.attemptedBytesRead(writable);
+                buf.writerIndex(bytes);
+                handle.lastBytesRead(bytes);
+                allocated += buf.capacity();
+                buf.release();
+                readCount++;
+                if (bytes == 0) {
+                    break;
+                }
+                pending -= bytes;
+                received += bytes;
+                handle.incMessagesRead(1);
+            } while (handle.continueReading());
+            handle.readComplete();
+        }
+        reads.readsPerKilobyte = readCount * 1024.0 / received;
+        reads.allocatedPerReceived = (double) allocated / received;
+    }
+}
@@ -0,0 +1,190 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.AdaptiveRecvByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ScratchRecvByteBufAllocator;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AttributeKey;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetAddress;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks the {@link ScratchRecvByteBufAllocator} against the {@link AdaptiveRecvByteBufAllocator}, for many
+ * {@link Channel}s which receive small messages that are held on to, like a decoder does with a partial message,
+ * and for a bulk transfer over a single {@link Channel}.
+ */
+@Threads(1)
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ScratchRecvByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
+
+    private static final AttributeKey<ByteBuf> HELD = AttributeKey.valueOf("held");
+    private static final ByteBuf SMALL_MESSAGE = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(16).writeZero(16)).asReadOnly();
+    private static final ByteBuf BULK_MESSAGE = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(65536).writeZero(65536)).asReadOnly();
+    private static final int BULK_MESSAGES = 16;
+
+    @Param({ "adaptive", "scratch" })
+    public String allocator;
+
+    @Param({ "256" })
+    public int connections;
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel bulkServerChannel;
+    private Channel[] channels;
+    private Channel bulkChannel;
+    private final Semaphore received = new Semaphore(0);
+    private final AtomicLong heldBytes = new AtomicLong();
+    private volatile long bulkBytes;
+
+    /**
+     * The capacity of all buffers that are held by the server after the last operation.
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Held {
+        public long heldBytes;
+    }
+
+    @Setup
+    public void setup() throws Exception {
+        RecvByteBufAllocator recvAllocator = "scratch".equals(allocator) ?
+                new ScratchRecvByteBufAllocator() : new AdaptiveRecvByteBufAllocator();
+        group = new NioEventLoopGroup(1);
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator)
+                .childHandler(new HoldingHandler())
+                .bind(InetAddress.getLoopbackAddress(), 0).sync().channel();
+        bulkServerChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childOption(ChannelOption.RCVBUF_ALLOCATOR, recvAllocator)
+                .childHandler(new CountingHandler())
+                .bind(InetAddress.getLoopbackAddress(), 0).sync().channel();
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+        channels = new Channel[connections];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = bootstrap.connect(serverChannel.localAddress()).sync().channel();
+        }
+        bulkChannel = bootstrap.connect(bulkServerChannel.localAddress()).sync().channel();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        for (Channel channel: channels) {
+            channel.close().sync();
+        }
+        bulkChannel.close().sync();
+        serverChannel.close().sync();
+        bulkServerChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Benchmark
+    public void smallMessages(Held held) throws Exception {
+        for (Channel channel: channels) {
+            channel.writeAndFlush(SMALL_MESSAGE.duplicate(), channel.voidPromise());
+        }
+        received.acquire(channels.length);
+        held.heldBytes = heldBytes.get();
+    }
+
+    @Benchmark
+    public void bulkTransfer() throws Exception {
+        Channel channel = bulkChannel;
+        long expected = bulkBytes + BULK_MESSAGES * BULK_MESSAGE.readableBytes();
+        for (int i = 0; i < BULK_MESSAGES; i++) {
+            channel.write(BULK_MESSAGE.duplicate(), channel.voidPromise());
+        }
+        channel.flush();
+        while (bulkBytes < expected) {
+            received.acquire();
+        }
+    }
+
+    @Sharable
+    private final class HoldingHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            // Hold on to the last message like a decoder which waits for the rest of a message.
+            ByteBuf buf = (ByteBuf) msg;
+            ByteBuf previous = ctx.channel().attr(HELD).getAndSet(buf);
+            heldBytes.addAndGet(buf.capacity() - (previous == null ? 0 : previous.capacity()));
+            if (previous != null) {
+                previous.release();
+            }
+            received.release();
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            ByteBuf held = ctx.channel().attr(HELD).getAndSet(null);
+            if (held != null) {
+                heldBytes.addAndGet(-held.capacity());
+                held.release();
+            }
+            ctx.fireChannelInactive();
+        }
+    }
+
+    @Sharable
+    private final class CountingHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            bulkBytes += buf.readableBytes();
+            buf.release();
+            received.release();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollDomainSocketChannel;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerDomainSocketChannel;
+import io.netty.channel.shm.SharedMemoryAddress;
+import io.netty.channel.shm.SharedMemoryChannel;
+import io.netty.channel.shm.SharedMemoryEventLoopGroup;
+import io.netty.channel.unix.DomainSocketAddress;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip of a message echoed through {@link SharedMemoryChannel}s and through
+ * {@link EpollDomainSocketChannel}s. Both ends live in the benchmark process but use separate threads, and the shared
+ * memory ends map the file separately just like two processes would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SharedMemoryEchoBenchmark extends AbstractMicrobenchmark {
+
+    public enum Transport {
+        SHARED_MEMORY, DOMAIN_SOCKET
+    }
+
+    @Param
+    public Transport transport;
+
+    @Param({ "64", "4096" })
+    public int messageSize;
+
+    private EventLoopGroup serverGroup;
+    private EventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private Channel channel;
+    private ByteBuf message;
+    private File file;
+
+    @Setup
+    public void setup() throws Exception {
+        file = File.createTempFile("netty-echo", ".tmp");
+        file.delete();
+
+        ChannelInboundHandlerAdapter echo = new ChannelInboundHandlerAdapter() {
+            @Override
+            public boolean isSharable() {
+                return true;
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                ctx.writeAndFlush(msg, ctx.voidPromise());
+            }
+        };
+        ChannelInitializer<Channel> client = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ch.pipeline().addLast(new EchoClientHandler());
+            }
+        };
+
+        if (transport == Transport.SHARED_MEMORY) {
+            serverGroup = new SharedMemoryEventLoopGroup(1);
+            clientGroup = new SharedMemoryEventLoopGroup(1);
+            SharedMemoryAddress address = new SharedMemoryAddress(file);
+            serverChannel = new Bootstrap()
+                    .group(serverGroup)
+                    .channel(SharedMemoryChannel.class)
+                    .handler(echo)
+                    .bind(address).sync().channel();
+            channel = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(SharedMemoryChannel.class)
+                    .handler(client)
+                    .connect(address).sync().channel();
+        } else {
+            serverGroup = new EpollEventLoopGroup(1);
+            clientGroup = new EpollEventLoopGroup(1);
+            DomainSocketAddress address = new DomainSocketAddress(file);
+            serverChannel = new ServerBootstrap()
+                    .group(serverGroup)
+                    .channel(EpollServerDomainSocketChannel.class)
+                    .childHandler(echo)
+                    .bind(address).sync().channel();
+            channel = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(EpollDomainSocketChannel.class)
+                    .handler(client)
+                    .connect(address).sync().channel();
+        }
+        message = channel.alloc().directBuffer(messageSize).writeZero(messageSize);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        channel.close().sync();
+        serverChannel.close().sync();
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        message.release();
+        file.delete();
+    }
+
+    @Benchmark
+    public Object echo() throws Exception {
+        return channel.writeAndFlush(message.retainedDuplicate()).sync();
+    }
+
+    /**
+     * Completes the write promise once the whole message came back.
+     */
+    private final class EchoClientHandler extends ChannelDuplexHandler {
+        private ChannelPromise promise;
+        private int received;
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            received += buf.readableBytes();
+            buf.release();
+            if (received == messageSize) {
+                received = 0;
+                ChannelPromise promise = this.promise;
+                this.promise = null;
+                promise.trySuccess();
+            }
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            this.promise = promise;
+            ctx.write(msg, ctx.voidPromise());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.DefaultEventExecutor;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Benchmarks adding listeners to and completing a {@link DefaultPromise}, on one thread and across threads.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DefaultPromiseBenchmark extends AbstractMicrobenchmark {
+
+    private static final FutureListener<Object> LISTENER = new FutureListener<Object>() {
+        @Override
+        public void operationComplete(Future<Object> future) {
+            // NOOP
+        }
+    };
+
+    @Param({ "1", "2", "8" })
+    public int listeners;
+
+    private DefaultEventExecutor executor;
+
+    @Setup
+    public void setup() {
+        executor = new DefaultEventExecutor();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownGracefully();
+    }
+
+    /**
+     * Listeners are added and notified by the same thread, which is the common case for writes issued from within
+     * the {@link io.netty.util.concurrent.EventExecutor}.
+     */
+    @Benchmark
+    public Promise<Object> addListenerSetSuccessSameThread() {
+        Promise<Object> promise = new DefaultPromise<Object>(ImmediateEventExecutor.INSTANCE);
+        for (int i = 0; i < listeners; i++) {
+            promise.addListener(LISTENER);
+        }
+        return promise.setSuccess(null);
+    }
+
+    /**
+     * Listeners are added by the caller while the promise is completed by another thread, which the caller waits for.
+     */
+    @Benchmark
+    public Promise<Object> addListenerSetSuccessCrossThread() {
+        final Promise<Object> promise = executor.newPromise();
+        for (int i = 0; i < listeners; i++) {
+            promise.addListener(LISTENER);
+        }
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                promise.setSuccess(null);
+            }
+        });
+        return promise.awaitUninterruptibly();
+    }
+
+    /**
+     * Holds the promise that is shared between the threads of the {@code contended} group.
+     */
+    @State(Scope.Group)
+    public static class SharedPromise {
+        final AtomicReference<Promise<Object>> promise = new AtomicReference<Promise<Object>>(newPromise());
+
+        static Promise<Object> newPromise() {
+            return new DefaultPromise<Object>(ImmediateEventExecutor.INSTANCE);
+        }
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public Promise<Object> contendedAddListener(SharedPromise shared) {
+        return shared.promise.get().addListener(LISTENER);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public Promise<Object> contendedSetSuccess(SharedPromise shared) {
+        return shared.promise.getAndSet(SharedPromise.newPromise()).setSuccess(null);
+    }
+}
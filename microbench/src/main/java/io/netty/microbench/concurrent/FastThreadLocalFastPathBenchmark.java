@@ -37,6 +37,9 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
     private static final ThreadLocal<Integer>[] jdkThreadLocals = new ThreadLocal[128];
     @SuppressWarnings("unchecked")
     private static final FastThreadLocal<Integer>[] fastThreadLocals = new FastThreadLocal[jdkThreadLocals.length];
+    @SuppressWarnings("unchecked")
+    private static final FastThreadLocal<Integer>[] reusedIndexFastThreadLocals =
+            new FastThreadLocal[jdkThreadLocals.length];
 
     static {
         for (int i = 0; i < jdkThreadLocals.length; i ++) {
@@ -54,6 +57,19 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
                 }
             };
         }
+
+        // Occupy indices and release them again, so the following variables reuse indices and must check for
+        // stale values.
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i ++) {
+            new FastThreadLocal<Integer>().release();
+            final int num = rand.nextInt();
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>() {
+                @Override
+                protected Integer initialValue() {
+                    return num;
+                }
+            };
+        }
     }
 
     @Benchmark
@@ -69,4 +85,11 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
             bh.consume(i.get());
         }
     }
+
+    @Benchmark
+    public void fastThreadLocalReusedIndex(Blackhole bh) {
+        for (FastThreadLocal<Integer> i: reusedIndexFastThreadLocals) {
+            bh.consume(i.get());
+        }
+    }
 }
@@ -37,6 +37,9 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
     private static final ThreadLocal<Integer>[] jdkThreadLocals = new ThreadLocal[128];
     @SuppressWarnings("unchecked")
     private static final FastThreadLocal<Integer>[] fastThreadLocals = new FastThreadLocal[jdkThreadLocals.length];
+    @SuppressWarnings("unchecked")
+    private static final FastThreadLocal<Integer>[] reusedIndexFastThreadLocals =
+            new FastThreadLocal[jdkThreadLocals.length];
 
     static {
         for (int i = 0; i < jdkThreadLocals.length; i ++) {
@@ -54,6 +57,19 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
                 }
             };
         }
+
+        // Occupy indices and release them again, so the following variables reuse indices and must check for
+        // stale values.
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i ++) {
+            new FastThreadLocal<Integer>().release();
+            final int num = rand.nextInt();
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>() {
+                @Override
+                protected Integer initialValue() {
+                    return num;
+                }
+            };
+        }
     }
 
     public FastThreadLocalSlowPathBenchmark() {
@@ -73,4 +89,11 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
             bh.consume(i.get());
         }
     }
+
+    @Benchmark
+    public void fastThreadLocalReusedIndex(Blackhole bh) {
+        for (FastThreadLocal<Integer> i: reusedIndexFastThreadLocals) {
+            bh.consume(i.get());
+        }
+    }
 }
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.testsuite.transport.socket;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopBalancer;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.testsuite.transport.TestsuitePermutation;
+import org.junit.Test;
+
+import java.nio.channels.ClosedChannelException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SocketMigrationTest extends AbstractSocketTest {
+
+    // Ends with a flushed write, so all operations were processed once the last one was written.
+    private static final int COUNT = 9999;
+
+    @Test(timeout = 60000)
+    public void testMigrateKeepsOrderOfOperationsFromOtherThread() throws Throwable {
+        run();
+    }
+
+    public void testMigrateKeepsOrderOfOperationsFromOtherThread(ServerBootstrap sb, Bootstrap cb)
+            throws Throwable {
+        final BlockingQueue<Integer> received = new LinkedBlockingQueue<Integer>();
+        final List<Integer> processed = new ArrayList<Integer>();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sb.childHandler(new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ByteBuf buf = (ByteBuf) msg;
+                    try {
+                        while (buf.isReadable(4)) {
+                            received.add(buf.readInt());
+                        }
+                    } finally {
+                        buf.release();
+                    }
+                }
+            });
+            sc = sb.bind().syncUninterruptibly().channel();
+
+            // Records the order in which the operations issued by the writer are processed by the client.
+            cb.handler(new ChannelDuplexHandler() {
+                @Override
+                public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
+                    processed(ctx, (Integer) evt);
+                }
+
+                @Override
+                public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                    processed(ctx, ((ByteBuf) msg).getInt(0));
+                    ctx.write(msg, promise);
+                }
+
+                private void processed(ChannelHandlerContext ctx, int value) {
+                    if (!ctx.channel().eventLoop().inEventLoop()) {
+                        error.compareAndSet(null, new AssertionError(value + " processed outside the EventLoop"));
+                    }
+                    processed.add(value);
+                }
+            });
+            cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+
+            final Channel channel = cc;
+            Thread writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ChannelFuture lastWrite = null;
+                    for (int i = 0; i < COUNT; i++) {
+                        if (i % 3 == 0) {
+                            channel.pipeline().fireUserEventTriggered(i);
+                        } else if (i % 3 == 1) {
+                            channel.write(Unpooled.copyInt(i));
+                        } else {
+                            lastWrite = channel.write(Unpooled.copyInt(i));
+                            channel.flush();
+                        }
+                    }
+                    // Closing right away would fail the writes which are not written to the socket yet.
+                    lastWrite.addListener(ChannelFutureListener.CLOSE);
+                }
+            });
+            writer.start();
+            for (int i = 0; i < 10; i++) {
+                ChannelFuture future = EventLoopBalancer.migrate(cc, otherLoop(cc)).awaitUninterruptibly();
+                if (!future.isSuccess()) {
+                    // The writer closed the Channel once it was done.
+                    assertTrue(future.cause() instanceof ClosedChannelException);
+                    break;
+                }
+            }
+            writer.join();
+            cc.closeFuture().syncUninterruptibly();
+
+            for (int i = 0; i < COUNT; i++) {
+                if (i % 3 != 0) {
+                    assertEquals(i, (int) received.take());
+                }
+            }
+            assertNull(error.get());
+            assertEquals(COUNT, processed.size());
+            for (int i = 0; i < COUNT; i++) {
+                assertEquals(i, (int) processed.get(i));
+            }
+        } finally {
+            if (cc != null) {
+                cc.close().syncUninterruptibly();
+            }
+            if (sc != null) {
+                sc.close().syncUninterruptibly();
+            }
+        }
+    }
+
+    private static EventLoop otherLoop(Channel channel) {
+        for (;;) {
+            EventLoop loop = channel.eventLoop().parent().next();
+            if (loop != channel.eventLoop()) {
+                return loop;
+            }
+        }
+    }
+
+    @Override
+    protected List<TestsuitePermutation.BootstrapComboFactory<ServerBootstrap, Bootstrap>> newFactories() {
+        List<TestsuitePermutation.BootstrapComboFactory<ServerBootstrap, Bootstrap>> factories
+                = new ArrayList<TestsuitePermutation.BootstrapComboFactory<ServerBootstrap, Bootstrap>>();
+        for (TestsuitePermutation.BootstrapComboFactory<ServerBootstrap, Bootstrap> comboFactory
+                : SocketTestPermutation.INSTANCE.socket()) {
+            // OIO Channels can not be moved to another EventLoop.
+            if (comboFactory.newClientInstance().config().group() instanceof NioEventLoopGroup) {
+                factories.add(comboFactory);
+            }
+        }
+        return factories;
+    }
+}
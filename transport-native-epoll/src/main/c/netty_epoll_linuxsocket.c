@@ -25,6 +25,7 @@
 #include <string.h>
 #include <errno.h>
 #include <netinet/in.h>
+#include <sys/ioctl.h>
 #include <sys/sendfile.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
 
@@ -50,6 +51,11 @@
 #define TCP_NOTSENT_LOWAT 25
 #endif
 
+// SIOCOUTQNSD is defined in linux 2.6.38. We define this here so older kernels can compile.
+#ifndef SIOCOUTQNSD
+#define SIOCOUTQNSD 0x894B
+#endif
+
 // SO_BUSY_POLL is defined in linux 3.11. We define this here so older kernels can compile.
 #ifndef SO_BUSY_POLL
 #define SO_BUSY_POLL 46
@@ -616,6 +622,24 @@ static jint netty_epoll_linuxsocket_getTcpNotSentLowAt(JNIEnv* env, jclass clazz
     return optval;
 }
 
+static jint netty_epoll_linuxsocket_getUnsentBytes(JNIEnv* env, jclass clazz, jint fd) {
+    int unsent;
+    if (ioctl(fd, SIOCOUTQNSD, &unsent) == -1) {
+        netty_unix_errors_throwIOExceptionErrorNo(env, "ioctl() failed: ", errno);
+        return -1;
+    }
+    return unsent;
+}
+
+static jint netty_epoll_linuxsocket_getReadableBytes(JNIEnv* env, jclass clazz, jint fd) {
+    int readable;
+    if (ioctl(fd, FIONREAD, &readable) == -1) {
+        netty_unix_errors_throwIOExceptionErrorNo(env, "ioctl() failed: ", errno);
+        return -1;
+    }
+    return readable;
+}
+
 static jobject netty_epoll_linuxsocket_getPeerCredentials(JNIEnv *env, jclass clazz, jint fd) {
      struct ucred credentials;
      if(netty_unix_socket_getOption(env,fd, SOL_SOCKET, SO_PEERCRED, &credentials, sizeof (credentials)) == -1) {
@@ -677,6 +701,8 @@ static const JNINativeMethod fixed_method_table[] = {
   { "getSoBusyPoll", "(I)I", (void *) netty_epoll_linuxsocket_getSoBusyPoll },
   { "getTcpDeferAccept", "(I)I", (void *) netty_epoll_linuxsocket_getTcpDeferAccept },
   { "getTcpNotSentLowAt", "(I)I", (void *) netty_epoll_linuxsocket_getTcpNotSentLowAt },
+  { "getUnsentBytes", "(I)I", (void *) netty_epoll_linuxsocket_getUnsentBytes },
+  { "getReadableBytes", "(I)I", (void *) netty_epoll_linuxsocket_getReadableBytes },
   { "isTcpQuickAck", "(I)I", (void *) netty_epoll_linuxsocket_isTcpQuickAck },
   { "setTcpFastOpen", "(II)V", (void *) netty_epoll_linuxsocket_setTcpFastOpen },
   { "setTcpFastOpenConnect", "(II)V", (void *) netty_epoll_linuxsocket_setTcpFastOpenConnect },
@@ -123,6 +123,15 @@ abstract class AbstractEpollChannel extends AbstractChannel implements UnixChann
         }
     }
 
+    /**
+     * Sets the flag and updates the registration even if the flag was set already, so the kernel polls the file
+     * descriptor again.
+     */
+    void rearmFlag(int flag) throws IOException {
+        flags |= flag;
+        modifyEvents();
+    }
+
     boolean isFlagSet(int flag) {
         return (flags & flag) != 0;
     }
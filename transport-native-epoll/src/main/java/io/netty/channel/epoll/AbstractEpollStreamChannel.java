@@ -17,6 +17,7 @@ package io.netty.channel.epoll;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
@@ -27,8 +28,10 @@ import io.netty.channel.ChannelPipeline;
 import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
+import io.netty.channel.EwmaRecvByteBufAllocator;
 import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.ScratchRecvByteBufAllocator;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.unix.FileDescriptor;
@@ -250,14 +253,31 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * </ul>
      */
     private int writeBytes(ChannelOutboundBuffer in, ByteBuf buf) throws Exception {
+        return writeBytes(in, buf, Long.MAX_VALUE);
+    }
+
+    private int writeBytes(ChannelOutboundBuffer in, ByteBuf buf, long maxBytes) throws Exception {
         int readableBytes = buf.readableBytes();
         if (readableBytes == 0) {
             in.remove();
             return 0;
         }
+        if (readableBytes > maxBytes) {
+            // Only hand a part to the kernel, the written bytes are removed from buf by the ChannelOutboundBuffer.
+            readableBytes = (int) maxBytes;
+            buf = buf.slice(buf.readerIndex(), readableBytes);
+        }
 
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
+        } else if (buf instanceof CompositeByteBuf) {
+            // Fill the iov array with the memory of the components directly instead of creating a ByteBuffer for
+            // each of them.
+            final long maxBytesPerGatheringWrite = config().getMaxBytesPerGatheringWrite();
+            IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
+            array.maxBytes(maxBytesPerGatheringWrite);
+            array.add(buf);
+            return writeBytesMultiple(in, array, maxBytesPerGatheringWrite);
         } else {
             ByteBuffer[] nioBuffers = buf.nioBuffers();
             return writeBytesMultiple(in, nioBuffers, nioBuffers.length, readableBytes,
@@ -282,6 +302,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * Write multiple bytes via {@link IovArray}.
      * @param in the collection which contains objects to write.
      * @param array The array which contains the content to write.
+     * @param maxBytesPerGatheringWrite The maximum number of bytes per gathering write which is configured.
      * @return The value that should be decremented from the write quantum which starts at
      * {@link ChannelConfig#getWriteSpinCount()}. The typical use cases are as follows:
      * <ul>
@@ -293,7 +314,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * </ul>
      * @throws IOException If an I/O exception occurs during write.
      */
-    private int writeBytesMultiple(ChannelOutboundBuffer in, IovArray array) throws IOException {
+    private int writeBytesMultiple(ChannelOutboundBuffer in, IovArray array, long maxBytesPerGatheringWrite)
+            throws IOException {
         final long expectedWrittenBytes = array.size();
         assert expectedWrittenBytes != 0;
         final int cnt = array.count();
@@ -301,7 +323,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
         final long localWrittenBytes = socket.writevAddresses(array.memoryAddress(0), cnt);
         if (localWrittenBytes > 0) {
-            adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, array.maxBytes());
+            adjustMaxBytesPerGatheringWrite(expectedWrittenBytes, localWrittenBytes, maxBytesPerGatheringWrite);
             in.removeBytes(localWrittenBytes);
             return 1;
         }
@@ -417,15 +439,26 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         int writeSpinCount = config().getWriteSpinCount();
         do {
             final int msgCount = in.size();
-            // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
-            if (msgCount > 1 && in.current() instanceof ByteBuf) {
-                writeSpinCount -= doWriteMultiple(in);
-            } else if (msgCount == 0) {
+            if (msgCount == 0) {
                 // Wrote all messages.
                 clearFlag(Native.EPOLLOUT);
                 // Return here so we not set the EPOLLOUT flag.
                 return;
-            } else {  // msgCount == 1
+            }
+            final long budget = kernelWriteBudget();
+            if (budget <= 0) {
+                // The kernel holds enough unsent data, keep the rest until EPOLLOUT signals that it needs more. As no
+                // write failed the kernel only reports EPOLLOUT once the socket is polled again, so always re-arm.
+                rearmFlag(Native.EPOLLOUT);
+                return;
+            }
+            final Object msg = in.current();
+            // Do gathering write if the outbound buffer entries start with more than one ByteBuf.
+            if (msgCount > 1 && msg instanceof ByteBuf && ((ByteBuf) msg).readableBytes() < budget) {
+                writeSpinCount -= doWriteMultiple(in, budget);
+            } else if (budget != Long.MAX_VALUE && msg instanceof ByteBuf) {
+                writeSpinCount -= writeBytes(in, (ByteBuf) msg, budget);
+            } else {
                 writeSpinCount -= doWriteSingle(in);
             }
 
@@ -450,6 +483,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Returns the number of bytes which may be handed to the kernel by the next write, or {@link Long#MAX_VALUE} if
+     * this is not limited.
+     */
+    long kernelWriteBudget() throws IOException {
+        return Long.MAX_VALUE;
+    }
+
     /**
      * Attempt to write a single object.
      * @param in the collection which contains objects to write.
@@ -499,15 +540,15 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
      * </ul>
      * @throws Exception If an I/O error occurs.
      */
-    private int doWriteMultiple(ChannelOutboundBuffer in) throws Exception {
+    private int doWriteMultiple(ChannelOutboundBuffer in, long maxBytes) throws Exception {
         final long maxBytesPerGatheringWrite = config().getMaxBytesPerGatheringWrite();
         IovArray array = ((EpollEventLoop) eventLoop()).cleanIovArray();
-        array.maxBytes(maxBytesPerGatheringWrite);
+        array.maxBytes(Math.min(maxBytesPerGatheringWrite, maxBytes));
         in.forEachFlushedMessage(array);
 
         if (array.count() >= 1) {
             // TODO: Handle the case where cnt == 1 specially.
-            return writeBytesMultiple(in, array);
+            return writeBytesMultiple(in, array, maxBytesPerGatheringWrite);
         }
         // cnt == 0, which means the outbound buffer contained empty buffers only.
         in.removeBytes(0);
@@ -774,6 +815,10 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                         }
                     }
 
+                    if (EwmaRecvByteBufAllocator.needsReadableBytes(allocHandle)) {
+                        // Only asked for after a full read, so the ioctl is amortized by a large read.
+                        EwmaRecvByteBufAllocator.readableBytes(allocHandle, socket.getReadableBytes());
+                    }
                     // we use a direct buffer here as the native implementations only be able
                     // to handle direct buffers.
                     byteBuf = allocHandle.allocate(allocator);
@@ -791,6 +836,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                     }
                     allocHandle.incMessagesRead(1);
                     readPending = false;
+                    byteBuf = ScratchRecvByteBufAllocator.received(allocHandle, byteBuf);
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
 
@@ -17,6 +17,8 @@ package io.netty.channel.epoll;
 
 import io.netty.channel.ChannelOption;
 import io.netty.channel.unix.UnixChannelOption;
+import io.netty.util.internal.UnstableApi;
+
 import java.net.InetAddress;
 import java.util.Map;
 
@@ -24,6 +26,9 @@ public final class EpollChannelOption<T> extends UnixChannelOption<T> {
 
     public static final ChannelOption<Boolean> TCP_CORK = valueOf(EpollChannelOption.class, "TCP_CORK");
     public static final ChannelOption<Long> TCP_NOTSENT_LOWAT = valueOf(EpollChannelOption.class, "TCP_NOTSENT_LOWAT");
+    @UnstableApi
+    public static final ChannelOption<Boolean> TCP_NOTSENT_LOWAT_WRITABILITY =
+            valueOf(EpollChannelOption.class, "TCP_NOTSENT_LOWAT_WRITABILITY");
     public static final ChannelOption<Integer> TCP_KEEPIDLE = valueOf(EpollChannelOption.class, "TCP_KEEPIDLE");
     public static final ChannelOption<Integer> TCP_KEEPINTVL = valueOf(EpollChannelOption.class, "TCP_KEEPINTVL");
     public static final ChannelOption<Integer> TCP_KEEPCNT = valueOf(EpollChannelOption.class, "TCP_KEEPCNT");
@@ -15,6 +15,7 @@
  */
 package io.netty.channel.epoll;
 
+import io.netty.channel.AdaptiveIoRatio;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.EventLoopTaskQueueFactory;
@@ -76,6 +77,8 @@ class EpollEventLoop extends SingleThreadEventLoop {
     @SuppressWarnings("unused") // AtomicIntegerFieldUpdater
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
+    // Only used by the event loop thread once published.
+    private volatile AdaptiveIoRatio adaptiveIoRatio;
 
     // See http://man7.org/linux/man-pages/man2/timerfd_create.2.html.
     private static final long MAX_SCHEDULED_TIMERFD_NS = 999999999;
@@ -260,6 +263,21 @@ class EpollEventLoop extends SingleThreadEventLoop {
         return channels.size();
     }
 
+    /**
+     * Returns {@code true} if the split between I/O and non-I/O tasks is adjusted automatically.
+     */
+    public boolean isAdaptiveIoRatio() {
+        return adaptiveIoRatio != null;
+    }
+
+    /**
+     * Sets if the split between I/O and non-I/O tasks is adjusted automatically, starting from the current
+     * {@link #getIoRatio() ioRatio}. See {@link AdaptiveIoRatio} for details.
+     */
+    public void setAdaptiveIoRatio(boolean adaptiveIoRatio) {
+        this.adaptiveIoRatio = adaptiveIoRatio ? new AdaptiveIoRatio(ioRatio) : null;
+    }
+
     private int epollWait() throws IOException {
         int delaySeconds;
         int delayNanos;
@@ -308,8 +326,23 @@ class EpollEventLoop extends SingleThreadEventLoop {
                     default:
                 }
 
+                final AdaptiveIoRatio adaptiveIoRatio = this.adaptiveIoRatio;
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
+                if (adaptiveIoRatio != null) {
+                    final long ioStartTime = System.nanoTime();
+                    // Wake-ups and timer expirations are not I/O, so only count the events of channels.
+                    int channelEvents = 0;
+                    try {
+                        if (strategy > 0) {
+                            channelEvents = processReady(events, strategy);
+                        }
+                    } finally {
+                        // Ensure we always run tasks.
+                        final long ioTime = System.nanoTime() - ioStartTime;
+                        runAllTasks(adaptiveIoRatio.taskTimeoutNanos(ioTime, channelEvents, pendingTasks()));
+                        adaptiveIoRatio.tasksRan(pendingTasks());
+                    }
+                } else if (ioRatio == 100) {
                     try {
                         if (strategy > 0) {
                             processReady(events, strategy);
@@ -383,7 +416,11 @@ class EpollEventLoop extends SingleThreadEventLoop {
         }
     }
 
-    private void processReady(EpollEventArray events, int ready) {
+    /**
+     * Processes the ready events and returns how many of them were events of channels.
+     */
+    private int processReady(EpollEventArray events, int ready) {
+        int channelEvents = 0;
         for (int i = 0; i < ready; i ++) {
             final int fd = events.fd(i);
             if (fd == eventFd.intValue() || fd == timerFd.intValue()) {
@@ -395,6 +432,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
 
                 AbstractEpollChannel ch = channels.get(fd);
                 if (ch != null) {
+                    channelEvents ++;
                     // Don't change the ordering of processing EPOLLOUT | EPOLLRDHUP / EPOLLIN if you're not 100%
                     // sure about it!
                     // Re-ordering can easily introduce bugs and bad side-effects, as we found out painfully in the
@@ -443,6 +481,7 @@ class EpollEventLoop extends SingleThreadEventLoop {
                 }
             }
         }
+        return channelEvents;
     }
 
     @Override
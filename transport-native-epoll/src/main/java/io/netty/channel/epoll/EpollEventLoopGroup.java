@@ -137,6 +137,16 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets if the split between I/O and non-I/O tasks is adjusted automatically in the child event loops, starting
+     * from their current ioRatio.
+     */
+    public void setAdaptiveIoRatio(boolean adaptiveIoRatio) {
+        for (EventExecutor e: this) {
+            ((EpollEventLoop) e).setAdaptiveIoRatio(adaptiveIoRatio);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
         EventLoopTaskQueueFactory queueFactory = args.length == 4 ? (EventLoopTaskQueueFactory) args[3] : null;
@@ -20,6 +20,7 @@ import io.netty.channel.ChannelException;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.internal.UnstableApi;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -85,6 +86,24 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         }
     }
 
+    /**
+     * Returns the number of bytes in the send queue of the socket which were not sent yet, as reported by the
+     * {@code SIOCOUTQNSD} ioctl. See <a href="http://linux.die.net/man/7/tcp">man 7 tcp</a>.
+     */
+    @UnstableApi
+    public int unsentBytes() {
+        try {
+            return socket.getUnsentBytes();
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    @Override
+    long kernelWriteBudget() throws IOException {
+        return config.kernelWriteBudget();
+    }
+
     @Override
     public InetSocketAddress remoteAddress() {
         return (InetSocketAddress) super.remoteAddress();
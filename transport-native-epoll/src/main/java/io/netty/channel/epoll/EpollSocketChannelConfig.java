@@ -23,6 +23,7 @@ import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannelConfig;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -39,6 +40,9 @@ import static io.netty.channel.ChannelOption.TCP_NODELAY;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private volatile boolean allowHalfClosure;
+    private volatile boolean tcpNotSentLowAtWritability;
+    // The TCP_NOTSENT_LOWAT of the socket, or -1 if not known yet. Cached so writes do not need to query it.
+    private volatile long tcpNotSentLowAt = -1;
 
     /**
      * Creates a new instance.
@@ -58,6 +62,7 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 super.getOptions(),
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
+                EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
                 EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.IP_TRANSPARENT,
                 EpollChannelOption.TCP_FASTOPEN_CONNECT, EpollChannelOption.SO_BUSY_POLL);
@@ -96,6 +101,9 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.TCP_NOTSENT_LOWAT) {
             return (T) Long.valueOf(getTcpNotSentLowAt());
         }
+        if (option == EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY) {
+            return (T) Boolean.valueOf(isTcpNotSentLowAtWritability());
+        }
         if (option == EpollChannelOption.TCP_KEEPIDLE) {
             return (T) Integer.valueOf(getTcpKeepIdle());
         }
@@ -147,6 +155,8 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpCork((Boolean) value);
         } else if (option == EpollChannelOption.TCP_NOTSENT_LOWAT) {
             setTcpNotSentLowAt((Long) value);
+        } else if (option == EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY) {
+            setTcpNotSentLowAtWritability((Boolean) value);
         } else if (option == EpollChannelOption.TCP_KEEPIDLE) {
             setTcpKeepIdle((Integer) value);
         } else if (option == EpollChannelOption.TCP_KEEPCNT) {
@@ -413,12 +423,52 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
     public EpollSocketChannelConfig setTcpNotSentLowAt(long tcpNotSentLowAt) {
         try {
             ((EpollSocketChannel) channel).socket.setTcpNotSentLowAt(tcpNotSentLowAt);
+            this.tcpNotSentLowAt = tcpNotSentLowAt;
             return this;
         } catch (IOException e) {
             throw new ChannelException(e);
         }
     }
 
+    /**
+     * Returns {@code true} if data is only handed to the kernel while the unsent bytes of the socket are below
+     * {@code TCP_NOTSENT_LOWAT}.
+     */
+    @UnstableApi
+    public boolean isTcpNotSentLowAtWritability() {
+        return tcpNotSentLowAtWritability;
+    }
+
+    /**
+     * If {@code true}, data is only handed to the kernel while the unsent bytes of the socket, as reported by the
+     * {@code SIOCOUTQNSD} ioctl, are below {@code TCP_NOTSENT_LOWAT}, and at most as many bytes as are missing to
+     * reach it. The remaining data stays in the {@link io.netty.channel.ChannelOutboundBuffer} until the kernel signals
+     * {@code EPOLLOUT}, which with {@code TCP_NOTSENT_LOWAT} happens once its unsent bytes dropped below the mark. So
+     * the {@link WriteBufferWaterMark} and {@link io.netty.channel.Channel#isWritable()} reflect the data which waits
+     * to be sent, and the kernel does not queue more than {@code TCP_NOTSENT_LOWAT} bytes in front of fresh data,
+     * which keeps the latency of interactive streams low. Has no effect unless {@code TCP_NOTSENT_LOWAT} is set.
+     */
+    @UnstableApi
+    public EpollSocketChannelConfig setTcpNotSentLowAtWritability(boolean tcpNotSentLowAtWritability) {
+        if (tcpNotSentLowAtWritability && tcpNotSentLowAt == -1) {
+            tcpNotSentLowAt = getTcpNotSentLowAt();
+        }
+        this.tcpNotSentLowAtWritability = tcpNotSentLowAtWritability;
+        return this;
+    }
+
+    /**
+     * Returns the number of bytes which may be handed to the kernel, or {@link Long#MAX_VALUE} if this is not limited.
+     */
+    long kernelWriteBudget() throws IOException {
+        long tcpNotSentLowAt = this.tcpNotSentLowAt;
+        if (!tcpNotSentLowAtWritability || tcpNotSentLowAt <= 0) {
+            // A TCP_NOTSENT_LOWAT of 0 means it was never set, so the kernel does not limit the unsent bytes either.
+            return Long.MAX_VALUE;
+        }
+        return tcpNotSentLowAt - ((EpollSocketChannel) channel).socket.getUnsentBytes();
+    }
+
     @Override
     public EpollSocketChannelConfig setTrafficClass(int trafficClass) {
         try {
@@ -243,6 +243,14 @@ final class LinuxSocket extends Socket {
         return getTcpNotSentLowAt(intValue()) & MAX_UINT32_T;
     }
 
+    int getUnsentBytes() throws IOException {
+        return getUnsentBytes(intValue());
+    }
+
+    int getReadableBytes() throws IOException {
+        return getReadableBytes(intValue());
+    }
+
     int getTcpKeepIdle() throws IOException {
         return getTcpKeepIdle(intValue());
     }
@@ -354,6 +362,8 @@ final class LinuxSocket extends Socket {
     private static native int isTcpCork(int fd) throws IOException;
     private static native int getSoBusyPoll(int fd) throws IOException;
     private static native int getTcpNotSentLowAt(int fd) throws IOException;
+    private static native int getUnsentBytes(int fd) throws IOException;
+    private static native int getReadableBytes(int fd) throws IOException;
     private static native int getTcpKeepIdle(int fd) throws IOException;
     private static native int getTcpKeepIntvl(int fd) throws IOException;
     private static native int getTcpKeepCnt(int fd) throws IOException;
@@ -19,6 +19,8 @@ import io.netty.channel.DefaultSelectStrategyFactory;
 import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
+import io.netty.channel.unix.AffinityThreadFactory;
+import io.netty.channel.unix.CpuAffinity;
 import io.netty.channel.unix.FileDescriptor;
 import io.netty.testsuite.transport.AbstractSingleThreadEventLoopTest;
 import io.netty.util.concurrent.DefaultThreadFactory;
@@ -28,6 +30,7 @@ import io.netty.util.concurrent.ThreadPerTaskExecutor;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -49,6 +52,24 @@ public class EpollEventLoopTest extends AbstractSingleThreadEventLoopTest {
         return new EpollServerSocketChannel();
     }
 
+    @Test
+    public void testAffinityThreadFactory() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1, new AffinityThreadFactory(getClass(), 0));
+        try {
+            final EpollEventLoop loop = (EpollEventLoop) group.next();
+            int cpu = loop.submit(new Callable<Integer>() {
+                @Override
+                public Integer call() throws Exception {
+                    return CpuAffinity.currentCpu();
+                }
+            }).syncUninterruptibly().getNow();
+            assertEquals(0, cpu);
+            assertEquals(0, loop.pinnedCpu());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     @Test
     public void testScheduleBigDelayNotOverflow() {
         final AtomicReference<Throwable> capture = new AtomicReference<Throwable>();
@@ -134,6 +134,15 @@ public class EpollSocketChannelConfigTest {
         assertTrue(ch.config().isTcpQuickAck());
     }
 
+    @Test
+    public void testTcpNotSentLowAtWritability() {
+        assertFalse(ch.config().isTcpNotSentLowAtWritability());
+        assertTrue(ch.config().setOption(EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY, true));
+        assertTrue(ch.config().getOption(EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY));
+        ch.config().setTcpNotSentLowAtWritability(false);
+        assertFalse(ch.config().isTcpNotSentLowAtWritability());
+    }
+
     @Test
     public void testSetOptionWhenClosed() {
         ch.close().syncUninterruptibly();
@@ -16,13 +16,23 @@
 package io.netty.channel.epoll;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.EwmaRecvByteBufAllocator;
+import io.netty.util.NetUtil;
+import io.netty.util.ReferenceCountUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public class EpollSocketChannelTest {
 
@@ -63,6 +73,54 @@ public class EpollSocketChannelTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testEwmaRecvByteBufAllocatorSizedByReadableBytes() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        final BlockingQueue<Integer> capacities = new LinkedBlockingQueue<Integer>();
+        final BlockingQueue<Channel> accepted = new LinkedBlockingQueue<Channel>();
+
+        try {
+            Channel server = new ServerBootstrap().group(group)
+                    .channel(EpollServerSocketChannel.class)
+                    .childOption(ChannelOption.AUTO_READ, false)
+                    .childOption(ChannelOption.RCVBUF_ALLOCATOR,
+                            new EwmaRecvByteBufAllocator(64, 1024, 65536).maxMessagesPerRead(16))
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelActive(ChannelHandlerContext ctx) {
+                            accepted.add(ctx.channel());
+                        }
+
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            capacities.add(((ByteBuf) msg).capacity());
+                            ReferenceCountUtil.release(msg);
+                        }
+                    })
+                    .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+            Channel client = new Bootstrap().group(group)
+                    .channel(EpollSocketChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter())
+                    .connect(server.localAddress()).syncUninterruptibly().channel();
+            Channel child = accepted.take();
+
+            client.writeAndFlush(Unpooled.wrappedBuffer(new byte[16384])).syncUninterruptibly();
+            while (((EpollSocketChannel) child).socket.getReadableBytes() < 16384) {
+                Thread.sleep(10);
+            }
+            child.config().setAutoRead(true);
+
+            // After the first read filled its buffer the next one is sized by the readable bytes, not doubled.
+            Assert.assertEquals(1024, (int) capacities.take());
+            Assert.assertEquals(16384, (int) capacities.take());
+
+            client.close().syncUninterruptibly();
+            server.close().syncUninterruptibly();
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
+
     private static void assertTcpInfo0(EpollTcpInfo info) throws Exception {
         Assert.assertNotNull(info);
 
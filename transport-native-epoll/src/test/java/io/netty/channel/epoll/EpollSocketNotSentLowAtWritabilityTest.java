@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.NetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Sends a message behind a bulk transfer over loopback, which fills the kernel send buffer while the receiver does
+ * not read, and checks how much data is queued in front of it with and without
+ * {@link EpollChannelOption#TCP_NOTSENT_LOWAT_WRITABILITY}.
+ */
+public class EpollSocketNotSentLowAtWritabilityTest {
+    private static final int LOW_AT = 16 * 1024;
+    private static final int CHUNK_SIZE = 8 * 1024;
+    private static final ByteBuf CHUNK = Unpooled.unreleasableBuffer(
+            Unpooled.directBuffer(CHUNK_SIZE).writeZero(CHUNK_SIZE));
+    private static final byte MARKER = 1;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void beforeClass() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void afterClass() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 60000)
+    public void testLatencyUnderLoad() throws Exception {
+        Result withoutWritability = sendBehindBulkTransfer(false);
+        Result withWritability = sendBehindBulkTransfer(true);
+
+        // Without the option the kernel takes as much as fits into the send buffer.
+        assertTrue(String.valueOf(withoutWritability), withoutWritability.unsentBytes > LOW_AT);
+        assertTrue(String.valueOf(withWritability), withWritability.unsentBytes <= LOW_AT);
+        assertTrue(withWritability + " vs. " + withoutWritability,
+                withWritability.bytesAhead < withoutWritability.bytesAhead);
+    }
+
+    @Test(timeout = 10000)
+    public void testWithoutTcpNotSentLowAt() throws Exception {
+        final Receiver receiver = new Receiver();
+        Channel serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(receiver)
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+        Channel channel = new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .option(EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY, true)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(serverChannel.localAddress()).sync().channel();
+        try {
+            assertEquals(0, (long) channel.config().getOption(EpollChannelOption.TCP_NOTSENT_LOWAT));
+
+            // The option has no effect if TCP_NOTSENT_LOWAT was never set, so the data is written right away.
+            byte[] bytes = new byte[10];
+            bytes[9] = MARKER;
+            channel.writeAndFlush(Unpooled.wrappedBuffer(bytes)).sync();
+            receiver.marker.await();
+            assertEquals(9, receiver.bytesAhead);
+        } finally {
+            channel.close().sync();
+            serverChannel.close().sync();
+        }
+    }
+
+    private static Result sendBehindBulkTransfer(boolean writability) throws Exception {
+        final Receiver receiver = new Receiver();
+        final Producer producer = new Producer();
+        Channel serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(ChannelOption.SO_RCVBUF, 64 * 1024)
+                .childHandler(receiver)
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST4, 0)).sync().channel();
+        Bootstrap bootstrap = new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .option(ChannelOption.SO_SNDBUF, 1024 * 1024)
+                .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(32 * 1024, 64 * 1024))
+                .handler(producer);
+        if (writability) {
+            // Without the writability mode the kernel keeps its default buffering.
+            bootstrap.option(EpollChannelOption.TCP_NOTSENT_LOWAT, (long) LOW_AT)
+                     .option(EpollChannelOption.TCP_NOTSENT_LOWAT_WRITABILITY, true);
+        }
+        final EpollSocketChannel channel = (EpollSocketChannel) bootstrap
+                .connect(serverChannel.localAddress()).sync().channel();
+        try {
+            // Wait until the kernel and the ChannelOutboundBuffer are full.
+            receiver.active.await();
+            do {
+                Thread.sleep(100);
+            } while (channel.isWritable());
+            Thread.sleep(200);
+
+            final Result result = channel.eventLoop().submit(new Callable<Result>() {
+                @Override
+                public Result call() {
+                    producer.stopped = true;
+                    Result result = new Result(channel.unsentBytes(),
+                            channel.unsafe().outboundBuffer().totalPendingWriteBytes());
+                    channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { MARKER }));
+                    return result;
+                }
+            }).sync().getNow();
+            long start = System.nanoTime();
+            receiver.channel.config().setAutoRead(true);
+            receiver.marker.await();
+            result.latencyNanos = System.nanoTime() - start;
+            result.bytesAhead = receiver.bytesAhead;
+            return result;
+        } finally {
+            channel.close().sync();
+            serverChannel.close().sync();
+        }
+    }
+
+    private static final class Result {
+        final long unsentBytes;
+        final long pendingBytes;
+        long bytesAhead;
+        long latencyNanos;
+
+        Result(long unsentBytes, long pendingBytes) {
+            this.unsentBytes = unsentBytes;
+            this.pendingBytes = pendingBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "unsent: " + unsentBytes + ", pending: " + pendingBytes + ", ahead: " + bytesAhead +
+                    ", latency: " + TimeUnit.NANOSECONDS.toMicros(latencyNanos) + "us";
+        }
+    }
+
+    private static final class Producer extends ChannelInboundHandlerAdapter {
+        volatile boolean stopped;
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            produce(ctx);
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+            produce(ctx);
+            ctx.fireChannelWritabilityChanged();
+        }
+
+        private void produce(ChannelHandlerContext ctx) {
+            if (stopped) {
+                return;
+            }
+            while (ctx.channel().isWritable()) {
+                ctx.write(CHUNK.duplicate());
+            }
+            ctx.flush();
+        }
+    }
+
+    private static final class Receiver extends ChannelInboundHandlerAdapter {
+        final CountDownLatch active = new CountDownLatch(1);
+        final CountDownLatch marker = new CountDownLatch(1);
+        volatile Channel channel;
+        volatile long bytesAhead;
+
+        @Override
+        public boolean isSharable() {
+            return true;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            channel = ctx.channel();
+            active.countDown();
+            ctx.fireChannelActive();
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf buf = (ByteBuf) msg;
+            if (marker.getCount() != 0) {
+                int index = buf.indexOf(buf.readerIndex(), buf.writerIndex(), MARKER);
+                if (index == -1) {
+                    bytesAhead += buf.readableBytes();
+                } else {
+                    bytesAhead += index - buf.readerIndex();
+                    marker.countDown();
+                }
+            }
+            buf.release();
+        }
+    }
+}
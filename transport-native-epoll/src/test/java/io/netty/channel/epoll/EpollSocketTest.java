@@ -23,7 +23,9 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
@@ -63,6 +65,34 @@ public class EpollSocketTest extends SocketTest<LinuxSocket> {
         }
     }
 
+    @Test
+    public void testReadableBytes() throws IOException {
+        LinuxSocket s1 = LinuxSocket.newSocketDomain();
+        LinuxSocket s2 = LinuxSocket.newSocketDomain();
+        LinuxSocket accepted = null;
+
+        try {
+            DomainSocketAddress dsa = UnixTestUtils.newSocketAddress();
+            s1.bind(dsa);
+            s1.listen(1);
+
+            assertTrue(s2.connect(dsa));
+            byte [] addr = new byte[64];
+            accepted = new LinuxSocket(s1.accept(addr));
+            assertEquals(0, accepted.getReadableBytes());
+
+            ByteBuffer buf = ByteBuffer.allocateDirect(100);
+            assertEquals(100, s2.write(buf, 0, 100));
+            assertEquals(100, accepted.getReadableBytes());
+        } finally {
+            if (accepted != null) {
+                accepted.close();
+            }
+            s1.close();
+            s2.close();
+        }
+    }
+
     @Override
     protected LinuxSocket newSocket() {
         return LinuxSocket.newSocketStream();
@@ -17,6 +17,7 @@ package io.netty.channel.kqueue;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelConfig;
 import io.netty.channel.ChannelFuture;
@@ -28,6 +29,7 @@ import io.netty.channel.ChannelPromise;
 import io.netty.channel.DefaultFileRegion;
 import io.netty.channel.EventLoop;
 import io.netty.channel.FileRegion;
+import io.netty.channel.ScratchRecvByteBufAllocator;
 import io.netty.channel.internal.ChannelUtils;
 import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.unix.IovArray;
@@ -109,6 +111,13 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
 
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
             return doWriteBytes(in, buf);
+        } else if (buf instanceof CompositeByteBuf) {
+            // Fill the iov array with the memory of the components directly instead of creating a ByteBuffer for
+            // each of them.
+            IovArray array = ((KQueueEventLoop) eventLoop()).cleanArray();
+            array.maxBytes(config().getMaxBytesPerGatheringWrite());
+            array.add(buf);
+            return writeBytesMultiple(in, array);
         } else {
             ByteBuffer[] nioBuffers = buf.nioBuffers();
             return writeBytesMultiple(in, nioBuffers, nioBuffers.length, readableBytes,
@@ -541,6 +550,7 @@ public abstract class AbstractKQueueStreamChannel extends AbstractKQueueChannel
                     }
                     allocHandle.incMessagesRead(1);
                     readPending = false;
+                    byteBuf = ScratchRecvByteBufAllocator.received(allocHandle, byteBuf);
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
 
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+#ifdef __linux__
+// sched_setaffinity(...), sched_getcpu() and the CPU_* macros need _GNU_SOURCE
+#define _GNU_SOURCE
+#include <sched.h>
+#endif /* __linux__ */
+
+#include <errno.h>
+#include "netty_unix_jni.h"
+#include "netty_unix_util.h"
+#include "netty_unix_affinity.h"
+
+// JNI Registered Methods Begin
+static jint netty_unix_affinity_setCurrentThreadAffinity0(JNIEnv* env, jclass clazz, jintArray cpus) {
+#ifdef __linux__
+    cpu_set_t set;
+    CPU_ZERO(&set);
+
+    jsize len = (*env)->GetArrayLength(env, cpus);
+    jint* elements = (*env)->GetIntArrayElements(env, cpus, NULL);
+    if (elements == NULL) {
+        // pending OutOfMemoryError
+        return -ENOMEM;
+    }
+    jsize i;
+    for (i = 0; i < len; ++i) {
+        jint cpu = elements[i];
+        if (cpu < 0 || cpu >= CPU_SETSIZE) {
+            (*env)->ReleaseIntArrayElements(env, cpus, elements, JNI_ABORT);
+            return -EINVAL;
+        }
+        CPU_SET(cpu, &set);
+    }
+    (*env)->ReleaseIntArrayElements(env, cpus, elements, JNI_ABORT);
+
+    // 0 means the calling thread.
+    if (sched_setaffinity(0, sizeof(set), &set) != 0) {
+        return -errno;
+    }
+    return 0;
+#else
+    return -ENOSYS;
+#endif /* __linux__ */
+}
+
+static jint netty_unix_affinity_currentCpu0(JNIEnv* env, jclass clazz) {
+#ifdef __linux__
+    int cpu = sched_getcpu();
+    return cpu < 0 ? -errno : cpu;
+#else
+    return -ENOSYS;
+#endif /* __linux__ */
+}
+// JNI Registered Methods End
+
+// JNI Method Registration Table Begin
+static const JNINativeMethod statically_referenced_fixed_method_table[] = {
+  { "setCurrentThreadAffinity0", "([I)I", (void *) netty_unix_affinity_setCurrentThreadAffinity0 },
+  { "currentCpu0", "()I", (void *) netty_unix_affinity_currentCpu0 }
+};
+static const jint statically_referenced_fixed_method_table_size = sizeof(statically_referenced_fixed_method_table) / sizeof(statically_referenced_fixed_method_table[0]);
+// JNI Method Registration Table End
+
+jint netty_unix_affinity_JNI_OnLoad(JNIEnv* env, const char* packagePrefix) {
+    if (netty_unix_util_register_natives(env,
+            packagePrefix,
+            "io/netty/channel/unix/CpuAffinity",
+            statically_referenced_fixed_method_table,
+            statically_referenced_fixed_method_table_size) != 0) {
+        return JNI_ERR;
+    }
+
+    return NETTY_JNI_VERSION;
+}
+
+void netty_unix_affinity_JNI_OnUnLoad(JNIEnv* env) { }
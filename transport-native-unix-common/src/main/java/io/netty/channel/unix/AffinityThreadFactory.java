@@ -0,0 +1,91 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A {@link DefaultThreadFactory} which pins every thread it creates to one CPU of a configured CPU set, using the
+ * CPUs in a round-robin fashion. Passing it to the constructor of an {@code EventLoopGroup} pins each
+ * {@code EventLoop} thread to its own CPU, which keeps the caches of that CPU warm. The CPU a thread is pinned to is
+ * exposed via {@link FastThreadLocalThread#pinnedCpu()} and
+ * {@link io.netty.util.concurrent.SingleThreadEventExecutor#pinnedCpu()}.
+ * <p>
+ * Pinning is only supported on Linux and requires that the native library of a transport was loaded before
+ * (for example via {@code Epoll.ensureAvailability()}). If a thread can not be pinned it logs a warning and runs
+ * without any CPU placement.
+ */
+@UnstableApi
+public class AffinityThreadFactory extends DefaultThreadFactory {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AffinityThreadFactory.class);
+
+    private final AtomicInteger nextCpu = new AtomicInteger();
+    private final int[] cpus;
+
+    public AffinityThreadFactory(Class<?> poolType, int... cpus) {
+        this(toPoolName(poolType), cpus);
+    }
+
+    public AffinityThreadFactory(String poolName, int... cpus) {
+        this(poolName, false, Thread.NORM_PRIORITY, cpus);
+    }
+
+    public AffinityThreadFactory(String poolName, boolean daemon, int priority, int... cpus) {
+        super(poolName, daemon, priority);
+        ObjectUtil.checkNotNull(cpus, "cpus");
+        if (cpus.length == 0) {
+            throw new IllegalArgumentException("cpus must contain at least one CPU");
+        }
+        for (int cpu: cpus) {
+            ObjectUtil.checkPositiveOrZero(cpu, "cpu");
+        }
+        this.cpus = cpus.clone();
+    }
+
+    @Override
+    protected Thread newThread(Runnable r, String name) {
+        int cpu = cpus[Math.abs(nextCpu.getAndIncrement() % cpus.length)];
+        return new AffinityThread(threadGroup, r, name, cpu);
+    }
+
+    private static final class AffinityThread extends FastThreadLocalThread {
+        private final int cpu;
+
+        AffinityThread(ThreadGroup group, Runnable target, String name, int cpu) {
+            super(group, target, name);
+            this.cpu = cpu;
+        }
+
+        @Override
+        public void run() {
+            try {
+                CpuAffinity.setCurrentThreadAffinity(cpu);
+                setPinnedCpu(cpu);
+            } catch (Throwable cause) {
+                logger.warn("Failed to pin thread {} to CPU {}", getName(), cpu, cause);
+            }
+            super.run();
+        }
+    }
+}
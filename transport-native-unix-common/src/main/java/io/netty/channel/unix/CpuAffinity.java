@@ -0,0 +1,61 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.unix;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.io.IOException;
+
+import static io.netty.channel.unix.Errors.newIOException;
+
+/**
+ * Allows to control on which CPUs a thread is scheduled. This is only supported on Linux and requires that the native
+ * library of a transport was loaded before (for example via {@code Epoll.ensureAvailability()}).
+ */
+@UnstableApi
+public final class CpuAffinity {
+
+    private CpuAffinity() { }
+
+    /**
+     * Restricts the calling thread to the given CPUs via {@code sched_setaffinity}.
+     */
+    public static void setCurrentThreadAffinity(int... cpus) throws IOException {
+        ObjectUtil.checkNotNull(cpus, "cpus");
+        if (cpus.length == 0) {
+            throw new IllegalArgumentException("cpus must contain at least one CPU");
+        }
+        int res = setCurrentThreadAffinity0(cpus);
+        if (res < 0) {
+            throw newIOException("sched_setaffinity", res);
+        }
+    }
+
+    /**
+     * Returns the CPU the calling thread is currently running on via {@code sched_getcpu}.
+     */
+    public static int currentCpu() throws IOException {
+        int res = currentCpu0();
+        if (res < 0) {
+            throw newIOException("sched_getcpu", res);
+        }
+        return res;
+    }
+
+    private static native int setCurrentThreadAffinity0(int[] cpus);
+    private static native int currentCpu0();
+}
@@ -17,6 +17,7 @@ package io.netty.channel.unix;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.CompositeByteBuf.ComponentMemoryProcessor;
 import io.netty.channel.ChannelOutboundBuffer.MessageProcessor;
 import io.netty.util.internal.PlatformDependent;
 
@@ -63,6 +64,13 @@ public final class IovArray implements MessageProcessor {
 
     private final ByteBuffer memory;
     private final long memoryAddress;
+    // Adds the memory of the components of a CompositeByteBuf without creating a ByteBuffer for each of them.
+    private final ComponentMemoryProcessor componentAdder = new ComponentMemoryProcessor() {
+        @Override
+        public boolean processComponentMemory(long memoryAddress, int length) {
+            return count != IOV_MAX && add(memoryAddress, 0, length);
+        }
+    };
     private int count;
     private long size;
     private long maxBytes = SSIZE_MAX;
@@ -100,6 +108,13 @@ public final class IovArray implements MessageProcessor {
                 return add(Buffer.memoryAddress(nioBuffer), nioBuffer.position(), len);
             }
         } else {
+            if (buf instanceof CompositeByteBuf) {
+                int len = buf.readableBytes();
+                int added = ((CompositeByteBuf) buf).forEachComponentMemory(buf.readerIndex(), len, componentAdder);
+                if (added != -1) {
+                    return added == len;
+                }
+            }
             ByteBuffer[] buffers = buf.nioBuffers();
             for (ByteBuffer nioBuffer : buffers) {
                 final int len = nioBuffer.remaining();
@@ -31,14 +31,17 @@ import io.netty.util.AttributeKey;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.FutureListener;
 import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketAddress;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A {@link Bootstrap} that makes it easy to bootstrap a {@link Channel} to use
@@ -59,6 +62,7 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
     private volatile AddressResolverGroup<SocketAddress> resolver =
             (AddressResolverGroup<SocketAddress>) DEFAULT_RESOLVER;
     private volatile SocketAddress remoteAddress;
+    private volatile long connectionAttemptDelayNanos;
 
     public Bootstrap() { }
 
@@ -66,6 +70,7 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
         super(bootstrap);
         resolver = bootstrap.resolver;
         remoteAddress = bootstrap.remoteAddress;
+        connectionAttemptDelayNanos = bootstrap.connectionAttemptDelayNanos;
     }
 
     /**
@@ -107,6 +112,25 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
         return this;
     }
 
+    /**
+     * Enables <a href="https://tools.ietf.org/html/rfc8305">Happy Eyeballs</a> if {@code > 0}. All addresses of the
+     * remote host are resolved with {@link AddressResolver#resolveAll(SocketAddress)} and connection attempts to them
+     * are started one after the other, each delayed by the given time unless the previous attempt failed earlier. The
+     * first {@link Channel} which connects is used and the others are closed, so the
+     * {@link ChannelFuture#channel()} of {@link #connect()} may change until it is complete. As each attempt uses
+     * its own {@link Channel} the {@link #handler(io.netty.channel.ChannelHandler)} must be
+     * {@link io.netty.channel.ChannelHandler.Sharable} or a {@link io.netty.channel.ChannelInitializer}.
+     * <p>
+     * RFC 8305 recommends a delay of {@code 250} milliseconds. Use {@code 0}, the default, to connect to the first
+     * resolved address only.
+     */
+    @UnstableApi
+    public Bootstrap connectionAttemptDelay(long delay, TimeUnit unit) {
+        ObjectUtil.checkPositiveOrZero(delay, "delay");
+        connectionAttemptDelayNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(delay);
+        return this;
+    }
+
     /**
      * Connect a {@link Channel} to the remote peer.
      */
@@ -158,12 +182,38 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
     private ChannelFuture doResolveAndConnect(final SocketAddress remoteAddress, final SocketAddress localAddress) {
         final ChannelFuture regFuture = initAndRegister();
         final Channel channel = regFuture.channel();
+        final long connectionAttemptDelayNanos = this.connectionAttemptDelayNanos;
 
         if (regFuture.isDone()) {
             if (!regFuture.isSuccess()) {
                 return regFuture;
             }
-            return doResolveAndConnect0(channel, remoteAddress, localAddress, channel.newPromise());
+            ChannelPromise promise;
+            if (connectionAttemptDelayNanos > 0) {
+                HappyEyeballsConnectPromise happyEyeballsPromise = new HappyEyeballsConnectPromise(
+                        this, channel, localAddress, connectionAttemptDelayNanos);
+                happyEyeballsPromise.registered();
+                promise = happyEyeballsPromise;
+            } else {
+                promise = channel.newPromise();
+            }
+            return doResolveAndConnect0(channel, remoteAddress, localAddress, promise);
+        } else if (connectionAttemptDelayNanos > 0) {
+            final HappyEyeballsConnectPromise promise = new HappyEyeballsConnectPromise(
+                    this, channel, localAddress, connectionAttemptDelayNanos);
+            regFuture.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) throws Exception {
+                    Throwable cause = future.cause();
+                    if (cause != null) {
+                        promise.setFailure(cause);
+                    } else {
+                        promise.registered();
+                        doResolveAndConnect0(channel, remoteAddress, localAddress, promise);
+                    }
+                }
+            });
+            return promise;
         } else {
             // Registration future is almost always fulfilled already, but just in case it's not.
             final PendingRegistrationPromise promise = new PendingRegistrationPromise(channel);
@@ -201,6 +251,11 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
                 return promise;
             }
 
+            if (promise instanceof HappyEyeballsConnectPromise) {
+                resolveAllAndConnect(channel, resolver, remoteAddress, (HappyEyeballsConnectPromise) promise);
+                return promise;
+            }
+
             final Future<SocketAddress> resolveFuture = resolver.resolve(remoteAddress);
 
             if (resolveFuture.isDone()) {
@@ -235,7 +290,22 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
         return promise;
     }
 
-    private static void doConnect(
+    private static void resolveAllAndConnect(final Channel channel, AddressResolver<SocketAddress> resolver,
+                                             SocketAddress remoteAddress, final HappyEyeballsConnectPromise promise) {
+        resolver.resolveAll(remoteAddress).addListener(new FutureListener<List<SocketAddress>>() {
+            @Override
+            public void operationComplete(Future<List<SocketAddress>> future) throws Exception {
+                if (future.cause() != null) {
+                    channel.close();
+                    promise.setFailure(future.cause());
+                } else {
+                    promise.connect(future.getNow());
+                }
+            }
+        });
+    }
+
+    static void doConnect(
             final SocketAddress remoteAddress, final SocketAddress localAddress, final ChannelPromise connectPromise) {
 
         // This method is invoked before channelRegistered() is triggered.  Give user handlers a chance to set up
@@ -311,4 +381,8 @@ public class Bootstrap extends AbstractBootstrap<Bootstrap, Channel> {
     final AddressResolverGroup<?> resolver() {
         return resolver;
     }
+
+    final long connectionAttemptDelayNanos() {
+        return connectionAttemptDelayNanos;
+    }
 }
@@ -43,11 +43,26 @@ public final class BootstrapConfig extends AbstractBootstrapConfig<Bootstrap, Ch
         return bootstrap.resolver();
     }
 
+    /**
+     * Returns the delay between connection attempts to the resolved addresses, or {@code 0} if only the first
+     * resolved address is used.
+     *
+     * @see Bootstrap#connectionAttemptDelay(long, java.util.concurrent.TimeUnit)
+     */
+    public long connectionAttemptDelayNanos() {
+        return bootstrap.connectionAttemptDelayNanos();
+    }
+
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder(super.toString());
         buf.setLength(buf.length() - 1);
         buf.append(", resolver: ").append(resolver());
+        long connectionAttemptDelayNanos = connectionAttemptDelayNanos();
+        if (connectionAttemptDelayNanos > 0) {
+            buf.append(", connectionAttemptDelayNanos: ")
+                    .append(connectionAttemptDelayNanos);
+        }
         SocketAddress remoteAddress = remoteAddress();
         if (remoteAddress != null) {
             buf.append(", remoteAddress: ")
@@ -0,0 +1,268 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.bootstrap;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.DefaultChannelPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.GenericFutureListener;
+import io.netty.util.concurrent.GlobalEventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ThrowableUtil;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The future of a {@link Bootstrap#connect()} which races connection attempts to all resolved addresses as described
+ * in <a href="https://tools.ietf.org/html/rfc8305">RFC 8305 (Happy Eyeballs)</a>. The attempts start one after the
+ * other, delayed by the connection attempt delay unless the previous one failed earlier. The first attempt which
+ * succeeds wins and the others are closed. Every attempt but the first uses a new {@link Channel}, and
+ * {@link #channel()} returns the one which won once this future is complete.
+ */
+final class HappyEyeballsConnectPromise extends DefaultChannelPromise {
+
+    private final Bootstrap bootstrap;
+    private final SocketAddress localAddress;
+    private final long attemptDelayNanos;
+    private final ChannelFutureListener attemptListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            if (future.isSuccess()) {
+                attemptSucceeded(future.channel());
+            } else {
+                attemptFailed(future.cause());
+            }
+        }
+    };
+    private final Runnable nextAttemptTask = new Runnable() {
+        @Override
+        public void run() {
+            nextAttempt();
+        }
+    };
+
+    // Is set to true once the first Channel is registered, until then GlobalEventExecutor.INSTANCE is used for
+    // notifications.
+    private volatile boolean registered;
+    private volatile Channel winner;
+
+    // Guarded by this.
+    private List<SocketAddress> addresses;
+    private int nextAddress;
+    private int runningAttempts;
+    private final List<Channel> attempts = new ArrayList<Channel>(2);
+    private ScheduledFuture<?> nextAttemptFuture;
+    private Throwable failure;
+
+    HappyEyeballsConnectPromise(Bootstrap bootstrap, Channel channel, SocketAddress localAddress,
+                                long attemptDelayNanos) {
+        super(channel);
+        this.bootstrap = bootstrap;
+        this.localAddress = localAddress;
+        this.attemptDelayNanos = attemptDelayNanos;
+        addListener(new GenericFutureListener<Future<Void>>() {
+            @Override
+            public void operationComplete(Future<Void> future) {
+                if (future.isCancelled()) {
+                    closeAttempts(null);
+                }
+            }
+        });
+    }
+
+    void registered() {
+        registered = true;
+    }
+
+    @Override
+    protected EventExecutor executor() {
+        if (registered) {
+            return super.executor();
+        }
+        // The registration failed so we can only use the GlobalEventExecutor as last resort to notify.
+        return GlobalEventExecutor.INSTANCE;
+    }
+
+    @Override
+    public Channel channel() {
+        Channel winner = this.winner;
+        return winner != null ? winner : super.channel();
+    }
+
+    /**
+     * Starts to connect to the given addresses, using the {@link Channel} of this future for the first attempt.
+     */
+    void connect(List<SocketAddress> resolvedAddresses) {
+        synchronized (this) {
+            addresses = interleave(resolvedAddresses);
+            nextAddress = 1;
+        }
+        startAttempt(super.channel(), addresses.get(0));
+    }
+
+    private void startAttempt(Channel channel, SocketAddress remoteAddress) {
+        synchronized (this) {
+            if (isDone()) {
+                channel.close();
+                return;
+            }
+            attempts.add(channel);
+            runningAttempts++;
+            if (nextAddress < addresses.size()) {
+                nextAttemptFuture = super.channel().eventLoop().schedule(
+                        nextAttemptTask, attemptDelayNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        ChannelPromise attemptPromise = channel.newPromise();
+        attemptPromise.addListener(attemptListener);
+        Bootstrap.doConnect(remoteAddress, localAddress, attemptPromise);
+    }
+
+    private void nextAttempt() {
+        final SocketAddress remoteAddress;
+        synchronized (this) {
+            if (isDone() || nextAddress == addresses.size()) {
+                return;
+            }
+            remoteAddress = addresses.get(nextAddress++);
+            cancelNextAttempt();
+        }
+
+        final ChannelFuture regFuture = bootstrap.initAndRegister();
+        regFuture.addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (future.isSuccess()) {
+                    startAttempt(future.channel(), remoteAddress);
+                } else {
+                    synchronized (HappyEyeballsConnectPromise.this) {
+                        runningAttempts++;
+                    }
+                    attemptFailed(future.cause());
+                }
+            }
+        });
+    }
+
+    private void attemptSucceeded(Channel channel) {
+        synchronized (this) {
+            if (isDone()) {
+                channel.close();
+                return;
+            }
+            winner = channel;
+            cancelNextAttempt();
+        }
+        closeAttempts(channel);
+        trySuccess();
+    }
+
+    private void attemptFailed(Throwable cause) {
+        boolean startNext;
+        Throwable failure = null;
+        synchronized (this) {
+            runningAttempts--;
+            if (isDone()) {
+                return;
+            }
+            if (this.failure == null) {
+                this.failure = cause;
+            } else {
+                ThrowableUtil.addSuppressed(this.failure, cause);
+            }
+            startNext = nextAddress < addresses.size();
+            if (!startNext && runningAttempts == 0) {
+                failure = this.failure;
+            }
+        }
+        if (startNext) {
+            // Do not wait for the delay once an attempt failed.
+            nextAttempt();
+        } else if (failure != null) {
+            tryFailure(failure);
+        }
+    }
+
+    private void cancelNextAttempt() {
+        assert Thread.holdsLock(this);
+        if (nextAttemptFuture != null) {
+            nextAttemptFuture.cancel(false);
+            nextAttemptFuture = null;
+        }
+    }
+
+    private void closeAttempts(Channel except) {
+        Channel[] channels;
+        synchronized (this) {
+            cancelNextAttempt();
+            channels = attempts.toArray(new Channel[0]);
+        }
+        for (Channel ch: channels) {
+            if (ch != except) {
+                ch.close();
+            }
+        }
+    }
+
+    /**
+     * Orders the addresses so that the address families alternate, starting with the family of the first address as
+     * recommended by <a href="https://tools.ietf.org/html/rfc8305#section-4">RFC 8305</a>. The order within a family
+     * is kept.
+     */
+    static List<SocketAddress> interleave(List<SocketAddress> addresses) {
+        if (addresses.size() <= 2) {
+            return addresses;
+        }
+        Class<?> firstFamily = family(addresses.get(0));
+        List<SocketAddress> first = new ArrayList<SocketAddress>(addresses.size());
+        List<SocketAddress> other = new ArrayList<SocketAddress>(addresses.size());
+        for (SocketAddress address: addresses) {
+            if (family(address) == firstFamily) {
+                first.add(address);
+            } else {
+                other.add(address);
+            }
+        }
+        List<SocketAddress> interleaved = new ArrayList<SocketAddress>(addresses.size());
+        for (int i = 0; i < first.size() || i < other.size(); i++) {
+            if (i < first.size()) {
+                interleaved.add(first.get(i));
+            }
+            if (i < other.size()) {
+                interleaved.add(other.get(i));
+            }
+        }
+        return interleaved;
+    }
+
+    private static Class<?> family(SocketAddress address) {
+        if (address instanceof InetSocketAddress) {
+            InetSocketAddress inetAddress = (InetSocketAddress) address;
+            if (inetAddress.getAddress() != null) {
+                return inetAddress.getAddress().getClass();
+            }
+        }
+        return address.getClass();
+    }
+}
@@ -25,14 +25,22 @@ import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelPipeline;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.channel.PipelineTemplate;
 import io.netty.channel.ServerChannel;
 import io.netty.util.AttributeKey;
 import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.TimeUnit;
@@ -103,11 +111,25 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ServerBootstrap.class);
 
+    /**
+     * If {@code true} the children accepted during one read of the server {@link Channel} are registered with one task
+     * per child {@link EventLoop} once the read is complete, instead of one task per child.
+     */
+    private static final boolean BATCH_CHILD_REGISTRATION =
+            SystemPropertyUtil.getBoolean("io.netty.bootstrap.batchChildRegistration", false);
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.bootstrap.batchChildRegistration: {}", BATCH_CHILD_REGISTRATION);
+        }
+    }
+
     private final Map<ChannelOption<?>, Object> childOptions = new LinkedHashMap<ChannelOption<?>, Object>();
     private final Map<AttributeKey<?>, Object> childAttrs = new LinkedHashMap<AttributeKey<?>, Object>();
     private final ServerBootstrapConfig config = new ServerBootstrapConfig(this);
     private volatile EventLoopGroup childGroup;
     private volatile ChannelHandler childHandler;
+    private volatile PipelineTemplate childTemplate;
 
     public ServerBootstrap() { }
 
@@ -115,6 +137,7 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         super(bootstrap);
         childGroup = bootstrap.childGroup;
         childHandler = bootstrap.childHandler;
+        childTemplate = bootstrap.childTemplate;
         synchronized (bootstrap.childOptions) {
             childOptions.putAll(bootstrap.childOptions);
         }
@@ -187,6 +210,18 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return this;
     }
 
+    /**
+     * Set the {@link PipelineTemplate} whose handlers are added to the pipeline of each child {@link Channel}. This
+     * is cheaper than adding the same handlers from a {@link ChannelInitializer} if many {@link Channel}s are
+     * accepted. If a {@link #childHandler(ChannelHandler)} is set as well it is added after the handlers of the
+     * template.
+     */
+    @UnstableApi
+    public ServerBootstrap childTemplate(PipelineTemplate childTemplate) {
+        this.childTemplate = ObjectUtil.checkNotNull(childTemplate, "childTemplate");
+        return this;
+    }
+
     @Override
     void init(Channel channel) throws Exception {
         final Map<ChannelOption<?>, Object> options = options0();
@@ -207,6 +242,7 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
 
         final EventLoopGroup currentChildGroup = childGroup;
         final ChannelHandler currentChildHandler = childHandler;
+        final PipelineTemplate currentChildTemplate = childTemplate;
         final Entry<ChannelOption<?>, Object>[] currentChildOptions;
         final Entry<AttributeKey<?>, Object>[] currentChildAttrs;
         synchronized (childOptions) {
@@ -229,7 +265,8 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
                     @Override
                     public void run() {
                         pipeline.addLast(new ServerBootstrapAcceptor(
-                                ch, currentChildGroup, currentChildHandler, currentChildOptions, currentChildAttrs));
+                                ch, currentChildGroup, currentChildHandler, currentChildTemplate,
+                                currentChildOptions, currentChildAttrs, BATCH_CHILD_REGISTRATION));
                     }
                 });
             }
@@ -239,7 +276,7 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
     @Override
     public ServerBootstrap validate() {
         super.validate();
-        if (childHandler == null) {
+        if (childHandler == null && childTemplate == null) {
             throw new IllegalStateException("childHandler not set");
         }
         if (childGroup == null) {
@@ -259,19 +296,36 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return new Map.Entry[size];
     }
 
-    private static class ServerBootstrapAcceptor extends ChannelInboundHandlerAdapter {
+    static class ServerBootstrapAcceptor extends ChannelInboundHandlerAdapter {
+
+        private static final ChannelFutureListener FORCE_CLOSE_ON_FAILURE = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    forceClose(future.channel(), future.cause());
+                }
+            }
+        };
 
         private final EventLoopGroup childGroup;
         private final ChannelHandler childHandler;
+        private final PipelineTemplate childTemplate;
         private final Entry<ChannelOption<?>, Object>[] childOptions;
         private final Entry<AttributeKey<?>, Object>[] childAttrs;
         private final Runnable enableAutoReadTask;
+        private final boolean batchRegistration;
+        private final Runnable registerPendingTask;
+        // The children which were accepted during the current read, by the EventLoop they will be registered with.
+        private Map<EventLoop, List<Channel>> pendingRegistrations;
+        private boolean registerPendingTaskScheduled;
 
         ServerBootstrapAcceptor(
                 final Channel channel, EventLoopGroup childGroup, ChannelHandler childHandler,
-                Entry<ChannelOption<?>, Object>[] childOptions, Entry<AttributeKey<?>, Object>[] childAttrs) {
+                PipelineTemplate childTemplate, Entry<ChannelOption<?>, Object>[] childOptions,
+                Entry<AttributeKey<?>, Object>[] childAttrs, boolean batchRegistration) {
             this.childGroup = childGroup;
             this.childHandler = childHandler;
+            this.childTemplate = childTemplate;
             this.childOptions = childOptions;
             this.childAttrs = childAttrs;
 
@@ -286,6 +340,16 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
                     channel.config().setAutoRead(true);
                 }
             };
+
+            // ThreadPerChannelEventLoopGroup does not support next().
+            this.batchRegistration = batchRegistration && childGroup instanceof MultithreadEventLoopGroup;
+            registerPendingTask = new Runnable() {
+                @Override
+                public void run() {
+                    registerPendingTaskScheduled = false;
+                    registerPending();
+                }
+            };
         }
 
         @Override
@@ -296,7 +360,12 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         public void channelRead(ChannelHandlerContext ctx, Object msg) {
             final Channel child = (Channel) msg;
 
-            child.pipeline().addLast(childHandler);
+            if (childTemplate != null) {
+                childTemplate.apply(child.pipeline());
+            }
+            if (childHandler != null) {
+                child.pipeline().addLast(childHandler);
+            }
 
             setChannelOptions(child, childOptions, logger);
 
@@ -304,6 +373,11 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
                 child.attr((AttributeKey<Object>) e.getKey()).set(e.getValue());
             }
 
+            if (batchRegistration) {
+                addPending(ctx, child);
+                return;
+            }
+
             try {
                 // 这个方法负责对创建后的链接执行如下语句完成注册
                 childGroup.register(child).addListener(new ChannelFutureListener() {
@@ -319,6 +393,75 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
             }
         }
 
+        private void addPending(ChannelHandlerContext ctx, Channel child) {
+            EventLoop loop = childGroup.next();
+            Map<EventLoop, List<Channel>> pending = pendingRegistrations;
+            if (pending == null) {
+                pendingRegistrations = pending = new IdentityHashMap<EventLoop, List<Channel>>();
+            }
+            List<Channel> children = pending.get(loop);
+            if (children == null) {
+                children = new ArrayList<Channel>();
+                pending.put(loop, children);
+            }
+            children.add(child);
+
+            if (!registerPendingTaskScheduled) {
+                // Guards against a handler in front of this one that does not forward channelReadComplete(...).
+                registerPendingTaskScheduled = true;
+                ctx.channel().eventLoop().execute(registerPendingTask);
+            }
+        }
+
+        private void registerPending() {
+            Map<EventLoop, List<Channel>> pending = pendingRegistrations;
+            if (pending == null) {
+                return;
+            }
+            pendingRegistrations = null;
+            for (Map.Entry<EventLoop, List<Channel>> e: pending.entrySet()) {
+                final EventLoop loop = e.getKey();
+                final List<Channel> children = e.getValue();
+                if (children.size() == 1 || loop.inEventLoop()) {
+                    register(loop, children);
+                    continue;
+                }
+                try {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            register(loop, children);
+                        }
+                    });
+                } catch (Throwable t) {
+                    for (Channel child: children) {
+                        forceClose(child, t);
+                    }
+                }
+            }
+        }
+
+        private static void register(EventLoop loop, List<Channel> children) {
+            for (Channel child: children) {
+                try {
+                    loop.register(child).addListener(FORCE_CLOSE_ON_FAILURE);
+                } catch (Throwable t) {
+                    forceClose(child, t);
+                }
+            }
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) throws Exception {
+            registerPending();
+            ctx.fireChannelReadComplete();
+        }
+
+        @Override
+        public void handlerRemoved(ChannelHandlerContext ctx) throws Exception {
+            registerPending();
+        }
+
         private static void forceClose(Channel child, Throwable t) {
             child.unsafe().closeForcibly();
             logger.warn("Failed to register an accepted channel: {}", child, t);
@@ -360,6 +503,10 @@ public class ServerBootstrap extends AbstractBootstrap<ServerBootstrap, ServerCh
         return childHandler;
     }
 
+    final PipelineTemplate childTemplate() {
+        return childTemplate;
+    }
+
     final Map<ChannelOption<?>, Object> childOptions() {
         return copiedMap(childOptions);
     }
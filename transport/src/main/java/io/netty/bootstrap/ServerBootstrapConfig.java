@@ -18,6 +18,7 @@ package io.netty.bootstrap;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.PipelineTemplate;
 import io.netty.channel.ServerChannel;
 import io.netty.util.AttributeKey;
 import io.netty.util.internal.StringUtil;
@@ -50,6 +51,14 @@ public final class ServerBootstrapConfig extends AbstractBootstrapConfig<ServerB
         return bootstrap.childHandler();
     }
 
+    /**
+     * Returns the configured {@link PipelineTemplate} be used for the child channels or {@code null}
+     * if non is configured yet.
+     */
+    public PipelineTemplate childTemplate() {
+        return bootstrap.childTemplate();
+    }
+
     /**
      * Returns a copy of the configured options which will be used for the child channels.
      */
@@ -87,6 +96,12 @@ public final class ServerBootstrapConfig extends AbstractBootstrapConfig<ServerB
             buf.append(childAttrs);
             buf.append(", ");
         }
+        PipelineTemplate childTemplate = childTemplate();
+        if (childTemplate != null) {
+            buf.append("childTemplate: ");
+            buf.append(childTemplate);
+            buf.append(", ");
+        }
         ChannelHandler childHandler = childHandler();
         if (childHandler != null) {
             buf.append("childHandler: ");
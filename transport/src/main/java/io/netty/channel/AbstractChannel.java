@@ -438,6 +438,10 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         private boolean inFlush0;
         /** true if the channel has never been registered, false otherwise */
         private boolean neverRegistered = true;
+        /** true if the channel is currently moved to another {@link EventLoop}, false otherwise */
+        private boolean migrating;
+        /** true if the flush is deferred to the end of the current iteration of the {@link EventLoop} */
+        boolean flushDeferred;
 
         private void assertEventLoop() {
             assert !registered || eventLoop.inEventLoop();
@@ -504,12 +508,18 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                     closeForcibly();
                     closeFuture.setClosed();
                     safeSetFailure(promise, t);
+                    if (migrating) {
+                        migrating = false;
+                        // The operations that were held back during the migration see the Channel closed now.
+                        pipeline.releaseHeldTasks();
+                    }
                 }
             }
         }
 
         // 在AbstractUnsafe的register0()方法中有关于如何将用户自定义 的Hanlder添加到NioSocket Channel的Handler链表中的方法，核心代 码解读如下:
         private void register0(ChannelPromise promise) {
+            boolean migrated = migrating;
             try {
                 // check if the channel is still open as it could be closed in the mean time when the register
                 // call was outside of the eventLoop
@@ -521,6 +531,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                 doRegister();
                 neverRegistered = false;
                 registered = true;
+                migrating = false;
 
                 // Ensure we call handlerAdded(...) before we actually notify the promise. This is needed as the
                 // user may already fire events through the pipeline in the ChannelFutureListener.
@@ -550,12 +561,23 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
                         // See https://github.com/netty/netty/issues/4805
                         beginRead();
                     }
+                    if (migrated) {
+                        // Resume the writes that were held back while the Channel was moved between EventLoops.
+                        flush0();
+                    }
                 }
             } catch (Throwable t) {
                 // Close the channel directly to avoid FD leak.
                 closeForcibly();
                 closeFuture.setClosed();
                 safeSetFailure(promise, t);
+            } finally {
+                if (migrated) {
+                    migrating = false;
+                    // Process the operations that other threads issued while the Channel was moved. Those issued
+                    // before were processed by the old EventLoop already, so the order is preserved.
+                    pipeline.releaseHeldTasks();
+                }
             }
         }
 
@@ -607,6 +629,7 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         @Override
         public final void disconnect(final ChannelPromise promise) {
             assertEventLoop();
+            flushDeferredNow();
 
             if (!promise.setUncancellable()) {
                 return;
@@ -658,6 +681,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
          * @param cause The cause which may provide rational for the shutdown.
          */
         private void shutdownOutput(final ChannelPromise promise, Throwable cause) {
+            flushDeferredNow();
+
             if (!promise.setUncancellable()) {
                 return;
             }
@@ -716,6 +741,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
 
         private void close(final ChannelPromise promise, final Throwable cause,
                            final ClosedChannelException closeCause, final boolean notify) {
+            flushDeferredNow();
+
             if (!promise.setUncancellable()) {
                 return;
             }
@@ -823,6 +850,8 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
         }
 
         private void deregister(final ChannelPromise promise, final boolean fireChannelInactive) {
+            flushDeferredNow();
+
             if (!promise.setUncancellable()) {
                 return;
             }
@@ -866,6 +895,93 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             });
         }
 
+        /**
+         * Moves this registered {@link Channel} to the given {@link EventLoop} by deregistering it from its current
+         * {@link EventLoop} and registering it with {@code newEventLoop} afterwards. The {@link ChannelPipeline} and
+         * all messages that are queued in the {@link ChannelOutboundBuffer} are preserved, flushing is held back
+         * until the {@link Channel} is registered again. Operations that other threads issue for the {@link Channel}
+         * in the meantime are held back as well and processed in the order they were issued once it is registered
+         * again.
+         */
+        final void migrate(final EventLoop newEventLoop, final ChannelPromise promise) {
+            final EventLoop oldEventLoop = eventLoop;
+            if (oldEventLoop == null) {
+                promise.setFailure(new IllegalStateException("channel not registered to an event loop"));
+                return;
+            }
+            if (!oldEventLoop.inEventLoop()) {
+                try {
+                    oldEventLoop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            migrate(newEventLoop, promise);
+                        }
+                    });
+                } catch (Throwable t) {
+                    safeSetFailure(promise, t);
+                }
+                return;
+            }
+
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+            if (!registered || migrating) {
+                safeSetFailure(promise, new IllegalStateException(
+                        migrating ? "migration in progress" : "channel not registered to an event loop"));
+                return;
+            }
+            if (newEventLoop == oldEventLoop) {
+                safeSetSuccess(promise);
+                return;
+            }
+            if (!isCompatible(newEventLoop)) {
+                safeSetFailure(promise, new IllegalStateException(
+                        "incompatible event loop type: " + newEventLoop.getClass().getName()));
+                return;
+            }
+
+            migrating = true;
+            pipeline.holdTasks();
+            deregisterForMigration(newEventLoop, promise);
+        }
+
+        private void deregisterForMigration(final EventLoop newEventLoop, final ChannelPromise promise) {
+            if (pipeline.isSubmittingTasks()) {
+                // Another thread is still passing an operation to this EventLoop that was issued before the
+                // operations were held back. Wait until it is queued, so it is processed before the deregistration.
+                try {
+                    eventLoop().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            deregisterForMigration(newEventLoop, promise);
+                        }
+                    });
+                } catch (Throwable t) {
+                    migrationFailed(promise, t);
+                }
+                return;
+            }
+            deregister(newPromise().addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    // Notified on the old EventLoop once doDeregister() was called and all operations that were
+                    // queued before were processed, so no further I/O will be processed there for this Channel.
+                    if (future.isSuccess()) {
+                        register(newEventLoop, promise);
+                    } else {
+                        migrationFailed(promise, future.cause());
+                    }
+                }
+            }));
+        }
+
+        private void migrationFailed(ChannelPromise promise, Throwable cause) {
+            migrating = false;
+            safeSetFailure(promise, cause);
+            pipeline.releaseHeldTasks();
+        }
+
         @Override
         public final void beginRead() {
             assertEventLoop();
@@ -929,13 +1045,53 @@ public abstract class AbstractChannel extends DefaultAttributeMap implements Cha
             }
 
             outboundBuffer.addFlush();
+            EventLoop loop = eventLoop;
+            if (registered && loop instanceof SingleThreadEventLoop &&
+                    ((SingleThreadEventLoop) loop).deferFlush(this)) {
+                // Flushed at the end of the current iteration of the EventLoop.
+                return;
+            }
             flush0();
         }
 
+        /**
+         * Writes what was flushed before the {@link Channel} is closed or deregistered, as the deferred flush would
+         * happen too late.
+         */
+        private void flushDeferredNow() {
+            if (flushDeferred) {
+                flushDeferred = false;
+                flush0();
+            }
+        }
+
+        /**
+         * Called by the {@link SingleThreadEventLoop} the flush was deferred to.
+         */
+        final void flushDeferred(EventLoop loop) {
+            if (!flushDeferred) {
+                return;
+            }
+            flushDeferred = false;
+            EventLoop current = eventLoop;
+            if (current == loop) {
+                flush0();
+            } else if (registered) {
+                // The Channel was moved to another EventLoop in the meantime.
+                current.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        flush0();
+                    }
+                });
+            }
+        }
+
         @SuppressWarnings("deprecation")
         protected void flush0() {
-            if (inFlush0) {
-                // Avoid re-entrance
+            if (inFlush0 || migrating) {
+                // Avoid re-entrance, or writing while the Channel is moved to another EventLoop. In the later case
+                // flush0() is called again once the Channel was registered.
                 return;
             }
 
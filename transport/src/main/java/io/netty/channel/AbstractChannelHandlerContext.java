@@ -23,6 +23,7 @@ import io.netty.util.ReferenceCountUtil;
 import io.netty.util.ResourceLeakHint;
 import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.OrderedEventExecutor;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.PromiseNotificationUtil;
 import io.netty.util.internal.ThrowableUtil;
 import io.netty.util.internal.ObjectUtil;
@@ -32,12 +33,16 @@ import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 import static io.netty.channel.ChannelHandlerMask.MASK_BIND;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_ACTIVE;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_INACTIVE;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_READ;
+import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_READ_BATCH;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_READ_COMPLETE;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_REGISTERED;
 import static io.netty.channel.ChannelHandlerMask.MASK_CHANNEL_UNREGISTERED;
@@ -56,6 +61,19 @@ import static io.netty.channel.ChannelHandlerMask.mask;
 abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, ResourceLeakHint {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractChannelHandlerContext.class);
+
+    /**
+     * If {@code true} the context which handles an event next is looked up once per event type and cached until the
+     * {@link ChannelPipeline} is modified, instead of walking the contexts that skip the event each time.
+     */
+    private static final boolean CACHE_NEXT_CONTEXTS =
+            SystemPropertyUtil.getBoolean("io.netty.pipeline.cacheNextContexts", false);
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.pipeline.cacheNextContexts: {}", CACHE_NEXT_CONTEXTS);
+        }
+    }
     volatile AbstractChannelHandlerContext next;
     volatile AbstractChannelHandlerContext prev;
 
@@ -94,14 +112,23 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     // There is no need to make this volatile as at worse it will just create a few more instances then needed.
     private Tasks invokeTasks;
 
+    // Only used if CACHE_NEXT_CONTEXTS is set. May be accessed by multiple threads, which at worst look up the next
+    // context again.
+    private NextContexts nextContexts;
+
     private volatile int handlerState = INIT;
 
     AbstractChannelHandlerContext(DefaultChannelPipeline pipeline, EventExecutor executor,
                                   String name, Class<? extends ChannelHandler> handlerClass) {
+        this(pipeline, executor, name, mask(handlerClass));
+    }
+
+    AbstractChannelHandlerContext(DefaultChannelPipeline pipeline, EventExecutor executor,
+                                  String name, int executionMask) {
         this.name = ObjectUtil.checkNotNull(name, "name");
         this.pipeline = pipeline;
         this.executor = executor;
-        this.executionMask = mask(handlerClass);
+        this.executionMask = executionMask;
         // Its ordered if its driven by the EventLoop or the given Executor is an instanceof OrderedEventExecutor.
         ordered = executor == null || executor instanceof OrderedEventExecutor;
     }
@@ -146,7 +173,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeChannelRegistered();
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeChannelRegistered();
@@ -178,7 +205,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeChannelUnregistered();
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeChannelUnregistered();
@@ -210,7 +237,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeChannelActive();
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeChannelActive();
@@ -242,7 +269,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeChannelInactive();
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeChannelInactive();
@@ -276,7 +303,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             next.invokeExceptionCaught(cause);
         } else {
             try {
-                executor.execute(new Runnable() {
+                execute(next, executor, new Runnable() {
                     @Override
                     public void run() {
                         next.invokeExceptionCaught(cause);
@@ -326,7 +353,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeUserEventTriggered(event);
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeUserEventTriggered(event);
@@ -360,7 +387,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeChannelRead(m);
         } else {
-            executor.execute(new Runnable() {
+            execute(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeChannelRead(m);
@@ -381,6 +408,47 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         }
     }
 
+    final void fireChannelReadBatch(List<?> msgs) {
+        invokeChannelReadBatch(findContextInbound(MASK_CHANNEL_READ | MASK_CHANNEL_READ_BATCH), msgs);
+    }
+
+    static void invokeChannelReadBatch(final AbstractChannelHandlerContext next, List<?> msgs) {
+        EventExecutor executor = next.executor();
+        if (executor.inEventLoop()) {
+            next.invokeChannelReadBatch(msgs);
+        } else {
+            // The caller may reuse the List once we return.
+            final List<Object> copy = new ArrayList<Object>(msgs.size());
+            for (int i = 0; i < msgs.size(); i++) {
+                copy.add(next.pipeline.touch(ObjectUtil.checkNotNull(msgs.get(i), "msg"), next));
+            }
+            execute(next, executor, new Runnable() {
+                @Override
+                public void run() {
+                    next.invokeChannelReadBatch(copy);
+                }
+            });
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void invokeChannelReadBatch(List<?> msgs) {
+        if ((executionMask & MASK_CHANNEL_READ_BATCH) == 0) {
+            // Deliver the messages one by one, from here on they will travel through the pipeline separately.
+            for (int i = 0; i < msgs.size(); i++) {
+                invokeChannelRead(pipeline.touch(ObjectUtil.checkNotNull(msgs.get(i), "msg"), this));
+            }
+        } else if (invokeHandler()) {
+            try {
+                ((ChannelInboundBatchHandler) handler()).channelReadBatch(this, (List<Object>) msgs);
+            } catch (Throwable t) {
+                notifyHandlerException(t);
+            }
+        } else {
+            fireChannelReadBatch(msgs);
+        }
+    }
+
     @Override
     public ChannelHandlerContext fireChannelReadComplete() {
         invokeChannelReadComplete(findContextInbound(MASK_CHANNEL_READ_COMPLETE));
@@ -396,7 +464,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             if (tasks == null) {
                 next.invokeTasks = tasks = new Tasks(next);
             }
-            executor.execute(tasks.invokeChannelReadCompleteTask);
+            execute(next, executor, tasks.invokeChannelReadCompleteTask);
         }
     }
 
@@ -427,7 +495,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             if (tasks == null) {
                 next.invokeTasks = tasks = new Tasks(next);
             }
-            executor.execute(tasks.invokeChannelWritableStateChangedTask);
+            execute(next, executor, tasks.invokeChannelWritableStateChangedTask);
         }
     }
 
@@ -488,7 +556,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeBind(localAddress, promise);
         } else {
-            safeExecute(executor, new Runnable() {
+            safeExecuteOutbound(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeBind(localAddress, promise);
@@ -532,7 +600,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeConnect(remoteAddress, localAddress, promise);
         } else {
-            safeExecute(executor, new Runnable() {
+            safeExecuteOutbound(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeConnect(remoteAddress, localAddress, promise);
@@ -571,7 +639,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeDisconnect(promise);
         } else {
-            safeExecute(executor, new Runnable() {
+            safeExecuteOutbound(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeDisconnect(promise);
@@ -605,7 +673,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeClose(promise);
         } else {
-            safeExecute(executor, new Runnable() {
+            safeExecuteOutbound(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeClose(promise);
@@ -640,7 +708,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeDeregister(promise);
         } else {
-            safeExecute(executor, new Runnable() {
+            safeExecuteOutbound(next, executor, new Runnable() {
                 @Override
                 public void run() {
                     next.invokeDeregister(promise);
@@ -674,7 +742,7 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             if (tasks == null) {
                 next.invokeTasks = tasks = new Tasks(next);
             }
-            executor.execute(tasks.invokeReadTask);
+            execute(next, executor, tasks.invokeReadTask);
         }
 
         return this;
@@ -727,11 +795,15 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         if (executor.inEventLoop()) {
             next.invokeFlush();
         } else {
+            if (isStaged(next)) {
+                pipeline.stagingQueue().addFlush(next);
+                return this;
+            }
             Tasks tasks = next.invokeTasks;
             if (tasks == null) {
                 next.invokeTasks = tasks = new Tasks(next);
             }
-            safeExecute(executor, tasks.invokeFlushTask, channel().voidPromise(), null);
+            safeExecute(next, executor, tasks.invokeFlushTask, channel().voidPromise(), null);
         }
 
         return this;
@@ -808,8 +880,14 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             }  else {
                 task = WriteTask.newInstance(next, m, promise);
             }
+            if (isStaged(next)) {
+                // Stage the write so it is processed together with the other writes of the Channel that were issued
+                // by other threads in the meantime.
+                pipeline.stagingQueue().add(task);
+                return;
+            }
             // 把task加入到executor 中，这个executor 就是NioEventLoop ，若是失败，则取消task执行
-            if (!safeExecute(executor, task, promise, m)) {
+            if (!safeExecute(next, executor, task, promise, m)) {
                 // We failed to submit the AbstractWriteTask. We need to cancel it so we decrement the pending bytes
                 // and put it back in the Recycler for re-use later.
                 //
@@ -927,6 +1005,13 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     // 当发生读事件(在Netty里也叫输入inbound事件)时，I/O EventLoop 线 程 先 从 HeadContext 中 依 次 向 后 查 找
     // ChannelInboundHandler类型的Handler，并调用其channelRead()方 法。
     private AbstractChannelHandlerContext findContextInbound(int mask) {
+        if (CACHE_NEXT_CONTEXTS) {
+            return cachedNextContext(mask, true);
+        }
+        return findContextInbound0(mask);
+    }
+
+    private AbstractChannelHandlerContext findContextInbound0(int mask) {
         AbstractChannelHandlerContext ctx = this;
         do {
             ctx = ctx.next;
@@ -937,6 +1022,13 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
     // 当发生写操作outbound事件时，从TailContext中依次向前查找 ChannelOutboundHandler类型的Handler，并调用其write()方法。
     // 这 也是为何解码器先追加的被先调用，而编码器正好相反的缘故。下面 是对Netty分别查找inbound()和outbound()方法的解读:
     private AbstractChannelHandlerContext findContextOutbound(int mask) {
+        if (CACHE_NEXT_CONTEXTS) {
+            return cachedNextContext(mask, false);
+        }
+        return findContextOutbound0(mask);
+    }
+
+    private AbstractChannelHandlerContext findContextOutbound0(int mask) {
         AbstractChannelHandlerContext ctx = this;
         do {
             ctx = ctx.prev;
@@ -944,6 +1036,21 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return ctx;
     }
 
+    private AbstractChannelHandlerContext cachedNextContext(int mask, boolean inbound) {
+        int version = pipeline.contextsVersion;
+        NextContexts cache = nextContexts;
+        if (cache == null || cache.version != version) {
+            nextContexts = cache = new NextContexts(version);
+        }
+        int slot = NextContexts.slot(mask);
+        AbstractChannelHandlerContext ctx = cache.contexts[slot];
+        if (ctx == null) {
+            ctx = inbound ? findContextInbound0(mask) : findContextOutbound0(mask);
+            cache.contexts[slot] = ctx;
+        }
+        return ctx;
+    }
+
     @Override
     public ChannelPromise voidPromise() {
         return channel().voidPromise();
@@ -1022,9 +1129,23 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         return channel().hasAttr(key);
     }
 
-    private static boolean safeExecute(EventExecutor executor, Runnable runnable, ChannelPromise promise, Object msg) {
+    /**
+     * Executes a task for the given context, which was issued from outside of its {@link EventExecutor}. Tasks for the
+     * {@link EventLoop} of the {@link Channel} are passed through the pipeline, so they keep their order while the
+     * {@link Channel} is moved to another {@link EventLoop}.
+     */
+    private static void execute(AbstractChannelHandlerContext next, EventExecutor executor, Runnable task) {
+        if (next.executor == null) {
+            next.pipeline.executeInEventLoop(task);
+        } else {
+            executor.execute(task);
+        }
+    }
+
+    private static boolean safeExecute(AbstractChannelHandlerContext next, EventExecutor executor, Runnable runnable,
+                                       ChannelPromise promise, Object msg) {
         try {
-            executor.execute(runnable);
+            execute(next, executor, runnable);
             return true;
         } catch (Throwable cause) {
             try {
@@ -1038,6 +1159,23 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         }
     }
 
+    private static boolean safeExecuteOutbound(AbstractChannelHandlerContext next, EventExecutor executor,
+                                               Runnable runnable, ChannelPromise promise, Object msg) {
+        if (isStaged(next)) {
+            next.pipeline.stagingQueue().add(new StagedTask(runnable, promise));
+            return true;
+        }
+        return safeExecute(next, executor, runnable, promise, msg);
+    }
+
+    /**
+     * Returns {@code true} if outbound operations that are issued from outside the {@link EventLoop} and are handled by
+     * the given context go through the {@link StagingQueue} of its {@link Channel}.
+     */
+    private static boolean isStaged(AbstractChannelHandlerContext next) {
+        return next.executor == null && next.pipeline.stageCrossThreadWrites;
+    }
+
     @Override
     public String toHintString() {
         return '\'' + name + "' will handle the message from this point.";
@@ -1092,6 +1230,28 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
             }
         }
 
+        /**
+         * Writes the message without flushing, even if a flush was requested, which the caller is responsible for.
+         * Must be called from the {@link EventLoop}.
+         */
+        final void writeStaged() {
+            try {
+                decrementPendingOutboundBytes();
+                ctx.invokeWrite(msg, promise);
+            } finally {
+                recycle();
+            }
+        }
+
+        final void fail(Throwable cause) {
+            try {
+                promise.setFailure(cause);
+            } finally {
+                ReferenceCountUtil.release(msg);
+                cancel();
+            }
+        }
+
         void cancel() {
             try {
                 decrementPendingOutboundBytes();
@@ -1167,6 +1327,188 @@ abstract class AbstractChannelHandlerContext implements ChannelHandlerContext, R
         }
     }
 
+    /**
+     * The contexts that handle the events fired by a context next, valid as long as the contexts of the
+     * {@link DefaultChannelPipeline} are not modified.
+     */
+    private static final class NextContexts {
+        // One slot per event mask bit, plus the combined masks used for writeAndFlush and channelReadBatch.
+        private static final int SLOT_WRITE_AND_FLUSH = 18;
+        private static final int SLOT_CHANNEL_READ_BATCH = 19;
+        private static final int SLOTS = 20;
+
+        final int version;
+        final AbstractChannelHandlerContext[] contexts = new AbstractChannelHandlerContext[SLOTS];
+
+        NextContexts(int version) {
+            this.version = version;
+        }
+
+        static int slot(int mask) {
+            switch (mask) {
+                case MASK_WRITE | MASK_FLUSH:
+                    return SLOT_WRITE_AND_FLUSH;
+                case MASK_CHANNEL_READ | MASK_CHANNEL_READ_BATCH:
+                    return SLOT_CHANNEL_READ_BATCH;
+                default:
+                    assert Integer.bitCount(mask) == 1;
+                    return Integer.numberOfTrailingZeros(mask);
+            }
+        }
+    }
+
+    /**
+     * Wraps an operation other than a write which is passed through the {@link StagingQueue}. The promise is
+     * {@code null} if the operation has none.
+     */
+    private static final class StagedTask {
+        final Runnable task;
+        final ChannelPromise promise;
+
+        StagedTask(Runnable task, ChannelPromise promise) {
+            this.task = task;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * Multi-producer single-consumer queue of the outbound operations issued for a {@link Channel} from outside of its
+     * {@link EventLoop}. Producers append to the queue and only the producer which finds the queue idle submits a task
+     * to the {@link EventLoop}, which then processes everything that was appended in the meantime. Consecutive flushed
+     * writes of the same context are flushed once, before the next operation which is not a flushed write of that
+     * context, so every operation observes the same state as if it had been submitted on its own.
+     * <p>
+     * Each write keeps its own {@link ChannelPromise} and its size is accounted as pending outbound bytes from the
+     * time it is staged until it is passed to the pipeline, as for writes submitted as tasks.
+     */
+    static final class StagingQueue implements Runnable {
+
+        /**
+         * The maximum number of operations processed by a single run, so a steady stream of writes from other threads
+         * does not starve the other tasks of the {@link EventLoop}.
+         */
+        private static final int MAX_OPERATIONS_PER_RUN = 1024;
+
+        private static final AtomicIntegerFieldUpdater<StagingQueue> SCHEDULED_UPDATER =
+                AtomicIntegerFieldUpdater.newUpdater(StagingQueue.class, "scheduled");
+
+        private final DefaultChannelPipeline pipeline;
+        // Contains AbstractWriteTask, StagedTask or AbstractChannelHandlerContext instances, the latter is a request to
+        // flush the context.
+        private final Queue<Object> operations = PlatformDependent.newMpscQueue();
+        private volatile int scheduled;
+
+        StagingQueue(DefaultChannelPipeline pipeline) {
+            this.pipeline = pipeline;
+        }
+
+        void add(AbstractWriteTask task) {
+            operations.offer(task);
+            scheduleIfNeeded();
+        }
+
+        void add(StagedTask task) {
+            operations.offer(task);
+            scheduleIfNeeded();
+        }
+
+        /**
+         * Adds a task which must keep its order relative to the staged operations, such as a writability change that
+         * was caused by one of them.
+         */
+        void addTask(Runnable task) {
+            operations.offer(new StagedTask(task, null));
+            scheduleIfNeeded();
+        }
+
+        void addFlush(AbstractChannelHandlerContext ctx) {
+            operations.offer(ctx);
+            scheduleIfNeeded();
+        }
+
+        private void scheduleIfNeeded() {
+            while (!operations.isEmpty() && SCHEDULED_UPDATER.compareAndSet(this, 0, 1)) {
+                try {
+                    pipeline.executeInEventLoop(this);
+                    return;
+                } catch (Throwable cause) {
+                    failAll(cause);
+                    scheduled = 0;
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                processOperations();
+            } finally {
+                scheduled = 0;
+                // Pick up operations which were added after the last poll() but before scheduled was reset.
+                scheduleIfNeeded();
+            }
+        }
+
+        private void processOperations() {
+            AbstractChannelHandlerContext flushCtx = null;
+            try {
+                for (int i = 0; i < MAX_OPERATIONS_PER_RUN; i++) {
+                    Object operation = operations.poll();
+                    if (operation == null) {
+                        break;
+                    }
+                    if (operation instanceof AbstractWriteTask) {
+                        AbstractWriteTask task = (AbstractWriteTask) operation;
+                        AbstractChannelHandlerContext ctx = task.ctx;
+                        // A write which was not flushed by the caller must not be covered by a pending flush.
+                        boolean flush = task instanceof WriteAndFlushTask;
+                        if (flushCtx != null && (!flush || flushCtx != ctx)) {
+                            flushCtx.invokeFlush();
+                            flushCtx = null;
+                        }
+                        task.writeStaged();
+                        if (flush) {
+                            flushCtx = ctx;
+                        }
+                    } else if (operation instanceof AbstractChannelHandlerContext) {
+                        AbstractChannelHandlerContext ctx = (AbstractChannelHandlerContext) operation;
+                        if (flushCtx != null && flushCtx != ctx) {
+                            flushCtx.invokeFlush();
+                        }
+                        flushCtx = ctx;
+                    } else {
+                        if (flushCtx != null) {
+                            flushCtx.invokeFlush();
+                            flushCtx = null;
+                        }
+                        ((StagedTask) operation).task.run();
+                    }
+                }
+            } finally {
+                if (flushCtx != null) {
+                    flushCtx.invokeFlush();
+                }
+            }
+        }
+
+        private void failAll(Throwable cause) {
+            for (;;) {
+                Object operation = operations.poll();
+                if (operation == null) {
+                    return;
+                }
+                if (operation instanceof AbstractWriteTask) {
+                    ((AbstractWriteTask) operation).fail(cause);
+                } else if (operation instanceof StagedTask) {
+                    ChannelPromise promise = ((StagedTask) operation).promise;
+                    if (promise != null) {
+                        promise.setFailure(cause);
+                    }
+                }
+            }
+        }
+    }
+
     private static final class Tasks {
         private final AbstractChannelHandlerContext next;
         private final Runnable invokeChannelReadCompleteTask = new Runnable() {
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tunes the split between I/O and non-I/O tasks of an event loop iteration based on what was observed in the previous
+ * iterations, as an alternative to a fixed {@code ioRatio}.
+ * <p>
+ * If the number of pending tasks grows from one iteration to the next the tasks get more time, if I/O is ready while
+ * no tasks are pending I/O gets more time. The ratio stays within {@code 10} and {@code 90}. Tasks always get at least
+ * a small time slice so they make progress if no I/O was ready.
+ * <p>
+ * Instances are not thread-safe and must only be used by the event loop thread.
+ */
+@UnstableApi
+public final class AdaptiveIoRatio {
+
+    private static final int MIN_IO_RATIO = 10;
+    private static final int MAX_IO_RATIO = 90;
+    private static final int STEP = 5;
+    private static final long MIN_TASK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private int ioRatio;
+    private int pendingTasksAfterRun;
+
+    /**
+     * Creates a new instance which starts with the given {@code ioRatio}.
+     */
+    public AdaptiveIoRatio(int ioRatio) {
+        this.ioRatio = Math.min(MAX_IO_RATIO, Math.max(MIN_IO_RATIO, ioRatio));
+    }
+
+    /**
+     * Returns the current percentage of the time spent for I/O.
+     */
+    public int ioRatio() {
+        return ioRatio;
+    }
+
+    /**
+     * Adjusts the ratio and returns how much time the tasks may use after I/O was processed.
+     *
+     * @param ioTimeNanos the time spent for I/O in this iteration
+     * @param readyEvents the number of I/O events that were ready in this iteration
+     * @param pendingTasks the number of tasks that are pending now
+     */
+    public long taskTimeoutNanos(long ioTimeNanos, int readyEvents, int pendingTasks) {
+        int ioRatio = this.ioRatio;
+        if (pendingTasks > pendingTasksAfterRun) {
+            // The tasks did not keep up.
+            ioRatio = Math.max(MIN_IO_RATIO, ioRatio - STEP);
+        } else if (readyEvents > 0 && pendingTasks == 0) {
+            ioRatio = Math.min(MAX_IO_RATIO, ioRatio + STEP);
+        }
+        this.ioRatio = ioRatio;
+        return Math.max(MIN_TASK_NANOS, ioTimeNanos * (100 - ioRatio) / ioRatio);
+    }
+
+    /**
+     * Records the number of tasks that were left after the tasks of this iteration were run.
+     */
+    public void tasksRan(int pendingTasks) {
+        pendingTasksAfterRun = pendingTasks;
+    }
+}
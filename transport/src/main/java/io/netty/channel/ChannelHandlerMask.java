@@ -29,6 +29,7 @@ import java.lang.reflect.Method;
 import java.net.SocketAddress;
 import java.security.AccessController;
 import java.security.PrivilegedExceptionAction;
+import java.util.List;
 import java.util.Map;
 import java.util.WeakHashMap;
 
@@ -53,6 +54,7 @@ final class ChannelHandlerMask {
     static final int MASK_READ = 1 << 14;
     static final int MASK_WRITE = 1 << 15;
     static final int MASK_FLUSH = 1 << 16;
+    static final int MASK_CHANNEL_READ_BATCH = 1 << 17;
 
     private static final int MASK_ALL_INBOUND = MASK_EXCEPTION_CAUGHT | MASK_CHANNEL_REGISTERED |
             MASK_CHANNEL_UNREGISTERED | MASK_CHANNEL_ACTIVE | MASK_CHANNEL_INACTIVE | MASK_CHANNEL_READ |
@@ -124,6 +126,10 @@ final class ChannelHandlerMask {
                 if (isSkippable(handlerType, "userEventTriggered", ChannelHandlerContext.class, Object.class)) {
                     mask &= ~MASK_USER_EVENT_TRIGGERED;
                 }
+                if (ChannelInboundBatchHandler.class.isAssignableFrom(handlerType) &&
+                        !isSkippable(handlerType, "channelReadBatch", ChannelHandlerContext.class, List.class)) {
+                    mask |= MASK_CHANNEL_READ_BATCH;
+                }
             }
 
             if (ChannelOutboundHandler.class.isAssignableFrom(handlerType)) {
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.UnstableApi;
+
+import java.util.List;
+
+/**
+ * A {@link ChannelInboundHandler} which can handle multiple messages that were read at once in a single call, which
+ * saves traversing the {@link ChannelPipeline} once per message.
+ * <p>
+ * Batches are forwarded via {@link ChannelReadBatch#fire(ChannelHandlerContext, List)}. If the next
+ * {@link ChannelInboundHandler} does not implement this interface it receives the messages one by one via
+ * {@link ChannelInboundHandler#channelRead(ChannelHandlerContext, Object)}, so implementations must still handle
+ * single messages.
+ */
+@UnstableApi
+public interface ChannelInboundBatchHandler extends ChannelInboundHandler {
+
+    /**
+     * Invoked when the current {@link Channel} has read the given messages from the peer.
+     * <p>
+     * As for {@link #channelRead(ChannelHandlerContext, Object)} the handler is responsible for releasing the
+     * messages or passing them on. It must not keep a reference to the {@link List} itself, which may be reused once
+     * this method returns.
+     */
+    void channelReadBatch(ChannelHandlerContext ctx, List<Object> msgs) throws Exception;
+}
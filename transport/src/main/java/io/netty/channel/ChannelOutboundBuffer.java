@@ -18,6 +18,7 @@ package io.netty.channel;
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufHolder;
 import io.netty.buffer.Unpooled;
+import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.util.Recycler;
 import io.netty.util.Recycler.Handle;
@@ -65,6 +66,26 @@ public class ChannelOutboundBuffer {
 
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ChannelOutboundBuffer.class);
 
+    /**
+     * If {@code > 0} consecutive {@link ByteBuf}s of at most this many bytes are copied into one buffer when they are
+     * flushed to a {@link DuplexChannel}, so they are written with a single buffer instead of one per message.
+     */
+    private static final int COALESCE_THRESHOLD =
+            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferCoalesceThreshold", 0);
+
+    /**
+     * The maximum size of a buffer which is the result of coalescing.
+     */
+    private static final int COALESCE_MAX_SIZE = Math.max(COALESCE_THRESHOLD,
+            SystemPropertyUtil.getInt("io.netty.transport.outboundBufferCoalesceMaxSize", 16384));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.transport.outboundBufferCoalesceThreshold: {}", COALESCE_THRESHOLD);
+            logger.debug("-Dio.netty.transport.outboundBufferCoalesceMaxSize: {}", COALESCE_MAX_SIZE);
+        }
+    }
+
     private static final FastThreadLocal<ByteBuffer[]> NIO_BUFFERS = new FastThreadLocal<ByteBuffer[]>() {
         @Override
         protected ByteBuffer[] initialValue() throws Exception {
@@ -110,8 +131,29 @@ public class ChannelOutboundBuffer {
 
     private volatile Runnable fireChannelWritabilityChangedTask;
 
+    private static final AtomicIntegerFieldUpdater<ChannelOutboundBuffer> BUDGET_THROTTLED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ChannelOutboundBuffer.class, "budgetThrottled");
+
+    // 1 while the WriteBufferBudget keeps this buffer unwritable.
+    private volatile int budgetThrottled;
+
+    private WriteBufferBudget budget;
+    private volatile boolean budgetResolved;
+    // Set by the WriteBufferBudget when the pending bytes of this buffer became non-zero.
+    volatile long pendingSinceNanos;
+
+    private final int coalesceThreshold;
+    private final int coalesceMaxSize;
+
     ChannelOutboundBuffer(AbstractChannel channel) {
+        // Only byte streams, as for other channels each message may have a meaning of its own, like a datagram.
+        this(channel, channel instanceof DuplexChannel ? COALESCE_THRESHOLD : 0, COALESCE_MAX_SIZE);
+    }
+
+    ChannelOutboundBuffer(AbstractChannel channel, int coalesceThreshold, int coalesceMaxSize) {
         this.channel = channel;
+        this.coalesceThreshold = coalesceThreshold;
+        this.coalesceMaxSize = coalesceMaxSize;
     }
 
     /**
@@ -192,10 +234,92 @@ public class ChannelOutboundBuffer {
 
             // All flushed so reset unflushedEntry
             // 每次设置完后都需要把unflushedEntry设置为空，在下次添加数据时，unflushedEntry为最先添加的entry
+            Entry firstFlushed = unflushedEntry;
             unflushedEntry = null;
+            if (coalesceThreshold > 0) {
+                coalesce(firstFlushed);
+            }
         }
     }
 
+    /**
+     * Copies runs of consecutive small {@link ByteBuf}s, starting with the given {@link Entry}, into one buffer each.
+     */
+    private void coalesce(Entry entry) {
+        while (entry != null) {
+            if (!isCoalescable(entry)) {
+                entry = entry.next;
+                continue;
+            }
+            int bytes = ((ByteBuf) entry.msg).readableBytes();
+            int entries = 1;
+            Entry end = entry.next;
+            while (end != null && isCoalescable(end)) {
+                int readableBytes = ((ByteBuf) end.msg).readableBytes();
+                if (bytes + readableBytes > coalesceMaxSize) {
+                    break;
+                }
+                bytes += readableBytes;
+                entries++;
+                end = end.next;
+            }
+            if (entries > 1) {
+                coalesce(entry, end, bytes);
+            }
+            entry = end;
+        }
+    }
+
+    private boolean isCoalescable(Entry entry) {
+        return !entry.cancelled && entry.msg instanceof ByteBuf &&
+                ((ByteBuf) entry.msg).readableBytes() <= coalesceThreshold;
+    }
+
+    private void coalesce(Entry first, Entry end, int bytes) {
+        ByteBuf merged;
+        try {
+            merged = channel.alloc().directBuffer(bytes);
+        } catch (Throwable t) {
+            logger.debug("Failed to allocate a buffer to coalesce {} bytes, writing them separately.", bytes, t);
+            return;
+        }
+        transferTo(first, merged);
+        first.msg = merged;
+        first.total = bytes;
+
+        Entry prev = first;
+        Entry entry = first.next;
+        while (entry != end) {
+            transferTo(entry, merged);
+            Entry next = entry.next;
+            if (entry.promise.isVoid()) {
+                // Nobody waits for this message, so its Entry can go away.
+                first.pendingSize += entry.pendingSize;
+                prev.next = next;
+                if (entry == tailEntry) {
+                    tailEntry = prev;
+                }
+                flushed--;
+                entry.recycle();
+            } else {
+                // Keep the Entry so its promise is notified in order once the merged bytes were written.
+                entry.msg = Unpooled.EMPTY_BUFFER;
+                entry.total = 0;
+                prev = entry;
+            }
+            entry = next;
+        }
+    }
+
+    private static void transferTo(Entry entry, ByteBuf merged) {
+        ByteBuf buf = (ByteBuf) entry.msg;
+        merged.writeBytes(buf, buf.readerIndex(), buf.readableBytes());
+        ReferenceCountUtil.safeRelease(buf);
+        entry.count = -1;
+        entry.bufs = null;
+        entry.buf = null;
+    }
+
     /**
      * Increment the pending bytes which will be written at some point.
      * This method is thread-safe!
@@ -213,6 +337,10 @@ public class ChannelOutboundBuffer {
         if (newWriteBufferSize > channel.config().getWriteBufferHighWaterMark()) {
             setUnwritable(invokeLater);
         }
+        WriteBufferBudget budget = budget();
+        if (budget != null) {
+            budget.incremented(this, size, newWriteBufferSize);
+        }
     }
 
     /**
@@ -229,9 +357,56 @@ public class ChannelOutboundBuffer {
         }
 
         long newWriteBufferSize = TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
-        if (notifyWritability && newWriteBufferSize < channel.config().getWriteBufferLowWaterMark()) {
+        if (notifyWritability && budgetThrottled == 0 &&
+                newWriteBufferSize < channel.config().getWriteBufferLowWaterMark()) {
             setWritable(invokeLater);
         }
+        WriteBufferBudget budget = budget();
+        if (budget != null) {
+            budget.decremented(this, size, newWriteBufferSize);
+        }
+    }
+
+    private WriteBufferBudget budget() {
+        if (!budgetResolved) {
+            if (!channel.isRegistered()) {
+                return null;
+            }
+            // Resolved once so the bytes are always accounted to the same budget.
+            EventLoop loop = channel.eventLoop();
+            if (loop instanceof SingleThreadEventLoop) {
+                budget = ((SingleThreadEventLoop) loop).writeBufferBudget();
+            }
+            budgetResolved = true;
+        }
+        return budget;
+    }
+
+    /**
+     * Returns the {@link EventLoop} of the {@link Channel} of this buffer.
+     */
+    EventLoop eventLoop() {
+        return channel.eventLoop();
+    }
+
+    /**
+     * Makes this buffer unwritable on behalf of the {@link WriteBufferBudget}.
+     */
+    void throttleBudget() {
+        if (BUDGET_THROTTLED_UPDATER.compareAndSet(this, 0, 1)) {
+            setUnwritable(true);
+        }
+    }
+
+    /**
+     * Releases this buffer from the {@link WriteBufferBudget}, so it is writable again if it is below its own low
+     * water mark.
+     */
+    void releaseBudget() {
+        if (BUDGET_THROTTLED_UPDATER.compareAndSet(this, 1, 0) && channel.isOpen() &&
+                totalPendingSize < channel.config().getWriteBufferLowWaterMark()) {
+            setWritable(true);
+        }
     }
 
     private static long total(Object msg) {
@@ -701,7 +876,20 @@ public class ChannelOutboundBuffer {
                     }
                 };
             }
-            channel.eventLoop().execute(task);
+            if (pipeline instanceof DefaultChannelPipeline) {
+                DefaultChannelPipeline defaultPipeline = (DefaultChannelPipeline) pipeline;
+                if (defaultPipeline.stageCrossThreadWrites) {
+                    // Staged operations may be processed before tasks that were submitted earlier, so keep the event
+                    // in order with the staged writes whose pending bytes changed the writability.
+                    defaultPipeline.stagingQueue().addTask(task);
+                } else {
+                    // Keeps the event in order with the other operations while the Channel is moved to another
+                    // EventLoop.
+                    defaultPipeline.executeInEventLoop(task);
+                }
+            } else {
+                channel.eventLoop().execute(task);
+            }
         } else {
             pipeline.fireChannelWritabilityChanged();
         }
@@ -766,12 +954,14 @@ public class ChannelOutboundBuffer {
         }
 
         // Release all unflushed messages.
+        long released = 0;
         try {
             Entry e = unflushedEntry;
             while (e != null) {
                 // Just decrease; do not trigger any events via decrementPendingOutboundBytes()
                 int size = e.pendingSize;
                 TOTAL_PENDING_SIZE_UPDATER.addAndGet(this, -size);
+                released += size;
 
                 if (!e.cancelled) {
                     ReferenceCountUtil.safeRelease(e.msg);
@@ -783,6 +973,11 @@ public class ChannelOutboundBuffer {
             inFail = false;
         }
         clearNioBuffers();
+
+        WriteBufferBudget budget = budget();
+        if (budget != null) {
+            budget.closed(this, released);
+        }
     }
 
     void close(ClosedChannelException cause) {
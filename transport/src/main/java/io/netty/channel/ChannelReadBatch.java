@@ -0,0 +1,63 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.List;
+
+/**
+ * Utility methods to pass multiple messages through a {@link ChannelPipeline} at once, see
+ * {@link ChannelInboundBatchHandler}.
+ */
+@UnstableApi
+public final class ChannelReadBatch {
+
+    /**
+     * Passes the messages to the next {@link ChannelInboundHandler} of the {@link ChannelPipeline}. They are delivered
+     * as a single batch to {@link ChannelInboundBatchHandler}s and one by one to other handlers.
+     * <p>
+     * The caller may reuse the {@link List} once this method returns.
+     */
+    public static void fire(ChannelHandlerContext ctx, List<?> msgs) {
+        ObjectUtil.checkNotNull(msgs, "msgs");
+        if (ctx instanceof AbstractChannelHandlerContext) {
+            ((AbstractChannelHandlerContext) ctx).fireChannelReadBatch(msgs);
+        } else {
+            for (int i = 0; i < msgs.size(); i++) {
+                ctx.fireChannelRead(msgs.get(i));
+            }
+        }
+    }
+
+    /**
+     * Passes the messages to the first {@link ChannelInboundHandler} of the {@link ChannelPipeline}, see
+     * {@link #fire(ChannelHandlerContext, List)}.
+     */
+    public static void fire(ChannelPipeline pipeline, List<?> msgs) {
+        ObjectUtil.checkNotNull(msgs, "msgs");
+        if (pipeline instanceof DefaultChannelPipeline) {
+            ((DefaultChannelPipeline) pipeline).head.fireChannelReadBatch(msgs);
+        } else {
+            for (int i = 0; i < msgs.size(); i++) {
+                pipeline.fireChannelRead(msgs.get(i));
+            }
+        }
+    }
+
+    private ChannelReadBatch() { }
+}
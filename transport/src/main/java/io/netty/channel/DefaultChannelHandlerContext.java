@@ -27,6 +27,13 @@ final class DefaultChannelHandlerContext extends AbstractChannelHandlerContext {
         this.handler = handler;
     }
 
+    DefaultChannelHandlerContext(
+            DefaultChannelPipeline pipeline, EventExecutor executor, String name, ChannelHandler handler,
+            int executionMask) {
+        super(pipeline, executor, name, executionMask);
+        this.handler = handler;
+    }
+
     @Override
     public ChannelHandler handler() {
         return handler;
@@ -23,6 +23,7 @@ import io.netty.util.concurrent.EventExecutorGroup;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -37,6 +38,7 @@ import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.WeakHashMap;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -47,6 +49,21 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     static final InternalLogger logger = InternalLoggerFactory.getInstance(DefaultChannelPipeline.class);
 
+    /**
+     * If {@code true} writes which are issued from outside the {@link EventLoop} of a {@link Channel} are staged in a
+     * queue of the {@link Channel} and processed in batches, so consecutive flushed writes are flushed once instead of
+     * submitting a task per write. Other outbound operations issued from outside the {@link EventLoop} go through the
+     * same queue so they keep their order relative to the writes.
+     */
+    private static final boolean STAGE_CROSS_THREAD_WRITES =
+            SystemPropertyUtil.getBoolean("io.netty.transport.stageCrossThreadWrites", false);
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.transport.stageCrossThreadWrites: {}", STAGE_CROSS_THREAD_WRITES);
+        }
+    }
+
     private static final String HEAD_NAME = generateName0(HeadContext.class);
     private static final String TAIL_NAME = generateName0(TailContext.class);
 
@@ -61,6 +78,13 @@ public class DefaultChannelPipeline implements ChannelPipeline {
     private static final AtomicReferenceFieldUpdater<DefaultChannelPipeline, MessageSizeEstimator.Handle> ESTIMATOR =
             AtomicReferenceFieldUpdater.newUpdater(
                     DefaultChannelPipeline.class, MessageSizeEstimator.Handle.class, "estimatorHandle");
+    private static final AtomicIntegerFieldUpdater<DefaultChannelPipeline> CONTEXTS_VERSION =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelPipeline.class, "contextsVersion");
+    private static final AtomicReferenceFieldUpdater<DefaultChannelPipeline,
+            AbstractChannelHandlerContext.StagingQueue> STAGING_QUEUE = AtomicReferenceFieldUpdater.newUpdater(
+                    DefaultChannelPipeline.class, AbstractChannelHandlerContext.StagingQueue.class, "stagingQueue");
+    private static final AtomicIntegerFieldUpdater<DefaultChannelPipeline> SUBMITTING =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultChannelPipeline.class, "submitting");
     final AbstractChannelHandlerContext head;
     final AbstractChannelHandlerContext tail;
 
@@ -71,6 +95,15 @@ public class DefaultChannelPipeline implements ChannelPipeline {
 
     private Map<EventExecutorGroup, EventExecutor> childExecutors;
     private volatile MessageSizeEstimator.Handle estimatorHandle;
+    private volatile AbstractChannelHandlerContext.StagingQueue stagingQueue;
+    // Only changed by tests.
+    volatile boolean stageCrossThreadWrites = STAGE_CROSS_THREAD_WRITES;
+    // Incremented whenever contexts are added or removed, see AbstractChannelHandlerContext.cachedNextContext(...).
+    volatile int contextsVersion;
+    // The number of threads which are passing a task to the EventLoop in executeInEventLoop(...).
+    private volatile int submitting;
+    // Not null while the Channel is moved to another EventLoop, see holdTasks().
+    private volatile HeldTasks heldTasks;
     private boolean firstRegistration = true;
 
     /**
@@ -121,6 +154,83 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return handle;
     }
 
+    final AbstractChannelHandlerContext.StagingQueue stagingQueue() {
+        AbstractChannelHandlerContext.StagingQueue queue = stagingQueue;
+        if (queue == null) {
+            queue = new AbstractChannelHandlerContext.StagingQueue(this);
+            if (!STAGING_QUEUE.compareAndSet(this, null, queue)) {
+                queue = stagingQueue;
+            }
+        }
+        return queue;
+    }
+
+    /**
+     * Executes a task of this pipeline which was issued from outside the {@link EventLoop} of the {@link Channel} on
+     * the {@link EventLoop}. Tasks which are issued while the tasks are {@linkplain #holdTasks() held back} are run
+     * once they are {@linkplain #releaseHeldTasks() released}, so they keep the order in which they were issued even
+     * if the {@link Channel} is moved to another {@link EventLoop} in the meantime.
+     */
+    final void executeInEventLoop(Runnable task) {
+        for (;;) {
+            HeldTasks held;
+            SUBMITTING.incrementAndGet(this);
+            try {
+                held = heldTasks;
+                if (held == null) {
+                    // Resolved only now, so the task goes to the EventLoop the Channel is registered with once it
+                    // is no longer counted as submitting.
+                    channel.eventLoop().execute(task);
+                    return;
+                }
+            } finally {
+                SUBMITTING.decrementAndGet(this);
+            }
+            if (held.add(task)) {
+                return;
+            }
+            // Released in the meantime, so the task can be executed right away.
+        }
+    }
+
+    /**
+     * Holds back the tasks which are issued by {@link #executeInEventLoop(Runnable)} from now on, until
+     * {@link #releaseHeldTasks()} is called. Tasks which were issued before may still be on their way to the
+     * {@link EventLoop} as long as {@link #isSubmittingTasks()} returns {@code true}.
+     */
+    final void holdTasks() {
+        assert heldTasks == null;
+        heldTasks = new HeldTasks();
+    }
+
+    /**
+     * Returns {@code true} if another thread is currently passing a task to the {@link EventLoop} which was not held
+     * back.
+     */
+    final boolean isSubmittingTasks() {
+        return submitting != 0;
+    }
+
+    /**
+     * Runs the tasks which were held back since {@link #holdTasks()} in the order they were issued. Tasks issued from
+     * now on are executed by the {@link EventLoop} again, after this method returns if it is called from the
+     * {@link EventLoop}.
+     */
+    final void releaseHeldTasks() {
+        HeldTasks held = heldTasks;
+        if (held == null) {
+            return;
+        }
+        heldTasks = null;
+        for (Runnable task: held.release()) {
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.warn("A task raised an exception. Task: {}", task, t);
+            }
+        }
+    }
+
     final Object touch(Object msg, AbstractChannelHandlerContext next) {
         return touch ? ReferenceCountUtil.touch(msg, next) : msg;
     }
@@ -191,12 +301,17 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return this;
     }
 
+    private void contextsChanged() {
+        CONTEXTS_VERSION.incrementAndGet(this);
+    }
+
     private void addFirst0(AbstractChannelHandlerContext newCtx) {
         AbstractChannelHandlerContext nextCtx = head.next;
         newCtx.prev = head;
         newCtx.next = nextCtx;
         head.next = newCtx;
         nextCtx.prev = newCtx;
+        contextsChanged();
     }
 
     @Override
@@ -240,6 +355,80 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         newCtx.next = tail;
         prev.next = newCtx;
         tail.prev = newCtx;
+        contextsChanged();
+    }
+
+    /**
+     * Adds the handlers of the given {@link PipelineTemplate} at the end of this pipeline, see
+     * {@link PipelineTemplate#apply(ChannelPipeline)}.
+     */
+    final void addLast(PipelineTemplate template) {
+        final PipelineTemplate.Entry[] entries = template.entries();
+        final AbstractChannelHandlerContext[] newCtxs = new AbstractChannelHandlerContext[entries.length];
+        final boolean[] needsHandlerAdded = new boolean[entries.length];
+        final boolean empty;
+        synchronized (this) {
+            empty = head.next == tail;
+            if (empty) {
+                // The names of the template are unique so there is no need to check them if the pipeline is empty.
+                AbstractChannelHandlerContext prev = head;
+                for (int i = 0; i < entries.length; i++) {
+                    PipelineTemplate.Entry entry = entries[i];
+                    ChannelHandler handler = entry.newHandler(channel);
+                    checkMultiplicity(handler);
+                    PipelineTemplate.HandlerType type = entry.type(handler);
+                    AbstractChannelHandlerContext newCtx = new DefaultChannelHandlerContext(
+                            this, null, entry.name, handler, type.executionMask);
+                    needsHandlerAdded[i] = type.needsHandlerAdded;
+                    // The new contexts are not reachable before they are linked to head and tail below.
+                    newCtx.prev = prev;
+                    if (i > 0) {
+                        prev.next = newCtx;
+                    }
+                    newCtxs[i] = prev = newCtx;
+                }
+                prev.next = tail;
+                head.next = newCtxs[0];
+                tail.prev = prev;
+                contextsChanged();
+
+                if (!registered) {
+                    for (int i = 0; i < newCtxs.length; i++) {
+                        if (needsHandlerAdded[i]) {
+                            newCtxs[i].setAddPending();
+                            callHandlerCallbackLater(newCtxs[i], true);
+                        } else {
+                            newCtxs[i].setAddComplete();
+                        }
+                    }
+                    return;
+                }
+
+                EventExecutor executor = channel.eventLoop();
+                if (!executor.inEventLoop()) {
+                    for (int i = 0; i < newCtxs.length; i++) {
+                        if (needsHandlerAdded[i]) {
+                            callHandlerAddedInEventLoop(newCtxs[i], executor);
+                        } else {
+                            newCtxs[i].setAddComplete();
+                        }
+                    }
+                    return;
+                }
+            }
+        }
+
+        if (!empty) {
+            template.addLastOneByOne(this);
+            return;
+        }
+        for (int i = 0; i < newCtxs.length; i++) {
+            if (needsHandlerAdded[i]) {
+                callHandlerAdded0(newCtxs[i]);
+            } else {
+                newCtxs[i].setAddComplete();
+            }
+        }
     }
 
     @Override
@@ -280,11 +469,12 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return this;
     }
 
-    private static void addBefore0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
+    private void addBefore0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
         newCtx.prev = ctx.prev;
         newCtx.next = ctx;
         ctx.prev.next = newCtx;
         ctx.prev = newCtx;
+        contextsChanged();
     }
 
     private String filterName(String name, ChannelHandler handler) {
@@ -333,11 +523,12 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return this;
     }
 
-    private static void addAfter0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
+    private void addAfter0(AbstractChannelHandlerContext ctx, AbstractChannelHandlerContext newCtx) {
         newCtx.prev = ctx;
         newCtx.next = ctx.next;
         ctx.next.prev = newCtx;
         ctx.next = newCtx;
+        contextsChanged();
     }
 
     public final ChannelPipeline addFirst(ChannelHandler handler) {
@@ -492,11 +683,12 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return ctx;
     }
 
-    private static void remove0(AbstractChannelHandlerContext ctx) {
+    private void remove0(AbstractChannelHandlerContext ctx) {
         AbstractChannelHandlerContext prev = ctx.prev;
         AbstractChannelHandlerContext next = ctx.next;
         prev.next = next;
         next.prev = prev;
+        contextsChanged();
     }
 
     @Override
@@ -585,7 +777,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         return ctx.handler();
     }
 
-    private static void replace0(AbstractChannelHandlerContext oldCtx, AbstractChannelHandlerContext newCtx) {
+    private void replace0(AbstractChannelHandlerContext oldCtx, AbstractChannelHandlerContext newCtx) {
         AbstractChannelHandlerContext prev = oldCtx.prev;
         AbstractChannelHandlerContext next = oldCtx.next;
         newCtx.prev = prev;
@@ -601,6 +793,7 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         // update the reference to the replacement so forward of buffered content will work correctly
         oldCtx.prev = newCtx;
         oldCtx.next = newCtx;
+        contextsChanged();
     }
 
     private static void checkMultiplicity(ChannelHandler handler) {
@@ -1462,6 +1655,28 @@ public class DefaultChannelPipeline implements ChannelPipeline {
         }
     }
 
+    /**
+     * The tasks which are held back while the {@link Channel} is moved to another {@link EventLoop}.
+     */
+    private static final class HeldTasks {
+        // Guarded by this.
+        private final List<Runnable> tasks = new ArrayList<Runnable>();
+        private boolean released;
+
+        synchronized boolean add(Runnable task) {
+            if (released) {
+                return false;
+            }
+            tasks.add(task);
+            return true;
+        }
+
+        synchronized List<Runnable> release() {
+            released = true;
+            return tasks;
+        }
+    }
+
     private abstract static class PendingHandlerCallback implements Runnable {
         final AbstractChannelHandlerContext ctx;
         PendingHandlerCallback next;
@@ -53,6 +53,7 @@ public class DefaultEventLoop extends SingleThreadEventLoop {
             if (task != null) {
                 task.run();
                 updateLastExecutionTime();
+                flushDeferred();
             }
 
             if (confirmShutdown()) {
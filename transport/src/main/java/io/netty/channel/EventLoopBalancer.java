@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves registered {@link Channel}s between the {@link EventLoop}s of an {@link EventLoopGroup} so long-lived
+ * connections that become hot after they were registered do not stay pinned to an overloaded {@link EventLoop}.
+ * <p>
+ * {@link Channel}s must be {@linkplain #track(Channel) tracked} to take part in balancing. The utilisation of an
+ * {@link EventLoop} is estimated by the number of inbound and outbound messages its tracked {@link Channel}s processed
+ * since the last balancing pass plus its {@linkplain io.netty.util.concurrent.SingleThreadEventExecutor#pendingTasks()
+ * pending tasks}. Every pass moves at most one {@link Channel} from the busiest to the least busy {@link EventLoop},
+ * and only if this reduces the imbalance between both.
+ * <p>
+ * Moving a {@link Channel} uses the same deregister / register cycle as a manual re-registration, so
+ * {@link ChannelInboundHandler#channelUnregistered(ChannelHandlerContext)} and
+ * {@link ChannelInboundHandler#channelRegistered(ChannelHandlerContext)} are triggered. Handlers that scheduled tasks
+ * on the old {@link EventLoop} (like timeouts) must re-schedule them on {@code channelRegistered}. Operations that are
+ * issued from outside the {@link EventLoop} while a {@link Channel} is moved are held back until it is registered with
+ * the new {@link EventLoop}, so they are still processed in the order they were issued.
+ */
+@UnstableApi
+public final class EventLoopBalancer {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EventLoopBalancer.class);
+
+    /**
+     * Moves the given registered {@link Channel} to {@code eventLoop}. Messages that are pending in the
+     * {@link ChannelOutboundBuffer} and the {@link ChannelPipeline} are preserved. The returned {@link ChannelFuture}
+     * is notified once the {@link Channel} is registered with the new {@link EventLoop}.
+     */
+    public static ChannelFuture migrate(Channel channel, EventLoop eventLoop) {
+        ObjectUtil.checkNotNull(channel, "channel");
+        ObjectUtil.checkNotNull(eventLoop, "eventLoop");
+        ChannelPromise promise = channel.newPromise();
+        Channel.Unsafe unsafe = channel.unsafe();
+        if (!(unsafe instanceof AbstractChannel.AbstractUnsafe)) {
+            return promise.setFailure(new UnsupportedOperationException(
+                    "migration not supported by " + channel.getClass().getName()));
+        }
+        ((AbstractChannel.AbstractUnsafe) unsafe).migrate(eventLoop, promise);
+        return promise;
+    }
+
+    private final ConcurrentMap<Channel, ChannelLoad> channels = PlatformDependent.newConcurrentHashMap();
+    private final ChannelFutureListener untrackListener = new ChannelFutureListener() {
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            untrack(future.channel());
+        }
+    };
+    private final Runnable balanceTask = new Runnable() {
+        @Override
+        public void run() {
+            balance();
+        }
+    };
+
+    private final EventLoopGroup group;
+    private final long intervalNanos;
+    private final double imbalanceRatio;
+    private final long minLoad;
+    private ScheduledFuture<?> balanceFuture;
+
+    /**
+     * Creates a new instance which balances every {@code interval} and moves {@link Channel}s once the busiest
+     * {@link EventLoop} processes at least twice as many messages as the least busy one.
+     */
+    public EventLoopBalancer(EventLoopGroup group, long interval, TimeUnit unit) {
+        this(group, interval, unit, 0.5, 1024);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param group the {@link EventLoopGroup} whose {@link EventLoop}s are balanced
+     * @param interval the interval between two balancing passes
+     * @param unit the {@link TimeUnit} of {@code interval}
+     * @param imbalanceRatio how much the load of the busiest {@link EventLoop} must exceed the load of the least busy
+     *                       one, relative to the load of the busiest, before a {@link Channel} is moved
+     * @param minLoad the minimal load of the busiest {@link EventLoop} within one interval before any {@link Channel}
+     *                is moved
+     */
+    public EventLoopBalancer(EventLoopGroup group, long interval, TimeUnit unit, double imbalanceRatio, long minLoad) {
+        this.group = ObjectUtil.checkNotNull(group, "group");
+        ObjectUtil.checkNotNull(unit, "unit");
+        intervalNanos = unit.toNanos(ObjectUtil.checkPositive(interval, "interval"));
+        if (imbalanceRatio <= 0 || imbalanceRatio >= 1) {
+            throw new IllegalArgumentException("imbalanceRatio: " + imbalanceRatio + " (expected: 0 < ratio < 1)");
+        }
+        this.imbalanceRatio = imbalanceRatio;
+        this.minLoad = ObjectUtil.checkPositiveOrZero(minLoad, "minLoad");
+    }
+
+    /**
+     * Includes the given {@link Channel} in balancing. The {@link Channel} is removed automatically once it is closed.
+     */
+    public void track(Channel channel) {
+        ChannelLoad load = new ChannelLoad();
+        if (channels.putIfAbsent(channel, load) == null) {
+            channel.pipeline().addFirst(load);
+            channel.closeFuture().addListener(untrackListener);
+        }
+    }
+
+    /**
+     * Excludes the given {@link Channel} from balancing.
+     */
+    public void untrack(Channel channel) {
+        ChannelLoad load = channels.remove(channel);
+        if (load != null && channel.isOpen()) {
+            channel.pipeline().remove(load);
+        }
+    }
+
+    /**
+     * Starts balancing periodically.
+     */
+    public synchronized void start() {
+        if (balanceFuture == null) {
+            balanceFuture = group.next().scheduleAtFixedRate(
+                    balanceTask, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Stops balancing. {@link Channel}s that are currently moved complete their migration.
+     */
+    public synchronized void stop() {
+        if (balanceFuture != null) {
+            balanceFuture.cancel(false);
+            balanceFuture = null;
+        }
+    }
+
+    /**
+     * Runs one balancing pass and returns the {@link ChannelFuture} of the migration it started, or {@code null} if
+     * the load is balanced already.
+     */
+    public synchronized ChannelFuture balance() {
+        Map<EventLoop, long[]> loads = new IdentityHashMap<EventLoop, long[]>();
+        for (EventExecutor executor: group) {
+            if (executor instanceof EventLoop && !executor.isShuttingDown()) {
+                loads.put((EventLoop) executor, new long[] { pendingTasks(executor) });
+            }
+        }
+        if (loads.size() < 2) {
+            return null;
+        }
+
+        for (Map.Entry<Channel, ChannelLoad> entry: channels.entrySet()) {
+            Channel channel = entry.getKey();
+            long[] load = channel.isRegistered() ? loads.get(channel.eventLoop()) : null;
+            long delta = entry.getValue().sample();
+            if (load != null) {
+                load[0] += delta;
+            }
+        }
+
+        EventLoop busiest = null;
+        EventLoop idlest = null;
+        long maxLoad = -1;
+        long minLoad = Long.MAX_VALUE;
+        for (Map.Entry<EventLoop, long[]> entry: loads.entrySet()) {
+            long load = entry.getValue()[0];
+            if (load > maxLoad) {
+                maxLoad = load;
+                busiest = entry.getKey();
+            }
+            if (load < minLoad) {
+                minLoad = load;
+                idlest = entry.getKey();
+            }
+        }
+        long imbalance = maxLoad - minLoad;
+        if (busiest == idlest || maxLoad < this.minLoad || imbalance < maxLoad * imbalanceRatio) {
+            return null;
+        }
+
+        // Pick the hottest Channel whose move still reduces the imbalance between both EventLoops.
+        Channel hottest = null;
+        long hottestLoad = 0;
+        for (Map.Entry<Channel, ChannelLoad> entry: channels.entrySet()) {
+            Channel channel = entry.getKey();
+            long load = entry.getValue().lastSample;
+            if (load > hottestLoad && load < imbalance && channel.isRegistered() && channel.eventLoop() == busiest) {
+                hottest = channel;
+                hottestLoad = load;
+            }
+        }
+        if (hottest == null) {
+            return null;
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Moving {} ({} messages) from {} ({}) to {} ({})",
+                    hottest, hottestLoad, busiest, maxLoad, idlest, minLoad);
+        }
+        return migrate(hottest, idlest);
+    }
+
+    private static long pendingTasks(EventExecutor executor) {
+        return executor instanceof SingleThreadEventLoop ? ((SingleThreadEventLoop) executor).pendingTasks() : 0;
+    }
+
+    /**
+     * Counts the messages a tracked {@link Channel} reads and writes.
+     */
+    private static final class ChannelLoad extends ChannelDuplexHandler {
+        private final LongCounter messages = PlatformDependent.newLongCounter();
+        // Guarded by the EventLoopBalancer.
+        private long lastTotal;
+        private long lastSample;
+
+        long sample() {
+            long total = messages.value();
+            long sample = total - lastTotal;
+            lastTotal = total;
+            lastSample = sample;
+            return sample;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            messages.increment();
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+            messages.increment();
+            ctx.write(msg, promise);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how far the {@link EventLoop}s of an {@link EventLoopGroup} lag behind by periodically scheduling a probe
+ * task on each of them and recording how late it runs. A busy {@link EventLoop} runs its scheduled tasks late, so the
+ * lag is a measure of how long it takes until new work is picked up.
+ */
+@UnstableApi
+public final class EventLoopLagMonitor {
+
+    private final EventLoopGroup group;
+    private final long intervalNanos;
+    private final List<Probe> probes = new ArrayList<Probe>();
+
+    /**
+     * Creates a new instance which probes each {@link EventLoop} of the given {@link EventLoopGroup} once per
+     * {@code interval}, once {@link #start()} was called.
+     */
+    public EventLoopLagMonitor(EventLoopGroup group, long interval, TimeUnit unit) {
+        this.group = ObjectUtil.checkNotNull(group, "group");
+        intervalNanos = ObjectUtil.checkPositive(ObjectUtil.checkNotNull(unit, "unit").toNanos(interval), "interval");
+    }
+
+    /**
+     * Starts probing the {@link EventLoop}s.
+     */
+    public synchronized EventLoopLagMonitor start() {
+        if (probes.isEmpty()) {
+            for (EventExecutor executor: group) {
+                Probe probe = new Probe(executor);
+                probes.add(probe);
+                probe.schedule();
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Stops probing the {@link EventLoop}s.
+     */
+    public synchronized void stop() {
+        for (Probe probe: probes) {
+            probe.cancel();
+        }
+        probes.clear();
+    }
+
+    /**
+     * Returns the highest lag of all {@link EventLoop}s in nanoseconds. A probe which is overdue counts with the
+     * time it is overdue already, so an {@link EventLoop} which is blocked is noticed before the probe runs.
+     */
+    public long lagNanos() {
+        long now = System.nanoTime();
+        long lag = 0;
+        synchronized (this) {
+            for (Probe probe: probes) {
+                lag = Math.max(lag, probe.lagNanos(now));
+            }
+        }
+        return lag;
+    }
+
+    private final class Probe implements Runnable {
+        private final EventExecutor executor;
+        private volatile long deadlineNanos;
+        private volatile long lagNanos;
+        private volatile boolean cancelled;
+        private volatile ScheduledFuture<?> future;
+
+        Probe(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void schedule() {
+            if (cancelled) {
+                return;
+            }
+            deadlineNanos = System.nanoTime() + intervalNanos;
+            try {
+                future = executor.schedule(this, intervalNanos, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                // The EventLoop was shut down.
+                cancelled = true;
+            }
+        }
+
+        void cancel() {
+            cancelled = true;
+            ScheduledFuture<?> future = this.future;
+            if (future != null) {
+                future.cancel(false);
+            }
+        }
+
+        long lagNanos(long now) {
+            if (cancelled) {
+                return 0;
+            }
+            return Math.max(lagNanos, now - deadlineNanos);
+        }
+
+        @Override
+        public void run() {
+            lagNanos = Math.max(0, System.nanoTime() - deadlineNanos);
+            schedule();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.MathUtil;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * The {@link RecvByteBufAllocator} which sizes buffers by exponentially weighted moving averages instead of stepping
+ * through a table like {@link AdaptiveRecvByteBufAllocator}. The first read of a read loop is sized by the average of
+ * the first reads, so a flow of small messages gets small buffers even if a large message arrives now and then. Once
+ * a read fills its buffer, the next one is sized by the average of the bytes read until
+ * {@link Handle#readComplete()}, so a large message needs only a few reads. The averages move fast towards larger
+ * values and slowly towards smaller ones. Transports which can cheaply tell how many bytes are readable do so after
+ * a full read via {@link #readableBytes(Handle, int)}, which then sizes the next read instead of the averages.
+ * <p>
+ * New {@link Handle}s start with the averages of the {@link Handle}s created before by the same instance, so share
+ * one instance between {@link Channel}s which receive similar traffic, for example by setting it as
+ * {@link ChannelOption#RCVBUF_ALLOCATOR} child option of a server.
+ */
+@UnstableApi
+public class EwmaRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufAllocator {
+
+    static final int DEFAULT_MINIMUM = 64;
+    static final int DEFAULT_INITIAL = 1024;
+    static final int DEFAULT_MAXIMUM = 65536;
+
+    // An average moves by 1/2 of the difference to a larger sample and by 1/8 to a smaller one.
+    private static final int INCREASE_SHIFT = 1;
+    private static final int DECREASE_SHIFT = 3;
+
+    private final int minimum;
+    private final int initial;
+    private final int maximum;
+
+    // Updated by all Handles without synchronization, as a lost update only delays the warm-up of new Handles.
+    private volatile int sharedFirstReadEstimate;
+    private volatile int sharedReadLoopEstimate;
+
+    /**
+     * Creates a new instance with the default parameters. With the default parameters, the expected buffer size
+     * starts from {@code 1024}, does not go down below {@code 64}, and does not go up above {@code 65536}.
+     */
+    public EwmaRecvByteBufAllocator() {
+        this(DEFAULT_MINIMUM, DEFAULT_INITIAL, DEFAULT_MAXIMUM);
+    }
+
+    /**
+     * Creates a new instance with the specified parameters.
+     *
+     * @param minimum the inclusive lower bound of the expected buffer size
+     * @param initial the initial buffer size when no feed back was received
+     * @param maximum the inclusive upper bound of the expected buffer size
+     */
+    public EwmaRecvByteBufAllocator(int minimum, int initial, int maximum) {
+        checkPositive(minimum, "minimum");
+        if (initial < minimum) {
+            throw new IllegalArgumentException("initial: " + initial);
+        }
+        if (maximum < initial) {
+            throw new IllegalArgumentException("maximum: " + maximum);
+        }
+        this.minimum = minimum;
+        this.initial = initial;
+        this.maximum = maximum;
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Handle newHandle() {
+        return new HandleImpl(sharedFirstReadEstimate, sharedReadLoopEstimate);
+    }
+
+    @Override
+    public EwmaRecvByteBufAllocator respectMaybeMoreData(boolean respectMaybeMoreData) {
+        super.respectMaybeMoreData(respectMaybeMoreData);
+        return this;
+    }
+
+    /**
+     * Returns {@code true} if the {@link Handle} is one of a {@link EwmaRecvByteBufAllocator} whose last read filled
+     * its buffer, so the transport should pass the number of readable bytes to {@link #readableBytes(Handle, int)}
+     * before it allocates the next buffer.
+     */
+    @SuppressWarnings("deprecation")
+    public static boolean needsReadableBytes(Handle handle) {
+        handle = unwrap(handle);
+        return handle instanceof HandleImpl && ((HandleImpl) handle).lastReadFull;
+    }
+
+    /**
+     * Sizes the next buffer of the {@link Handle} by the number of bytes which are readable from the socket, if it is
+     * one of a {@link EwmaRecvByteBufAllocator}.
+     */
+    @SuppressWarnings("deprecation")
+    public static void readableBytes(Handle handle, int bytes) {
+        handle = unwrap(handle);
+        if (handle instanceof HandleImpl) {
+            ((HandleImpl) handle).readableBytes(bytes);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Handle unwrap(Handle handle) {
+        while (handle instanceof DelegatingHandle) {
+            handle = ((DelegatingHandle) handle).delegate();
+        }
+        return handle;
+    }
+
+    static int average(int average, int sample) {
+        if (average == 0) {
+            return sample;
+        }
+        if (sample > average) {
+            return average + (sample - average >>> INCREASE_SHIFT);
+        }
+        return average - (average - sample >>> DECREASE_SHIFT);
+    }
+
+    /**
+     * Returns the buffer size for the given number of bytes, which is rounded up to a multiple of {@code 16} for small
+     * and to a power of two for large sizes, the size classes of the pooled allocator.
+     */
+    int bufferSize(int bytes) {
+        int size = min(max(bytes, minimum), maximum);
+        if (size <= 512) {
+            size = size + 15 & ~15;
+        } else if (size < 1 << 30) {
+            size = MathUtil.findNextPositivePowerOfTwo(size);
+        }
+        return min(size, maximum);
+    }
+
+    private final class HandleImpl extends MaxMessageHandle {
+        private int firstReadEstimate;
+        private int readLoopEstimate;
+        private int nextReceiveBufferSize;
+        private boolean lastReadFull;
+
+        HandleImpl(int firstReadEstimate, int readLoopEstimate) {
+            this.firstReadEstimate = firstReadEstimate;
+            this.readLoopEstimate = readLoopEstimate;
+            nextReceiveBufferSize = bufferSize(firstReadEstimate == 0 ? initial : firstReadEstimate);
+        }
+
+        @Override
+        public void reset(ChannelConfig config) {
+            super.reset(config);
+            lastReadFull = false;
+            if (firstReadEstimate != 0) {
+                nextReceiveBufferSize = bufferSize(firstReadEstimate);
+            }
+        }
+
+        @Override
+        public void lastBytesRead(int bytes) {
+            super.lastBytesRead(bytes);
+            lastReadFull = false;
+            if (bytes <= 0) {
+                return;
+            }
+            boolean full = bytes == attemptedBytesRead();
+            lastReadFull = full;
+            if (bytes == totalBytesRead()) {
+                // The first read of the loop, which is all there is for a flow of small messages. If it was full the
+                // message was larger than the buffer, so expect one twice as large.
+                firstReadEstimate = average(firstReadEstimate, full ? twice(bytes) : bytes);
+            }
+            if (full) {
+                // More is pending, so expect what usually is left but at least twice as much.
+                nextReceiveBufferSize = bufferSize(max(twice(bytes), readLoopEstimate - totalBytesRead()));
+            } else {
+                nextReceiveBufferSize = bufferSize(firstReadEstimate);
+            }
+        }
+
+        void readableBytes(int bytes) {
+            if (bytes > 0) {
+                nextReceiveBufferSize = bufferSize(bytes);
+            }
+        }
+
+        private int twice(int bytes) {
+            return bytes > maximum >>> 1 ? maximum : bytes << 1;
+        }
+
+        @Override
+        public int guess() {
+            return nextReceiveBufferSize;
+        }
+
+        @Override
+        public void readComplete() {
+            int totalBytesRead = totalBytesRead();
+            if (totalBytesRead > 0) {
+                readLoopEstimate = average(readLoopEstimate, totalBytesRead);
+                sharedFirstReadEstimate = average(sharedFirstReadEstimate, firstReadEstimate);
+                sharedReadLoopEstimate = average(sharedReadLoopEstimate, readLoopEstimate);
+            }
+        }
+    }
+}
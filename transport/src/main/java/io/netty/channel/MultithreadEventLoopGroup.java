@@ -17,14 +17,17 @@ package io.netty.channel;
 
 import io.netty.util.NettyRuntime;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
 import io.netty.util.concurrent.MultithreadEventExecutorGroup;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract base class for {@link EventLoopGroup} implementations that handles their tasks with multiple threads at
@@ -78,6 +81,35 @@ public abstract class MultithreadEventLoopGroup extends MultithreadEventExecutor
         return (EventLoop) super.next();
     }
 
+    /**
+     * Sets the {@link WriteBufferBudget} which is shared by all child event loops, or {@code null} to not limit the
+     * pending outbound bytes of their {@link Channel}s.
+     *
+     * @see SingleThreadEventLoop#setWriteBufferBudget(WriteBufferBudget)
+     */
+    @UnstableApi
+    public void setWriteBufferBudget(WriteBufferBudget writeBufferBudget) {
+        for (EventExecutor e: this) {
+            if (e instanceof SingleThreadEventLoop) {
+                ((SingleThreadEventLoop) e).setWriteBufferBudget(writeBufferBudget);
+            }
+        }
+    }
+
+    /**
+     * Sets how long {@link Channel#flush()} may be deferred by the child event loops.
+     *
+     * @see SingleThreadEventLoop#setMaxFlushDelay(long, TimeUnit)
+     */
+    @UnstableApi
+    public void setMaxFlushDelay(long maxFlushDelay, TimeUnit unit) {
+        for (EventExecutor e: this) {
+            if (e instanceof SingleThreadEventLoop) {
+                ((SingleThreadEventLoop) e).setMaxFlushDelay(maxFlushDelay, unit);
+            }
+        }
+    }
+
     @Override
     protected abstract EventLoop newChild(Executor executor, Object... args) throws Exception;
 
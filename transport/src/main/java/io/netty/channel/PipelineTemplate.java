@@ -0,0 +1,236 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A fixed list of named {@link ChannelHandler}s which is added to many {@link ChannelPipeline}s, usually those of the
+ * accepted {@link Channel}s via {@link io.netty.bootstrap.ServerBootstrap#childTemplate(PipelineTemplate)}.
+ * <p>
+ * The names, the events each handler is interested in and whether a handler needs
+ * {@link ChannelHandler#handlerAdded(ChannelHandlerContext)} to be called are computed once, so adding the handlers
+ * to an empty {@link ChannelPipeline} skips the validation and lookups {@link ChannelPipeline#addLast(String,
+ * ChannelHandler)} does per handler. {@link ChannelHandler.Sharable} handlers are shared by all
+ * {@link ChannelPipeline}s, all other handlers are created per {@link Channel} by a {@link HandlerFactory}.
+ * <p>
+ * If the {@link ChannelPipeline} already contains handlers the template falls back to
+ * {@link ChannelPipeline#addLast(String, ChannelHandler)}.
+ */
+@UnstableApi
+public final class PipelineTemplate {
+
+    /**
+     * Creates the {@link ChannelHandler} for a single {@link Channel}.
+     */
+    public interface HandlerFactory {
+        /**
+         * Returns a new {@link ChannelHandler} which will be added to the {@link ChannelPipeline} of the given
+         * {@link Channel}.
+         */
+        ChannelHandler newHandler(Channel channel);
+    }
+
+    /**
+     * Returns a new {@link Builder} for a {@link PipelineTemplate}.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final Entry[] entries;
+
+    private PipelineTemplate(Entry[] entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Adds the handlers of this template to the end of the given {@link ChannelPipeline}.
+     */
+    public void apply(ChannelPipeline pipeline) {
+        ObjectUtil.checkNotNull(pipeline, "pipeline");
+        if (pipeline instanceof DefaultChannelPipeline) {
+            ((DefaultChannelPipeline) pipeline).addLast(this);
+        } else {
+            addLastOneByOne(pipeline);
+        }
+    }
+
+    void addLastOneByOne(ChannelPipeline pipeline) {
+        Channel channel = pipeline.channel();
+        for (Entry entry: entries) {
+            pipeline.addLast(entry.name, entry.newHandler(channel));
+        }
+    }
+
+    /**
+     * Returns the names of the handlers in the order they are added.
+     */
+    public List<String> names() {
+        List<String> names = new ArrayList<String>(entries.length);
+        for (Entry entry: entries) {
+            names.add(entry.name);
+        }
+        return names;
+    }
+
+    Entry[] entries() {
+        return entries;
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + names();
+    }
+
+    /**
+     * Builds a {@link PipelineTemplate}.
+     */
+    public static final class Builder {
+        private final List<Entry> entries = new ArrayList<Entry>();
+        private final Set<String> names = new HashSet<String>();
+
+        private Builder() { }
+
+        /**
+         * Appends a {@link ChannelHandler.Sharable} handler which is shared by all {@link ChannelPipeline}s. If the
+         * {@code name} is {@code null} a name is generated.
+         */
+        public Builder addLast(String name, ChannelHandler handler) {
+            ObjectUtil.checkNotNull(handler, "handler");
+            if (!isSharable(handler)) {
+                throw new IllegalArgumentException(handler.getClass().getName() +
+                        " is not a @Sharable handler, use addLast(String, HandlerFactory) instead.");
+            }
+            if (name == null) {
+                name = generateName(handler.getClass());
+            }
+            addEntry(new Entry(name, handler, null));
+            return this;
+        }
+
+        /**
+         * Appends a handler which is created per {@link Channel} by the given {@link HandlerFactory}.
+         */
+        public Builder addLast(String name, HandlerFactory factory) {
+            addEntry(new Entry(ObjectUtil.checkNotNull(name, "name"),
+                    null, ObjectUtil.checkNotNull(factory, "factory")));
+            return this;
+        }
+
+        /**
+         * Returns a new {@link PipelineTemplate} with the handlers that were added so far.
+         */
+        public PipelineTemplate build() {
+            if (entries.isEmpty()) {
+                throw new IllegalStateException("no handlers added");
+            }
+            return new PipelineTemplate(entries.toArray(new Entry[0]));
+        }
+
+        private void addEntry(Entry entry) {
+            if (!names.add(entry.name)) {
+                throw new IllegalArgumentException("Duplicate handler name: " + entry.name);
+            }
+            entries.add(entry);
+        }
+
+        private String generateName(Class<?> handlerType) {
+            String prefix = StringUtil.simpleClassName(handlerType) + '#';
+            for (int i = 0;; i++) {
+                String name = prefix + i;
+                if (!names.contains(name)) {
+                    return name;
+                }
+            }
+        }
+
+        private static boolean isSharable(ChannelHandler handler) {
+            return handler instanceof ChannelHandlerAdapter ? ((ChannelHandlerAdapter) handler).isSharable() :
+                    handler.getClass().isAnnotationPresent(ChannelHandler.Sharable.class);
+        }
+    }
+
+    static final class Entry {
+        final String name;
+        private final ChannelHandler handler;
+        private final HandlerFactory factory;
+        // Describes the type of the handlers the last time they were created by the factory.
+        private volatile HandlerType type;
+
+        Entry(String name, ChannelHandler handler, HandlerFactory factory) {
+            this.name = name;
+            this.handler = handler;
+            this.factory = factory;
+            if (handler != null) {
+                type = new HandlerType(handler.getClass());
+            }
+        }
+
+        ChannelHandler newHandler(Channel channel) {
+            if (handler != null) {
+                return handler;
+            }
+            ChannelHandler handler = factory.newHandler(channel);
+            if (handler == null) {
+                throw new NullPointerException(factory.getClass().getName() + ".newHandler(...) returned null");
+            }
+            return handler;
+        }
+
+        HandlerType type(ChannelHandler handler) {
+            HandlerType type = this.type;
+            if (type == null || type.handlerClass != handler.getClass()) {
+                this.type = type = new HandlerType(handler.getClass());
+            }
+            return type;
+        }
+    }
+
+    static final class HandlerType {
+        final Class<? extends ChannelHandler> handlerClass;
+        final int executionMask;
+        final boolean needsHandlerAdded;
+
+        HandlerType(Class<? extends ChannelHandler> handlerClass) {
+            this.handlerClass = handlerClass;
+            executionMask = ChannelHandlerMask.mask(handlerClass);
+            needsHandlerAdded = needsHandlerAdded(handlerClass);
+        }
+
+        private static boolean needsHandlerAdded(Class<? extends ChannelHandler> handlerClass) {
+            try {
+                // ChannelHandlerAdapter.handlerAdded(...) does nothing.
+                return handlerClass.getMethod("handlerAdded", ChannelHandlerContext.class).getDeclaringClass() !=
+                        ChannelHandlerAdapter.class;
+            } catch (NoSuchMethodException e) {
+                // Should never reach here.
+                PlatformDependent.throwException(e);
+                return true;
+            } catch (SecurityException e) {
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.UnstableApi;
+
+import static io.netty.util.internal.ObjectUtil.checkPositive;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * The {@link RecvByteBufAllocator} which lets all {@link Channel}s of a thread read into a single scratch buffer
+ * instead of a buffer per {@link Channel} whose size is guessed up front. The bytes which were actually received are
+ * copied into a buffer of the right size if they are no more than {@code copyThreshold}, otherwise a slice of the
+ * scratch buffer is passed on and the next read uses the space after it.
+ * <p>
+ * This saves memory if there are many {@link Channel}s which receive small messages, as no buffer is kept larger than
+ * the data it holds, while bulk transfers still read large chunks without copying. A slice which is retained, for
+ * example by a decoder which waits for more data, keeps the whole scratch buffer it was sliced from alive.
+ */
+@UnstableApi
+public class ScratchRecvByteBufAllocator extends DefaultMaxMessagesRecvByteBufAllocator {
+
+    static final int DEFAULT_CHUNK_SIZE = 65536;
+    static final int DEFAULT_COPY_THRESHOLD = 4096;
+
+    private final int chunkSize;
+    private final int copyThreshold;
+    private final FastThreadLocal<Scratch> scratch = new FastThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+
+        @Override
+        protected void onRemoval(Scratch scratch) {
+            scratch.release();
+        }
+    };
+
+    /**
+     * Creates a new instance with a scratch buffer of {@code 65536} bytes which copies reads of up to {@code 4096}
+     * bytes.
+     */
+    public ScratchRecvByteBufAllocator() {
+        this(DEFAULT_CHUNK_SIZE, DEFAULT_COPY_THRESHOLD);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param chunkSize     the size of the scratch buffer
+     * @param copyThreshold the number of bytes up to which a read is copied instead of sliced
+     */
+    public ScratchRecvByteBufAllocator(int chunkSize, int copyThreshold) {
+        this.chunkSize = checkPositive(chunkSize, "chunkSize");
+        this.copyThreshold = checkPositiveOrZero(copyThreshold, "copyThreshold");
+        if (copyThreshold >= chunkSize) {
+            throw new IllegalArgumentException(
+                    "copyThreshold: " + copyThreshold + " (expected: < chunkSize(" + chunkSize + "))");
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    @Override
+    public Handle newHandle() {
+        return new HandleImpl();
+    }
+
+    @Override
+    public ScratchRecvByteBufAllocator respectMaybeMoreData(boolean respectMaybeMoreData) {
+        super.respectMaybeMoreData(respectMaybeMoreData);
+        return this;
+    }
+
+    /**
+     * Must be called by the transport with the buffer that was returned by {@link Handle#allocate(ByteBufAllocator)}
+     * once bytes were read into it. Returns the buffer which should be passed on, which is the given buffer itself if
+     * the {@link Handle} is not one of a {@link ScratchRecvByteBufAllocator}.
+     */
+    @SuppressWarnings("deprecation")
+    public static ByteBuf received(Handle handle, ByteBuf buf) {
+        while (handle instanceof DelegatingHandle) {
+            handle = ((DelegatingHandle) handle).delegate();
+        }
+        return handle instanceof HandleImpl ? ((HandleImpl) handle).received(buf) : buf;
+    }
+
+    private static final class Scratch {
+        ByteBuf chunk;
+        // The bytes of the chunk before this offset were passed on as slices.
+        int offset;
+
+        void release() {
+            if (chunk != null) {
+                chunk.release();
+                chunk = null;
+            }
+        }
+    }
+
+    private final class HandleImpl extends MaxMessageHandle {
+        private ByteBufAllocator alloc;
+        private Scratch lastScratch;
+        private ByteBuf lastBuf;
+
+        @Override
+        public ByteBuf allocate(ByteBufAllocator alloc) {
+            Scratch scratch = ScratchRecvByteBufAllocator.this.scratch.get();
+            ByteBuf chunk = scratch.chunk;
+            if (chunk == null || chunk.capacity() - scratch.offset < chunkSize >>> 3) {
+                scratch.release();
+                scratch.chunk = chunk = alloc.ioBuffer(chunkSize);
+                scratch.offset = 0;
+            }
+            ByteBuf buf = chunk.retainedSlice(scratch.offset, chunk.capacity() - scratch.offset).clear();
+            this.alloc = alloc;
+            lastScratch = scratch;
+            lastBuf = buf;
+            return buf;
+        }
+
+        ByteBuf received(ByteBuf buf) {
+            if (buf != lastBuf) {
+                return buf;
+            }
+            Scratch scratch = lastScratch;
+            lastScratch = null;
+            lastBuf = null;
+
+            int readable = buf.readableBytes();
+            ByteBuf received;
+            if (readable <= copyThreshold) {
+                received = alloc.ioBuffer(readable);
+                received.writeBytes(buf, buf.readerIndex(), readable);
+            } else {
+                received = buf.retainedSlice();
+                scratch.offset += readable;
+            }
+            buf.release();
+            return received;
+        }
+
+        @Override
+        public int guess() {
+            return chunkSize;
+        }
+    }
+}
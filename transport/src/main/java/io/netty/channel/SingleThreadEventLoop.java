@@ -21,10 +21,15 @@ import io.netty.util.concurrent.SingleThreadEventExecutor;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Abstract base class for {@link EventLoop}s that execute all its submitted tasks in a single thread.
@@ -35,7 +40,27 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
     protected static final int DEFAULT_MAX_PENDING_TASKS = Math.max(16,
             SystemPropertyUtil.getInt("io.netty.eventLoop.maxPendingTasks", Integer.MAX_VALUE));
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SingleThreadEventLoop.class);
+
+    private static final long DEFAULT_MAX_FLUSH_DELAY_NANOS = TimeUnit.MICROSECONDS.toNanos(Math.max(0,
+            SystemPropertyUtil.getLong("io.netty.eventLoop.maxFlushDelayMicros", 0)));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventLoop.maxFlushDelayMicros: {}",
+                    TimeUnit.NANOSECONDS.toMicros(DEFAULT_MAX_FLUSH_DELAY_NANOS));
+        }
+    }
+
     private final Queue<Runnable> tailTasks;
+    private volatile WriteBufferBudget writeBufferBudget;
+    private volatile long maxFlushDelayNanos = DEFAULT_MAX_FLUSH_DELAY_NANOS;
+
+    // Only accessed by the EventLoop thread.
+    private final List<AbstractChannel.AbstractUnsafe> deferredFlushes =
+            new ArrayList<AbstractChannel.AbstractUnsafe>();
+    private long firstDeferredFlushNanos;
+    private boolean inDeferredFlush;
 
     protected SingleThreadEventLoop(EventLoopGroup parent, ThreadFactory threadFactory, boolean addTaskWakesUp) {
         this(parent, threadFactory, addTaskWakesUp, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject());
@@ -143,6 +168,7 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
     @Override
     protected void afterRunningAllTasks() {
         runAllTasksFrom(tailTasks);
+        flushDeferred();
     }
 
     @Override
@@ -165,6 +191,98 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         return -1;
     }
 
+    /**
+     * Sets the {@link WriteBufferBudget} which limits the pending outbound bytes of the {@link Channel}s of this
+     * {@link EventLoop}, or {@code null} to not limit them. It applies to {@link Channel}s that write for the first
+     * time after it was set.
+     */
+    @UnstableApi
+    public void setWriteBufferBudget(WriteBufferBudget writeBufferBudget) {
+        this.writeBufferBudget = writeBufferBudget;
+    }
+
+    /**
+     * Returns the {@link WriteBufferBudget} of this {@link EventLoop} or {@code null} if none is set.
+     */
+    @UnstableApi
+    public WriteBufferBudget writeBufferBudget() {
+        return writeBufferBudget;
+    }
+
+    /**
+     * Sets how long {@link Channel#flush()} may be deferred when it is called by this {@link EventLoop}. If greater
+     * than {@code 0} a flush only marks the {@link Channel} and all marked {@link Channel}s are flushed together at
+     * the end of the current iteration of the {@link EventLoop}, so many writes from tasks or timers share a single
+     * flush per {@link Channel}. Once the oldest deferred flush is older than {@code maxFlushDelay} the next flush
+     * flushes all marked {@link Channel}s right away. {@code 0} (the default) flushes immediately.
+     */
+    @UnstableApi
+    public void setMaxFlushDelay(long maxFlushDelay, TimeUnit unit) {
+        ObjectUtil.checkPositiveOrZero(maxFlushDelay, "maxFlushDelay");
+        ObjectUtil.checkNotNull(unit, "unit");
+        maxFlushDelayNanos = unit.toNanos(maxFlushDelay);
+    }
+
+    /**
+     * Returns how long {@link Channel#flush()} may be deferred in nanoseconds, {@code 0} if it is not deferred.
+     *
+     * @see #setMaxFlushDelay(long, TimeUnit)
+     */
+    @UnstableApi
+    public long maxFlushDelayNanos() {
+        return maxFlushDelayNanos;
+    }
+
+    /**
+     * Returns {@code true} if the flush of the given {@link Channel.Unsafe} is deferred to the end of the current
+     * iteration, {@code false} if the caller needs to flush now.
+     */
+    final boolean deferFlush(AbstractChannel.AbstractUnsafe unsafe) {
+        long maxFlushDelayNanos = this.maxFlushDelayNanos;
+        if (maxFlushDelayNanos == 0 || !inEventLoop()) {
+            return false;
+        }
+        if (!inDeferredFlush) {
+            if (deferredFlushes.isEmpty()) {
+                firstDeferredFlushNanos = System.nanoTime();
+            } else if (System.nanoTime() - firstDeferredFlushNanos >= maxFlushDelayNanos) {
+                flushDeferred();
+                return false;
+            }
+        }
+        if (!unsafe.flushDeferred) {
+            unsafe.flushDeferred = true;
+            deferredFlushes.add(unsafe);
+        }
+        return true;
+    }
+
+    /**
+     * Flushes all {@link Channel}s whose flush was deferred, called at the end of each iteration.
+     */
+    final void flushDeferred() {
+        List<AbstractChannel.AbstractUnsafe> deferredFlushes = this.deferredFlushes;
+        if (inDeferredFlush || deferredFlushes.isEmpty()) {
+            return;
+        }
+        inDeferredFlush = true;
+        int i = 0;
+        try {
+            // Flushing a Channel may cause more flushes, for example of a LocalChannel's peer or of the Channel
+            // itself while it is still in flush0(). These are appended and flushed by this loop as well.
+            for (; i < deferredFlushes.size(); i++) {
+                deferredFlushes.get(i).flushDeferred(this);
+            }
+        } finally {
+            // Make sure none of the Channels is left marked if a flush failed unexpectedly.
+            for (; i < deferredFlushes.size(); i++) {
+                deferredFlushes.get(i).flushDeferred = false;
+            }
+            deferredFlushes.clear();
+            inDeferredFlush = false;
+        }
+    }
+
     /**
      * Marker interface for {@link Runnable} that will not trigger an {@link #wakeup(boolean)} in all cases.
      */
@@ -68,6 +68,7 @@ public class ThreadPerChannelEventLoop extends SingleThreadEventLoop {
             if (task != null) {
                 task.run();
                 updateLastExecutionTime();
+                flushDeferred();
             }
 
             Channel ch = this.ch;
@@ -0,0 +1,261 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the bytes that are pending in the {@link ChannelOutboundBuffer}s of all {@link Channel}s of one or more
+ * {@link EventLoop}s, in addition to the {@link WriteBufferWaterMark} of each {@link Channel}. It is set via
+ * {@link SingleThreadEventLoop#setWriteBufferBudget(WriteBufferBudget)} or
+ * {@link MultithreadEventLoopGroup#setWriteBufferBudget(WriteBufferBudget)}.
+ * <p>
+ * Once the pending bytes exceed the high limit, {@link Channel}s chosen by the {@link Policy} are made
+ * {@linkplain Channel#isWritable() unwritable} until enough of them are throttled to bring the pending bytes below the
+ * low limit. They become writable again once the pending bytes of all {@link Channel}s dropped below the low limit,
+ * or once their own {@link ChannelOutboundBuffer} is empty.
+ * <p>
+ * The {@link Channel}s are chosen by a task on the {@link EventLoop} of the {@link Channel} which exceeded the high
+ * limit, so the write which exceeded it does not have to wait for the choice.
+ */
+@UnstableApi
+public final class WriteBufferBudget {
+
+    /**
+     * Decides which {@link Channel}s are made unwritable first once the budget is exceeded.
+     */
+    public enum Policy {
+        /**
+         * The {@link Channel}s with the most pending bytes.
+         */
+        LARGEST,
+        /**
+         * The {@link Channel}s whose pending bytes have not been written for the longest time.
+         */
+        OLDEST
+    }
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(WriteBufferBudget.class);
+
+    private static final long MIN_SCAN_INTERVAL_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // The comparators only look at the values which were captured before sorting, as the buffers are changed by
+    // other threads while sorting.
+    private static final Comparator<Candidate> LARGEST_FIRST = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate o1, Candidate o2) {
+            return o1.size > o2.size ? -1 : o1.size < o2.size ? 1 : 0;
+        }
+    };
+
+    private static final Comparator<Candidate> OLDEST_FIRST = new Comparator<Candidate>() {
+        @Override
+        public int compare(Candidate o1, Candidate o2) {
+            long diff = o1.pendingSinceNanos - o2.pendingSinceNanos;
+            return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+        }
+    };
+
+    private final long lowBytes;
+    private final long highBytes;
+    private final Policy policy;
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final Map<ChannelOutboundBuffer, Boolean> pending = PlatformDependent.newConcurrentHashMap();
+    private final Map<ChannelOutboundBuffer, Boolean> throttled = PlatformDependent.newConcurrentHashMap();
+    private final AtomicBoolean scanning = new AtomicBoolean();
+    private final Runnable scanTask = new Runnable() {
+        @Override
+        public void run() {
+            try {
+                throttle();
+            } finally {
+                scanning.set(false);
+            }
+        }
+    };
+    private volatile long lastScanNanos;
+
+    /**
+     * Creates a new instance which throttles {@link Channel}s once more than {@code maxBytes} are pending and
+     * releases them once less than half of it are pending.
+     */
+    public WriteBufferBudget(long maxBytes, Policy policy) {
+        this(maxBytes >>> 1, maxBytes, policy);
+    }
+
+    /**
+     * Creates a new instance which throttles {@link Channel}s once more than {@code highBytes} are pending and
+     * releases them once less than {@code lowBytes} are pending.
+     */
+    public WriteBufferBudget(long lowBytes, long highBytes, Policy policy) {
+        ObjectUtil.checkPositiveOrZero(lowBytes, "lowBytes");
+        if (highBytes < lowBytes) {
+            throw new IllegalArgumentException(
+                    "highBytes: " + highBytes + " (expected: >= lowBytes(" + lowBytes + "))");
+        }
+        this.lowBytes = lowBytes;
+        this.highBytes = highBytes;
+        this.policy = ObjectUtil.checkNotNull(policy, "policy");
+        lastScanNanos = System.nanoTime() - MIN_SCAN_INTERVAL_NANOS;
+    }
+
+    /**
+     * Returns the number of pending bytes below which throttled {@link Channel}s are released.
+     */
+    public long lowBytes() {
+        return lowBytes;
+    }
+
+    /**
+     * Returns the number of pending bytes above which {@link Channel}s are throttled.
+     */
+    public long highBytes() {
+        return highBytes;
+    }
+
+    /**
+     * Returns the {@link Policy} which decides which {@link Channel}s are throttled first.
+     */
+    public Policy policy() {
+        return policy;
+    }
+
+    /**
+     * Returns the total number of bytes which are pending in the {@link ChannelOutboundBuffer}s.
+     */
+    public long pendingBytes() {
+        return pendingBytes.get();
+    }
+
+    /**
+     * Returns the number of {@link Channel}s which are currently throttled.
+     */
+    public int throttledChannels() {
+        return throttled.size();
+    }
+
+    /**
+     * Returns the number of {@link Channel}s which currently have pending bytes.
+     */
+    public int pendingChannels() {
+        return pending.size();
+    }
+
+    void incremented(ChannelOutboundBuffer buffer, long size, long bufferSize) {
+        if (bufferSize == size) {
+            buffer.pendingSinceNanos = System.nanoTime();
+            pending.put(buffer, Boolean.TRUE);
+        }
+        long pendingBytes = this.pendingBytes.addAndGet(size);
+        if (pendingBytes > highBytes && System.nanoTime() - lastScanNanos >= MIN_SCAN_INTERVAL_NANOS &&
+                scanning.compareAndSet(false, true)) {
+            try {
+                buffer.eventLoop().execute(scanTask);
+            } catch (RejectedExecutionException e) {
+                scanning.set(false);
+                logger.debug("Failed to submit the scan of the pending write buffers.", e);
+            }
+        }
+    }
+
+    void decremented(ChannelOutboundBuffer buffer, long size, long bufferSize) {
+        if (bufferSize == 0) {
+            pending.remove(buffer);
+            if (throttled.remove(buffer) != null) {
+                buffer.releaseBudget();
+            }
+        }
+        long pendingBytes = this.pendingBytes.addAndGet(-size);
+        if (pendingBytes < lowBytes && !throttled.isEmpty()) {
+            releaseAll();
+        }
+    }
+
+    /**
+     * Called once the {@link Channel} of the buffer was closed and its unflushed messages were released.
+     */
+    void closed(ChannelOutboundBuffer buffer, long releasedSize) {
+        pending.remove(buffer);
+        throttled.remove(buffer);
+        long pendingBytes = this.pendingBytes.addAndGet(-releasedSize);
+        if (pendingBytes < lowBytes && !throttled.isEmpty()) {
+            releaseAll();
+        }
+    }
+
+    private void throttle() {
+        long pendingBytes = this.pendingBytes.get();
+        if (pendingBytes <= highBytes) {
+            // Dropped below the limit again since the scan was submitted.
+            return;
+        }
+        lastScanNanos = System.nanoTime();
+        List<Candidate> candidates = new ArrayList<Candidate>(pending.size());
+        for (ChannelOutboundBuffer buffer: pending.keySet()) {
+            if (!throttled.containsKey(buffer)) {
+                candidates.add(new Candidate(buffer));
+            }
+        }
+        Collections.sort(candidates, policy == Policy.LARGEST ? LARGEST_FIRST : OLDEST_FIRST);
+
+        long excess = pendingBytes - lowBytes;
+        for (Candidate candidate: candidates) {
+            if (excess <= 0) {
+                break;
+            }
+            // Skip a buffer which was emptied since its size was captured, as nothing would release it again.
+            long size = candidate.buffer.totalPendingWriteBytes();
+            if (size > 0 && throttled.put(candidate.buffer, Boolean.TRUE) == null) {
+                candidate.buffer.throttleBudget();
+                excess -= size;
+            }
+        }
+    }
+
+    private void releaseAll() {
+        for (ChannelOutboundBuffer buffer: throttled.keySet()) {
+            if (throttled.remove(buffer) != null) {
+                buffer.releaseBudget();
+            }
+        }
+    }
+
+    private static final class Candidate {
+        final ChannelOutboundBuffer buffer;
+        final long size;
+        final long pendingSinceNanos;
+
+        Candidate(ChannelOutboundBuffer buffer) {
+            this.buffer = buffer;
+            size = buffer.totalPendingWriteBytes();
+            pendingSinceNanos = buffer.pendingSinceNanos;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.group;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.concurrent.BlockingOperationException;
+import io.netty.util.concurrent.DefaultPromise;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * The aggregate future of {@link DefaultChannelGroup#broadcast(Object, ChannelMatcher, boolean)}. Unlike
+ * {@link DefaultChannelGroupFuture} it only counts the outstanding writes and remembers the failed ones, so it does
+ * not keep an entry per {@link Channel}.
+ */
+final class BroadcastFuture extends DefaultPromise<Void> implements ChannelFutureListener {
+
+    private static final AtomicIntegerFieldUpdater<BroadcastFuture> PENDING_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(BroadcastFuture.class, "pending");
+
+    private volatile int pending;
+    // Guarded by this.
+    private List<Map.Entry<Channel, Throwable>> failures;
+
+    BroadcastFuture(EventExecutor executor, int pending) {
+        super(executor);
+        this.pending = pending;
+
+        // Done on arrival?
+        if (pending == 0) {
+            super.setSuccess(null);
+        }
+    }
+
+    @Override
+    public void operationComplete(ChannelFuture future) {
+        if (future.isSuccess()) {
+            done();
+        } else {
+            failed(future.channel(), future.cause());
+        }
+    }
+
+    /**
+     * Records a write which failed or could not be issued at all.
+     */
+    void failed(Channel channel, Throwable cause) {
+        synchronized (this) {
+            if (failures == null) {
+                failures = new ArrayList<Map.Entry<Channel, Throwable>>(4);
+            }
+            failures.add(new AbstractMap.SimpleImmutableEntry<Channel, Throwable>(channel, cause));
+        }
+        done();
+    }
+
+    private void done() {
+        if (PENDING_UPDATER.decrementAndGet(this) != 0) {
+            return;
+        }
+        List<Map.Entry<Channel, Throwable>> failures;
+        synchronized (this) {
+            failures = this.failures;
+        }
+        if (failures == null) {
+            super.setSuccess(null);
+        } else {
+            super.setFailure(new ChannelGroupException(failures));
+        }
+    }
+
+    @Override
+    public BroadcastFuture setSuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean trySuccess(Void result) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public BroadcastFuture setFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    public boolean tryFailure(Throwable cause) {
+        throw new IllegalStateException();
+    }
+
+    @Override
+    protected void checkDeadLock() {
+        EventExecutor e = executor();
+        if (e != null && e != ImmediateEventExecutor.INSTANCE && e.inEventLoop()) {
+            throw new BlockingOperationException();
+        }
+    }
+}
@@ -21,17 +21,22 @@ import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelId;
+import io.netty.channel.EventLoop;
 import io.netty.channel.ServerChannel;
 import io.netty.util.ReferenceCountUtil;
 import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
 
 import java.util.AbstractSet;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -428,6 +433,122 @@ public class DefaultChannelGroup extends AbstractSet<Channel> implements Channel
         return future;
     }
 
+    /**
+     * Writes and flushes the message to all {@link Channel}s of this group.
+     *
+     * @see #broadcast(Object, ChannelMatcher, boolean)
+     */
+    @UnstableApi
+    public Future<Void> broadcast(Object message) {
+        return broadcast(message, ChannelMatchers.all(), false);
+    }
+
+    /**
+     * Writes and flushes the message to all {@link Channel}s of this group that are matched by the
+     * {@link ChannelMatcher}, like {@link #writeAndFlush(Object, ChannelMatcher, boolean)}.
+     * <p>
+     * Instead of one write per {@link Channel}, which becomes a task of the {@link Channel}'s {@link EventLoop} if the
+     * caller is not on it, the {@link Channel}s are partitioned by their {@link EventLoop} and a single task per
+     * {@link EventLoop} writes a duplicate of the message to each of its {@link Channel}s.
+     *
+     * @param voidPromise {@code true} to write with {@link Channel#voidPromise()} and return a void future,
+     *                    {@code false} to return a future which is notified once all writes are done. That future
+     *                    only counts the outstanding writes, if any failed it fails with a
+     *                    {@link ChannelGroupException} which holds the failed {@link Channel}s.
+     */
+    @UnstableApi
+    public Future<Void> broadcast(Object message, ChannelMatcher matcher, boolean voidPromise) {
+        if (message == null) {
+            throw new NullPointerException("message");
+        }
+        if (matcher == null) {
+            throw new NullPointerException("matcher");
+        }
+
+        // Channels which are not registered yet are written to by the caller, these fail anyway.
+        Map<EventLoop, List<Channel>> channelsByLoop = new IdentityHashMap<EventLoop, List<Channel>>();
+        int count = 0;
+        for (Channel c: nonServerChannels.values()) {
+            if (matcher.matches(c)) {
+                EventLoop loop = c.isRegistered() ? c.eventLoop() : null;
+                List<Channel> channels = channelsByLoop.get(loop);
+                if (channels == null) {
+                    channels = new ArrayList<Channel>();
+                    channelsByLoop.put(loop, channels);
+                }
+                channels.add(c);
+                count++;
+            }
+        }
+
+        BroadcastFuture future = voidPromise ? null : new BroadcastFuture(executor, count);
+        for (Map.Entry<EventLoop, List<Channel>> entry: channelsByLoop.entrySet()) {
+            EventLoop loop = entry.getKey();
+            BroadcastTask task = new BroadcastTask(ReferenceCountUtil.retain(message), entry.getValue(), future);
+            if (loop == null || loop.inEventLoop()) {
+                task.run();
+            } else {
+                try {
+                    loop.execute(task);
+                } catch (Throwable cause) {
+                    task.fail(cause);
+                }
+            }
+        }
+        ReferenceCountUtil.release(message);
+        return voidPromise ? voidFuture : future;
+    }
+
+    /**
+     * Writes the message to the {@link Channel}s of one {@link EventLoop}.
+     */
+    private static final class BroadcastTask implements Runnable {
+        private final Object message;
+        private final List<Channel> channels;
+        private final BroadcastFuture future;
+
+        BroadcastTask(Object message, List<Channel> channels, BroadcastFuture future) {
+            this.message = message;
+            this.channels = channels;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            boolean released = false;
+            try {
+                int last = channels.size() - 1;
+                for (int i = 0; i <= last; i++) {
+                    Channel c = channels.get(i);
+                    Object msg = safeDuplicate(message);
+                    if (i == last) {
+                        // Release before the last write, which may complete the future.
+                        released = true;
+                        ReferenceCountUtil.release(message);
+                    }
+                    if (future == null) {
+                        c.writeAndFlush(msg, c.voidPromise());
+                    } else {
+                        c.writeAndFlush(msg, c.newPromise().addListener(future));
+                    }
+                }
+            } finally {
+                if (!released) {
+                    ReferenceCountUtil.release(message);
+                }
+            }
+        }
+
+        void fail(Throwable cause) {
+            ReferenceCountUtil.release(message);
+            if (future != null) {
+                for (Channel c: channels) {
+                    future.failed(c, cause);
+                }
+            }
+        }
+    }
+
     @Override
     public ChannelGroupFuture newCloseFuture() {
         return newCloseFuture(ChannelMatchers.all());
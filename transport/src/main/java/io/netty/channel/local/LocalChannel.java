@@ -42,6 +42,7 @@ import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
 import java.util.Queue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
@@ -52,6 +53,8 @@ public class LocalChannel extends AbstractChannel {
     @SuppressWarnings({ "rawtypes" })
     private static final AtomicReferenceFieldUpdater<LocalChannel, Future> FINISH_READ_FUTURE_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(LocalChannel.class, Future.class, "finishReadFuture");
+    private static final AtomicIntegerFieldUpdater<LocalChannel> FINISH_READ_SCHEDULED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(LocalChannel.class, "finishReadScheduled");
     private static final ChannelMetadata METADATA = new ChannelMetadata(false);
     private static final int MAX_READER_STACK_DEPTH = 8;
 
@@ -70,6 +73,16 @@ public class LocalChannel extends AbstractChannel {
         }
     };
 
+    // Reads what peers on other EventLoops wrote since it was scheduled, so several flushes share one task.
+    private final Runnable finishReadTask = new Runnable() {
+        @Override
+        public void run() {
+            // Unset before reading so a concurrent write either is read now or schedules the task again.
+            finishReadScheduled = 0;
+            finishPeerRead0(LocalChannel.this);
+        }
+    };
+
     private final Runnable shutdownHook = new Runnable() {
         @Override
         public void run() {
@@ -85,6 +98,9 @@ public class LocalChannel extends AbstractChannel {
     private volatile boolean readInProgress;
     private volatile boolean writeInProgress;
     private volatile Future<?> finishReadFuture;
+    private volatile int finishReadScheduled;
+    // Set by a peer on the same EventLoop which wrote while this Channel was writing, only accessed by the EventLoop.
+    private boolean finishReadAfterWrite;
 
     public LocalChannel() {
         super(null);
@@ -383,12 +399,23 @@ public class LocalChannel extends AbstractChannel {
         }
 
         finishPeerRead(peer);
+
+        if (finishReadAfterWrite) {
+            // A peer on the same EventLoop wrote to this Channel while it was writing.
+            finishReadAfterWrite = false;
+            finishPeerRead0(this);
+        }
     }
 
     private void finishPeerRead(final LocalChannel peer) {
-        // If the peer is also writing, then we must schedule the event on the event loop to preserve read order.
-        if (peer.eventLoop() == eventLoop() && !peer.writeInProgress) {
-            finishPeerRead0(peer);
+        if (peer.eventLoop() == eventLoop()) {
+            if (!peer.writeInProgress) {
+                finishPeerRead0(peer);
+            } else {
+                // The peer is writing further up in the stack of this thread, so to preserve the read order it reads
+                // once its own write completed instead of in a separate task.
+                peer.finishReadAfterWrite = true;
+            }
         } else {
             runFinishPeerReadTask(peer);
         }
@@ -406,8 +433,8 @@ public class LocalChannel extends AbstractChannel {
         try {
             if (peer.writeInProgress) {
                 peer.finishReadFuture = peer.eventLoop().submit(finishPeerReadTask);
-            } else {
-                peer.eventLoop().execute(finishPeerReadTask);
+            } else if (FINISH_READ_SCHEDULED_UPDATER.compareAndSet(peer, 0, 1)) {
+                peer.eventLoop().execute(peer.finishReadTask);
             }
         } catch (Throwable cause) {
             logger.warn("Closing Local channels {}-{} because exception occurred!", this, peer, cause);
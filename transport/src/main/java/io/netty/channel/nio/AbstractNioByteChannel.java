@@ -198,6 +198,7 @@ public abstract class AbstractNioByteChannel extends AbstractNioChannel {
                     // 更新读取消息计数器, 递增已经读取的消息数量
                     allocHandle.incMessagesRead(1);
                     readPending = false;
+                    byteBuf = ScratchRecvByteBufAllocator.received(allocHandle, byteBuf);
                     // 通知通道处理读取数据，触发Channel管道的fireChannelRead事件
                     pipeline.fireChannelRead(byteBuf);
                     byteBuf = null;
@@ -117,6 +117,8 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private final SelectStrategy selectStrategy;
 
     private volatile int ioRatio = 50;
+    // Only used by the event loop thread once published.
+    private volatile AdaptiveIoRatio adaptiveIoRatio;
     private int cancelledKeys;
     private boolean needsToSelectAgain;
 
@@ -343,6 +345,21 @@ public final class NioEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
+    /**
+     * Returns {@code true} if the split between I/O and non-I/O tasks is adjusted automatically.
+     */
+    public boolean isAdaptiveIoRatio() {
+        return adaptiveIoRatio != null;
+    }
+
+    /**
+     * Sets if the split between I/O and non-I/O tasks is adjusted automatically, starting from the current
+     * {@link #getIoRatio() ioRatio}. See {@link AdaptiveIoRatio} for details.
+     */
+    public void setAdaptiveIoRatio(boolean adaptiveIoRatio) {
+        this.adaptiveIoRatio = adaptiveIoRatio ? new AdaptiveIoRatio(ioRatio) : null;
+    }
+
     /**
      * Replaces the current {@link Selector} of this event loop with newly created {@link Selector}s to work
      * around the infamous epoll 100% CPU bug.
@@ -519,8 +536,20 @@ public final class NioEventLoop extends SingleThreadEventLoop {
 
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
+                final AdaptiveIoRatio adaptiveIoRatio = this.adaptiveIoRatio;
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
+                if (adaptiveIoRatio != null) {
+                    final int readyKeys = selectedKeys != null ? selectedKeys.size() : selector.selectedKeys().size();
+                    final long ioStartTime = System.nanoTime();
+                    try {
+                        processSelectedKeys();
+                    } finally {
+                        // Ensure we always run tasks.
+                        final long ioTime = System.nanoTime() - ioStartTime;
+                        runAllTasks(adaptiveIoRatio.taskTimeoutNanos(ioTime, readyKeys, pendingTasks()));
+                        adaptiveIoRatio.tasksRan(pendingTasks());
+                    }
+                } else if (ioRatio == 100) {
                     try {
                         // I/O操作， 根据selectedKeys进行处理
                         processSelectedKeys();
@@ -121,6 +121,16 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets if the split between I/O and non-I/O tasks is adjusted automatically in the child event loops, starting
+     * from their current ioRatio.
+     */
+    public void setAdaptiveIoRatio(boolean adaptiveIoRatio) {
+        for (EventExecutor e: this) {
+            ((NioEventLoop) e).setAdaptiveIoRatio(adaptiveIoRatio);
+        }
+    }
+
     /**
      * Replaces the current {@link Selector}s of the child event loops with newly created {@link Selector}s to work
      * around the  infamous epoll 100% CPU bug.
@@ -0,0 +1,508 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.FutureListener;
+import io.netty.util.concurrent.Promise;
+import io.netty.util.concurrent.ScheduledFuture;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.util.internal.ObjectUtil.*;
+
+/**
+ * {@link ChannelPool} which keeps a sub-pool of idle {@link Channel}s per {@link EventLoop} of the
+ * {@link Bootstrap}'s {@link EventLoopGroup}.
+ * <p>
+ * {@link #acquire()} called by one of these {@link EventLoop}s prefers the {@link Channel}s registered on it, so the
+ * caller can use the {@link Channel} without handing over to another thread. Only if its sub-pool is empty a
+ * {@link Channel} is taken from another sub-pool, and only if all are empty a new {@link Channel} is connected on the
+ * caller's {@link EventLoop}. Callers outside the {@link EventLoopGroup} use {@link EventLoopGroup#next()}. The
+ * sub-pools are lock-free deques; a sub-pool's own {@link EventLoop} takes the most recently used {@link Channel}
+ * while other {@link EventLoop}s take the least recently used one.
+ * <p>
+ * By default each {@link Channel} is checked by the {@link ChannelHealthChecker} when it is acquired. If a health
+ * check interval is given the idle {@link Channel}s of each sub-pool are instead checked together by a periodic task
+ * of its {@link EventLoop}, and acquiring only skips {@link Channel}s which are no longer active.
+ */
+@UnstableApi
+public class EventLoopAffineChannelPool implements ChannelPool {
+    private static final AttributeKey<EventLoopAffineChannelPool> POOL_KEY =
+            AttributeKey.newInstance("eventLoopAffineChannelPool");
+
+    private final Bootstrap bootstrap;
+    private final ChannelPoolHandler handler;
+    private final ChannelHealthChecker healthCheck;
+    private final boolean batchHealthCheck;
+    private final EventLoopGroup group;
+    private final SubPool[] subPools;
+    private final Map<EventExecutor, SubPool> subPoolsByLoop = new IdentityHashMap<EventExecutor, SubPool>();
+
+    private final LongCounter idleChannels = PlatformDependent.newLongCounter();
+    private final LongCounter acquiredChannels = PlatformDependent.newLongCounter();
+    private final LongCounter acquireCount = PlatformDependent.newLongCounter();
+    private final LongCounter acquireLatencyNanos = PlatformDependent.newLongCounter();
+    private final LongCounter stealCount = PlatformDependent.newLongCounter();
+
+    private volatile boolean closed;
+
+    /**
+     * Creates a new instance using the {@link ChannelHealthChecker#ACTIVE}.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler) {
+        this(bootstrap, handler, ChannelHealthChecker.ACTIVE);
+    }
+
+    /**
+     * Creates a new instance which checks each {@link Channel} when it is acquired.
+     *
+     * @param bootstrap         the {@link Bootstrap} that is used for connections
+     * @param handler           the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck       the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                          still healthy when obtain from the {@link ChannelPool}
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck) {
+        this(bootstrap, handler, healthCheck, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param bootstrap           the {@link Bootstrap} that is used for connections
+     * @param handler             the {@link ChannelPoolHandler} that will be notified for the different pool actions
+     * @param healthCheck         the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is
+     *                            still healthy
+     * @param healthCheckInterval the interval in which the idle {@link Channel}s of each {@link EventLoop} are
+     *                            checked together, or {@code 0} to check each {@link Channel} when it is acquired
+     * @param unit                the {@link TimeUnit} of {@code healthCheckInterval}
+     */
+    public EventLoopAffineChannelPool(Bootstrap bootstrap, final ChannelPoolHandler handler,
+                                      ChannelHealthChecker healthCheck, long healthCheckInterval, TimeUnit unit) {
+        this.handler = checkNotNull(handler, "handler");
+        this.healthCheck = checkNotNull(healthCheck, "healthCheck");
+        checkPositiveOrZero(healthCheckInterval, "healthCheckInterval");
+        checkNotNull(unit, "unit");
+        group = checkNotNull(checkNotNull(bootstrap, "bootstrap").config().group(), "bootstrap.config().group()");
+        // Clone the original Bootstrap as we want to set our own handler
+        this.bootstrap = bootstrap.clone();
+        this.bootstrap.handler(new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) throws Exception {
+                assert ch.eventLoop().inEventLoop();
+                handler.channelCreated(ch);
+            }
+        });
+
+        List<SubPool> subPools = new ArrayList<SubPool>();
+        for (EventExecutor executor: group) {
+            SubPool subPool = new SubPool((EventLoop) executor, subPools.size());
+            subPools.add(subPool);
+            subPoolsByLoop.put(executor, subPool);
+        }
+        this.subPools = subPools.toArray(new SubPool[0]);
+
+        batchHealthCheck = healthCheckInterval > 0;
+        if (batchHealthCheck) {
+            for (SubPool subPool: this.subPools) {
+                subPool.healthCheckFuture = subPool.loop.scheduleWithFixedDelay(
+                        subPool, healthCheckInterval, healthCheckInterval, unit);
+            }
+        }
+    }
+
+    /**
+     * Returns the {@link ChannelPoolHandler} that will be notified for the different pool actions.
+     */
+    protected ChannelPoolHandler handler() {
+        return handler;
+    }
+
+    /**
+     * Returns the {@link ChannelHealthChecker} that will be used to check if a {@link Channel} is healthy.
+     */
+    protected ChannelHealthChecker healthChecker() {
+        return healthCheck;
+    }
+
+    /**
+     * Returns the number of idle {@link Channel}s in this pool.
+     */
+    public long idleChannels() {
+        return idleChannels.value();
+    }
+
+    /**
+     * Returns the number of {@link Channel}s which are acquired and not released yet.
+     */
+    public long acquiredChannels() {
+        return acquiredChannels.value();
+    }
+
+    /**
+     * Returns the number of successful acquires.
+     */
+    public long acquireCount() {
+        return acquireCount.value();
+    }
+
+    /**
+     * Returns the number of acquires which took an idle {@link Channel} of another {@link EventLoop}.
+     */
+    public long stealCount() {
+        return stealCount.value();
+    }
+
+    /**
+     * Returns the sum of the time the successful acquires took in nanoseconds, including connecting new
+     * {@link Channel}s.
+     */
+    public long acquireLatencyNanos() {
+        return acquireLatencyNanos.value();
+    }
+
+    /**
+     * Returns the average time a successful acquire took in nanoseconds.
+     */
+    public long averageAcquireLatencyNanos() {
+        long count = acquireCount.value();
+        return count == 0 ? 0 : acquireLatencyNanos.value() / count;
+    }
+
+    @Override
+    public final Future<Channel> acquire() {
+        return acquire(callerSubPool().loop.<Channel>newPromise());
+    }
+
+    @Override
+    public Future<Channel> acquire(Promise<Channel> promise) {
+        checkNotNull(promise, "promise");
+        acquire0(callerSubPool(), System.nanoTime(), promise);
+        return promise;
+    }
+
+    private SubPool callerSubPool() {
+        for (SubPool subPool: subPools) {
+            if (subPool.loop.inEventLoop()) {
+                return subPool;
+            }
+        }
+        return subPoolsByLoop.get(group.next());
+    }
+
+    private void acquire0(SubPool local, final long startNanos, final Promise<Channel> promise) {
+        try {
+            if (closed) {
+                promise.tryFailure(new IllegalStateException("EventLoopAffineChannelPool was closed"));
+                return;
+            }
+            Channel ch = local.pollLocal();
+            if (ch == null) {
+                ch = steal(local);
+            }
+            if (ch == null) {
+                connect(local, startNanos, promise);
+                return;
+            }
+            final Channel channel = ch;
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                checkAcquired(local, channel, startNanos, promise);
+            } else {
+                final SubPool caller = local;
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        checkAcquired(caller, channel, startNanos, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            promise.tryFailure(cause);
+        }
+    }
+
+    private Channel steal(SubPool local) {
+        int length = subPools.length;
+        for (int i = 1; i < length; i++) {
+            Channel ch = subPools[(local.index + i) % length].pollRemote();
+            if (ch != null) {
+                stealCount.increment();
+                return ch;
+            }
+        }
+        return null;
+    }
+
+    private void connect(SubPool local, final long startNanos, final Promise<Channel> promise) {
+        // Register the new Channel on the caller's EventLoop.
+        Bootstrap bs = bootstrap.clone(local.loop);
+        bs.attr(POOL_KEY, this);
+        ChannelFuture f = connectChannel(bs);
+        if (f.isDone()) {
+            notifyConnect(f, startNanos, promise);
+        } else {
+            f.addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    notifyConnect(future, startNanos, promise);
+                }
+            });
+        }
+    }
+
+    /**
+     * Bootstrap a new {@link Channel}. The default implementation uses {@link Bootstrap#connect()}, sub-classes may
+     * override this.
+     * <p>
+     * The {@link Bootstrap} that is passed in here is cloned via {@link Bootstrap#clone(EventLoopGroup)} with the
+     * {@link EventLoop} the {@link Channel} should be registered on, so it is safe to modify.
+     */
+    protected ChannelFuture connectChannel(Bootstrap bs) {
+        return bs.connect();
+    }
+
+    private void notifyConnect(ChannelFuture future, long startNanos, Promise<Channel> promise) {
+        if (future.isSuccess()) {
+            notifyAcquired(future.channel(), startNanos, promise);
+        } else {
+            promise.tryFailure(future.cause());
+        }
+    }
+
+    private void checkAcquired(final SubPool local, final Channel ch, final long startNanos,
+                               final Promise<Channel> promise) {
+        assert ch.eventLoop().inEventLoop();
+
+        if (batchHealthCheck) {
+            if (ch.isActive()) {
+                ch.attr(POOL_KEY).set(this);
+                notifyAcquired(ch, startNanos, promise);
+            } else {
+                closeChannel(ch);
+                acquire0(local, startNanos, promise);
+            }
+            return;
+        }
+        Future<Boolean> f = healthCheck.isHealthy(ch);
+        if (f.isDone()) {
+            notifyHealthCheck(f, local, ch, startNanos, promise);
+        } else {
+            f.addListener(new FutureListener<Boolean>() {
+                @Override
+                public void operationComplete(Future<Boolean> future) {
+                    notifyHealthCheck(future, local, ch, startNanos, promise);
+                }
+            });
+        }
+    }
+
+    private void notifyHealthCheck(Future<Boolean> future, SubPool local, Channel ch, long startNanos,
+                                   Promise<Channel> promise) {
+        if (future.isSuccess() && future.getNow()) {
+            ch.attr(POOL_KEY).set(this);
+            notifyAcquired(ch, startNanos, promise);
+        } else {
+            closeChannel(ch);
+            acquire0(local, startNanos, promise);
+        }
+    }
+
+    private void notifyAcquired(Channel ch, long startNanos, Promise<Channel> promise) {
+        try {
+            handler.channelAcquired(ch);
+        } catch (Throwable cause) {
+            closeAndFail(ch, cause, promise);
+            return;
+        }
+        acquiredChannels.increment();
+        if (promise.trySuccess(ch)) {
+            acquireCount.increment();
+            acquireLatencyNanos.add(System.nanoTime() - startNanos);
+        } else {
+            // Promise was completed in the meantime (like cancelled), just release the channel again
+            release(ch);
+        }
+    }
+
+    @Override
+    public final Future<Void> release(Channel channel) {
+        return release(channel, channel.eventLoop().<Void>newPromise());
+    }
+
+    @Override
+    public Future<Void> release(final Channel channel, final Promise<Void> promise) {
+        checkNotNull(channel, "channel");
+        checkNotNull(promise, "promise");
+        try {
+            EventLoop loop = channel.eventLoop();
+            if (loop.inEventLoop()) {
+                doReleaseChannel(channel, promise);
+            } else {
+                loop.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        doReleaseChannel(channel, promise);
+                    }
+                });
+            }
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+        return promise;
+    }
+
+    private void doReleaseChannel(Channel channel, Promise<Void> promise) {
+        assert channel.eventLoop().inEventLoop();
+        // Remove the POOL_KEY attribute from the Channel and check if it was acquired from this pool, if not fail.
+        if (channel.attr(POOL_KEY).getAndSet(null) != this) {
+            closeAndFail(channel,
+                         // Better include a stacktrace here as this is an user error.
+                         new IllegalArgumentException(
+                                 "Channel " + channel + " was not acquired from this ChannelPool"),
+                         promise);
+            return;
+        }
+        acquiredChannels.decrement();
+        try {
+            handler.channelReleased(channel);
+            SubPool subPool = subPoolsByLoop.get(channel.eventLoop());
+            if (closed || subPool == null || !channel.isActive()) {
+                channel.close();
+            } else {
+                subPool.offer(channel);
+            }
+            promise.setSuccess(null);
+        } catch (Throwable cause) {
+            closeAndFail(channel, cause, promise);
+        }
+    }
+
+    private static void closeChannel(Channel channel) {
+        channel.attr(POOL_KEY).getAndSet(null);
+        channel.close();
+    }
+
+    private static void closeAndFail(Channel channel, Throwable cause, Promise<?> promise) {
+        closeChannel(channel);
+        promise.tryFailure(cause);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        for (SubPool subPool: subPools) {
+            ScheduledFuture<?> healthCheckFuture = subPool.healthCheckFuture;
+            if (healthCheckFuture != null) {
+                healthCheckFuture.cancel(false);
+            }
+            for (;;) {
+                Channel channel = subPool.pollRemote();
+                if (channel == null) {
+                    break;
+                }
+                // Just ignore any errors that are reported back from close().
+                channel.close().awaitUninterruptibly();
+            }
+        }
+    }
+
+    /**
+     * The idle {@link Channel}s registered on a single {@link EventLoop}. The task checks all of them.
+     */
+    private final class SubPool implements Runnable {
+        final EventLoop loop;
+        final int index;
+        private final Deque<Channel> idle = PlatformDependent.newConcurrentDeque();
+        ScheduledFuture<?> healthCheckFuture;
+
+        SubPool(EventLoop loop, int index) {
+            this.loop = loop;
+            this.index = index;
+        }
+
+        Channel pollLocal() {
+            return counted(idle.pollLast());
+        }
+
+        Channel pollRemote() {
+            return counted(idle.pollFirst());
+        }
+
+        private Channel counted(Channel ch) {
+            if (ch != null) {
+                idleChannels.decrement();
+            }
+            return ch;
+        }
+
+        void offer(Channel ch) {
+            idle.offerLast(ch);
+            idleChannels.increment();
+        }
+
+        @Override
+        public void run() {
+            // Only check the Channels which are idle now, the healthy ones are offered again.
+            for (int i = idle.size(); i > 0; i--) {
+                final Channel ch = pollRemote();
+                if (ch == null) {
+                    break;
+                }
+                Future<Boolean> f = healthCheck.isHealthy(ch);
+                if (f.isDone()) {
+                    offerIfHealthy(ch, f);
+                } else {
+                    f.addListener(new FutureListener<Boolean>() {
+                        @Override
+                        public void operationComplete(Future<Boolean> future) {
+                            offerIfHealthy(ch, future);
+                        }
+                    });
+                }
+            }
+        }
+
+        private void offerIfHealthy(Channel ch, Future<Boolean> future) {
+            if (!closed && future.isSuccess() && future.getNow()) {
+                offer(ch);
+            } else {
+                ch.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.util.internal.UnstableApi;
+
+import java.io.File;
+import java.net.SocketAddress;
+
+/**
+ * The address of a {@link SharedMemoryChannel}, which is the path of the file that holds its ring buffers. Use a
+ * file on a memory-backed file system such as {@code /dev/shm} so the rings are never written back to a disk.
+ */
+@UnstableApi
+public final class SharedMemoryAddress extends SocketAddress {
+    private static final long serialVersionUID = -1436358424316472380L;
+    private final String path;
+
+    public SharedMemoryAddress(String path) {
+        if (path == null) {
+            throw new NullPointerException("path");
+        }
+        this.path = path;
+    }
+
+    public SharedMemoryAddress(File file) {
+        this(file.getPath());
+    }
+
+    /**
+     * The path to the shared-memory file.
+     */
+    public String path() {
+        return path;
+    }
+
+    @Override
+    public String toString() {
+        return path();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SharedMemoryAddress)) {
+            return false;
+        }
+
+        return ((SharedMemoryAddress) o).path.equals(path);
+    }
+
+    @Override
+    public int hashCode() {
+        return path.hashCode();
+    }
+}
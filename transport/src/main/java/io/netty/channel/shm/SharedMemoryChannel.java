@@ -0,0 +1,327 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.AbstractChannel;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelMetadata;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.SocketAddress;
+import java.nio.channels.AlreadyBoundException;
+import java.nio.channels.AlreadyConnectedException;
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * A {@link Channel} which exchanges bytes with another {@link SharedMemoryChannel} on the same host, usually in
+ * another process, through a memory-mapped file. One side binds to a {@link SharedMemoryAddress}, which creates the
+ * file and becomes active once the other side connected to the same address. Each file serves a single connection.
+ * <p>
+ * There is no kernel involvement once connected, the {@link SharedMemoryEventLoop} polls the rings of its
+ * {@link Channel}s. If a process dies without closing its {@link Channel} the other side is not notified, so use
+ * an idle timeout or heartbeats to detect a dead peer.
+ */
+@UnstableApi
+public class SharedMemoryChannel extends AbstractChannel {
+    private static final ChannelMetadata METADATA = new ChannelMetadata(false, 16);
+    private static final String EXPECTED_TYPES = " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ')';
+
+    private enum State { OPEN, BOUND, CONNECTED, CLOSED }
+
+    private final SharedMemoryChannelConfig config = new SharedMemoryChannelConfig(this);
+
+    private volatile State state = State.OPEN;
+    private volatile SharedMemoryAddress localAddress;
+    private volatile SharedMemoryAddress remoteAddress;
+    // Only accessed by the EventLoop once registered.
+    private SharedMemoryFile file;
+    private boolean readPending;
+    private boolean writePending;
+
+    public SharedMemoryChannel() {
+        super(null);
+    }
+
+    @Override
+    public ChannelMetadata metadata() {
+        return METADATA;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig config() {
+        return config;
+    }
+
+    @Override
+    public SharedMemoryAddress localAddress() {
+        return (SharedMemoryAddress) super.localAddress();
+    }
+
+    @Override
+    public SharedMemoryAddress remoteAddress() {
+        return (SharedMemoryAddress) super.remoteAddress();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return state != State.CLOSED;
+    }
+
+    @Override
+    public boolean isActive() {
+        return state == State.CONNECTED;
+    }
+
+    @Override
+    protected AbstractUnsafe newUnsafe() {
+        return new SharedMemoryUnsafe();
+    }
+
+    @Override
+    protected boolean isCompatible(EventLoop loop) {
+        return loop instanceof SharedMemoryEventLoop;
+    }
+
+    @Override
+    protected SocketAddress localAddress0() {
+        return localAddress;
+    }
+
+    @Override
+    protected SocketAddress remoteAddress0() {
+        return remoteAddress;
+    }
+
+    @Override
+    protected void doRegister() throws Exception {
+        ((SharedMemoryEventLoop) eventLoop()).add(this);
+    }
+
+    @Override
+    protected void doDeregister() throws Exception {
+        ((SharedMemoryEventLoop) eventLoop()).remove(this);
+    }
+
+    @Override
+    protected void doBind(SocketAddress localAddress) throws Exception {
+        if (state != State.OPEN) {
+            throw new AlreadyBoundException();
+        }
+        SharedMemoryAddress address = (SharedMemoryAddress) localAddress;
+        file = SharedMemoryFile.create(address, config.getRingCapacity());
+        this.localAddress = address;
+        state = State.BOUND;
+    }
+
+    private void doConnect(SocketAddress remoteAddress) throws Exception {
+        if (state == State.CONNECTED) {
+            throw new AlreadyConnectedException();
+        }
+        if (state == State.BOUND) {
+            throw new ConnectException("bound channel waits for a peer: " + localAddress);
+        }
+        SharedMemoryAddress address = (SharedMemoryAddress) remoteAddress;
+        file = SharedMemoryFile.open(address);
+        localAddress = address;
+        this.remoteAddress = address;
+        state = State.CONNECTED;
+    }
+
+    @Override
+    protected void doDisconnect() throws Exception {
+        doClose();
+    }
+
+    @Override
+    protected void doClose() throws Exception {
+        if (state == State.CLOSED) {
+            return;
+        }
+        // Update the state before unmapping so the rings are not accessed anymore.
+        state = State.CLOSED;
+        SharedMemoryFile file = this.file;
+        if (file != null) {
+            this.file = null;
+            file.close();
+        }
+    }
+
+    @Override
+    protected void doBeginRead() throws Exception {
+        readPending = true;
+    }
+
+    @Override
+    protected Object filterOutboundMessage(Object msg) throws Exception {
+        if (msg instanceof ByteBuf) {
+            return msg;
+        }
+        throw new UnsupportedOperationException(
+                "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+    }
+
+    @Override
+    protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        if (file.inbound().isProducerClosed()) {
+            // The peer is gone and will never read what is written.
+            throw new ClosedChannelException();
+        }
+        SharedMemoryRing outbound = file.outbound();
+        for (;;) {
+            ByteBuf buf = (ByteBuf) in.current();
+            if (buf == null) {
+                break;
+            }
+            if (!buf.isReadable()) {
+                in.remove();
+                continue;
+            }
+            int written = outbound.write(buf);
+            if (written == 0) {
+                // The ring is full, the EventLoop retries once the peer consumed some of it.
+                writePending = true;
+                break;
+            }
+            in.removeBytes(written);
+        }
+    }
+
+    /**
+     * Called by the {@link SharedMemoryEventLoop} to check the rings of this {@link Channel}.
+     *
+     * @return {@code true} if any progress was made.
+     */
+    boolean process() {
+        switch (state) {
+        case BOUND:
+            if (file.isConnected()) {
+                remoteAddress = localAddress;
+                state = State.CONNECTED;
+                pipeline().fireChannelActive();
+                return true;
+            }
+            return false;
+        case CONNECTED:
+            boolean progress = false;
+            if (writePending) {
+                long position = file.outbound().producerPosition();
+                writePending = false;
+                ((SharedMemoryUnsafe) unsafe()).forceFlush();
+                if (state != State.CONNECTED) {
+                    return true;
+                }
+                progress = position != file.outbound().producerPosition();
+            }
+            SharedMemoryRing inbound = file.inbound();
+            if (readPending && !inbound.isEmpty()) {
+                read(inbound);
+                return true;
+            }
+            // Check the flag first so the ring can not be filled after it was found empty.
+            if (inbound.isProducerClosed() && inbound.isEmpty()) {
+                unsafe().close(unsafe().voidPromise());
+                return true;
+            }
+            return progress;
+        default:
+            return false;
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void read(SharedMemoryRing inbound) {
+        readPending = false;
+        ChannelPipeline pipeline = pipeline();
+        ByteBufAllocator allocator = config.getAllocator();
+        RecvByteBufAllocator.Handle allocHandle = unsafe().recvBufAllocHandle();
+        allocHandle.reset(config);
+
+        ByteBuf buf = null;
+        try {
+            do {
+                buf = allocHandle.allocate(allocator);
+                allocHandle.attemptedBytesRead(buf.writableBytes());
+                allocHandle.lastBytesRead(inbound.read(buf));
+                if (allocHandle.lastBytesRead() <= 0) {
+                    buf.release();
+                    buf = null;
+                    break;
+                }
+                allocHandle.incMessagesRead(1);
+                pipeline.fireChannelRead(buf);
+                buf = null;
+                // A handler may have closed the Channel, which unmaps the ring.
+            } while (state == State.CONNECTED && allocHandle.continueReading());
+
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+        } catch (Throwable cause) {
+            if (buf != null) {
+                buf.release();
+            }
+            allocHandle.readComplete();
+            pipeline.fireChannelReadComplete();
+            pipeline.fireExceptionCaught(cause);
+            if (cause instanceof IOException && state == State.CONNECTED) {
+                // The ring is corrupt, so every later read would fail the same way.
+                unsafe().close(unsafe().voidPromise());
+            }
+        }
+    }
+
+    private final class SharedMemoryUnsafe extends AbstractUnsafe {
+
+        @Override
+        public void connect(SocketAddress remoteAddress, SocketAddress localAddress, ChannelPromise promise) {
+            if (!promise.setUncancellable() || !ensureOpen(promise)) {
+                return;
+            }
+            try {
+                boolean wasActive = isActive();
+                doConnect(remoteAddress);
+                promise.trySuccess();
+                if (!wasActive && isActive()) {
+                    pipeline().fireChannelActive();
+                }
+            } catch (Throwable t) {
+                safeSetFailure(promise, annotateConnectException(t, remoteAddress));
+                closeIfClosed();
+            }
+        }
+
+        @Override
+        protected void flush0() {
+            // Flush later once the peer made room in the ring.
+            if (!writePending) {
+                super.flush0();
+            }
+        }
+
+        void forceFlush() {
+            super.flush0();
+        }
+    }
+}
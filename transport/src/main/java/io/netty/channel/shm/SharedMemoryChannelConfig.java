@@ -0,0 +1,179 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultChannelConfig;
+import io.netty.channel.MessageSizeEstimator;
+import io.netty.channel.RecvByteBufAllocator;
+import io.netty.channel.WriteBufferWaterMark;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.Map;
+
+import static io.netty.channel.shm.SharedMemoryChannelOption.RING_CAPACITY;
+
+/**
+ * The configuration of a {@link SharedMemoryChannel}.
+ */
+@UnstableApi
+public final class SharedMemoryChannelConfig extends DefaultChannelConfig {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SharedMemoryChannelConfig.class);
+
+    static final int MIN_RING_CAPACITY = 64;
+    private static final int DEFAULT_RING_CAPACITY;
+
+    static {
+        int ringCapacity = SystemPropertyUtil.getInt("io.netty.shm.ringCapacity", 1024 * 1024);
+        if (!isValidRingCapacity(ringCapacity)) {
+            ringCapacity = 1024 * 1024;
+        }
+        DEFAULT_RING_CAPACITY = ringCapacity;
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.shm.ringCapacity: {}", DEFAULT_RING_CAPACITY);
+        }
+    }
+
+    private volatile int ringCapacity = DEFAULT_RING_CAPACITY;
+
+    SharedMemoryChannelConfig(SharedMemoryChannel channel) {
+        super(channel);
+    }
+
+    @Override
+    public Map<ChannelOption<?>, Object> getOptions() {
+        return getOptions(super.getOptions(), RING_CAPACITY);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T getOption(ChannelOption<T> option) {
+        if (option == RING_CAPACITY) {
+            return (T) Integer.valueOf(getRingCapacity());
+        }
+        return super.getOption(option);
+    }
+
+    @Override
+    public <T> boolean setOption(ChannelOption<T> option, T value) {
+        validate(option, value);
+
+        if (option == RING_CAPACITY) {
+            setRingCapacity((Integer) value);
+        } else {
+            return super.setOption(option, value);
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns the size in bytes of each of the two ring buffers which are created on bind.
+     */
+    public int getRingCapacity() {
+        return ringCapacity;
+    }
+
+    /**
+     * Sets the size in bytes of each of the two ring buffers which are created on bind. It must be a power of two of
+     * at least {@code 64}.
+     */
+    public SharedMemoryChannelConfig setRingCapacity(int ringCapacity) {
+        if (!isValidRingCapacity(ringCapacity)) {
+            throw new IllegalArgumentException(
+                    "ringCapacity: " + ringCapacity + " (expected: power of two >= " + MIN_RING_CAPACITY + ')');
+        }
+        this.ringCapacity = ringCapacity;
+        return this;
+    }
+
+    private static boolean isValidRingCapacity(int ringCapacity) {
+        return ringCapacity >= MIN_RING_CAPACITY && (ringCapacity & ringCapacity - 1) == 0;
+    }
+
+    @Override
+    @Deprecated
+    public SharedMemoryChannelConfig setMaxMessagesPerRead(int maxMessagesPerRead) {
+        super.setMaxMessagesPerRead(maxMessagesPerRead);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setConnectTimeoutMillis(int connectTimeoutMillis) {
+        super.setConnectTimeoutMillis(connectTimeoutMillis);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setWriteSpinCount(int writeSpinCount) {
+        super.setWriteSpinCount(writeSpinCount);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setAllocator(ByteBufAllocator allocator) {
+        super.setAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setRecvByteBufAllocator(RecvByteBufAllocator allocator) {
+        super.setRecvByteBufAllocator(allocator);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setAutoRead(boolean autoRead) {
+        super.setAutoRead(autoRead);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setAutoClose(boolean autoClose) {
+        super.setAutoClose(autoClose);
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public SharedMemoryChannelConfig setWriteBufferHighWaterMark(int writeBufferHighWaterMark) {
+        super.setWriteBufferHighWaterMark(writeBufferHighWaterMark);
+        return this;
+    }
+
+    @Override
+    @Deprecated
+    public SharedMemoryChannelConfig setWriteBufferLowWaterMark(int writeBufferLowWaterMark) {
+        super.setWriteBufferLowWaterMark(writeBufferLowWaterMark);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setWriteBufferWaterMark(WriteBufferWaterMark writeBufferWaterMark) {
+        super.setWriteBufferWaterMark(writeBufferWaterMark);
+        return this;
+    }
+
+    @Override
+    public SharedMemoryChannelConfig setMessageSizeEstimator(MessageSizeEstimator estimator) {
+        super.setMessageSizeEstimator(estimator);
+        return this;
+    }
+}
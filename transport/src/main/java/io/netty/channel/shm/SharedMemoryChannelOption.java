@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.channel.ChannelOption;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * {@link ChannelOption}s of a {@link SharedMemoryChannel}.
+ */
+@UnstableApi
+public final class SharedMemoryChannelOption<T> extends ChannelOption<T> {
+
+    /**
+     * The size in bytes of each of the two ring buffers, which must be a power of two. Only used by the
+     * {@link SharedMemoryChannel} which creates the file on bind, the connecting side uses the size found in the file.
+     */
+    public static final ChannelOption<Integer> RING_CAPACITY =
+            valueOf(SharedMemoryChannelOption.class, "RING_CAPACITY");
+
+    @SuppressWarnings({ "unused", "deprecation" })
+    private SharedMemoryChannelOption() {
+        super(null);
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SingleThreadEventLoop;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link SingleThreadEventLoop} which polls the rings of its {@link SharedMemoryChannel}s. The rings have no doorbell:
+ * the peer writes into the mapped file and nothing wakes this thread, as that would need a file descriptor shared by
+ * both processes, such as an {@code eventfd}, which the transport module cannot create without native code. So it
+ * spins while idle, then yields and finally parks for at most {@code io.netty.shm.maxParkMicros} (100 by default).
+ * Bytes which the peer writes while this thread is parked are only seen once the park ends, so the first message
+ * after the {@link Channel}s were idle for a while may be delayed by up to that time. Tasks which are added by other
+ * threads of this process unpark it right away.
+ */
+final class SharedMemoryEventLoop extends SingleThreadEventLoop {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(SharedMemoryEventLoop.class);
+
+    private static final int SPIN_ITERATIONS =
+            Math.max(0, SystemPropertyUtil.getInt("io.netty.shm.spinIterations", 1000));
+    private static final int YIELD_ITERATIONS =
+            Math.max(0, SystemPropertyUtil.getInt("io.netty.shm.yieldIterations", 100));
+    private static final long MAX_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(
+            Math.max(1, SystemPropertyUtil.getInt("io.netty.shm.maxParkMicros", 100)));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.shm.spinIterations: {}", SPIN_ITERATIONS);
+            logger.debug("-Dio.netty.shm.yieldIterations: {}", YIELD_ITERATIONS);
+            logger.debug("-Dio.netty.shm.maxParkMicros: {}", TimeUnit.NANOSECONDS.toMicros(MAX_PARK_NANOS));
+        }
+    }
+
+    private final List<SharedMemoryChannel> channels = new ArrayList<SharedMemoryChannel>();
+    private volatile Thread thread;
+
+    SharedMemoryEventLoop(EventLoopGroup parent, Executor executor) {
+        super(parent, executor, false);
+    }
+
+    void add(SharedMemoryChannel channel) {
+        assert inEventLoop();
+        channels.add(channel);
+    }
+
+    void remove(SharedMemoryChannel channel) {
+        assert inEventLoop();
+        channels.remove(channel);
+    }
+
+    @Override
+    protected void run() {
+        thread = Thread.currentThread();
+        int idleIterations = 0;
+        for (;;) {
+            boolean progress = processChannels();
+            if (runAllTasks()) {
+                progress = true;
+            }
+
+            if (isShuttingDown()) {
+                closeAll();
+                if (confirmShutdown()) {
+                    break;
+                }
+            }
+
+            if (progress) {
+                idleIterations = 0;
+            } else if (idleIterations < SPIN_ITERATIONS) {
+                idleIterations++;
+            } else if (idleIterations < SPIN_ITERATIONS + YIELD_ITERATIONS) {
+                idleIterations++;
+                Thread.yield();
+            } else if (!hasTasks()) {
+                // wakeup(...) unparks the thread if a task is added in the meantime.
+                long parkNanos = Math.min(MAX_PARK_NANOS, delayNanos(nanoTime()));
+                if (parkNanos > 0) {
+                    LockSupport.parkNanos(this, parkNanos);
+                }
+            }
+        }
+    }
+
+    private boolean processChannels() {
+        boolean progress = false;
+        List<SharedMemoryChannel> channels = this.channels;
+        // Iterate backwards as a Channel removes itself once closed.
+        for (int i = channels.size() - 1; i >= 0; i--) {
+            if (i >= channels.size()) {
+                // Other Channels were closed in the meantime.
+                continue;
+            }
+            if (channels.get(i).process()) {
+                progress = true;
+            }
+        }
+        return progress;
+    }
+
+    private void closeAll() {
+        SharedMemoryChannel[] channels = this.channels.toArray(new SharedMemoryChannel[0]);
+        for (SharedMemoryChannel ch: channels) {
+            ch.unsafe().close(ch.unsafe().voidPromise());
+        }
+    }
+
+    @Override
+    protected void wakeup(boolean inEventLoop) {
+        if (!inEventLoop) {
+            Thread thread = this.thread;
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.MultithreadEventLoopGroup;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * {@link MultithreadEventLoopGroup} for {@link SharedMemoryChannel}s. Its threads busy-poll while there is traffic,
+ * so use no more threads than cores which can be dedicated to them.
+ * <p>
+ * The peer cannot wake up an idle thread, so after spinning and yielding for a while it parks for at most
+ * {@code -Dio.netty.shm.maxParkMicros} microseconds (100 by default) before it polls again. This is the latency an
+ * idle {@link SharedMemoryChannel} may add to the first message it receives; lowering it trades CPU time of idle
+ * threads for latency.
+ */
+@UnstableApi
+public final class SharedMemoryEventLoopGroup extends MultithreadEventLoopGroup {
+    static {
+        // Ensure the transport is available before anything else is done.
+        SharedMemory.ensureAvailability();
+    }
+
+    /**
+     * Create a new instance with the default number of threads.
+     */
+    public SharedMemoryEventLoopGroup() {
+        this(0);
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param nThreads          the number of threads to use
+     */
+    public SharedMemoryEventLoopGroup(int nThreads) {
+        this(nThreads, (ThreadFactory) null);
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param nThreads          the number of threads to use
+     * @param threadFactory     the {@link ThreadFactory} or {@code null} to use the default
+     */
+    public SharedMemoryEventLoopGroup(int nThreads, ThreadFactory threadFactory) {
+        super(nThreads, threadFactory);
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param nThreads          the number of threads to use
+     * @param executor          the Executor to use, or {@code null} if the default should be used.
+     */
+    public SharedMemoryEventLoopGroup(int nThreads, Executor executor) {
+        super(nThreads, executor);
+    }
+
+    @Override
+    protected EventLoop newChild(Executor executor, Object... args) throws Exception {
+        return new SharedMemoryEventLoop(this, executor);
+    }
+}
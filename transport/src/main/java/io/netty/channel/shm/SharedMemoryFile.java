@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * The mapped file which holds the two {@link SharedMemoryRing}s of a connection, one per direction:
+ * <pre>
+ *   0: magic (long)     8: version (int)    12: ring capacity (int)
+ *  16: connected (long)
+ * 128: ring written by the creator, then the ring written by the connecting side
+ * </pre>
+ */
+final class SharedMemoryFile {
+    private static final long MAGIC = 0x4e45545459534d31L; // NETTYSM1
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 128;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 12;
+    private static final int CONNECTED_OFFSET = 16;
+
+    private final File file;
+    private final boolean creator;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final long address;
+    private final SharedMemoryRing inbound;
+    private final SharedMemoryRing outbound;
+
+    private SharedMemoryFile(File file, boolean creator, RandomAccessFile raf, MappedByteBuffer buffer,
+                             int capacity) {
+        this.file = file;
+        this.creator = creator;
+        this.raf = raf;
+        this.buffer = buffer;
+        address = PlatformDependent.directBufferAddress(buffer);
+        SharedMemoryRing first = new SharedMemoryRing(buffer, address, HEADER_SIZE, capacity);
+        SharedMemoryRing second = new SharedMemoryRing(
+                buffer, address, HEADER_SIZE + SharedMemoryRing.HEADER_SIZE + capacity, capacity);
+        outbound = creator ? first : second;
+        inbound = creator ? second : first;
+    }
+
+    /**
+     * Creates the file for the given address, which must not exist yet.
+     */
+    static SharedMemoryFile create(SharedMemoryAddress localAddress, int capacity) throws IOException {
+        File file = new File(localAddress.path());
+        if (!file.createNewFile()) {
+            throw new BindException("Address already in use: " + localAddress);
+        }
+        RandomAccessFile raf = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            raf.setLength(size(capacity));
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size(capacity));
+            SharedMemoryFile shm = new SharedMemoryFile(file, true, raf, buffer, capacity);
+            PlatformDependent.putInt(shm.address + VERSION_OFFSET, VERSION);
+            PlatformDependent.putInt(shm.address + CAPACITY_OFFSET, capacity);
+            // Written last so a connecting side never sees a partially initialized header.
+            PlatformDependent.putLongOrdered(shm.address + MAGIC_OFFSET, MAGIC);
+            return shm;
+        } catch (IOException e) {
+            closeQuietly(raf);
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the file of the given address, which was created by {@link #create(SharedMemoryAddress, int)}.
+     */
+    static SharedMemoryFile open(SharedMemoryAddress remoteAddress) throws IOException {
+        File file = new File(remoteAddress.path());
+        if (!file.isFile()) {
+            throw new ConnectException("No such file: " + remoteAddress);
+        }
+        RandomAccessFile raf = null;
+        MappedByteBuffer buffer = null;
+        try {
+            raf = new RandomAccessFile(file, "rw");
+            long length = raf.length();
+            if (length < HEADER_SIZE) {
+                throw new ConnectException("Not a shared-memory file: " + remoteAddress);
+            }
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            long address = PlatformDependent.directBufferAddress(buffer);
+            int capacity = PlatformDependent.getInt(address + CAPACITY_OFFSET);
+            if (PlatformDependent.getLongVolatile(address + MAGIC_OFFSET) != MAGIC ||
+                    PlatformDependent.getInt(address + VERSION_OFFSET) != VERSION || length != size(capacity)) {
+                throw new ConnectException("Not a shared-memory file: " + remoteAddress);
+            }
+            if (PlatformDependent.getLongVolatile(address + CONNECTED_OFFSET) != 0) {
+                throw new ConnectException("Already connected: " + remoteAddress);
+            }
+            SharedMemoryFile shm = new SharedMemoryFile(file, false, raf, buffer, capacity);
+            PlatformDependent.putLongOrdered(address + CONNECTED_OFFSET, 1);
+            return shm;
+        } catch (IOException e) {
+            if (buffer != null) {
+                PlatformDependent.freeDirectBuffer(buffer);
+            }
+            closeQuietly(raf);
+            throw e;
+        }
+    }
+
+    private static long size(int capacity) {
+        return HEADER_SIZE + 2L * (SharedMemoryRing.HEADER_SIZE + capacity);
+    }
+
+    /**
+     * Returns {@code true} once the other side opened the file.
+     */
+    boolean isConnected() {
+        return PlatformDependent.getLongVolatile(address + CONNECTED_OFFSET) != 0;
+    }
+
+    SharedMemoryRing inbound() {
+        return inbound;
+    }
+
+    SharedMemoryRing outbound() {
+        return outbound;
+    }
+
+    /**
+     * Signals the other side that nothing will be written anymore and unmaps the file, which is also deleted if it
+     * was created by this side. The rings must not be used anymore afterwards.
+     */
+    void close() {
+        outbound.closeProducer();
+        PlatformDependent.freeDirectBuffer(buffer);
+        closeQuietly(raf);
+        if (creator) {
+            file.delete();
+        }
+    }
+
+    private static void closeQuietly(RandomAccessFile raf) {
+        if (raf != null) {
+            try {
+                raf.close();
+            } catch (IOException ignore) {
+                // ignore
+            }
+        }
+    }
+}
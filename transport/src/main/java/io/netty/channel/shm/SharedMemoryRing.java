@@ -0,0 +1,204 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.internal.PlatformDependent;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A single-producer single-consumer ring of byte records in shared memory. A record is an {@code int} length
+ * followed by the data, padded to a multiple of {@code 8} bytes. A record never wraps, a negative length marks the
+ * unused end of the ring instead.
+ * <p>
+ * The header holds the producer position and flag and, on a separate cache line, the consumer position:
+ * <pre>
+ *   0: head (bytes written, long)    8: producer closed (long)
+ *  64: tail (bytes read, long)
+ * </pre>
+ */
+final class SharedMemoryRing {
+    static final int HEADER_SIZE = 128;
+
+    private static final int HEAD_OFFSET = 0;
+    private static final int CLOSED_OFFSET = 8;
+    private static final int TAIL_OFFSET = 64;
+    private static final int RECORD_HEADER_SIZE = 4;
+    private static final int PADDING = -1;
+
+    private final long headAddress;
+    private final long closedAddress;
+    private final long tailAddress;
+    private final long dataAddress;
+    private final ByteBuffer data;
+    private final int capacity;
+    private final int mask;
+    private final int maxRecordLength;
+
+    // Only used by the producer respectively the consumer.
+    private long head;
+    private long tail;
+
+    /**
+     * @param buffer the mapped buffer which contains the ring at the given offset
+     */
+    SharedMemoryRing(ByteBuffer buffer, long bufferAddress, int offset, int capacity) {
+        this.capacity = capacity;
+        mask = capacity - 1;
+        // Half the ring, so a record can always be written once the consumer caught up.
+        maxRecordLength = capacity / 2 - RECORD_HEADER_SIZE;
+        headAddress = bufferAddress + offset + HEAD_OFFSET;
+        closedAddress = bufferAddress + offset + CLOSED_OFFSET;
+        tailAddress = bufferAddress + offset + TAIL_OFFSET;
+        dataAddress = bufferAddress + offset + HEADER_SIZE;
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(offset + HEADER_SIZE);
+        data.limit(offset + HEADER_SIZE + capacity);
+        this.data = data.slice();
+
+        head = PlatformDependent.getLongVolatile(headAddress);
+        tail = PlatformDependent.getLongVolatile(tailAddress);
+    }
+
+    /**
+     * Copies as many of the readable bytes of {@code buf} as fit into a single record, without changing its indices.
+     *
+     * @return the number of bytes written, {@code 0} if the ring is full.
+     */
+    int write(ByteBuf buf) {
+        int readable = buf.readableBytes();
+        if (readable == 0) {
+            return 0;
+        }
+        long head = this.head;
+        long free = capacity - (head - PlatformDependent.getLongVolatile(tailAddress));
+        int offset = (int) (head & mask);
+        int contiguous = capacity - offset;
+        int max = Math.min(readable, maxRecordLength);
+
+        int length = (int) Math.min(max, Math.min(free, contiguous) - RECORD_HEADER_SIZE);
+        if (length < max && free - contiguous - RECORD_HEADER_SIZE > length) {
+            // More fits at the start of the ring, skip the end.
+            PlatformDependent.putInt(dataAddress + offset, PADDING);
+            head += contiguous;
+            offset = 0;
+            length = (int) Math.min(max, free - contiguous - RECORD_HEADER_SIZE);
+        }
+        if (length <= 0) {
+            return 0;
+        }
+
+        PlatformDependent.putInt(dataAddress + offset, length);
+        ByteBuffer data = this.data;
+        data.clear();
+        data.position(offset + RECORD_HEADER_SIZE);
+        data.limit(offset + RECORD_HEADER_SIZE + length);
+        buf.getBytes(buf.readerIndex(), data);
+
+        head += align(RECORD_HEADER_SIZE + length);
+        this.head = head;
+        PlatformDependent.putLongOrdered(headAddress, head);
+        return length;
+    }
+
+    /**
+     * Copies whole records into {@code buf} until it has no room for the next one. The first record is always
+     * copied, expanding {@code buf} if needed.
+     *
+     * @return the number of bytes read, {@code 0} if the ring is empty.
+     * @throws IOException if the other process wrote a position or record length which can not be valid, in which
+     *                     case the records before it are still returned by this call.
+     */
+    int read(ByteBuf buf) throws IOException {
+        long tail = this.tail;
+        long head = PlatformDependent.getLongVolatile(headAddress);
+        if (head - tail < 0 || head - tail > capacity) {
+            throw new IOException("Corrupt ring: head " + head + ", tail " + tail);
+        }
+        int read = 0;
+        while (tail != head) {
+            int offset = (int) (tail & mask);
+            int length = PlatformDependent.getInt(dataAddress + offset);
+            if (length == PADDING && tail + capacity - offset <= head) {
+                tail += capacity - offset;
+                continue;
+            }
+            // The length was written by the other process, so check it before it is used.
+            if (length <= 0 || length > maxRecordLength || offset + RECORD_HEADER_SIZE + length > capacity ||
+                    tail + align(RECORD_HEADER_SIZE + length) > head) {
+                if (read > 0) {
+                    // Return what was read so far, the next call fails.
+                    break;
+                }
+                throw new IOException("Corrupt record at " + tail + ": length " + length);
+            }
+            if (length > buf.writableBytes()) {
+                if (read > 0) {
+                    break;
+                }
+                buf.ensureWritable(length);
+            }
+            ByteBuffer data = this.data;
+            data.clear();
+            data.position(offset + RECORD_HEADER_SIZE);
+            data.limit(offset + RECORD_HEADER_SIZE + length);
+            buf.writeBytes(data);
+
+            tail += align(RECORD_HEADER_SIZE + length);
+            read += length;
+        }
+        if (tail != this.tail) {
+            this.tail = tail;
+            PlatformDependent.putLongOrdered(tailAddress, tail);
+        }
+        return read;
+    }
+
+    /**
+     * Returns {@code true} if the consumer has nothing to read.
+     */
+    boolean isEmpty() {
+        return tail == PlatformDependent.getLongVolatile(headAddress);
+    }
+
+    /**
+     * Returns the number of bytes written by the producer.
+     */
+    long producerPosition() {
+        return head;
+    }
+
+    /**
+     * Called by the producer once it will not write anymore.
+     */
+    void closeProducer() {
+        PlatformDependent.putLongOrdered(closedAddress, 1);
+    }
+
+    /**
+     * Returns {@code true} if the producer will not write anymore.
+     */
+    boolean isProducerClosed() {
+        return PlatformDependent.getLongVolatile(closedAddress) != 0;
+    }
+
+    private static int align(int length) {
+        return length + 7 & ~7;
+    }
+}
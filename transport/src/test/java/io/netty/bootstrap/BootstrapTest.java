@@ -41,14 +41,19 @@ import org.junit.AfterClass;
 import org.junit.Test;
 
 import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.net.SocketAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.*;
@@ -293,6 +298,111 @@ public class BootstrapTest {
         assertThat(connectFuture.channel(), is(not(nullValue())));
     }
 
+    @Test(timeout = 5000)
+    public void testHappyEyeballsSkipsRefusedAddress() throws Exception {
+        Channel serverChannel = new ServerBootstrap()
+                .group(groupB)
+                .channel(LocalServerChannel.class)
+                .childHandler(dummyHandler)
+                .bind(LocalAddress.ANY).sync().channel();
+        try {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(groupA)
+                    .channel(LocalChannel.class)
+                    .handler(dummyHandler)
+                    // Longer than the timeout of the test, so the next attempt starts because the first one failed.
+                    .connectionAttemptDelay(1, TimeUnit.MINUTES)
+                    .resolver(new MultiAddressResolverGroup(
+                            new LocalAddress("refused"), serverChannel.localAddress()));
+
+            ChannelFuture connectFuture = bootstrap.connect(InetSocketAddress.createUnresolved("multi", 1)).sync();
+            assertTrue(connectFuture.channel().isActive());
+            assertEquals(serverChannel.localAddress(), connectFuture.channel().remoteAddress());
+            connectFuture.channel().close().sync();
+        } finally {
+            serverChannel.close().sync();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testHappyEyeballsRacesSlowAddress() throws Exception {
+        // Accepted Channels of the slow server are not registered until the latch is released, so connecting to it
+        // does not complete.
+        final CountDownLatch latch = new CountDownLatch(1);
+        EventLoopGroup blockedGroup = new DefaultEventLoopGroup(1);
+        blockedGroup.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        Channel slowServerChannel = new ServerBootstrap()
+                .group(groupB, blockedGroup)
+                .channel(LocalServerChannel.class)
+                .childHandler(dummyHandler)
+                .bind(LocalAddress.ANY).sync().channel();
+        Channel serverChannel = new ServerBootstrap()
+                .group(groupB)
+                .channel(LocalServerChannel.class)
+                .childHandler(dummyHandler)
+                .bind(LocalAddress.ANY).sync().channel();
+        try {
+            Bootstrap bootstrap = new Bootstrap()
+                    .group(groupA)
+                    .channel(LocalChannel.class)
+                    .handler(dummyHandler)
+                    .connectionAttemptDelay(100, TimeUnit.MILLISECONDS)
+                    .resolver(new MultiAddressResolverGroup(
+                            slowServerChannel.localAddress(), serverChannel.localAddress()));
+
+            ChannelFuture connectFuture = bootstrap.connect(InetSocketAddress.createUnresolved("multi", 1));
+            Channel firstChannel = connectFuture.channel();
+            connectFuture.sync();
+            assertNotSame(firstChannel, connectFuture.channel());
+            assertEquals(serverChannel.localAddress(), connectFuture.channel().remoteAddress());
+            // The slow attempt was closed.
+            firstChannel.closeFuture().sync();
+            connectFuture.channel().close().sync();
+        } finally {
+            latch.countDown();
+            slowServerChannel.close().sync();
+            serverChannel.close().sync();
+            blockedGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testHappyEyeballsAllAddressesRefused() throws Exception {
+        Bootstrap bootstrap = new Bootstrap()
+                .group(groupA)
+                .channel(LocalChannel.class)
+                .handler(dummyHandler)
+                .connectionAttemptDelay(1, TimeUnit.MINUTES)
+                .resolver(new MultiAddressResolverGroup(new LocalAddress("refused1"), new LocalAddress("refused2")));
+
+        ChannelFuture connectFuture = bootstrap.connect(InetSocketAddress.createUnresolved("multi", 1)).await();
+        assertThat(connectFuture.cause(), is(instanceOf(ConnectException.class)));
+        connectFuture.channel().closeFuture().sync();
+    }
+
+    @Test
+    public void testHappyEyeballsInterleavesAddressFamilies() throws Exception {
+        SocketAddress v6a = new InetSocketAddress(InetAddress.getByName("::1"), 1);
+        SocketAddress v6b = new InetSocketAddress(InetAddress.getByName("::2"), 1);
+        SocketAddress v6c = new InetSocketAddress(InetAddress.getByName("::3"), 1);
+        SocketAddress v4a = new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 1);
+        SocketAddress v4b = new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 1);
+
+        assertEquals(Arrays.asList(v6a, v4a, v6b, v4b, v6c),
+                HappyEyeballsConnectPromise.interleave(Arrays.asList(v6a, v6b, v6c, v4a, v4b)));
+        assertEquals(Arrays.asList(v4a, v6a, v4b, v6b, v6c),
+                HappyEyeballsConnectPromise.interleave(Arrays.asList(v4a, v4b, v6a, v6b, v6c)));
+    }
+
     private static final class DelayedEventLoopGroup extends DefaultEventLoop {
         @Override
         public ChannelFuture register(final Channel channel, final ChannelPromise promise) {
@@ -386,4 +496,37 @@ public class BootstrapTest {
             };
         }
     }
+
+    /**
+     * Resolves any address which is not a {@link LocalAddress} to the given addresses.
+     */
+    private static final class MultiAddressResolverGroup extends AddressResolverGroup<SocketAddress> {
+
+        private final List<SocketAddress> addresses;
+
+        MultiAddressResolverGroup(SocketAddress... addresses) {
+            this.addresses = Arrays.asList(addresses);
+        }
+
+        @Override
+        protected AddressResolver<SocketAddress> newResolver(EventExecutor executor) throws Exception {
+            return new AbstractAddressResolver<SocketAddress>(executor) {
+
+                @Override
+                protected boolean doIsResolved(SocketAddress address) {
+                    return address instanceof LocalAddress;
+                }
+
+                @Override
+                protected void doResolve(SocketAddress unresolvedAddress, Promise<SocketAddress> promise) {
+                    promise.setSuccess(addresses.get(0));
+                }
+
+                @Override
+                protected void doResolveAll(SocketAddress unresolvedAddress, Promise<List<SocketAddress>> promise) {
+                    promise.setSuccess(addresses);
+                }
+            };
+        }
+    }
 }
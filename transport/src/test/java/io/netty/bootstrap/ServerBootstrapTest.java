@@ -15,6 +15,7 @@
  */
 package io.netty.bootstrap;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerAdapter;
@@ -22,18 +23,30 @@ import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
 import io.netty.channel.ChannelInitializer;
 import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.PipelineTemplate;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.channel.local.LocalAddress;
 import io.netty.channel.local.LocalChannel;
 import io.netty.channel.local.LocalEventLoopGroup;
 import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.ReferenceCountUtil;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 public class ServerBootstrapTest {
@@ -137,4 +150,114 @@ public class ServerBootstrapTest {
             group.shutdownGracefully();
         }
     }
+
+    @Test(timeout = 5000)
+    public void testChildTemplate() throws Exception {
+        final LocalAddress addr = new LocalAddress(UUID.randomUUID().toString());
+        final CountDownLatch readLatch = new CountDownLatch(1);
+        final AtomicReference<List<String>> names = new AtomicReference<List<String>>();
+
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        Channel sch = null;
+        Channel cch = null;
+        try {
+            ServerBootstrap sb = new ServerBootstrap();
+            sb.channel(LocalServerChannel.class)
+                    .group(group)
+                    .childTemplate(PipelineTemplate.builder()
+                            .addLast("first", new PipelineTemplate.HandlerFactory() {
+                                @Override
+                                public ChannelHandler newHandler(Channel channel) {
+                                    return new ChannelInboundHandlerAdapter() {
+                                        @Override
+                                        public void channelActive(ChannelHandlerContext ctx) {
+                                            names.set(ctx.pipeline().names());
+                                            ctx.fireChannelActive();
+                                        }
+                                    };
+                                }
+                            }).build())
+                    .childHandler(new ChannelInboundHandlerAdapter() {
+                        @Override
+                        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                            ReferenceCountUtil.release(msg);
+                            readLatch.countDown();
+                        }
+                    });
+            assertSame(sb.config().childTemplate(), sb.clone().config().childTemplate());
+
+            Bootstrap cb = new Bootstrap();
+            cb.group(group)
+                    .channel(LocalChannel.class)
+                    .handler(new ChannelInboundHandlerAdapter());
+
+            sch = sb.bind(addr).syncUninterruptibly().channel();
+            cch = cb.connect(addr).syncUninterruptibly().channel();
+            cch.writeAndFlush(Unpooled.buffer().writeInt(1)).syncUninterruptibly();
+
+            readLatch.await();
+            assertEquals("first", names.get().get(0));
+            assertEquals(3, names.get().size());
+        } finally {
+            if (sch != null) {
+                sch.close().syncUninterruptibly();
+            }
+            if (cch != null) {
+                cch.close().syncUninterruptibly();
+            }
+            group.shutdownGracefully();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testBatchChildRegistration() throws Exception {
+        testBatchChildRegistration(false);
+    }
+
+    @Test(timeout = 5000)
+    public void testBatchChildRegistrationWithoutReadComplete() throws Exception {
+        testBatchChildRegistration(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void testBatchChildRegistration(boolean runPendingTasks) throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        final CountDownLatch latch = new CountDownLatch(4);
+        try {
+            EmbeddedChannel server = new EmbeddedChannel();
+            server.pipeline().addLast(new ServerBootstrap.ServerBootstrapAcceptor(
+                    server, group, new ChannelInitializer<Channel>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            latch.countDown();
+                        }
+                    }, null, new Map.Entry[0], new Map.Entry[0], true));
+
+            List<Channel> children = new ArrayList<Channel>();
+            for (int i = 0; i < 4; i++) {
+                Channel child = new LocalChannel();
+                children.add(child);
+                server.pipeline().fireChannelRead(child);
+            }
+            for (Channel child: children) {
+                assertFalse(child.isRegistered());
+            }
+
+            if (runPendingTasks) {
+                server.runPendingTasks();
+            } else {
+                server.pipeline().fireChannelReadComplete();
+            }
+            latch.await();
+            Set<EventLoop> loops = new HashSet<EventLoop>();
+            for (Channel child: children) {
+                assertTrue(child.isRegistered());
+                loops.add(child.eventLoop());
+            }
+            assertEquals(2, loops.size());
+            assertFalse(server.finish());
+        } finally {
+            group.shutdownGracefully();
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveIoRatioTest {
+
+    @Test
+    public void testGrowingTaskQueueGivesTasksMoreTime() {
+        AdaptiveIoRatio ratio = new AdaptiveIoRatio(50);
+        long timeout = ratio.taskTimeoutNanos(TimeUnit.MILLISECONDS.toNanos(1), 1, 10);
+        assertEquals(45, ratio.ioRatio());
+        ratio.tasksRan(10);
+        for (int i = 0; i < 20; i++) {
+            long next = ratio.taskTimeoutNanos(TimeUnit.MILLISECONDS.toNanos(1), 1, 20 + i);
+            assertTrue(next >= timeout);
+            timeout = next;
+            ratio.tasksRan(20 + i);
+        }
+        assertEquals(10, ratio.ioRatio());
+    }
+
+    @Test
+    public void testReadyIoWithoutTasksGivesIoMoreTime() {
+        AdaptiveIoRatio ratio = new AdaptiveIoRatio(50);
+        for (int i = 0; i < 20; i++) {
+            ratio.taskTimeoutNanos(TimeUnit.MILLISECONDS.toNanos(1), 8, 0);
+            ratio.tasksRan(0);
+        }
+        assertEquals(90, ratio.ioRatio());
+    }
+
+    @Test
+    public void testStableLoadKeepsRatio() {
+        AdaptiveIoRatio ratio = new AdaptiveIoRatio(70);
+        ratio.tasksRan(5);
+        for (int i = 0; i < 20; i++) {
+            ratio.taskTimeoutNanos(TimeUnit.MILLISECONDS.toNanos(1), 0, 5);
+            ratio.tasksRan(5);
+        }
+        assertEquals(70, ratio.ioRatio());
+    }
+
+    @Test
+    public void testTasksAlwaysGetTimeSlice() {
+        AdaptiveIoRatio ratio = new AdaptiveIoRatio(90);
+        assertTrue(ratio.taskTimeoutNanos(0, 0, 0) > 0);
+    }
+}
@@ -26,6 +26,7 @@ import org.junit.Test;
 
 import java.net.SocketAddress;
 import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.Queue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.RejectedExecutionException;
@@ -36,6 +37,8 @@ import static org.junit.Assert.*;
 
 public class ChannelOutboundBufferTest {
 
+    private static final Charset US_ASCII = CharsetUtil.US_ASCII;
+
     @Test
     public void testEmptyNioBuffers() {
         TestChannel channel = new TestChannel();
@@ -124,6 +127,44 @@ public class ChannelOutboundBufferTest {
         buf.release();
     }
 
+    @Test
+    public void testCoalesceSmallMessages() {
+        TestChannel channel = new TestChannel();
+        ChannelOutboundBuffer buffer = new ChannelOutboundBuffer(channel, 8, 1024);
+
+        ChannelPromise promise = new DefaultChannelPromise(channel);
+        addMessage(buffer, "a", channel.voidPromise());
+        addMessage(buffer, "bb", channel.voidPromise());
+        addMessage(buffer, "ccc", promise);
+        addMessage(buffer, "0123456789", channel.voidPromise());
+        addMessage(buffer, "dd", channel.voidPromise());
+        addMessage(buffer, "e", channel.voidPromise());
+        buffer.addFlush();
+
+        // The Entry of "ccc" is kept to notify its promise.
+        assertEquals(4, buffer.size());
+        ByteBuffer[] buffers = buffer.nioBuffers();
+        assertEquals(3, buffer.nioBufferCount());
+        assertEquals("abbccc", US_ASCII.decode(buffers[0]).toString());
+        assertEquals("0123456789", US_ASCII.decode(buffers[1]).toString());
+        assertEquals("dde", US_ASCII.decode(buffers[2]).toString());
+        // The pending bytes of the removed entries are released together with the merged one.
+        assertEquals(19 + 6 * ChannelOutboundBuffer.CHANNEL_OUTBOUND_BUFFER_ENTRY_OVERHEAD,
+                buffer.totalPendingWriteBytes());
+
+        buffer.removeBytes(6);
+        assertTrue(promise.isSuccess());
+        assertEquals(2, buffer.size());
+        buffer.removeBytes(13);
+        assertTrue(buffer.isEmpty());
+        assertEquals(0, buffer.totalPendingWriteBytes());
+    }
+
+    private static void addMessage(ChannelOutboundBuffer buffer, String msg, ChannelPromise promise) {
+        ByteBuf buf = directBuffer().writeBytes(msg.getBytes(CharsetUtil.US_ASCII));
+        buffer.addMessage(buf, buf.readableBytes(), promise);
+    }
+
     private static void release(ChannelOutboundBuffer buffer) {
         for (;;) {
             if (!buffer.remove()) {
@@ -48,6 +48,7 @@ import org.junit.Test;
 import java.net.SocketAddress;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -57,8 +58,10 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
 
@@ -1637,6 +1640,172 @@ public class DefaultChannelPipelineTest {
         channel2.close().syncUninterruptibly();
     }
 
+    @Test
+    public void testContextsVersionChangesOnModification() {
+        DefaultChannelPipeline pipeline = (DefaultChannelPipeline) new LocalChannel().pipeline();
+        int version = pipeline.contextsVersion;
+        pipeline.addLast("a", new ChannelInboundHandlerAdapter());
+        assertTrue(version != (version = pipeline.contextsVersion));
+        pipeline.addFirst("b", new ChannelInboundHandlerAdapter());
+        assertTrue(version != (version = pipeline.contextsVersion));
+        pipeline.addBefore("a", "c", new ChannelInboundHandlerAdapter());
+        assertTrue(version != (version = pipeline.contextsVersion));
+        pipeline.addAfter("a", "d", new ChannelInboundHandlerAdapter());
+        assertTrue(version != (version = pipeline.contextsVersion));
+        pipeline.replace("a", "e", new ChannelInboundHandlerAdapter());
+        assertTrue(version != (version = pipeline.contextsVersion));
+        pipeline.remove("e");
+        assertTrue(version != pipeline.contextsVersion);
+    }
+
+    @Test
+    public void testChannelReadBatch() {
+        final List<String> events = new ArrayList<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(new BatchRecordingHandler("a", events),
+                new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        events.add("b:" + msg);
+                        ctx.fireChannelRead(msg);
+                    }
+                }, new BatchRecordingHandler("c", events));
+
+        ChannelReadBatch.fire(channel.pipeline(), Arrays.asList(1, 2, 3));
+        assertEquals(Arrays.asList("a:[1, 2, 3]", "b:1", "c:1", "b:2", "c:2", "b:3", "c:3"), events);
+        for (int i = 1; i <= 3; i++) {
+            assertEquals(i, (int) (Integer) channel.readInbound());
+        }
+        assertFalse(channel.finish());
+    }
+
+    @Test
+    public void testChannelReadBatchSkipsNonBatchHandlers() {
+        final List<String> events = new ArrayList<String>();
+        EmbeddedChannel channel = new EmbeddedChannel(new BatchRecordingHandler("a", events),
+                new ChannelInboundHandlerAdapter(), new BatchRecordingHandler("b", events));
+
+        ChannelReadBatch.fire(channel.pipeline(), Arrays.asList(1, 2));
+        assertEquals(Arrays.asList("a:[1, 2]", "b:[1, 2]"), events);
+        assertEquals(1, (int) (Integer) channel.readInbound());
+        assertEquals(2, (int) (Integer) channel.readInbound());
+        assertFalse(channel.finish());
+    }
+
+    private static final class BatchRecordingHandler extends ChannelInboundHandlerAdapter
+            implements ChannelInboundBatchHandler {
+        private final String name;
+        private final List<String> events;
+
+        BatchRecordingHandler(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            events.add(name + ':' + msg);
+            ctx.fireChannelRead(msg);
+        }
+
+        @Override
+        public void channelReadBatch(ChannelHandlerContext ctx, List<Object> msgs) {
+            events.add(name + ':' + msgs);
+            ChannelReadBatch.fire(ctx, msgs);
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testStagedWritesMergeOnlyConsecutiveFlushes() throws Exception {
+        final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+        ChannelOutboundHandlerAdapter recorder = new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ByteBuf buf = (ByteBuf) msg;
+                events.add(String.valueOf(buf.getInt(0)));
+                buf.release();
+                promise.setSuccess();
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                events.add("flush");
+            }
+        };
+        ChannelOutboundHandlerAdapter forwarder = new ChannelOutboundHandlerAdapter() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                ctx.write(msg, promise);
+            }
+
+            @Override
+            public void flush(ChannelHandlerContext ctx) {
+                ctx.flush();
+            }
+        };
+        Channel channel = new LocalChannel();
+        ((DefaultChannelPipeline) channel.pipeline()).stageCrossThreadWrites = true;
+        channel.pipeline().addLast(recorder, forwarder);
+        group.register(channel).syncUninterruptibly();
+        ChannelHandlerContext forwarderCtx = channel.pipeline().context(forwarder);
+
+        final CountDownLatch blocked = new CountDownLatch(1);
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        // All operations are issued from outside the EventLoop while it is blocked, so they are processed in one batch.
+        List<ChannelFuture> futures = new ArrayList<ChannelFuture>();
+        futures.add(channel.writeAndFlush(Unpooled.buffer().writeInt(0)));
+        futures.add(channel.writeAndFlush(Unpooled.buffer().writeInt(1)));
+        futures.add(channel.write(Unpooled.buffer().writeInt(2)));
+        futures.add(channel.writeAndFlush(Unpooled.buffer().writeInt(3)));
+        // A write of another context of the same Channel which is not flushed.
+        futures.add(forwarderCtx.write(Unpooled.buffer().writeInt(4)));
+        futures.add(channel.writeAndFlush(Unpooled.buffer().writeInt(5)));
+        futures.add(forwarderCtx.writeAndFlush(Unpooled.buffer().writeInt(6)));
+        futures.add(channel.write(Unpooled.buffer().writeInt(7)));
+        assertTrue(channel.unsafe().outboundBuffer().totalPendingWriteBytes() > 0);
+        assertTrue(events.isEmpty());
+        blocked.countDown();
+
+        for (ChannelFuture future : futures) {
+            future.syncUninterruptibly();
+        }
+        channel.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).syncUninterruptibly();
+        // Consecutive flushed writes of the same context are flushed once, writes which were not flushed by the
+        // caller are never flushed on its behalf.
+        assertEquals(Arrays.asList("0", "1", "flush", "2", "3", "flush", "4", "5", "flush", "6", "flush", "7"),
+                events);
+        assertEquals(0, channel.unsafe().outboundBuffer().totalPendingWriteBytes());
+        channel.close().syncUninterruptibly();
+    }
+
+    @Test(timeout = 5000)
+    public void testStagedWritesFailIfRejected() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        Channel channel = new LocalChannel();
+        ((DefaultChannelPipeline) channel.pipeline()).stageCrossThreadWrites = true;
+        group.register(channel).syncUninterruptibly();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+
+        ByteBuf msg = Unpooled.buffer().writeInt(1);
+        ChannelFuture future = channel.writeAndFlush(msg);
+        assertTrue(future.cause() instanceof RejectedExecutionException);
+        assertEquals(0, msg.refCnt());
+    }
+
     @Test(timeout = 5000)
     public void handlerAddedStateUpdatedBeforeHandlerAddedDoneForceEventLoop() throws InterruptedException {
         handlerAddedStateUpdatedBeforeHandlerAddedDone(true);
@@ -0,0 +1,168 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class DeferredFlushTest {
+
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel channel;
+
+    @After
+    public void tearDown() throws Exception {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testFlushDeferredToEndOfIteration() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        group.setMaxFlushDelay(1, TimeUnit.MINUTES);
+        CountDownLatch received = connect(group, 3);
+
+        long pendingAfterFlush = channel.eventLoop().submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                for (int i = 0; i < 3; i++) {
+                    channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+                }
+                return channel.unsafe().outboundBuffer().totalPendingWriteBytes();
+            }
+        }).sync().getNow();
+
+        // Nothing was written until the task returned.
+        assertTrue(pendingAfterFlush > 0);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        assertEquals(0, channel.unsafe().outboundBuffer().totalPendingWriteBytes());
+    }
+
+    @Test(timeout = 10000)
+    public void testMaxFlushDelayExceeded() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        group.setMaxFlushDelay(1, TimeUnit.NANOSECONDS);
+        CountDownLatch received = connect(group, 2);
+
+        long pendingAfterFlush = channel.eventLoop().submit(new Callable<Long>() {
+            @Override
+            public Long call() throws Exception {
+                channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+                Thread.sleep(1);
+                // The first flush is overdue so both are flushed now.
+                channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'b' }));
+                return channel.unsafe().outboundBuffer().totalPendingWriteBytes();
+            }
+        }).sync().getNow();
+
+        assertEquals(0, pendingAfterFlush);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWritesDeferredFlush() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        group.setMaxFlushDelay(1, TimeUnit.MINUTES);
+        CountDownLatch received = connect(group, 1);
+
+        final ChannelFuture writeFuture = channel.eventLoop().submit(new Callable<ChannelFuture>() {
+            @Override
+            public ChannelFuture call() {
+                ChannelFuture future = channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+                channel.close();
+                return future;
+            }
+        }).sync().getNow();
+
+        assertTrue(writeFuture.sync().isSuccess());
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testFlushNotDeferredByDefault() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        group.setMaxFlushDelay(0, TimeUnit.NANOSECONDS);
+        CountDownLatch received = connect(group, 1);
+
+        long pendingAfterFlush = channel.eventLoop().submit(new Callable<Long>() {
+            @Override
+            public Long call() {
+                channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+                return channel.unsafe().outboundBuffer().totalPendingWriteBytes();
+            }
+        }).sync().getNow();
+
+        assertEquals(0, pendingAfterFlush);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test(timeout = 10000)
+    public void testFlushDeferredByDefaultEventLoop() throws Exception {
+        DefaultEventLoopGroup group = new DefaultEventLoopGroup(1);
+        group.setMaxFlushDelay(1, TimeUnit.MINUTES);
+        CountDownLatch received = connect(group, 2);
+
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'a' }));
+        channel.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 'b' }));
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+    }
+
+    private CountDownLatch connect(EventLoopGroup group, int messages) throws Exception {
+        this.group = group;
+        final CountDownLatch received = new CountDownLatch(messages);
+        LocalAddress address = new LocalAddress(DeferredFlushTest.class.getSimpleName());
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        for (int i = buf.readableBytes(); i > 0; i--) {
+                            received.countDown();
+                        }
+                        buf.release();
+                    }
+                })
+                .bind(address).sync().channel();
+        channel = new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+        return received;
+    }
+}
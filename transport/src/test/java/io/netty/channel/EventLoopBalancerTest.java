@@ -0,0 +1,182 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.util.NetUtil;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class EventLoopBalancerTest {
+
+    private NioEventLoopGroup serverGroup;
+    private NioEventLoopGroup clientGroup;
+    private Channel serverChannel;
+    private final BlockingQueue<Integer> received = new LinkedBlockingQueue<Integer>();
+
+    @Before
+    public void setUp() {
+        serverGroup = new NioEventLoopGroup(1);
+        clientGroup = new NioEventLoopGroup(2);
+        serverChannel = new ServerBootstrap()
+                .group(serverGroup)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        try {
+                            while (buf.isReadable(4)) {
+                                received.add(buf.readInt());
+                            }
+                        } finally {
+                            buf.release();
+                        }
+                    }
+                })
+                .bind(new InetSocketAddress(NetUtil.LOCALHOST, 0)).syncUninterruptibly().channel();
+    }
+
+    @After
+    public void tearDown() {
+        serverChannel.close().syncUninterruptibly();
+        serverGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        clientGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private Channel connect(ChannelHandler handler) {
+        return new Bootstrap()
+                .group(clientGroup)
+                .channel(NioSocketChannel.class)
+                .handler(handler)
+                .connect(serverChannel.localAddress()).syncUninterruptibly().channel();
+    }
+
+    private EventLoop otherLoop(Channel channel) {
+        for (;;) {
+            EventLoop loop = clientGroup.next();
+            if (loop != channel.eventLoop()) {
+                return loop;
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testMigratePreservesPendingWritesAndHandlers() throws Exception {
+        final ChannelHandler handler = new ChannelInboundHandlerAdapter();
+        final Channel channel = connect(handler);
+        final EventLoop oldLoop = channel.eventLoop();
+        final EventLoop newLoop = otherLoop(channel);
+
+        channel.write(Unpooled.copyInt(1));
+        channel.write(Unpooled.copyInt(2));
+        ChannelFuture migrateFuture = EventLoopBalancer.migrate(channel, newLoop).sync();
+        assertTrue(migrateFuture.isSuccess());
+        assertSame(newLoop, channel.eventLoop());
+        assertFalse(oldLoop == channel.eventLoop());
+        assertSame(handler, channel.pipeline().first());
+        assertTrue(channel.isActive());
+
+        channel.writeAndFlush(Unpooled.copyInt(3)).sync();
+        assertEquals(1, (int) received.take());
+        assertEquals(2, (int) received.take());
+        assertEquals(3, (int) received.take());
+        channel.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testMigrateWhileWritingFromOtherThread() throws Exception {
+        final Channel channel = connect(new ChannelInboundHandlerAdapter());
+        final int count = 10000;
+        Thread writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = 0; i < count; i++) {
+                    channel.writeAndFlush(Unpooled.copyInt(i));
+                }
+            }
+        });
+        writer.start();
+        for (int i = 0; i < 10; i++) {
+            EventLoopBalancer.migrate(channel, otherLoop(channel)).sync();
+        }
+        writer.join();
+        // Writes that raced with a migration are processed in the order they were issued.
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (int) received.take());
+        }
+        channel.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testMigrateUnregisteredChannelFails() {
+        Channel channel = new NioSocketChannel();
+        ChannelFuture future = EventLoopBalancer.migrate(channel, clientGroup.next()).awaitUninterruptibly();
+        assertTrue(future.cause() instanceof IllegalStateException);
+        channel.unsafe().closeForcibly();
+    }
+
+    @Test(timeout = 10000)
+    public void testBalanceMovesHottestChannel() throws Exception {
+        EventLoopBalancer balancer = new EventLoopBalancer(clientGroup, 1, TimeUnit.HOURS, 0.5, 0);
+        Channel hot = connect(new ChannelInboundHandlerAdapter());
+        Channel cold = connect(new ChannelInboundHandlerAdapter());
+        EventLoop loop = hot.eventLoop();
+        if (cold.eventLoop() != loop) {
+            EventLoopBalancer.migrate(cold, loop).sync();
+        }
+        balancer.track(hot);
+        balancer.track(cold);
+
+        // Nothing happened yet, so there is nothing to balance.
+        assertNull(balancer.balance());
+
+        for (int i = 0; i < 99; i++) {
+            hot.write(Unpooled.copyInt(i));
+        }
+        hot.writeAndFlush(Unpooled.copyInt(99)).sync();
+        cold.writeAndFlush(Unpooled.copyInt(100)).sync();
+
+        ChannelFuture future = balancer.balance();
+        assertNotNull(future);
+        future.sync();
+        assertSame(hot, future.channel());
+        assertSame(loop, cold.eventLoop());
+        assertFalse(loop == hot.eventLoop());
+
+        hot.close().sync();
+        cold.close().sync();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EventLoopLagMonitorTest {
+
+    @Test(timeout = 5000)
+    public void testBlockedEventLoopLags() throws Exception {
+        EventLoopGroup group = new DefaultEventLoopGroup(2);
+        EventLoopLagMonitor monitor = new EventLoopLagMonitor(group, 10, TimeUnit.MILLISECONDS).start();
+        final CountDownLatch unblock = new CountDownLatch(1);
+        try {
+            group.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        unblock.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            Thread.sleep(200);
+            assertTrue(monitor.lagNanos() >= TimeUnit.MILLISECONDS.toNanos(100));
+        } finally {
+            unblock.countDown();
+            monitor.stop();
+            group.shutdownGracefully();
+        }
+        assertEquals(0, monitor.lagNanos());
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EwmaRecvByteBufAllocatorTest {
+    @Mock
+    private ChannelConfig config;
+    private ByteBufAllocator alloc = UnpooledByteBufAllocator.DEFAULT;
+    private EwmaRecvByteBufAllocator recvByteBufAllocator;
+    private RecvByteBufAllocator.ExtendedHandle handle;
+
+    @Before
+    public void setup() {
+        config = mock(ChannelConfig.class);
+        when(config.isAutoRead()).thenReturn(true);
+        recvByteBufAllocator = new EwmaRecvByteBufAllocator(64, 1024, 65536);
+        handle = newHandle();
+    }
+
+    private RecvByteBufAllocator.ExtendedHandle newHandle() {
+        RecvByteBufAllocator.ExtendedHandle handle =
+                (RecvByteBufAllocator.ExtendedHandle) recvByteBufAllocator.newHandle();
+        handle.reset(config);
+        return handle;
+    }
+
+    @Test
+    public void rampUpBeforeReadCompleteWhenLargeDataPending() {
+        allocReadExpected(handle, alloc, 1024);
+        allocReadExpected(handle, alloc, 2048);
+        allocReadExpected(handle, alloc, 4096);
+        allocReadExpected(handle, alloc, 8192);
+        handle.readComplete();
+
+        // The first read of the next cycle expects a larger message, and once it is full what is left of the bytes
+        // which were read by the last cycle.
+        handle.reset(config);
+        allocReadExpected(handle, alloc, 2048);
+        allocReadExpected(handle, alloc, 16384);
+    }
+
+    @Test
+    public void rampUpStopsAtMaximum() {
+        for (int size = 1024; size < 65536; size <<= 1) {
+            allocReadExpected(handle, alloc, size);
+        }
+        allocReadExpected(handle, alloc, 65536);
+        allocReadExpected(handle, alloc, 65536);
+    }
+
+    @Test
+    public void firstSmallReadShrinks() {
+        allocRead(handle, alloc, 1024, 100);
+        handle.readComplete();
+
+        handle.reset(config);
+        allocReadExpected(handle, alloc, 112);
+    }
+
+    @Test
+    public void largeMessageDoesNotGrowFirstReadOfSmallMessages() {
+        for (int i = 0; i < 8; i++) {
+            handle.reset(config);
+            allocRead(handle, alloc, handle.guess(), 100);
+            handle.readComplete();
+        }
+
+        handle.reset(config);
+        allocReadExpected(handle, alloc, 112);
+        allocReadExpected(handle, alloc, 224);
+        allocReadExpected(handle, alloc, 448);
+        allocReadExpected(handle, alloc, 1024);
+        allocRead(handle, alloc, 2048, 1);
+        handle.readComplete();
+
+        handle.reset(config);
+        allocRead(handle, alloc, 176, 100);
+        handle.readComplete();
+    }
+
+    @Test
+    public void smallMessagesAfterLargeOnesShrinkSlowly() {
+        for (int i = 0; i < 3; i++) {
+            handle.reset(config);
+            allocReadExpected(handle, alloc, handle.guess());
+            allocRead(handle, alloc, handle.guess(), 1);
+            handle.readComplete();
+        }
+        handle.reset(config);
+        assertEquals(8192, handle.guess());
+
+        // A tiny message in between large ones keeps the buffer size.
+        allocRead(handle, alloc, 8192, 10);
+        handle.readComplete();
+        handle.reset(config);
+        assertEquals(8192, handle.guess());
+
+        // Only a flow of tiny messages shrinks the buffers down to the minimum.
+        int cycles = 0;
+        while (handle.guess() != 64) {
+            allocRead(handle, alloc, handle.guess(), 10);
+            handle.readComplete();
+            handle.reset(config);
+            cycles++;
+        }
+        assertTrue(cycles > 1);
+        assertTrue(cycles < 64);
+    }
+
+    @Test
+    public void newHandleStartsFromSharedEstimate() {
+        allocReadExpected(handle, alloc, 1024);
+        allocReadExpected(handle, alloc, 2048);
+        allocReadExpected(handle, alloc, 4096);
+        allocRead(handle, alloc, 8192, 1);
+        handle.readComplete();
+
+        RecvByteBufAllocator.ExtendedHandle handle2 = newHandle();
+        allocReadExpected(handle2, alloc, 2048);
+        allocReadExpected(handle2, alloc, 8192);
+    }
+
+    @Test
+    public void readableBytesSizeNextReadAfterFullRead() {
+        assertFalse(EwmaRecvByteBufAllocator.needsReadableBytes(handle));
+        allocRead(handle, alloc, 1024, 100);
+        assertFalse(EwmaRecvByteBufAllocator.needsReadableBytes(handle));
+
+        allocReadExpected(handle, alloc, 112);
+        RecvByteBufAllocator.Handle delegating = new RecvByteBufAllocator.DelegatingHandle(handle) { };
+        assertTrue(EwmaRecvByteBufAllocator.needsReadableBytes(delegating));
+        EwmaRecvByteBufAllocator.readableBytes(delegating, 30000);
+        allocReadExpected(handle, alloc, 32768);
+
+        // Nothing readable yet keeps the guess based on the averages.
+        EwmaRecvByteBufAllocator.readableBytes(handle, 0);
+        assertEquals(65536, handle.guess());
+        handle.readComplete();
+        handle.reset(config);
+        assertFalse(EwmaRecvByteBufAllocator.needsReadableBytes(handle));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidInitial() {
+        new EwmaRecvByteBufAllocator(64, 32, 1024);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidMaximum() {
+        new EwmaRecvByteBufAllocator(64, 1024, 512);
+    }
+
+    private static void allocReadExpected(RecvByteBufAllocator.ExtendedHandle handle,
+                                          ByteBufAllocator alloc,
+                                          int expectedSize) {
+        allocRead(handle, alloc, expectedSize, expectedSize);
+    }
+
+    private static void allocRead(RecvByteBufAllocator.ExtendedHandle handle,
+                                  ByteBufAllocator alloc,
+                                  int expectedBufferSize,
+                                  int lastRead) {
+        ByteBuf buf = handle.allocate(alloc);
+        assertEquals(expectedBufferSize, buf.capacity());
+        handle.attemptedBytesRead(expectedBufferSize);
+        handle.lastBytesRead(lastRead);
+        handle.incMessagesRead(1);
+        buf.release();
+    }
+}
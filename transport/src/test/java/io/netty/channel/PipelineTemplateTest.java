@@ -0,0 +1,162 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
+import org.junit.AfterClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PipelineTemplateTest {
+
+    private static final EventLoopGroup group = new DefaultEventLoopGroup(1);
+
+    @AfterClass
+    public static void afterClass() throws Exception {
+        group.shutdownGracefully().sync();
+    }
+
+    @Test
+    public void testApplyBeforeRegistration() throws Exception {
+        final AtomicInteger handlerAdded = new AtomicInteger();
+        SharedHandler shared = new SharedHandler();
+        PipelineTemplate template = PipelineTemplate.builder()
+                .addLast("shared", shared)
+                .addLast("perChannel", new PipelineTemplate.HandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return new ChannelInboundHandlerAdapter() {
+                            @Override
+                            public void handlerAdded(ChannelHandlerContext ctx) {
+                                assertTrue(ctx.executor().inEventLoop());
+                                handlerAdded.incrementAndGet();
+                            }
+                        };
+                    }
+                }).build();
+
+        Channel channel = new LocalChannel();
+        Channel channel2 = new LocalChannel();
+        template.apply(channel.pipeline());
+        template.apply(channel2.pipeline());
+        assertEquals(Arrays.asList("shared", "perChannel", "DefaultChannelPipeline$TailContext#0"),
+                channel.pipeline().names());
+        assertSame(shared, channel.pipeline().get("shared"));
+        assertSame(shared, channel2.pipeline().get("shared"));
+        assertNotSame(channel.pipeline().get("perChannel"), channel2.pipeline().get("perChannel"));
+        assertEquals(0, handlerAdded.get());
+
+        group.register(channel).syncUninterruptibly();
+        group.register(channel2).syncUninterruptibly();
+        assertEquals(2, handlerAdded.get());
+        channel.close().syncUninterruptibly();
+        channel2.close().syncUninterruptibly();
+    }
+
+    @Test
+    public void testApplyAfterRegistration() {
+        final List<String> events = new ArrayList<String>();
+        PipelineTemplate template = PipelineTemplate.builder()
+                .addLast("a", new PipelineTemplate.HandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return new RecordingHandler("a", events);
+                    }
+                })
+                .addLast(null, new SharedHandler())
+                .addLast("b", new PipelineTemplate.HandlerFactory() {
+                    @Override
+                    public ChannelHandler newHandler(Channel channel) {
+                        return new RecordingHandler("b", events);
+                    }
+                }).build();
+        assertEquals(Arrays.asList("a", "PipelineTemplateTest$SharedHandler#0", "b"), template.names());
+
+        EmbeddedChannel channel = new EmbeddedChannel();
+        template.apply(channel.pipeline());
+        assertEquals(Arrays.asList("a:added", "b:added"), events);
+
+        assertTrue(channel.writeInbound("msg"));
+        assertEquals(Arrays.asList("a:added", "b:added", "a:msg", "b:msg"), events);
+        assertEquals("msg", channel.readInbound());
+        channel.finish();
+    }
+
+    @Test
+    public void testApplyToNonEmptyPipeline() {
+        PipelineTemplate template = PipelineTemplate.builder()
+                .addLast("shared", new SharedHandler()).build();
+        EmbeddedChannel channel = new EmbeddedChannel();
+        channel.pipeline().addLast("first", new ChannelInboundHandlerAdapter());
+        template.apply(channel.pipeline());
+        assertEquals("shared", channel.pipeline().names().get(1));
+
+        try {
+            template.apply(channel.pipeline());
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // The name is not unique anymore.
+        }
+        channel.finish();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDuplicateName() {
+        PipelineTemplate.builder().addLast("a", new SharedHandler()).addLast("a", new SharedHandler());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNotSharable() {
+        PipelineTemplate.builder().addLast("a", new ChannelInboundHandlerAdapter());
+    }
+
+    @Sharable
+    private static final class SharedHandler extends ChannelInboundHandlerAdapter {
+    }
+
+    private static final class RecordingHandler extends ChannelInboundHandlerAdapter {
+        private final String name;
+        private final List<String> events;
+
+        RecordingHandler(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void handlerAdded(ChannelHandlerContext ctx) {
+            events.add(name + ":added");
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            events.add(name + ':' + msg);
+            ctx.fireChannelRead(msg);
+        }
+    }
+}
@@ -103,8 +103,20 @@ public class ReentrantChannelTest extends BaseChannelTest {
      */
     @Test
     public void testFlushInWritabilityChanged() throws Exception {
+        testFlushInWritabilityChanged(false);
+    }
+
+    /**
+     * Same as {@link #testFlushInWritabilityChanged()}, but the write is staged, which must not change the events.
+     */
+    @Test
+    public void testFlushInWritabilityChangedStaged() throws Exception {
+        testFlushInWritabilityChanged(true);
+    }
+
+    private void testFlushInWritabilityChanged(boolean staged) throws Exception {
 
-        LocalAddress addr = new LocalAddress("testFlushInWritabilityChanged");
+        LocalAddress addr = new LocalAddress("testFlushInWritabilityChanged" + staged);
 
         ServerBootstrap sb = getLocalServerBootstrap();
         sb.bind(addr).sync().channel();
@@ -114,6 +126,7 @@ public class ReentrantChannelTest extends BaseChannelTest {
         setInterest(Event.WRITE, Event.FLUSH, Event.WRITABILITY);
 
         Channel clientChannel = cb.connect(addr).sync().channel();
+        ((DefaultChannelPipeline) clientChannel.pipeline()).stageCrossThreadWrites = staged;
         clientChannel.config().setWriteBufferLowWaterMark(512);
         clientChannel.config().setWriteBufferHighWaterMark(1024);
 
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ScratchRecvByteBufAllocatorTest {
+    private final ByteBufAllocator alloc = UnpooledByteBufAllocator.DEFAULT;
+    private RecvByteBufAllocator.Handle handle;
+
+    @Before
+    public void setup() {
+        ChannelConfig config = mock(ChannelConfig.class);
+        when(config.isAutoRead()).thenReturn(true);
+        handle = new ScratchRecvByteBufAllocator(1024, 64).newHandle();
+        handle.reset(config);
+    }
+
+    @Test
+    public void testSmallReadIsCopied() {
+        ByteBuf buf = handle.allocate(alloc);
+        assertEquals(1024, buf.writableBytes());
+        buf.writeBytes(new byte[] { 1, 2, 3 });
+
+        ByteBuf received = ScratchRecvByteBufAllocator.received(handle, buf);
+        assertNotSame(buf, received);
+        assertEquals(3, received.capacity());
+        assertEquals(3, received.readableBytes());
+        assertEquals(1, received.getByte(0));
+        assertEquals(3, received.getByte(2));
+
+        // The same space of the scratch buffer is used again.
+        ByteBuf next = handle.allocate(alloc);
+        assertEquals(1024, next.writableBytes());
+        next.writeByte(4);
+        assertEquals(1, received.getByte(0));
+        next.release();
+        received.release();
+    }
+
+    @Test
+    public void testLargeReadIsSliced() {
+        ByteBuf buf = handle.allocate(alloc);
+        for (int i = 0; i < 100; i++) {
+            buf.writeByte(i);
+        }
+
+        ByteBuf received = ScratchRecvByteBufAllocator.received(handle, buf);
+        assertEquals(100, received.readableBytes());
+        assertEquals(100, received.maxCapacity());
+
+        // The next read uses the space after the slice.
+        ByteBuf next = handle.allocate(alloc);
+        assertEquals(924, next.writableBytes());
+        next.writeZero(next.writableBytes());
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, received.getByte(i));
+        }
+        next.release();
+
+        // Less than an eighth of the scratch buffer is left, so a new one is used.
+        buf = handle.allocate(alloc);
+        buf.writeZero(900);
+        ScratchRecvByteBufAllocator.received(handle, buf).release();
+        ByteBuf fresh = handle.allocate(alloc);
+        assertEquals(1024, fresh.writableBytes());
+        fresh.release();
+
+        assertEquals(1, received.refCnt());
+        received.release();
+    }
+
+    @Test
+    public void testOtherHandleIsIgnored() {
+        RecvByteBufAllocator.Handle other = new FixedRecvByteBufAllocator(16).newHandle();
+        ByteBuf buf = other.allocate(alloc);
+        assertSame(buf, ScratchRecvByteBufAllocator.received(other, buf));
+        buf.release();
+    }
+}
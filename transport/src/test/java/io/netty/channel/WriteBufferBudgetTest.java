@@ -0,0 +1,263 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.WriteBufferBudget.Policy;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class WriteBufferBudgetTest {
+
+    @Test
+    public void testThrottleLargest() {
+        WriteBufferBudget budget = new WriteBufferBudget(100, 200, Policy.LARGEST);
+        EmbeddedChannel small = new EmbeddedChannel();
+        EmbeddedChannel large = new EmbeddedChannel();
+
+        increment(budget, small, 60);
+        increment(budget, large, 120);
+        assertEquals(180, budget.pendingBytes());
+        assertEquals(0, budget.throttledChannels());
+        assertTrue(small.isWritable());
+        assertTrue(large.isWritable());
+
+        // Throttling the largest channel brings the pending bytes below the low limit. The channels are chosen by a
+        // task on the event loop of the channel which exceeded the limit.
+        increment(budget, small, 30);
+        assertEquals(210, budget.pendingBytes());
+        assertEquals(0, budget.throttledChannels());
+        small.runPendingTasks();
+        assertEquals(1, budget.throttledChannels());
+        assertTrue(small.isWritable());
+        assertFalse(large.isWritable());
+
+        // Still above the low limit.
+        decrement(budget, small, 80);
+        assertFalse(large.isWritable());
+
+        decrement(budget, large, 60);
+        assertEquals(70, budget.pendingBytes());
+        assertEquals(0, budget.throttledChannels());
+        assertTrue(large.isWritable());
+
+        decrement(budget, small, 10);
+        decrement(budget, large, 60);
+        assertEquals(0, budget.pendingBytes());
+        assertFalse(small.finish());
+        assertFalse(large.finish());
+    }
+
+    @Test
+    public void testThrottleOldest() throws Exception {
+        WriteBufferBudget budget = new WriteBufferBudget(100, 200, Policy.OLDEST);
+        EmbeddedChannel old = new EmbeddedChannel();
+        EmbeddedChannel young = new EmbeddedChannel();
+
+        increment(budget, old, 60);
+        Thread.sleep(1);
+        increment(budget, young, 150);
+        young.runPendingTasks();
+        assertEquals(2, budget.throttledChannels());
+        assertFalse(old.isWritable());
+        assertFalse(young.isWritable());
+
+        // A channel whose buffer is empty is released right away.
+        decrement(budget, old, 60);
+        assertEquals(1, budget.throttledChannels());
+        assertTrue(old.isWritable());
+        assertFalse(young.isWritable());
+
+        decrement(budget, young, 150);
+        assertEquals(0, budget.throttledChannels());
+        assertTrue(young.isWritable());
+        assertFalse(old.finish());
+        assertFalse(young.finish());
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWithUnflushedWritesReleasesBudget() throws Exception {
+        WriteBufferBudget budget = new WriteBufferBudget(1024, 2048, Policy.LARGEST);
+        EventLoopGroup group = new DefaultEventLoopGroup(1);
+        ((MultithreadEventLoopGroup) group).setWriteBufferBudget(budget);
+        List<Channel> servers = new ArrayList<Channel>();
+        try {
+            final Channel throttled = connect(group, servers);
+            final Channel other = connect(group, servers);
+
+            // Flushed writes are accounted to the budget while pending and released once written.
+            other.writeAndFlush(Unpooled.wrappedBuffer(new byte[512])).sync();
+            // The write future is notified before the written bytes are released in the same task.
+            awaitPendingTasks(other);
+            assertEquals(0, budget.pendingBytes());
+            assertEquals(0, budget.pendingChannels());
+
+            ChannelFuture unflushed = throttled.eventLoop().submit(new Callable<ChannelFuture>() {
+                @Override
+                public ChannelFuture call() {
+                    return throttled.write(Unpooled.wrappedBuffer(new byte[4096]));
+                }
+            }).sync().getNow();
+            // The scan which throttles the channel runs after the write.
+            awaitPendingTasks(throttled);
+            // The pending bytes include the overhead of the entry.
+            assertTrue(budget.pendingBytes() > 4096);
+            assertEquals(throttled.unsafe().outboundBuffer().totalPendingWriteBytes(), budget.pendingBytes());
+            assertEquals(1, budget.pendingChannels());
+            assertEquals(1, budget.throttledChannels());
+            assertFalse(throttled.isWritable());
+
+            throttled.close().sync();
+            // Same for the close future and the outbound buffer.
+            awaitPendingTasks(throttled);
+            assertFalse(unflushed.isSuccess());
+            assertEquals(0, budget.pendingBytes());
+            assertEquals(0, budget.pendingChannels());
+            assertEquals(0, budget.throttledChannels());
+
+            // The bytes of the closed channel do not count against the others.
+            other.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    other.write(Unpooled.wrappedBuffer(new byte[1536]));
+                }
+            }).sync();
+            assertEquals(other.unsafe().outboundBuffer().totalPendingWriteBytes(), budget.pendingBytes());
+            assertEquals(0, budget.throttledChannels());
+            assertTrue(other.isWritable());
+            other.close().sync();
+            awaitPendingTasks(other);
+            assertEquals(0, budget.pendingBytes());
+            assertEquals(0, budget.pendingChannels());
+        } finally {
+            for (Channel server: servers) {
+                server.close().sync();
+            }
+            group.shutdownGracefully().sync();
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testScanWhileSizesChange() throws Exception {
+        final List<EmbeddedChannel> channels = new ArrayList<EmbeddedChannel>();
+        for (int i = 0; i < 1024; i++) {
+            channels.add(new EmbeddedChannel());
+        }
+        final AtomicBoolean done = new AtomicBoolean();
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+        // Changes the sizes of the buffers while they are sorted, without ever making them unwritable on their own.
+        Thread resizer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    Random random = new Random();
+                    while (!done.get()) {
+                        ChannelOutboundBuffer buffer = channels.get(random.nextInt(channels.size()))
+                                .unsafe().outboundBuffer();
+                        if (random.nextBoolean() && buffer.totalPendingWriteBytes() < 16384) {
+                            buffer.incrementPendingOutboundBytes(random.nextInt(1024) + 1);
+                        } else {
+                            buffer.decrementPendingOutboundBytes(
+                                    Math.min(buffer.totalPendingWriteBytes() - 1, random.nextInt(1024)));
+                        }
+                    }
+                } catch (Throwable cause) {
+                    error.set(cause);
+                }
+            }
+        });
+        for (EmbeddedChannel channel: channels) {
+            increment(channel, 1);
+        }
+        resizer.start();
+        try {
+            for (int i = 0; i < 500; i++) {
+                WriteBufferBudget budget = new WriteBufferBudget(0, 0, i % 2 == 0 ? Policy.LARGEST : Policy.OLDEST);
+                for (EmbeddedChannel channel: channels) {
+                    ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+                    budget.incremented(buffer, 1, 1);
+                }
+                for (EmbeddedChannel channel: channels) {
+                    channel.runPendingTasks();
+                }
+                assertTrue(budget.throttledChannels() > 0);
+            }
+        } finally {
+            done.set(true);
+            resizer.join();
+        }
+        assertNull(error.get());
+        for (EmbeddedChannel channel: channels) {
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static void awaitPendingTasks(Channel channel) throws InterruptedException {
+        channel.eventLoop().submit(new Runnable() {
+            @Override
+            public void run() {
+                // NOOP
+            }
+        }).sync();
+    }
+
+    private static Channel connect(EventLoopGroup group, List<Channel> servers) throws InterruptedException {
+        LocalAddress address = new LocalAddress(WriteBufferBudgetTest.class.getSimpleName() + servers.size());
+        servers.add(new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInboundHandlerAdapter())
+                .bind(address).sync().channel());
+        return new Bootstrap()
+                .group(group)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+    }
+
+    private static void increment(WriteBufferBudget budget, Channel channel, long size) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        buffer.incrementPendingOutboundBytes(size);
+        budget.incremented(buffer, size, buffer.totalPendingWriteBytes());
+    }
+
+    private static void increment(Channel channel, long size) {
+        channel.unsafe().outboundBuffer().incrementPendingOutboundBytes(size);
+    }
+
+    private static void decrement(WriteBufferBudget budget, Channel channel, long size) {
+        ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+        buffer.decrementPendingOutboundBytes(size);
+        budget.decremented(buffer, size, buffer.totalPendingWriteBytes());
+    }
+}
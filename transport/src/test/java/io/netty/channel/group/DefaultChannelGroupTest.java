@@ -16,15 +16,28 @@
 package io.netty.channel.group;
 
 import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
 import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.DefaultEventLoopGroup;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.channel.local.LocalChannel;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.GlobalEventExecutor;
 import org.junit.Test;
 
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
 public class DefaultChannelGroupTest {
 
     // Test for #1183
@@ -57,4 +70,54 @@ public class DefaultChannelGroupTest {
         bossGroup.terminationFuture().sync();
         workerGroup.terminationFuture().sync();
     }
+
+    @Test
+    public void testBroadcast() throws Exception {
+        DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+        EmbeddedChannel[] channels = new EmbeddedChannel[3];
+        for (int i = 0; i < channels.length; i++) {
+            channels[i] = new EmbeddedChannel(DefaultChannelId.newInstance());
+            group.add(channels[i]);
+        }
+
+        ByteBuf message = Unpooled.copiedBuffer("broadcast", CharsetUtil.US_ASCII);
+        Future<Void> future = group.broadcast(message, ChannelMatchers.all(), false);
+        assertTrue(future.sync().isSuccess());
+
+        for (EmbeddedChannel ch: channels) {
+            ByteBuf buf = ch.readOutbound();
+            assertEquals("broadcast", buf.toString(CharsetUtil.US_ASCII));
+            buf.release();
+            assertFalse(ch.finish());
+        }
+        assertEquals(0, message.refCnt());
+    }
+
+    @Test(timeout = 10000)
+    public void testBroadcastFailure() throws Exception {
+        EventLoopGroup eventLoopGroup = new DefaultEventLoopGroup(2);
+        try {
+            DefaultChannelGroup group = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+            for (int i = 0; i < 4; i++) {
+                // Registered but not connected, so all writes fail.
+                Channel ch = new LocalChannel();
+                eventLoopGroup.register(ch).sync();
+                group.add(ch);
+            }
+
+            ByteBuf message = Unpooled.copiedBuffer("broadcast", CharsetUtil.US_ASCII);
+            Future<Void> future = group.broadcast(message, ChannelMatchers.all(), false).await();
+            assertFalse(future.isSuccess());
+            ChannelGroupException cause = (ChannelGroupException) future.cause();
+            int failed = 0;
+            for (Object ignored: cause) {
+                failed++;
+            }
+            assertEquals(4, failed);
+            assertEquals(0, message.refCnt());
+            group.close().sync();
+        } finally {
+            eventLoopGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
 }
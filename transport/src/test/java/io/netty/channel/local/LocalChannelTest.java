@@ -44,8 +44,11 @@ import org.junit.Test;
 
 import java.net.ConnectException;
 import java.nio.channels.ClosedChannelException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -690,6 +693,114 @@ public class LocalChannelTest {
         }
     }
 
+    @Test
+    public void testPeerWriteInWritePromiseCompleteSameEventLoopReadsInline() throws Exception {
+        Bootstrap cb = new Bootstrap();
+        ServerBootstrap sb = new ServerBootstrap();
+        final BlockingQueue<Object> clientReceived = new LinkedBlockingQueue<Object>();
+        final AtomicReference<Channel> serverChannelRef = new AtomicReference<Channel>();
+        final CountDownLatch serverChannelLatch = new CountDownLatch(1);
+        // A deferred flush would deliver the request only after the task, so pin flushing to be immediate.
+        DefaultEventLoopGroup group = new DefaultEventLoopGroup(1);
+        group.setMaxFlushDelay(0, SECONDS);
+
+        cb.group(group)
+        .channel(LocalChannel.class)
+        .handler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                clientReceived.add(msg);
+            }
+        });
+
+        sb.group(group)
+        .channel(LocalServerChannel.class)
+        .childHandler(new ChannelInitializer<LocalChannel>() {
+            @Override
+            public void initChannel(LocalChannel ch) {
+                serverChannelRef.set(ch);
+                serverChannelLatch.countDown();
+            }
+        });
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(TEST_ADDRESS).syncUninterruptibly().channel();
+            cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+            assertTrue(serverChannelLatch.await(5, SECONDS));
+
+            final Channel ccCpy = cc;
+            Future<Integer> receivedAfterWrite = cc.eventLoop().submit(new Callable<Integer>() {
+                @Override
+                public Integer call() {
+                    ChannelPromise promise = ccCpy.newPromise();
+                    promise.addListener(new ChannelFutureListener() {
+                        @Override
+                        public void operationComplete(ChannelFuture future) {
+                            // The client is still writing, so it reads the reply once its write completed.
+                            serverChannelRef.get().writeAndFlush("reply");
+                        }
+                    });
+                    ccCpy.writeAndFlush("request", promise);
+                    return clientReceived.size();
+                }
+            });
+
+            // Delivered before the write returned, without a task.
+            assertEquals(1, (int) receivedAfterWrite.syncUninterruptibly().getNow());
+            assertEquals("reply", clientReceived.poll());
+        } finally {
+            closeChannel(cc);
+            closeChannel(sc);
+            group.shutdownGracefully(0, 0, SECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testManyFlushesDifferentEventLoopPreservesOrder() throws Exception {
+        Bootstrap cb = new Bootstrap();
+        ServerBootstrap sb = new ServerBootstrap();
+        final int messages = 10000;
+        final CountDownLatch latch = new CountDownLatch(messages);
+        final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+
+        cb.group(group1)
+        .channel(LocalChannel.class)
+        .handler(new TestHandler());
+
+        sb.group(group2)
+        .channel(LocalServerChannel.class)
+        .childHandler(new ChannelInboundHandlerAdapter() {
+            private int expected;
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (!Integer.valueOf(expected++).equals(msg)) {
+                    error.compareAndSet(null, new AssertionError("unexpected message: " + msg));
+                }
+                latch.countDown();
+            }
+        });
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(TEST_ADDRESS).syncUninterruptibly().channel();
+            cc = cb.connect(sc.localAddress()).syncUninterruptibly().channel();
+
+            // Each flush hands its messages to the server's EventLoop, while a read is pending they share it.
+            for (int i = 0; i < messages; i++) {
+                cc.writeAndFlush(i);
+            }
+            latch.await();
+            assertNull(error.get());
+        } finally {
+            closeChannel(cc);
+            closeChannel(sc);
+        }
+    }
+
     @Test
     public void testWriteWhilePeerIsClosedReleaseObjectAndFailPromise() throws InterruptedException {
         Bootstrap cb = new Bootstrap();
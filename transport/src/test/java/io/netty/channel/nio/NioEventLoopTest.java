@@ -30,6 +30,7 @@ import io.netty.util.concurrent.DefaultEventExecutorChooserFactory;
 import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.TaskLane;
 import io.netty.util.concurrent.ThreadPerTaskExecutor;
 import org.hamcrest.core.IsInstanceOf;
 import org.junit.Ignore;
@@ -41,7 +42,10 @@ import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.channels.spi.SelectorProvider;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
@@ -63,6 +67,88 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
         return NioServerSocketChannel.class;
     }
 
+    @Test(timeout = 5000)
+    public void testAdaptiveIoRatio() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            NioEventLoop loop = (NioEventLoop) group.next();
+            assertFalse(loop.isAdaptiveIoRatio());
+            group.setAdaptiveIoRatio(true);
+            assertTrue(loop.isAdaptiveIoRatio());
+
+            // Without I/O the tasks get a minimal time slice. For cheap tasks the deadline is checked less often than
+            // every 64 tasks once the cost of the tasks is known.
+            List<Long> checks = deadlineChecks(loop, 0, 100000);
+            long maxInterval = 0;
+            for (int i = 1; i < checks.size(); i++) {
+                maxInterval = Math.max(maxInterval, checks.get(i) - checks.get(i - 1));
+            }
+            assertTrue(String.valueOf(maxInterval), maxInterval > 64);
+
+            // Tasks which are more expensive than the time slice are checked after the first 64 tasks, as before.
+            checks = deadlineChecks(loop, TimeUnit.MICROSECONDS.toNanos(50), 256);
+            // The last check may have happened once all tasks ran.
+            for (int i = 1; i < checks.size() && checks.get(i) < 256; i++) {
+                assertEquals(checks.toString(), 64, checks.get(i) - checks.get(i - 1));
+            }
+
+            group.setAdaptiveIoRatio(false);
+            assertFalse(loop.isAdaptiveIoRatio());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Returns after how many tasks the deadline was checked, observed by a {@link TaskLane#HIGH} task which runs
+     * whenever the deadline is checked.
+     */
+    private static List<Long> deadlineChecks(final NioEventLoop loop, final long taskNanos, final int tasks)
+            throws Exception {
+        final List<Long> checks = new ArrayList<Long>();
+        final CountDownLatch done = new CountDownLatch(tasks);
+        loop.execute(new Runnable() {
+            private long ran;
+            private boolean checkPending;
+
+            @Override
+            public void run() {
+                final Runnable check = new Runnable() {
+                    @Override
+                    public void run() {
+                        checkPending = false;
+                        checks.add(ran);
+                    }
+                };
+                for (int i = 0; i < tasks; i++) {
+                    loop.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (!checkPending) {
+                                checkPending = true;
+                                loop.execute(check, TaskLane.HIGH);
+                            }
+                            long start = System.nanoTime();
+                            while (System.nanoTime() - start < taskNanos) {
+                                // Busy spin.
+                            }
+                            ran ++;
+                            done.countDown();
+                        }
+                    });
+                }
+            }
+        });
+        done.await();
+        // Let the last check run and publish the results to this thread.
+        return loop.submit(new Callable<List<Long>>() {
+            @Override
+            public List<Long> call() {
+                return new ArrayList<Long>(checks);
+            }
+        }).sync().getNow();
+    }
+
     @Test
     public void testRebuildSelector() {
         EventLoopGroup group = new NioEventLoopGroup(1);
@@ -0,0 +1,189 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.pool;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class EventLoopAffineChannelPoolTest {
+    private static final String LOCAL_ADDR_ID = "test.id";
+
+    private EventLoopGroup group;
+    private Channel sc;
+    private Bootstrap cb;
+
+    @Before
+    public void setUp() throws Exception {
+        group = new DefaultEventLoopGroup(2);
+        LocalAddress addr = new LocalAddress(LOCAL_ADDR_ID);
+        cb = new Bootstrap();
+        cb.remoteAddress(addr);
+        cb.group(group)
+          .channel(LocalChannel.class);
+
+        ServerBootstrap sb = new ServerBootstrap();
+        sb.group(group)
+          .channel(LocalServerChannel.class)
+          .childHandler(new ChannelInitializer<LocalChannel>() {
+              @Override
+              public void initChannel(LocalChannel ch) throws Exception {
+                  ch.pipeline().addLast(new ChannelInboundHandlerAdapter());
+              }
+          });
+
+        // Start server
+        sc = sb.bind(addr).sync().channel();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        sc.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+    }
+
+    @Test
+    public void testAcquirePrefersCallerEventLoop() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopAffineChannelPool pool = new EventLoopAffineChannelPool(cb, handler);
+        EventLoop loopA = group.next();
+        EventLoop loopB = group.next();
+        assertNotSame(loopA, loopB);
+
+        Channel channelA = acquire(pool, loopA);
+        Channel channelB = acquire(pool, loopB);
+        assertSame(loopA, channelA.eventLoop());
+        assertSame(loopB, channelB.eventLoop());
+        assertEquals(2, pool.acquiredChannels());
+        assertEquals(0, pool.idleChannels());
+
+        pool.release(channelA).syncUninterruptibly();
+        pool.release(channelB).syncUninterruptibly();
+        assertEquals(0, pool.acquiredChannels());
+        assertEquals(2, pool.idleChannels());
+
+        // Each EventLoop gets its own Channel back.
+        assertSame(channelB, acquire(pool, loopB));
+        assertSame(channelA, acquire(pool, loopA));
+        assertEquals(0, pool.stealCount());
+        assertEquals(2, handler.channelCount());
+        assertEquals(4, handler.acquiredCount());
+        assertEquals(4, pool.acquireCount());
+        assertTrue(pool.acquireLatencyNanos() > 0);
+
+        pool.release(channelA).syncUninterruptibly();
+        pool.release(channelB).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test
+    public void testStealIfEmpty() throws Exception {
+        CountingChannelPoolHandler handler = new CountingChannelPoolHandler();
+        EventLoopAffineChannelPool pool = new EventLoopAffineChannelPool(cb, handler);
+        EventLoop loopA = group.next();
+        EventLoop loopB = group.next();
+
+        Channel channel = acquire(pool, loopA);
+        pool.release(channel).syncUninterruptibly();
+
+        // The sub-pool of loopB is empty so the idle Channel of loopA is used instead of connecting a new one.
+        assertSame(channel, acquire(pool, loopB));
+        assertEquals(1, pool.stealCount());
+        assertEquals(1, handler.channelCount());
+
+        pool.release(channel).syncUninterruptibly();
+        pool.close();
+        assertFalse(channel.isOpen());
+    }
+
+    @Test
+    public void testUnhealthyChannelIsReplaced() throws Exception {
+        EventLoopAffineChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler());
+        EventLoop loop = group.next();
+
+        Channel channel = acquire(pool, loop);
+        pool.release(channel).syncUninterruptibly();
+        channel.close().syncUninterruptibly();
+
+        Channel channel2 = acquire(pool, loop);
+        assertNotSame(channel, channel2);
+        assertTrue(channel2.isActive());
+
+        pool.release(channel2).syncUninterruptibly();
+        pool.close();
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchHealthCheck() throws Exception {
+        ChannelHealthChecker unhealthy = new ChannelHealthChecker() {
+            @Override
+            public Future<Boolean> isHealthy(Channel channel) {
+                return channel.eventLoop().newSucceededFuture(Boolean.FALSE);
+            }
+        };
+        EventLoopAffineChannelPool pool = new EventLoopAffineChannelPool(
+                cb, new CountingChannelPoolHandler(), unhealthy, 10, TimeUnit.MILLISECONDS);
+
+        Channel channel = acquire(pool, group.next());
+        pool.release(channel).syncUninterruptibly();
+        assertEquals(1, pool.idleChannels());
+
+        // The periodic check removes the idle Channel.
+        channel.closeFuture().sync();
+        assertEquals(0, pool.idleChannels());
+        pool.close();
+    }
+
+    @Test
+    public void testReleaseForeignChannel() throws Exception {
+        EventLoopAffineChannelPool pool = new EventLoopAffineChannelPool(cb, new CountingChannelPoolHandler());
+        Channel channel = cb.clone().handler(new ChannelInboundHandlerAdapter()).connect().sync().channel();
+        try {
+            pool.release(channel).syncUninterruptibly();
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+            assertFalse(channel.isActive());
+        }
+        pool.close();
+    }
+
+    private static Channel acquire(final ChannelPool pool, EventLoop loop) throws Exception {
+        return loop.submit(new Callable<Future<Channel>>() {
+            @Override
+            public Future<Channel> call() {
+                return pool.acquire();
+            }
+        }).sync().getNow().sync().getNow();
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * Copyright 2019 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.shm;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.Promise;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.BindException;
+import java.net.ConnectException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class SharedMemoryChannelTest {
+
+    private EventLoopGroup group;
+    private SharedMemoryAddress address;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(SharedMemory.isAvailable());
+        group = new SharedMemoryEventLoopGroup(2);
+        File file = File.createTempFile("netty-shm", ".ring");
+        assertTrue(file.delete());
+        address = new SharedMemoryAddress(file);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (group != null) {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testEcho() throws Exception {
+        testEcho(1024 * 1024, 16);
+    }
+
+    @Test(timeout = 10000)
+    public void testEchoWrapsAroundSmallRing() throws Exception {
+        // Much more data than fits into the rings, so writes need to wait for the peer.
+        testEcho(SharedMemoryChannelConfig.MIN_RING_CAPACITY, 256 * 1024);
+    }
+
+    private void testEcho(int ringCapacity, int length) throws Exception {
+        Channel bound = new Bootstrap()
+                .group(group)
+                .channel(SharedMemoryChannel.class)
+                .option(SharedMemoryChannelOption.RING_CAPACITY, ringCapacity)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ctx.writeAndFlush(msg);
+                    }
+                })
+                .bind(address).sync().channel();
+        assertFalse(bound.isActive());
+        assertTrue(new File(address.path()).isFile());
+
+        final ByteBuf received = Unpooled.buffer(length);
+        final Promise<Void> done = group.next().newPromise();
+        Channel connected = new Bootstrap()
+                .group(group)
+                .channel(SharedMemoryChannel.class)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                        ByteBuf buf = (ByteBuf) msg;
+                        received.writeBytes(buf);
+                        buf.release();
+                        if (!received.isWritable()) {
+                            done.setSuccess(null);
+                        }
+                    }
+                })
+                .connect(address).sync().channel();
+        assertTrue(connected.isActive());
+        assertEquals(address, connected.remoteAddress());
+
+        byte[] data = new byte[length];
+        new Random().nextBytes(data);
+        connected.writeAndFlush(Unpooled.wrappedBuffer(data)).sync();
+        done.sync();
+        assertTrue(bound.isActive());
+        assertEquals(Unpooled.wrappedBuffer(data), received);
+        received.release();
+
+        connected.close().sync();
+        bound.closeFuture().sync();
+        assertFalse(new File(address.path()).exists());
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseBoundChannelClosesPeer() throws Exception {
+        Channel bound = newBootstrap().bind(address).sync().channel();
+        Channel connected = newBootstrap().connect(address).sync().channel();
+
+        bound.close().sync();
+        connected.closeFuture().sync();
+        assertFalse(new File(address.path()).exists());
+    }
+
+    @Test(timeout = 10000)
+    public void testBindTwice() throws Exception {
+        Channel bound = newBootstrap().bind(address).sync().channel();
+        assertTrue(newBootstrap().bind(address).await().cause() instanceof BindException);
+        bound.close().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testConnectWithoutPeer() throws Exception {
+        ChannelFuture future = newBootstrap().connect(address).await();
+        assertTrue(future.cause() instanceof ConnectException);
+        // Closed by the Bootstrap.
+        future.channel().closeFuture().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testSecondConnectFails() throws Exception {
+        Channel bound = newBootstrap().bind(address).sync().channel();
+        Channel connected = newBootstrap().connect(address).sync().channel();
+        assertTrue(newBootstrap().connect(address).await().cause() instanceof ConnectException);
+        connected.close().sync();
+        bound.closeFuture().sync();
+    }
+
+    @Test(timeout = 10000)
+    public void testCorruptRecordLengthClosesChannel() throws Exception {
+        final int capacity = SharedMemoryChannelConfig.MIN_RING_CAPACITY;
+        final Promise<Throwable> caught = group.next().newPromise();
+        Channel bound = new Bootstrap()
+                .group(group)
+                .channel(SharedMemoryChannel.class)
+                .option(SharedMemoryChannelOption.RING_CAPACITY, capacity)
+                .option(ChannelOption.AUTO_READ, false)
+                .handler(new ChannelInboundHandlerAdapter() {
+                    @Override
+                    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+                        caught.trySuccess(cause);
+                    }
+                })
+                .bind(address).sync().channel();
+        Channel connected = newBootstrap().connect(address).sync().channel();
+        connected.writeAndFlush(Unpooled.wrappedBuffer(new byte[16])).sync();
+
+        // Overwrite the length of the first record in the ring written by the connecting side.
+        RandomAccessFile raf = new RandomAccessFile(address.path(), "rw");
+        try {
+            raf.seek(128 + SharedMemoryRing.HEADER_SIZE + capacity + SharedMemoryRing.HEADER_SIZE);
+            raf.writeInt(0x7f7f7f7f);
+        } finally {
+            raf.close();
+        }
+
+        bound.config().setAutoRead(true);
+        assertTrue(caught.sync().getNow() instanceof IOException);
+        bound.closeFuture().sync();
+        connected.closeFuture().sync();
+    }
+
+    private Bootstrap newBootstrap() {
+        return new Bootstrap()
+                .group(group)
+                .channel(SharedMemoryChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+    }
+}